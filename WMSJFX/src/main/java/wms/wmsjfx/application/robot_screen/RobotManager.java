@@ -1,6 +1,7 @@
 package wms.wmsjfx.application.robot_screen;
 
 
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 
@@ -13,7 +14,7 @@ import wms.wmsjfx.taskManager.Task;
 public class RobotManager {
     private static final ObservableList<Robot> ROBOTS = FXCollections.observableArrayList();
 
-    public static void initializeRobot(List<Robot> avaiRobot, List<Task> getPendingTasks) {
+    public static void initializeRobot(Collection<Robot> avaiRobot, List<Task> getPendingTasks) {
         ROBOTS.clear();
         for (Robot robot : avaiRobot) {
             ROBOTS.add(robot);
@@ -0,0 +1,204 @@
+package wms.wmsjfx.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+import wms.wmsjfx.taskManager.TaskPriority;
+
+/**
+ * A message between cluster nodes. On the wire every message is one frame:
+ * a 4-byte big-endian length of the rest, a 1-byte type, then the fields of
+ * that type (strings as modified UTF-8 with a 2-byte length, see DataOutput).
+ * <pre>
+ * HELLO              sender
+ * ORDER_SUBMITTED    origin, taskId, productId, quantity, priority, slaMillis
+ * STOCK_SUBMITTED    origin, taskId, loadingStationId, productId, quantity, priority, slaMillis
+ * TASK_FINISHED      sender, taskId
+ * INVENTORY_CHANGED  sender, productId, signed amount
+ * </pre>
+ */
+public final class ClusterMessage {
+
+    /** Largest frame accepted, length prefix excluded. */
+    static final int MAX_FRAME_BYTES = 64 * 1024;
+
+    public enum Type {
+        HELLO,             // first frame on every connection
+        ORDER_SUBMITTED,   // an order for the receiver's zone
+        STOCK_SUBMITTED,   // a stock task for the receiver's zone
+        TASK_FINISHED,     // a forwarded task finished on the sender
+        INVENTORY_CHANGED  // a product's quantity changed on the sender
+    }
+
+    private final Type type;
+    private final int nodeId; // sender, or the node a forwarded task came from
+    private final String taskId;
+    private final String productId;
+    private final String loadingStationId;
+    private final int quantity;
+    private final TaskPriority priority;
+    private final long slaMillis;
+
+    private ClusterMessage(Type type, int nodeId, String taskId, String productId, String loadingStationId,
+                           int quantity, TaskPriority priority, long slaMillis) {
+        this.type = type;
+        this.nodeId = nodeId;
+        this.taskId = taskId;
+        this.productId = productId;
+        this.loadingStationId = loadingStationId;
+        this.quantity = quantity;
+        this.priority = priority;
+        this.slaMillis = slaMillis;
+    }
+
+    public static ClusterMessage hello(int nodeId) {
+        return new ClusterMessage(Type.HELLO, nodeId, null, null, null, 0, null, 0);
+    }
+
+    public static ClusterMessage orderSubmitted(int origin, String taskId, String productId, int quantity,
+                                                TaskPriority priority, long slaMillis) {
+        return new ClusterMessage(Type.ORDER_SUBMITTED, origin, taskId, productId, null, quantity, priority, slaMillis);
+    }
+
+    public static ClusterMessage stockSubmitted(int origin, String taskId, String loadingStationId, String productId,
+                                                int quantity, TaskPriority priority, long slaMillis) {
+        return new ClusterMessage(Type.STOCK_SUBMITTED, origin, taskId, productId, loadingStationId, quantity, priority, slaMillis);
+    }
+
+    public static ClusterMessage taskFinished(int nodeId, String taskId) {
+        return new ClusterMessage(Type.TASK_FINISHED, nodeId, taskId, null, null, 0, null, 0);
+    }
+
+    public static ClusterMessage inventoryChanged(int nodeId, String productId, int amount) {
+        return new ClusterMessage(Type.INVENTORY_CHANGED, nodeId, null, productId, null, amount, null, 0);
+    }
+
+    /**
+     * The message as one frame, ready to write.
+     */
+    public ByteBuffer toFrame() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0); // length, filled in below
+            out.writeByte(type.ordinal());
+            out.writeInt(nodeId);
+            switch (type) {
+                case HELLO -> { }
+                case ORDER_SUBMITTED -> {
+                    out.writeUTF(taskId);
+                    out.writeUTF(productId);
+                    out.writeInt(quantity);
+                    out.writeByte(priority.ordinal());
+                    out.writeLong(slaMillis);
+                }
+                case STOCK_SUBMITTED -> {
+                    out.writeUTF(taskId);
+                    out.writeUTF(loadingStationId);
+                    out.writeUTF(productId);
+                    out.writeInt(quantity);
+                    out.writeByte(priority.ordinal());
+                    out.writeLong(slaMillis);
+                }
+                case TASK_FINISHED -> out.writeUTF(taskId);
+                case INVENTORY_CHANGED -> {
+                    out.writeUTF(productId);
+                    out.writeInt(quantity);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen in memory
+        }
+        ByteBuffer frame = ByteBuffer.wrap(bytes.toByteArray());
+        frame.putInt(0, frame.capacity() - Integer.BYTES);
+        return frame;
+    }
+
+    /**
+     * Reads one message from a frame body (everything after the length prefix).
+     * @throws ProtocolException if the body is not a valid message
+     */
+    static ClusterMessage fromFrameBody(byte[] body) throws ProtocolException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+            int typeIndex = in.readUnsignedByte();
+            if (typeIndex >= Type.values().length) {
+                throw new ProtocolException("Unknown message type " + typeIndex);
+            }
+            Type type = Type.values()[typeIndex];
+            int nodeId = in.readInt();
+            ClusterMessage message = switch (type) {
+                case HELLO -> hello(nodeId);
+                case ORDER_SUBMITTED -> orderSubmitted(nodeId, in.readUTF(), in.readUTF(), in.readInt(),
+                        priority(in.readUnsignedByte()), in.readLong());
+                case STOCK_SUBMITTED -> stockSubmitted(nodeId, in.readUTF(), in.readUTF(), in.readUTF(), in.readInt(),
+                        priority(in.readUnsignedByte()), in.readLong());
+                case TASK_FINISHED -> taskFinished(nodeId, in.readUTF());
+                case INVENTORY_CHANGED -> inventoryChanged(nodeId, in.readUTF(), in.readInt());
+            };
+            if (in.available() > 0) {
+                throw new ProtocolException(in.available() + " stray bytes after " + type);
+            }
+            return message;
+        } catch (ProtocolException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new ProtocolException("Truncated frame: " + e);
+        }
+    }
+
+    private static TaskPriority priority(int index) throws ProtocolException {
+        if (index >= TaskPriority.values().length) {
+            throw new ProtocolException("Unknown priority " + index);
+        }
+        return TaskPriority.values()[index];
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public String getLoadingStationId() {
+        return loadingStationId;
+    }
+
+    /** Quantity of a task, or the signed amount of an inventory change. */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public TaskPriority getPriority() {
+        return priority;
+    }
+
+    public long getSlaMillis() {
+        return slaMillis;
+    }
+
+    @Override
+    public String toString() {
+        return switch (type) {
+            case HELLO -> type + "(" + nodeId + ")";
+            case ORDER_SUBMITTED -> type + "(" + nodeId + ", " + taskId + ", " + quantity + "x " + productId + ")";
+            case STOCK_SUBMITTED -> type + "(" + nodeId + ", " + taskId + ", " + quantity + "x " + productId + " from " + loadingStationId + ")";
+            case TASK_FINISHED -> type + "(" + nodeId + ", " + taskId + ")";
+            case INVENTORY_CHANGED -> type + "(" + nodeId + ", " + productId + ", " + quantity + ")";
+        };
+    }
+}
@@ -0,0 +1,535 @@
+package wms.wmsjfx.cluster;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import wms.wmsjfx.equipmentManager.EquipmentManager;
+import wms.wmsjfx.equipmentManager.RobotExecution;
+import wms.wmsjfx.logger.Logger;
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.taskManager.OrderTask;
+import wms.wmsjfx.taskManager.OrderTaskException;
+import wms.wmsjfx.taskManager.StockTask;
+import wms.wmsjfx.taskManager.Task;
+import wms.wmsjfx.warehouse.LoadingStation;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * One process of a warehouse cluster. Every node loads the same floor and
+ * inventory but dispatches only for its own zone: its EquipmentManager runs
+ * the robots and stations inside that zone. Nodes talk over TCP in
+ * ClusterMessage frames, with a single NIO selector thread per node.
+ * - A task submitted here (see getSubmissionQueue, e.g. from a TaskManager)
+ *   whose first stop is in another node's zone is sent to that node.
+ *   Orders and stock tasks are forwarded; anything else runs where it was submitted.
+ * - When a forwarded task finishes, the node that ran it tells the node it came from.
+ * - Every inventory change is sent to all other nodes, which apply it to their copy,
+ *   so the copies are only eventually consistent.
+ * Each node connects to every other node and sends on those connections only;
+ * it reads on the connections it accepted. Outgoing frames queue up while a
+ * peer is not reachable yet. Task ids must be unique per submitting node.
+ * Nodes run on real or scaled time: discrete-event time cannot span processes.
+ */
+public final class ClusterNode {
+
+    private static final long RECONNECT_DELAY_MS = 100;
+
+    private final int nodeId;
+    private final List<InetSocketAddress> addresses; // by node id
+    private final List<Rectangle> zones;             // by node id
+    private final WarehouseManager warehouseManager;
+    private final EquipmentManager equipmentManager;
+    private final BlockingQueue<Task> submissionQueue = new LinkedBlockingQueue<>(); // tasks submitted on this node
+    private final BlockingQueue<Task> localQueue = new LinkedBlockingQueue<>();      // tasks for our own zone
+    private final Map<Task, Integer> remoteOrigins = new ConcurrentHashMap<>();     // tasks run here for another node
+    private final Map<Integer, Connection> outbound = new LinkedHashMap<>();         // by peer, fixed after construction
+    private final Queue<Connection> writeRequests = new ConcurrentLinkedQueue<>();
+    private final Set<Integer> greeted = ConcurrentHashMap.newKeySet(); // peers whose HELLO came in
+    private final CountDownLatch connected;                              // outbound connects + inbound HELLOs
+    private final List<Consumer<String>> completionListeners = new CopyOnWriteArrayList<>();
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(16 * 1024); // selector thread only
+
+    private volatile boolean stopping = false;
+    private volatile Selector selector;
+    private volatile ServerSocketChannel server;
+    private volatile Thread selectorThread;
+    private volatile Thread routerThread;
+    private volatile Thread dispatcherThread;
+    Logger logger = new Logger();
+
+    private static final class Connection {
+        final int peerId; // -1 for an accepted connection until its HELLO arrives
+        final Queue<ByteBuffer> inbox = new ConcurrentLinkedQueue<>(); // frames from any thread
+        final Deque<ByteBuffer> outgoing = new ArrayDeque<>();        // selector thread only
+        final FrameDecoder decoder = new FrameDecoder();
+        SocketChannel channel;
+        SelectionKey key;
+        boolean open;       // connected and not closed
+        boolean everOpened;
+        long retryAt;
+        int greetedPeer = -1;
+
+        Connection(int peerId) {
+            this.peerId = peerId;
+        }
+    }
+
+    /**
+     * @param addresses where each node listens, by node id
+     * @param zones     the part of the floor each node runs, by node id; disjoint
+     * @param clock     real or scaled time
+     */
+    public ClusterNode(int nodeId,
+                       List<InetSocketAddress> addresses,
+                       List<Rectangle> zones,
+                       WarehouseManager warehouseManager,
+                       PathFinding pathFinding,
+                       RobotExecution robotExecution,
+                       SimulationClock clock) {
+        if (addresses.size() != zones.size()) {
+            throw new IllegalArgumentException(addresses.size() + " addresses for " + zones.size() + " zones");
+        }
+        if (nodeId < 0 || nodeId >= addresses.size()) {
+            throw new IllegalArgumentException("No node " + nodeId + " in a cluster of " + addresses.size());
+        }
+        this.nodeId = nodeId;
+        this.addresses = List.copyOf(addresses);
+        this.zones = List.copyOf(zones);
+        this.warehouseManager = warehouseManager;
+        this.equipmentManager = new EquipmentManager(warehouseManager, localQueue, pathFinding, robotExecution, clock,
+                zones.get(nodeId));
+        if (equipmentManager.getPackingStationCount() == 0) {
+            throw new IllegalArgumentException("Zone of node " + nodeId + " has no packing station");
+        }
+        for (int peer = 0; peer < addresses.size(); peer++) {
+            if (peer != nodeId) {
+                outbound.put(peer, new Connection(peer));
+            }
+        }
+        this.connected = new CountDownLatch(2 * outbound.size());
+        equipmentManager.addTaskFinishedListener(this::taskFinished);
+        warehouseManager.addQuantityListener(this::quantityChanged);
+    }
+
+    /**
+     * Binds the listening socket and starts the selector, the router and the zone's dispatcher.
+     * @throws IOException if this node's address cannot be bound
+     */
+    public void start() throws IOException {
+        Selector sel = Selector.open();
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(addresses.get(nodeId));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(sel, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            sel.close();
+            throw e;
+        }
+        selector = sel;
+        server = serverChannel;
+
+        Thread selectorLoop = new Thread(this::runSelector, "Cluster-Selector-" + nodeId);
+        Thread router = new Thread(this::runRouter, "Cluster-Router-" + nodeId);
+        Thread dispatcher = new Thread(equipmentManager, "EM-Dispatcher-Node" + nodeId);
+        for (Thread t : List.of(selectorLoop, router, dispatcher)) {
+            t.setDaemon(true);
+        }
+        equipmentManager.registerDispatcherThread(dispatcher);
+        selectorThread = selectorLoop;
+        routerThread = router;
+        dispatcherThread = dispatcher;
+        selectorLoop.start();
+        router.start();
+        dispatcher.start();
+        logger.log_print("info", "system", "[Cluster] Node " + nodeId + " listening on " + addresses.get(nodeId));
+    }
+
+    /**
+     * Waits until this node is connected to every peer and every peer to it.
+     * @return false if the timeout passed first
+     */
+    public boolean awaitConnected(long timeout, TimeUnit unit) throws InterruptedException {
+        return connected.await(timeout, unit);
+    }
+
+    /**
+     * Stops the network threads and the zone's EquipmentManager.
+     */
+    public void stop(long timeoutMs) throws InterruptedException {
+        stopping = true;
+        Selector sel = selector;
+        if (sel != null) {
+            sel.wakeup();
+        }
+        for (Thread t : new Thread[]{routerThread, selectorThread}) {
+            if (t != null) {
+                t.interrupt();
+                t.join(Math.max(1, timeoutMs));
+            }
+        }
+        equipmentManager.stop(timeoutMs);
+        Thread dispatcher = dispatcherThread;
+        if (dispatcher != null) {
+            dispatcher.join(Math.max(1, timeoutMs));
+        }
+    }
+
+    // --- Routing ---
+
+    private void runRouter() {
+        try {
+            while (!stopping) {
+                route(submissionQueue.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs a submitted task here or sends it to the node whose zone holds its first stop.
+     */
+    void route(Task task) {
+        Point firstStop = switch (task.getType()) {
+            case PICK_ORDER -> ((OrderTask) task).getItemLocation();
+            case STOCK_ITEM -> ((StockTask) task).getLoadingStationLocation();
+            default -> null; // not forwarded
+        };
+        int owner = firstStop == null ? nodeId : zoneOf(firstStop);
+        if (owner < 0 || owner == nodeId) {
+            localQueue.add(task);
+            return;
+        }
+        ClusterMessage message;
+        if (task instanceof OrderTask order) {
+            message = ClusterMessage.orderSubmitted(nodeId, order.getID(), order.getItemName(), order.getQuantity(),
+                    order.getPriority(), order.getSlaMillis());
+        } else {
+            StockTask stock = (StockTask) task;
+            message = ClusterMessage.stockSubmitted(nodeId, stock.getID(), stock.getLoadingStationId(),
+                    stock.getProductID(), stock.getQuantity(), stock.getPriority(), stock.getSlaMillis());
+        }
+        forwarded.increment();
+        send(owner, message);
+    }
+
+    /**
+     * Index of the node whose zone holds 'cell', or -1.
+     */
+    public int zoneOf(Point cell) {
+        for (int i = 0; i < zones.size(); i++) {
+            if (zones.get(i).contains(cell)) return i;
+        }
+        return -1;
+    }
+
+    private void taskFinished(Task task) {
+        Integer origin = remoteOrigins.remove(task);
+        if (origin != null) {
+            send(origin, ClusterMessage.taskFinished(nodeId, task.getID()));
+        } else {
+            completed(task.getID());
+        }
+    }
+
+    private void completed(String taskId) {
+        completed.increment();
+        for (Consumer<String> listener : completionListeners) {
+            listener.accept(taskId);
+        }
+    }
+
+    private void quantityChanged(String productId, int amount) {
+        if (Thread.currentThread() == selectorThread) return; // applying a peer's change
+        for (int peer : outbound.keySet()) {
+            send(peer, ClusterMessage.inventoryChanged(nodeId, productId, amount));
+        }
+    }
+
+    /**
+     * Queues a message for a peer; the selector thread writes it.
+     */
+    private void send(int peer, ClusterMessage message) {
+        Connection connection = outbound.get(peer);
+        connection.inbox.add(message.toFrame());
+        writeRequests.add(connection);
+        Selector sel = selector;
+        if (sel != null) {
+            sel.wakeup();
+        }
+    }
+
+    // --- Selector thread ---
+
+    private void runSelector() {
+        Selector sel = selector;
+        try {
+            for (Connection connection : outbound.values()) {
+                connect(connection);
+            }
+            while (!stopping) {
+                sel.select(RECONNECT_DELAY_MS);
+                long now = System.currentTimeMillis();
+                for (Connection connection : outbound.values()) {
+                    if (connection.channel == null && now >= connection.retryAt) {
+                        connect(connection);
+                    }
+                }
+                Connection requested;
+                while ((requested = writeRequests.poll()) != null) {
+                    if (requested.open) {
+                        requested.key.interestOps(requested.key.interestOps() | SelectionKey.OP_WRITE);
+                    }
+                }
+                Iterator<SelectionKey> keys = sel.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+            }
+        } catch (IOException e) {
+            logger.log_print("error", "system", "[Cluster] Node " + nodeId + " selector failed: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : sel.keys()) {
+                closeQuietly(key);
+            }
+            closeQuietly(sel);
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        if (key.channel() == server) {
+            if (key.isValid() && key.isAcceptable()) {
+                accept();
+            }
+            return;
+        }
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isValid() && key.isConnectable()) {
+                connection.channel.finishConnect();
+                opened(connection);
+            }
+            if (key.isValid() && key.isReadable()) {
+                read(connection);
+            }
+            if (key.isValid() && key.isWritable()) {
+                write(connection);
+            }
+        } catch (IOException e) {
+            if (connection.everOpened || connection.peerId < 0) {
+                logger.log_print("error", "system", "[Cluster] Node " + nodeId + " lost connection "
+                        + (connection.peerId < 0 ? "from " + connection.greetedPeer : "to " + connection.peerId) + ": " + e.getMessage());
+            }
+            drop(connection);
+        }
+    }
+
+    private void connect(Connection connection) {
+        try {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            connection.channel = channel;
+            boolean done = channel.connect(addresses.get(connection.peerId));
+            connection.key = channel.register(selector, done ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, connection);
+            if (done) {
+                opened(connection);
+            }
+        } catch (IOException e) {
+            drop(connection);
+        }
+    }
+
+    /** An outbound connection is up: greet the peer first, then send what queued up meanwhile. */
+    private void opened(Connection connection) {
+        connection.open = true;
+        ByteBuffer partial = connection.outgoing.peekFirst();
+        if (partial != null) {
+            partial.rewind(); // cut off by a lost connection: send it whole again
+        }
+        connection.outgoing.addFirst(ClusterMessage.hello(nodeId).toFrame());
+        connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        if (!connection.everOpened) {
+            connection.everOpened = true;
+            connected.countDown();
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel = server.accept();
+            if (channel == null) return;
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(-1);
+            connection.channel = channel;
+            connection.open = true;
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        } catch (IOException e) {
+            logger.log_print("error", "system", "[Cluster] Node " + nodeId + " could not accept: " + e.getMessage());
+        }
+    }
+
+    private void read(Connection connection) throws IOException {
+        readBuffer.clear();
+        int n = connection.channel.read(readBuffer);
+        if (n < 0) {
+            throw new IOException("closed by peer");
+        }
+        readBuffer.flip();
+        for (ClusterMessage message : connection.decoder.feed(readBuffer)) {
+            apply(connection, message);
+        }
+    }
+
+    private void write(Connection connection) throws IOException {
+        ByteBuffer frame;
+        while ((frame = connection.inbox.poll()) != null) {
+            connection.outgoing.addLast(frame);
+        }
+        while ((frame = connection.outgoing.peekFirst()) != null) {
+            connection.channel.write(frame);
+            if (frame.hasRemaining()) return; // socket buffer full: wait for the next OP_WRITE
+            connection.outgoing.pollFirst();
+        }
+        connection.key.interestOps(SelectionKey.OP_READ);
+    }
+
+    /** Closes a connection; an outbound one is opened again after RECONNECT_DELAY_MS. */
+    private void drop(Connection connection) {
+        connection.open = false;
+        if (connection.key != null) {
+            closeQuietly(connection.key);
+        } else if (connection.channel != null) {
+            closeQuietly(connection.channel);
+        }
+        connection.key = null;
+        connection.channel = null;
+        connection.retryAt = System.currentTimeMillis() + RECONNECT_DELAY_MS;
+    }
+
+    /** Acts on a message from a peer. Runs on the selector thread. */
+    private void apply(Connection connection, ClusterMessage message) {
+        switch (message.getType()) {
+            case HELLO -> {
+                connection.greetedPeer = message.getNodeId();
+                if (greeted.add(message.getNodeId())) {
+                    connected.countDown();
+                }
+            }
+            case ORDER_SUBMITTED, STOCK_SUBMITTED -> {
+                try {
+                    Task task = message.getType() == ClusterMessage.Type.ORDER_SUBMITTED
+                            ? new OrderTask(message.getTaskId(), message.getProductId(), message.getQuantity(),
+                                    warehouseManager, message.getPriority(), message.getSlaMillis())
+                            : new StockTask(message.getTaskId(), message.getProductId(),
+                                    (LoadingStation) warehouseManager.getObjectFromFloor(message.getLoadingStationId()),
+                                    message.getQuantity(), warehouseManager, message.getPriority(), message.getSlaMillis());
+                    remoteOrigins.put(task, message.getNodeId());
+                    received.increment();
+                    localQueue.add(task);
+                } catch (OrderTaskException | RuntimeException e) {
+                    logger.log_print("error", "system", "[Cluster] Node " + nodeId + " rejected " + message + ": " + e.getMessage());
+                }
+            }
+            case TASK_FINISHED -> completed(message.getTaskId());
+            case INVENTORY_CHANGED -> {
+                try {
+                    if (message.getQuantity() >= 0) {
+                        warehouseManager.increaseProductQuantity(message.getProductId(), message.getQuantity());
+                    } else {
+                        warehouseManager.decreaseProductQuantity(message.getProductId(), -message.getQuantity());
+                    }
+                } catch (RuntimeException e) {
+                    logger.log_print("error", "system", "[Cluster] Node " + nodeId + " could not apply " + message + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        closeQuietly(key.channel());
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+            // closing anyway
+        }
+    }
+
+    // --- Accessors ---
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Where tasks for the cluster are submitted on this node, e.g. the queue of a TaskManager.
+     */
+    public BlockingQueue<Task> getSubmissionQueue() {
+        return submissionQueue;
+    }
+
+    public EquipmentManager getEquipmentManager() {
+        return equipmentManager;
+    }
+
+    /**
+     * Registers a callback for every task submitted on this node that finished,
+     * here or on the node that ran it. It gets the task id, on a network or robot thread.
+     */
+    public void addCompletionListener(Consumer<String> listener) {
+        completionListeners.add(listener);
+    }
+
+    /** Tasks submitted here and sent to another node. */
+    public long getForwardedCount() {
+        return forwarded.sum();
+    }
+
+    /** Tasks other nodes sent here to run. */
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    /** Tasks submitted here that finished, wherever they ran. */
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+}
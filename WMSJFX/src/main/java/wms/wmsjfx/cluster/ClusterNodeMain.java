@@ -0,0 +1,126 @@
+package wms.wmsjfx.cluster;
+
+import java.awt.Rectangle;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import wms.wmsjfx.equipmentManager.RobotExecution;
+import wms.wmsjfx.logger.Logger;
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.taskManager.TaskCreationException;
+import wms.wmsjfx.taskManager.TaskManager;
+import wms.wmsjfx.warehouse.WarehouseManager;
+import wms.wmsjfx.warehouse.datamanager.DataFile;
+import wms.wmsjfx.warehouse.exceptions.DataFileException;
+
+/**
+ * Runs one cluster node without the UI. Every node is started with the same
+ * addresses and zones, loads the same floor and inventory, and takes tasks on
+ * its standard input, one per line:
+ * <pre>
+ * order &lt;productID&gt; &lt;quantity&gt;
+ * stock &lt;loadingStationID&gt; &lt;productID&gt; &lt;quantity&gt;
+ * status
+ * </pre>
+ * End of input stops the node.
+ * Usage: ClusterNodeMain &lt;nodeId&gt; &lt;host:port,...&gt; &lt;x,y,w,h;...&gt; [floor.csv] [inventory.csv]
+ * (addresses and zones by node id; the CSVs default to data/warehouse_floor.csv and data/inventory.csv)
+ */
+public final class ClusterNodeMain {
+
+    private ClusterNodeMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: ClusterNodeMain <nodeId> <host:port,...> <x,y,w,h;...> [floor.csv] [inventory.csv]");
+            System.exit(2);
+        }
+        int nodeId = Integer.parseInt(args[0]);
+        List<InetSocketAddress> addresses = parseAddresses(args[1]);
+        List<Rectangle> zones = parseZones(args[2]);
+        String floorCsv = args.length > 3 ? args[3] : new File("data", "warehouse_floor.csv").getPath();
+        String inventoryCsv = args.length > 4 ? args[4] : new File("data", "inventory.csv").getPath();
+
+        Logger log = new Logger();
+        WarehouseManager warehouseManager = new WarehouseManager(20, 20);
+        try {
+            DataFile.initializeFloor(warehouseManager, null, floorCsv);
+            DataFile.initializeInventory(warehouseManager, inventoryCsv);
+        } catch (DataFileException dfe) {
+            log.log_print("error", "inventory", "Data file error: " + dfe.getMessage());
+            System.exit(1);
+        }
+
+        ClusterNode node = new ClusterNode(nodeId, addresses, zones, warehouseManager,
+                new PathFinding(warehouseManager), RobotExecution.PLATFORM_THREADS, SimulationClock.realTime());
+        node.start();
+        TaskManager taskManager = new TaskManager(node.getSubmissionQueue(), warehouseManager);
+        serve(node, taskManager, System.in, System.out);
+        node.stop(2000);
+    }
+
+    /**
+     * Submits the tasks read from 'in' until it ends. Package-private for tests.
+     */
+    static void serve(ClusterNode node, TaskManager taskManager, InputStream in, PrintStream out) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] words = line.trim().split("\\s+");
+            try {
+                switch (words[0]) {
+                    case "order" -> taskManager.createNewOrder(words[1], Integer.parseInt(words[2]));
+                    case "stock" -> taskManager.createNewStock(words[1], words[2], Integer.parseInt(words[3]));
+                    case "status" -> out.println("node " + node.getNodeId()
+                            + " connected=" + node.awaitConnected(0, TimeUnit.MILLISECONDS)
+                            + " forwarded=" + node.getForwardedCount()
+                            + " received=" + node.getReceivedCount()
+                            + " completed=" + node.getCompletedCount());
+                    case "" -> { }
+                    default -> out.println("Unknown command: " + words[0]);
+                }
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                out.println("Bad command: " + line);
+            } catch (TaskCreationException e) {
+                out.println(e.getMessage() + (e.getCause() != null ? ": " + e.getCause().getMessage() : ""));
+            }
+        }
+    }
+
+    /** "host:port,host:port,..." */
+    static List<InetSocketAddress> parseAddresses(String list) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String address : list.split(",")) {
+            int colon = address.lastIndexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Address without port: " + address);
+            }
+            addresses.add(new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1))));
+        }
+        return addresses;
+    }
+
+    /** "x,y,w,h;x,y,w,h;..." */
+    static List<Rectangle> parseZones(String list) {
+        List<Rectangle> zones = new ArrayList<>();
+        for (String zone : list.split(";")) {
+            String[] v = zone.split(",");
+            if (v.length != 4) {
+                throw new IllegalArgumentException("Zone is not x,y,w,h: " + zone);
+            }
+            zones.add(new Rectangle(Integer.parseInt(v[0].trim()), Integer.parseInt(v[1].trim()),
+                    Integer.parseInt(v[2].trim()), Integer.parseInt(v[3].trim())));
+        }
+        return zones;
+    }
+}
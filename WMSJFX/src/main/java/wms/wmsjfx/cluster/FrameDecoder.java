@@ -0,0 +1,46 @@
+package wms.wmsjfx.cluster;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns the bytes of one connection, as they arrive in pieces, back into
+ * messages. Bytes of an incomplete frame are kept until the rest comes in.
+ * Not thread-safe: one decoder per connection, used by the selector thread.
+ */
+final class FrameDecoder {
+
+    private ByteBuffer pending = ByteBuffer.allocate(4096); // write mode
+
+    /**
+     * Adds the remaining bytes of 'bytes' and returns every message that is now complete.
+     * @throws ProtocolException on a frame too large or not a valid message
+     */
+    List<ClusterMessage> feed(ByteBuffer bytes) throws ProtocolException {
+        if (pending.remaining() < bytes.remaining()) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes.remaining()));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        pending.put(bytes);
+
+        List<ClusterMessage> messages = new ArrayList<>();
+        pending.flip();
+        while (pending.remaining() >= Integer.BYTES) {
+            int length = pending.getInt(pending.position());
+            if (length < 1 || length > ClusterMessage.MAX_FRAME_BYTES) {
+                throw new ProtocolException("Bad frame length " + length);
+            }
+            if (pending.remaining() < Integer.BYTES + length) break;
+            pending.position(pending.position() + Integer.BYTES);
+            byte[] body = new byte[length];
+            pending.get(body);
+            messages.add(ClusterMessage.fromFrameBody(body));
+        }
+        pending.compact();
+        return messages;
+    }
+}
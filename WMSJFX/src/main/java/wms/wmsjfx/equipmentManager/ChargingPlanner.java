@@ -0,0 +1,178 @@
+package wms.wmsjfx.equipmentManager;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntBiFunction;
+
+import wms.wmsjfx.simulation.SimulationClock;
+
+/**
+ * Charging slots booked ahead of time. When a robot is given work that will
+ * leave its battery low, the manager forecasts when and where it will be done
+ * and books it the charging station where its charge would finish first. The
+ * robot then drives straight to a station kept for it instead of queueing.
+ * A slot is an interval of simulated time, [start, end), on one station; a
+ * station has at most one robot in any slot. Charges that were not forecast
+ * (reactive charges and top-ups) are booked too and keep clear of the slots
+ * of other robots. Each robot holds at most one booking.
+ * Thread-safe.
+ */
+final class ChargingPlanner {
+
+    private static final double FULL_BATTERY = 100;
+    private static final double PATH_UNITS_PER_METER = 10;
+
+    static final class Booking {
+        final ChargingStation station;
+        final String robotId;
+        final long startMillis;
+        final long endMillis;
+
+        Booking(ChargingStation station, String robotId, long startMillis, long endMillis) {
+            this.station = station;
+            this.robotId = robotId;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s on %s [%d, %d)", robotId, station.getId(), startMillis, endMillis);
+        }
+    }
+
+    private final ToIntBiFunction<Point, Point> cost; // (station, from) -> path cost, 10 per metre
+    private final SimulationClock clock;
+
+    // guarded by this
+    private final Map<ChargingStation, List<Booking>> slots = new LinkedHashMap<>(); // per station, by start
+    private final Map<String, Booking> byRobot = new HashMap<>();
+
+    ChargingPlanner(List<ChargingStation> stations, ToIntBiFunction<Point, Point> cost, SimulationClock clock) {
+        this.cost = cost;
+        this.clock = clock;
+        for (ChargingStation station : stations) {
+            slots.put(station, new ArrayList<>());
+        }
+    }
+
+    /** Time to charge from one battery level to another. */
+    static long chargeMillis(double fromPercentage, double toPercentage) {
+        return (long) Math.ceil(Math.max(0, Math.min(FULL_BATTERY, toPercentage) - fromPercentage) * Robot.getChargeMillisPerPercent());
+    }
+
+    /** Travel time from 'from' to 'station', or Long.MAX_VALUE if it cannot be reached. */
+    long travelMillis(ChargingStation station, Point from) {
+        int c = cost.applyAsInt(station.getLocation(), from);
+        if (c == Integer.MAX_VALUE) return Long.MAX_VALUE;
+        return (long) (c / PATH_UNITS_PER_METER * Robot.getMoveDelayPerMeterMs());
+    }
+
+    /** When a robot setting off from 'from' at 'now' reaches 'station', or Long.MAX_VALUE if it cannot. */
+    long arrivalMillis(ChargingStation station, Point from, long now) {
+        long travel = travelMillis(station, from);
+        return travel == Long.MAX_VALUE ? Long.MAX_VALUE : now + travel;
+    }
+
+    /**
+     * Books the robot a full charge at the station where it would be charged
+     * soonest, setting off from 'from' at 'readyAt' with 'batteryAtReady' left.
+     * Replaces the robot's previous booking.
+     * @return the booking, or null if no station can be reached
+     */
+    synchronized Booking book(String robotId, Point from, long readyAt, double batteryAtReady) {
+        cancel(robotId);
+        purgeBefore(clock.millis());
+        Booking best = null;
+        for (ChargingStation station : slots.keySet()) {
+            long travel = travelMillis(station, from);
+            if (travel == Long.MAX_VALUE) continue;
+            double travelEnergy = travel / (double) Robot.getMoveDelayPerMeterMs() * Robot.getBatteryCosumedPerMeter();
+            long duration = chargeMillis(Math.max(0, batteryAtReady - travelEnergy), FULL_BATTERY);
+            long start = earliestStart(station, robotId, readyAt + travel, duration);
+            if (best == null || start + duration < best.endMillis) {
+                best = new Booking(station, robotId, start, start + duration);
+            }
+        }
+        if (best != null) add(best);
+        return best;
+    }
+
+    /**
+     * Records a charge the robot is about to make on 'station', replacing its previous booking.
+     */
+    synchronized Booking bookNow(String robotId, ChargingStation station, long startMillis, long endMillis) {
+        cancel(robotId);
+        Booking booking = new Booking(station, robotId, startMillis, endMillis);
+        add(booking);
+        return booking;
+    }
+
+    synchronized Booking getBooking(String robotId) {
+        return byRobot.get(robotId);
+    }
+
+    synchronized void cancel(String robotId) {
+        Booking booking = byRobot.remove(robotId);
+        if (booking != null) {
+            slots.get(booking.station).remove(booking);
+        }
+    }
+
+    /**
+     * How long a charge on 'station' starting at 'start' can last before it runs
+     * into another robot's slot: 0 if one is under way (or 'start' is Long.MAX_VALUE),
+     * Long.MAX_VALUE if none follows.
+     */
+    synchronized long freeMillis(ChargingStation station, String robotId, long start) {
+        List<Booking> bookings = slots.get(station);
+        if (bookings == null || start == Long.MAX_VALUE) return 0;
+        for (Booking booking : bookings) {
+            if (booking.robotId.equals(robotId) || booking.endMillis <= start) continue;
+            return Math.max(0, booking.startMillis - start);
+        }
+        return Long.MAX_VALUE;
+    }
+
+    synchronized int getBookingCount() {
+        return byRobot.size();
+    }
+
+    /** First start at or after 'arrival' with 'duration' free of other robots' slots. Lock held. */
+    private long earliestStart(ChargingStation station, String robotId, long arrival, long duration) {
+        long start = arrival;
+        for (Booking booking : slots.get(station)) {
+            if (booking.robotId.equals(robotId) || booking.endMillis <= start) continue;
+            if (booking.startMillis >= start + duration) break;
+            start = booking.endMillis;
+        }
+        return start;
+    }
+
+    private void add(Booking booking) {
+        List<Booking> bookings = slots.get(booking.station);
+        int i = 0;
+        while (i < bookings.size() && bookings.get(i).startMillis <= booking.startMillis) i++;
+        bookings.add(i, booking);
+        byRobot.put(booking.robotId, booking);
+    }
+
+    /** Drops slots that ended before 'now' (robots that never came, charges already over). */
+    private void purgeBefore(long now) {
+        for (List<Booking> bookings : slots.values()) {
+            Iterator<Booking> it = bookings.iterator();
+            while (it.hasNext()) {
+                Booking booking = it.next();
+                if (booking.endMillis < now) {
+                    it.remove();
+                    byRobot.remove(booking.robotId, booking);
+                }
+            }
+        }
+    }
+}
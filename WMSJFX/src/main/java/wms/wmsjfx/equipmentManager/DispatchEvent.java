@@ -0,0 +1,107 @@
+package wms.wmsjfx.equipmentManager;
+
+import java.util.List;
+
+import wms.wmsjfx.taskManager.Task;
+import wms.wmsjfx.warehouse.WarehouseObject;
+
+/**
+ * Something the event-loop dispatcher has to react to. Robots, tasks and the
+ * task submission queue only publish these; the dispatcher thread processes them
+ * in order and is the only thread that changes the scheduling state.
+ * A recorded sequence of events can be replayed to reproduce the same decisions.
+ */
+public final class DispatchEvent {
+
+    public enum Type {
+        TASK_SUBMITTED,   // task
+        TASK_FINISHED,    // robot, task, success, committed tasks it goes on with
+        IDLE_TIMEOUT,     // robot
+        STATION_RELEASED, // station (ChargingStation or PackingStation)
+        ROBOT_JOINED      // robot, handed over by another zone
+    }
+
+    private final Type type;
+    private final Robot robot;
+    private final Task task;
+    private final boolean success;
+    private final WarehouseObject station;
+    private final List<Task> committed;
+
+    private DispatchEvent(Type type, Robot robot, Task task, boolean success, WarehouseObject station) {
+        this(type, robot, task, success, station, List.of());
+    }
+
+    private DispatchEvent(Type type, Robot robot, Task task, boolean success, WarehouseObject station, List<Task> committed) {
+        this.type = type;
+        this.robot = robot;
+        this.task = task;
+        this.success = success;
+        this.station = station;
+        this.committed = committed;
+    }
+
+    public static DispatchEvent taskSubmitted(Task task) {
+        return new DispatchEvent(Type.TASK_SUBMITTED, null, task, false, null);
+    }
+
+    public static DispatchEvent taskFinished(Robot robot, Task task, boolean success) {
+        return taskFinished(robot, task, success, List.of());
+    }
+
+    /**
+     * @param committed the tasks lookahead committed to the robot, which it goes
+     *                  on with right away; read on the robot's thread as it reports
+     */
+    public static DispatchEvent taskFinished(Robot robot, Task task, boolean success, List<Task> committed) {
+        return new DispatchEvent(Type.TASK_FINISHED, robot, task, success, null, List.copyOf(committed));
+    }
+
+    public static DispatchEvent idleTimeout(Robot robot) {
+        return new DispatchEvent(Type.IDLE_TIMEOUT, robot, null, false, null);
+    }
+
+    public static DispatchEvent stationReleased(WarehouseObject station) {
+        return new DispatchEvent(Type.STATION_RELEASED, null, null, false, station);
+    }
+
+    public static DispatchEvent robotJoined(Robot robot) {
+        return new DispatchEvent(Type.ROBOT_JOINED, robot, null, false, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Robot getRobot() {
+        return robot;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public WarehouseObject getStation() {
+        return station;
+    }
+
+    /** TASK_FINISHED only: the committed tasks the robot goes on with, empty if none. */
+    public List<Task> getCommittedTasks() {
+        return committed;
+    }
+
+    @Override
+    public String toString() {
+        return switch (type) {
+            case TASK_SUBMITTED -> type + "(" + task.getID() + ")";
+            case TASK_FINISHED -> type + "(" + robot.getId() + ", " + task.getID() + ", " + success
+                    + (committed.isEmpty() ? "" : ", then " + committed.size() + " committed") + ")";
+            case IDLE_TIMEOUT, ROBOT_JOINED -> type + "(" + robot.getId() + ")";
+            case STATION_RELEASED -> type + "(" + station.getId() + ")";
+        };
+    }
+}
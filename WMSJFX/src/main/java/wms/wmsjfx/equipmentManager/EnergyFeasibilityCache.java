@@ -0,0 +1,126 @@
+package wms.wmsjfx.equipmentManager;
+
+import java.awt.Point;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+
+import wms.wmsjfx.pathFinding.WarehouseMap;
+import wms.wmsjfx.taskManager.Task;
+
+/**
+ * Memoised worst-case energy a robot needs for a task.
+ * The energy splits into a robot-independent tail (e.g. pick -> farthest packing
+ * station -> farthest charger), computed once per task, and the robot's leg to
+ * the task's first stop, cached per (robot cell, task). Re-checking a pending
+ * task for a robot is then one map lookup, plus one distance query the first
+ * time a robot stands on that cell.
+ * Negative energies mean "unavailable" (no path or no station) and are cached too.
+ * Everything is dropped once the WarehouseMap version changes; tasks that
+ * left the pending queue are forgotten by the caller.
+ */
+final class EnergyFeasibilityCache {
+
+    static final double UNAVAILABLE = -1.0;
+
+    private final WarehouseMap warehouseMap;
+    private final ToDoubleFunction<Task> tailEnergy;
+    private final ToDoubleBiFunction<Point, Task> legEnergy;
+    private final Map<Task, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile long cachedVersion;
+
+    private static final class Entry {
+        final long version;
+        final double tailEnergy;
+        final Map<Integer, Double> energyByCell = new ConcurrentHashMap<>();
+
+        Entry(long version, double tailEnergy) {
+            this.version = version;
+            this.tailEnergy = tailEnergy;
+        }
+    }
+
+    /**
+     * @param tailEnergy energy of the robot-independent part of a task
+     * @param legEnergy  energy from a cell to the task's first stop
+     */
+    EnergyFeasibilityCache(WarehouseMap warehouseMap,
+                           ToDoubleFunction<Task> tailEnergy,
+                           ToDoubleBiFunction<Point, Task> legEnergy) {
+        this.warehouseMap = warehouseMap;
+        this.tailEnergy = tailEnergy;
+        this.legEnergy = legEnergy;
+        this.cachedVersion = warehouseMap.getVersion();
+    }
+
+    /**
+     * Worst-case energy for a robot standing on 'robotCell' to complete 'task', or UNAVAILABLE.
+     */
+    double requiredEnergy(Task task, Point robotCell) {
+        Entry entry = entryFor(task);
+        if (entry.tailEnergy < 0) return UNAVAILABLE;
+        if (!warehouseMap.isInside(robotCell)) return total(entry, robotCell, task);
+
+        int cell = robotCell.y * warehouseMap.getMapSizeX() + robotCell.x;
+        Double cached = entry.energyByCell.get(cell);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        double energy = total(entry, robotCell, task);
+        entry.energyByCell.put(cell, energy);
+        return energy;
+    }
+
+    /**
+     * Energy of the robot-independent part of 'task' (computed once), or UNAVAILABLE.
+     */
+    double tailEnergy(Task task) {
+        double energy = entryFor(task).tailEnergy;
+        return energy < 0 ? UNAVAILABLE : energy;
+    }
+
+    private Entry entryFor(Task task) {
+        long version = warehouseMap.getVersion();
+        if (version != cachedVersion) {
+            entries.clear();
+            cachedVersion = version;
+        }
+        Entry entry = entries.get(task);
+        if (entry == null || entry.version != version) {
+            // Computed outside the map so a slow search never holds a bin lock
+            entry = new Entry(version, tailEnergy.applyAsDouble(task));
+            entries.put(task, entry);
+        }
+        return entry;
+    }
+
+    private double total(Entry entry, Point robotCell, Task task) {
+        double leg = legEnergy.applyAsDouble(robotCell, task);
+        return leg < 0 ? UNAVAILABLE : leg + entry.tailEnergy;
+    }
+
+    /**
+     * Drops a task that was assigned and will not be evaluated again.
+     */
+    void forget(Task task) {
+        entries.remove(task);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    long getMissCount() {
+        return misses.sum();
+    }
+}
@@ -1,69 +1,162 @@
 package wms.wmsjfx.equipmentManager; // Assuming this is where EM resides
 
 import java.awt.Point;
-import java.util.ArrayDeque;
+import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import wms.wmsjfx.pathFinding.CooperativePathPlanner;
+import wms.wmsjfx.pathFinding.DStarLite;
 import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.pathFinding.ReservationTable;
+import wms.wmsjfx.pathFinding.StationDistanceFields;
+import wms.wmsjfx.pathFinding.TimedPath;
+import wms.wmsjfx.pathFinding.WarehouseMap;
+import wms.wmsjfx.simulation.SimulationClock;
 import wms.wmsjfx.taskManager.*; // Import Task and specific task types
+import wms.wmsjfx.warehouse.LoadingStation;
 import wms.wmsjfx.warehouse.PackingStation;
 import wms.wmsjfx.warehouse.WarehouseManager;
+import wms.wmsjfx.warehouse.WarehouseObject;
 import wms.wmsjfx.logger.Logger;
 
 /**
  * Central Brain using "Just-in-Time Locking".
  * Dispatches tasks based *only* on robot availability initially.
  * Robots request stations *during* task execution.
- * Uses Lock and Condition for safer waiting than synchronized/wait/notify.
+ * There is no global lock: idle robots and pending tasks live in concurrent
+ * collections, and removing an entry from them is the claim. Paths and energy
+ * are computed without holding anything, and whoever removes a robot (or a
+ * pending task) first owns it; everyone else moves on to the next candidate.
  */
 
 public class EquipmentManager implements Runnable {
     // --- Constants ---
     private static final int LOW_BATTERY_PERCENT = 30;        // <30% means low battery, robot needs to be charged
     private static final int HIGH_BATTERY_PERCENT = 70;       // >90% means high battery, no need to charge more
-    private static final double ENERGY_UNAVAILABLE = -1.0;    // Sentinel for path/energy calculation failure
+    private static final int TOP_UP_BELOW_PERCENT = 80;       // predictive charging: idle robots below this top up
+    private static final int MIN_TOP_UP_PERCENT = 10;         // a top-up shorter than this is not worth the trip
+    private static final int MAX_LOOKAHEAD = 3;               // most tasks committed behind a running one
+    private static final double ENERGY_UNAVAILABLE = EnergyFeasibilityCache.UNAVAILABLE; // Sentinel for path/energy calculation failure
 
     private final String ID = "Equipment Manager";
 
     // --- Full Resource Lists ---
-    private final List<Robot> availableRobots; // Robots currently idle at their start positions
+    private final IdleRobotIndex availableRobots; // Robots currently idle, bucketed by where they stand
     private final List<PackingStation> allPackingStations;
     private final List<ChargingStation> allChargingStations;
 
     // --- Queues ---
-    private final Queue<Task> pendingPickTasks = new ArrayDeque<>(); // Pending work
+    private final PendingTaskIndex pendingPickTasks = new PendingTaskIndex(); // Pending work, most urgent first
     private final BlockingQueue<Task> taskSubmissionQueue; // Incoming new task
     private final BlockingQueue<Robot> robotsWaitingForCharge = new LinkedBlockingQueue<>();
 
-    // Queues for available (free) stations
-    private LinkedBlockingQueue<ChargingStation> availableChargeStations;
-    private LinkedBlockingQueue<PackingStation> availablePackStations;
+    // Free stations, handed out nearest first
+    private final StationAllocator<ChargingStation> chargingStations;
+    private final StationAllocator<PackingStation> packingStations;
+    // One robot at a time per loading station; created on first use
+    private final Map<LoadingStation, StationAllocator<LoadingStation>> loadingStations = new ConcurrentHashMap<>();
 
     // Thread tracking for graceful shutdown (minimal addition)
     private volatile boolean stopping = false;
-    private final List<Thread> robotThreads = new ArrayList<>();
+    private final Map<String, Thread> robotThreads = new ConcurrentHashMap<>(); // by robot id; zone handoffs move them
+    private final RobotExecution robotExecution;
+    private final SimulationClock clock; // travel, timeouts and batch windows run on it
+    private final Rectangle zone; // null: the whole floor
     private volatile Thread dispatcherThread; // optional: register by caller
 
     // --- Other utilities  ---
     private final PathFinding pathFinding;
+    private final EnergyFeasibilityCache energyCache;
+    private final Map<Task, Long> submittedAt = new ConcurrentHashMap<>(); // PICK_ORDER / PICK_BATCH / STOCK_ITEM until finished
+    private final TaskLatencyMetrics latencyMetrics = new TaskLatencyMetrics();
+    private final List<Consumer<Task>> taskFinishedListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Task>> taskRejectedListeners = new CopyOnWriteArrayList<>();
+    private final int fleetSize;
+    private final Set<Robot> fleet = ConcurrentHashMap.newKeySet(); // every robot seen idle or given work
+    private volatile int lookaheadDepth = 0; // 0: tasks only go to idle robots
+    private final LongAdder lookaheadCommits = new LongAdder();
+    private final LongAdder steals = new LongAdder();
+    private volatile CooperativePathPlanner cooperativePlanner; // null: robots ignore each other
+    private volatile ChargingPlanner chargingPlanner; // null: robots charge only when they run low
+    private volatile boolean incrementalReplanning = false;
+    private final Map<String, DStarLite> replanners = new ConcurrentHashMap<>(); // per robot, for its current goal
+    private volatile long batchWindowMs = 0; // 0: greedy, every task is dispatched on arrival
+    private volatile boolean eventLoopDispatch = false;
+    private volatile boolean dispatcherRunning = false;
+    private final BlockingQueue<DispatchEvent> events = new LinkedBlockingQueue<>(); // many producers, one consumer
+    private volatile Consumer<DispatchEvent> eventRecorder; // optional: sees every event in processing order
+    private volatile Thread submissionForwarder; // event loop only: moves submitted tasks into 'events'
     Logger logger = new Logger();
 
     public EquipmentManager(WarehouseManager warehouseManager,
                             BlockingQueue<Task> taskSubmissionQueue,
                             PathFinding pathFinding) {
-        this.availableRobots = warehouseManager.getAllRobots();
-        this.allChargingStations = warehouseManager.getAllChargingStations();
-        this.allPackingStations = warehouseManager.getAllPackingStations();
+        this(warehouseManager, taskSubmissionQueue, pathFinding, RobotExecution.PLATFORM_THREADS);
+    }
+
+    /**
+     * @param robotExecution whether robots run on platform or virtual threads
+     */
+    public EquipmentManager(WarehouseManager warehouseManager,
+                            BlockingQueue<Task> taskSubmissionQueue,
+                            PathFinding pathFinding,
+                            RobotExecution robotExecution) {
+        this(warehouseManager, taskSubmissionQueue, pathFinding, robotExecution, SimulationClock.realTime());
+    }
+
+    /**
+     * @param clock the time robots and the dispatcher run in (real, scaled or discrete-event);
+     *              robot threads and the dispatcher take part in it
+     */
+    public EquipmentManager(WarehouseManager warehouseManager,
+                            BlockingQueue<Task> taskSubmissionQueue,
+                            PathFinding pathFinding,
+                            RobotExecution robotExecution,
+                            SimulationClock clock) {
+        this(warehouseManager, taskSubmissionQueue, pathFinding, robotExecution, clock, null);
+    }
+
+    /**
+     * @param zone the part of the floor this manager runs: only the robots and
+     *             stations inside it are its own; null for the whole floor (see ZoneCoordinator)
+     */
+    public EquipmentManager(WarehouseManager warehouseManager,
+                            BlockingQueue<Task> taskSubmissionQueue,
+                            PathFinding pathFinding,
+                            RobotExecution robotExecution,
+                            SimulationClock clock,
+                            Rectangle zone) {
+        this.robotExecution = robotExecution;
+        this.clock = clock;
+        this.zone = zone;
+        WarehouseMap warehouseMap = pathFinding.getWarehouseMap();
+        this.availableRobots = new IdleRobotIndex(warehouseMap.getMapSizeX(), warehouseMap.getMapSizeY());
+        this.availableRobots.addAll(inZone(warehouseManager.getAllRobots(), zone));
+        this.fleetSize = this.availableRobots.size();
+        this.fleet.addAll(this.availableRobots);
+        this.allChargingStations = inZone(warehouseManager.getAllChargingStations(), zone);
+        this.allPackingStations = inZone(warehouseManager.getAllPackingStations(), zone);
         this.taskSubmissionQueue = taskSubmissionQueue;
         this.pathFinding = pathFinding;
+        this.energyCache = new EnergyFeasibilityCache(warehouseMap, this::taskTailEnergy, this::firstLegEnergy);
 
-        // Initialize the free station queues from the master lists
-        this.availableChargeStations = new LinkedBlockingQueue<>(this.allChargingStations);
-        this.availablePackStations = new LinkedBlockingQueue<>(this.allPackingStations);
+        // Initialize the station allocators from the master lists
+        this.chargingStations = new StationAllocator<>(this.allChargingStations, this::stationCost, clock);
+        this.packingStations = new StationAllocator<>(this.allPackingStations, this::stationCost, clock);
         System.out.println(this.availableRobots);
 
         for (Robot r : availableRobots) {
@@ -72,56 +165,75 @@ public class EquipmentManager implements Runnable {
 
         // Start robot threads and track them for later interruption
         for (Robot r : availableRobots) {
-            Thread t = new Thread(r, "Robot-" + r.getId());
+            Thread t = robotExecution.newThread(r, "Robot-" + r.getId());
+            clock.register(t);
+            robotThreads.put(r.getId(), t);
             t.start();
-            robotThreads.add(t);
         }
     }
 
-    public List<Robot> getRobot(){
+    private static <T extends WarehouseObject> List<T> inZone(List<T> objects, Rectangle zone) {
+        if (zone == null) return objects;
+        List<T> inside = new ArrayList<>();
+        for (T object : objects) {
+            if (zone.contains(object.getLocation())) {
+                inside.add(object);
+            }
+        }
+        return inside;
+    }
+
+    public Set<Robot> getRobot(){
         return this.availableRobots;
     }
+
+    public RobotExecution getRobotExecution() {
+        return robotExecution;
+    }
+
+    public SimulationClock getSimulationClock() {
+        return clock;
+    }
+
     @Override
     public void run() {
-        // If someone runs EM as a dispatcher in a thread, allow stop() to find it
+        // If someone runs EM as a dispatcher in a thread, allow stop() to find it.
+        // It joins the clock late here; registerDispatcherThread() joins it before it starts.
         if (dispatcherThread == null) {
             dispatcherThread = Thread.currentThread();
+            clock.register(dispatcherThread);
         }
         logger.log_print("info", "equipment_manager", " Dispatcher started.");
+        dispatcherRunning = true;
+        try {
+            if (eventLoopDispatch) {
+                runEventLoop();
+            } else {
+                runTaskLoop();
+            }
+        } finally {
+            clock.deregister(Thread.currentThread());
+            dispatcherRunning = false;
+        }
+        logger.log_print("info", "equipment_manager", " Dispatcher stopped.");
+    }
 
+    /**
+     * Dispatches submitted tasks as they arrive until interrupted.
+     */
+    private void runTaskLoop() {
         while (!Thread.currentThread().isInterrupted() && !stopping) {
             try {
                 // Original blocking behavior: wait until a task arrives
-                Task newTask = taskSubmissionQueue.take();
-
-                synchronized (this) {
-                    switch (newTask.getType()) {
-                        case PICK_ORDER -> {
-                            Point itemLocation = ((OrderTask) newTask).getItemLocation();
-                            Robot foundRobot = findClosestAvailableRobot(itemLocation);
-                            if (foundRobot == null) {
-                                pendingPickTasks.offer(newTask);
-                                logger.log_print("info", "equipment_manager", " No available robot for " + newTask + " → Pending (" + pendingPickTasks.size() + ")");
-                            } else {
-                                logger.log_print("info", "equipment_manager", " DISPATCH " + newTask + " -> " + foundRobot.getId());
-                                availableRobots.remove(foundRobot);
-                                foundRobot.assignTask(newTask);
-                            }
-                        }
-                        case STOCK_ITEM -> {
-                            StockTask stockTask = (StockTask) newTask;
-                            Robot foundRobot = findAvailableRobotForStocking(stockTask);
-                            if (foundRobot == null) {
-                                pendingPickTasks.offer(newTask);
-                                logger.log_print("info", "equipment_manager", " No available robot for " + newTask + " → Pending (" + pendingPickTasks.size() + ")");
-                            } else {
-                                logger.log_print("info", "equipment_manager", " DISPATCH " + newTask + " -> " + foundRobot.getId());
-                                availableRobots.remove(foundRobot);
-                                foundRobot.assignTask(newTask);
-                            }
-                        }
-                        default -> logger.log_print("error", "equipment_manager", " Unknown task type received: " + newTask.getType());
-                    }
+                Task newTask = clock.take(taskSubmissionQueue);
+
+                long window = batchWindowMs;
+                if (window > 0) {
+                    dispatchBatch(collectBatch(newTask, window));
+                } else if (isDispatchable(newTask)) {
+                    dispatch(newTask);
+                } else {
+                    reject(newTask);
                 }
             } catch (InterruptedException e) {
                 logger.log_print("info", "equipment_manager", " Interrupt received. Stopping dispatcher...");
@@ -129,15 +241,503 @@ public class EquipmentManager implements Runnable {
                 break;
             }
         }
-        logger.log_print("info", "equipment_manager", " Dispatcher stopped.");
+    }
+
+    // --- Event-loop dispatch ---
+
+    /**
+     * Processes events until interrupted. Everything that drained from the queue
+     * together (or arrived within the batch window) is handled as one batch.
+     */
+    private void runEventLoop() {
+        Thread forwarder = new Thread(this::forwardSubmissions, "Task-Submission-Forwarder");
+        forwarder.setDaemon(true);
+        submissionForwarder = forwarder;
+        clock.register(forwarder);
+        forwarder.start();
+
+        List<DispatchEvent> batch = new ArrayList<>();
+        try {
+            while (!Thread.currentThread().isInterrupted() && !stopping) {
+                batch.add(clock.take(events));
+                long window = batchWindowMs;
+                if (window > 0) {
+                    long deadline = clock.millis() + window;
+                    long remaining;
+                    while ((remaining = deadline - clock.millis()) > 0) {
+                        DispatchEvent next = clock.poll(events, remaining, TimeUnit.MILLISECONDS);
+                        if (next == null) break;
+                        batch.add(next);
+                    }
+                }
+                events.drainTo(batch);
+                processEvents(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            logger.log_print("info", "equipment_manager", " Interrupt received. Stopping dispatcher...");
+            Thread.currentThread().interrupt();
+        } finally {
+            forwarder.interrupt();
+        }
+    }
+
+    /**
+     * Turns tasks from the shared submission queue (fed by TaskManager) into events.
+     */
+    private void forwardSubmissions() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                events.put(DispatchEvent.taskSubmitted(clock.take(taskSubmissionQueue)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            clock.deregister(Thread.currentThread());
+        }
+    }
+
+    /**
+     * Handles a batch of events in order. Submitted tasks are collected and
+     * dispatched together just before the next event of another kind, so a
+     * batch window groups them for the optimal assignment.
+     */
+    private void processEvents(List<DispatchEvent> batch) throws InterruptedException {
+        List<Task> submitted = new ArrayList<>();
+        for (DispatchEvent event : batch) {
+            Consumer<DispatchEvent> recorder = eventRecorder;
+            if (recorder != null) {
+                recorder.accept(event);
+            }
+            if (event.getType() == DispatchEvent.Type.TASK_SUBMITTED) {
+                submitted.add(event.getTask());
+                continue;
+            }
+            dispatchSubmitted(submitted);
+            switch (event.getType()) {
+                case TASK_FINISHED -> handleFinishedTask(event.getRobot(), event.getTask(), event.isSuccess(), event.getCommittedTasks());
+                case IDLE_TIMEOUT -> handleIdleTimeout(event.getRobot());
+                case ROBOT_JOINED -> makeIdle(event.getRobot());
+                case STATION_RELEASED -> {
+                    if (event.getStation() instanceof ChargingStation chargingStation) {
+                        returnChargeStation(chargingStation);
+                    } else if (event.getStation() instanceof PackingStation packingStation) {
+                        returnPackingStation(packingStation);
+                    }
+                }
+                default -> logger.log_print("error", "equipment_manager", " Unknown event: " + event);
+            }
+        }
+        dispatchSubmitted(submitted);
+    }
+
+    private void dispatchSubmitted(List<Task> submitted) {
+        if (submitted.isEmpty()) return;
+        if (batchWindowMs > 0) {
+            dispatchBatch(submitted);
+        } else {
+            for (Task task : submitted) {
+                if (isDispatchable(task)) {
+                    dispatch(task);
+                } else {
+                    reject(task);
+                }
+            }
+        }
+        submitted.clear();
+    }
+
+    /**
+     * Processes recorded events on the calling thread exactly as the event loop
+     * would. Given the same floor, robots and event sequence, the decisions are
+     * the same as in the recorded run.
+     */
+    public void replay(List<DispatchEvent> recorded) throws InterruptedException {
+        if (dispatcherRunning) {
+            throw new IllegalStateException("Cannot replay while the dispatcher is running");
+        }
+        processEvents(new ArrayList<>(recorded));
+    }
+
+    /**
+     * Switches the event-loop dispatcher on or off. In this mode robots only
+     * publish events (task finished, idle timeout, station released) and a single
+     * dispatcher thread makes every scheduling decision. Must be chosen before run() starts.
+     */
+    public void setEventLoopDispatch(boolean enabled) {
+        if (dispatcherRunning) {
+            throw new IllegalStateException("Dispatch mode cannot change while the dispatcher is running");
+        }
+        this.eventLoopDispatch = enabled;
+    }
+
+    public boolean isEventLoopDispatch() {
+        return eventLoopDispatch;
+    }
+
+    /**
+     * Registers a callback that receives every event in processing order, e.g. to record a run for replay().
+     */
+    public void setEventRecorder(Consumer<DispatchEvent> recorder) {
+        this.eventRecorder = recorder;
+    }
+
+    /**
+     * Greedy dispatch of a single task: the best idle robot is chosen and then
+     * claimed. If another thread claimed it meanwhile, the next best candidate is tried.
+     */
+    private void dispatch(Task task) {
+        submittedAt.putIfAbsent(task, clock.millis());
+        Set<Robot> lost = new HashSet<>();
+        Set<Robot> evaluated = new HashSet<>();
+        while (true) {
+            Robot foundRobot = selectRobot(task, lost, evaluated);
+            if (foundRobot == null) {
+                offerPending(task, evaluated);
+                return;
+            }
+            if (availableRobots.remove(foundRobot)) {
+                logger.log_print("info", "equipment_manager", " DISPATCH " + task + " -> " + foundRobot.getId());
+                handOver(task, foundRobot);
+                return;
+            }
+            lost.add(foundRobot); // lost the claim
+        }
+    }
+
+    /**
+     * Greedy choice of an idle robot for a single task, or null if none can take it.
+     * Package-private for the dispatch benchmark.
+     */
+    Robot selectRobot(Task task) {
+        return selectRobot(task, Set.of(), new HashSet<>());
+    }
+
+    /**
+     * @param excluded  idle robots not to consider (claims already lost)
+     * @param evaluated receives every robot whose feasibility was checked
+     */
+    private Robot selectRobot(Task task, Set<Robot> excluded, Set<Robot> evaluated) {
+        return switch (task.getType()) {
+            case PICK_ORDER, PICK_BATCH -> findClosestAvailableRobot(task, excluded, evaluated);
+            case STOCK_ITEM -> findAvailableRobotForStocking((StockTask) task, excluded, evaluated);
+            default -> null;
+        };
+    }
+
+    /**
+     * The idle robots ordered by id, so ties are always broken the same way.
+     */
+    private List<Robot> idleSnapshot() {
+        List<Robot> robots = new ArrayList<>(availableRobots);
+        robots.sort(Comparator.comparing(Robot::getId));
+        return robots;
+    }
+
+    /**
+     * Parks a task nobody could take, unless lookahead commits it to a busy robot.
+     * A robot that turned idle after the candidates were evaluated has missed
+     * the task, so it gets a look now; robots becoming idle check the pending
+     * queue themselves (see makeIdle).
+     */
+    private void offerPending(Task task, Collection<Robot> evaluated) {
+        if (commitToBusyRobot(task)) {
+            return;
+        }
+        pendingPickTasks.offer(task, latestStartMillis(task));
+        logger.log_print("info", "equipment_manager", " No available robot for " + task + " → Pending (" + pendingPickTasks.size() + ")");
+        for (Robot robot : availableRobots) {
+            if (pendingPickTasks.isEmpty()) return;
+            if (evaluated.contains(robot) || !availableRobots.remove(robot)) continue;
+            if (!tryAssignPendingTaskTo(robot)) {
+                availableRobots.add(robot);
+            }
+        }
+    }
+
+    /**
+     * Gives a claimed task to its robot and records how long the task waited.
+     */
+    private void handOver(Task task, Robot robot) {
+        ChargingPlanner planner = chargingPlanner;
+        if (planner != null) {
+            forecastCharging(planner, robot, task);
+        }
+        recordHandOver(task, robot);
+        robot.assignTask(task);
+    }
+
+    private void recordHandOver(Task task, Robot robot) {
+        fleet.add(robot);
+        energyCache.forget(task);
+        Long submitted = submittedAt.get(task);
+        if (submitted != null) {
+            latencyMetrics.recordAssigned(task.getPriority(), clock.millis() - submitted);
+        }
+    }
+
+    // --- Lookahead and work stealing ---
+
+    /**
+     * Lookahead: queues a task no idle robot could take behind the running task of
+     * the busy robot that can do it after its committed work with the least energy,
+     * so it starts the moment that robot finishes.
+     * @return true if the task was committed
+     */
+    private boolean commitToBusyRobot(Task task) {
+        int depth = lookaheadDepth;
+        if (depth == 0) return false;
+        List<Robot> candidates = new ArrayList<>();
+        Map<Robot, Double> energyOf = new HashMap<>();
+        for (Robot robot : fleet) {
+            if (availableRobots.contains(robot)) continue;
+            double energy = committedEnergy(robot, task, depth);
+            if (energy == ENERGY_UNAVAILABLE || robot.getBatteryPercentage() < energy) continue;
+            candidates.add(robot);
+            energyOf.put(robot, energy);
+        }
+        candidates.sort(Comparator.comparingDouble((Robot r) -> energyOf.get(r)).thenComparing(Robot::getId));
+        for (Robot robot : candidates) {
+            if (robot.commitTask(task)) { // fails if the robot finished meanwhile
+                ChargingPlanner planner = chargingPlanner;
+                if (planner != null) {
+                    forecastCharging(planner, robot, energyOf.get(robot), task);
+                }
+                recordHandOver(task, robot);
+                lookaheadCommits.increment();
+                logger.log_print("info", "equipment_manager", " LOOKAHEAD " + task + " -> " + robot.getId());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Worst-case energy for a busy robot to finish its running task, the tasks
+     * committed behind it and then 'task', or ENERGY_UNAVAILABLE if it cannot
+     * take more work (not running dispatchable work, queue full, or no path).
+     */
+    private double committedEnergy(Robot robot, Task task, int depth) {
+        List<Task> queued = robot.getQueuedTasks();
+        if (queued.size() >= depth) return ENERGY_UNAVAILABLE;
+        queued.add(task);
+        return committedEnergy(robot.getActiveTask(), queued);
+    }
+
+    /**
+     * Worst-case energy to finish the running task 'active' and then 'queued' in
+     * order, or ENERGY_UNAVAILABLE if one of them is not dispatchable work or has no path.
+     */
+    private double committedEnergy(Task active, List<Task> queued) {
+        if (active == null || !isDispatchable(active)) return ENERGY_UNAVAILABLE;
+        double energy = energyCache.tailEnergy(active);
+        if (energy == ENERGY_UNAVAILABLE) return ENERGY_UNAVAILABLE;
+        double rest = queueEnergy(endOf(active), queued);
+        return rest == ENERGY_UNAVAILABLE ? ENERGY_UNAVAILABLE : energy + rest;
+    }
+
+    /**
+     * Worst-case energy to do 'queued' in order, setting off from 'from',
+     * or ENERGY_UNAVAILABLE as for committedEnergy.
+     */
+    private double queueEnergy(Point from, List<Task> queued) {
+        double energy = 0;
+        for (Task next : queued) {
+            if (from == null || !isDispatchable(next)) return ENERGY_UNAVAILABLE;
+            double required = energyCache.requiredEnergy(next, from);
+            if (required == ENERGY_UNAVAILABLE) return ENERGY_UNAVAILABLE;
+            energy += required;
+            from = endOf(next);
+        }
+        return energy;
+    }
+
+    /**
+     * Where a robot stands once it has done 'task'. An order ends at the packing
+     * station it is given on arrival, so the farthest one is assumed, as in its energy.
+     */
+    private Point endOf(Task task) {
+        Point last = lastStopOf(task);
+        if (task.getType() == TaskType.STOCK_ITEM || last == null) return last;
+        PackingStation packing = findFarthestPackingStation(last);
+        return packing == null ? null : packing.getLocation();
+    }
+
+    /**
+     * Work stealing: gives an idle robot the committed, not yet started task
+     * nearest to it from a busy robot's queue, if it has the battery for it.
+     * The caller owns the robot.
+     * @return true if a task was stolen
+     */
+    private boolean tryStealFor(Robot thief) {
+        if (lookaheadDepth == 0) return false;
+        Point at = thief.getCurrentPosition();
+        List<Map.Entry<Task, Robot>> candidates = new ArrayList<>();
+        for (Robot victim : fleet) {
+            if (victim == thief) continue;
+            for (Task task : victim.getQueuedTasks()) {
+                if (!isDispatchable(task)) continue;
+                double required = requiredEnergy(thief, task);
+                if (required == ENERGY_UNAVAILABLE || thief.getBatteryPercentage() < required) continue;
+                candidates.add(Map.entry(task, victim));
+            }
+        }
+        candidates.sort(Comparator.comparingDouble((Map.Entry<Task, Robot> c) -> firstStopOf(c.getKey()).distance(at))
+                .thenComparing(c -> c.getValue().getId()));
+        for (Map.Entry<Task, Robot> candidate : candidates) {
+            Task task = candidate.getKey();
+            Robot victim = candidate.getValue();
+            if (victim.unassignTask(task)) { // fails if it started meanwhile
+                ChargingPlanner planner = chargingPlanner;
+                if (planner != null) {
+                    forecastCharging(planner, thief, task);
+                    forecastCommittedCharging(planner, victim);
+                }
+                energyCache.forget(task);
+                thief.assignTask(task);
+                steals.increment();
+                logger.log_print("info", "equipment_manager", " STEAL " + task + " " + victim.getId() + " -> " + thief.getId());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The tasks lookahead committed to a robot that has just finished one, which
+     * it starts next; empty if none. Read on the robot's own thread before it
+     * reports: by the time the event loop sees the report the robot may already
+     * have taken them off its queue. Nothing can be committed or stolen meanwhile,
+     * as both need the robot to be executing.
+     */
+    private List<Task> committedWork(Robot robot) {
+        if (lookaheadDepth == 0) return List.of();
+        List<Task> queued = robot.getQueuedTasks();
+        for (Task task : queued) {
+            if (isDispatchable(task)) return queued;
+        }
+        return List.of();
+    }
+
+    /**
+     * Latest start that still meets the task's SLA: its deadline minus the
+     * travel time of the robot-independent part of the trip (Long.MAX_VALUE without an SLA).
+     */
+    private long latestStartMillis(Task task) {
+        long sla = task.getSlaMillis();
+        if (sla == Task.NO_SLA) return Long.MAX_VALUE;
+        long deadline = submittedAt.getOrDefault(task, clock.millis()) + sla;
+        double tailEnergy = Math.max(0, energyCache.tailEnergy(task));
+        long travelMillis = (long) (tailEnergy / Robot.getBatteryCosumedPerMeter() * Robot.getMoveDelayPerMeterMs());
+        return deadline - travelMillis;
+    }
+
+    /**
+     * Forecasts the robot's battery once 'task' is done and, if it will be low,
+     * books it a charging slot for then; otherwise drops its booking.
+     */
+    private void forecastCharging(ChargingPlanner planner, Robot robot, Task task) {
+        forecastCharging(planner, robot, requiredEnergy(robot, task), task);
+    }
+
+    /**
+     * As above, for a robot that will have used 'energy' when it is done with
+     * 'last', the final task of its committed work.
+     */
+    private void forecastCharging(ChargingPlanner planner, Robot robot, double energy, Task last) {
+        if (energy == ENERGY_UNAVAILABLE) return;
+        double forecast = robot.getBatteryPercentage() - energy;
+        if (forecast >= LOW_BATTERY_PERCENT) {
+            planner.cancel(robot.getId());
+            return;
+        }
+        long readyAt = clock.millis() + (long) (energy / Robot.getBatteryCosumedPerMeter() * Robot.getMoveDelayPerMeterMs());
+        ChargingPlanner.Booking booking = planner.book(robot.getId(), lastStopOf(last), readyAt, forecast);
+        if (booking != null) {
+            logger.log_print("info", "equipment_manager", String.format("[%s] Robot %s forecast at %.0f%% after %s. Booked %s",
+                    ID, robot.getId(), forecast, last.getID(), booking));
+        }
+    }
+
+    /**
+     * Forecasts a busy robot's battery once its running task and the tasks
+     * committed behind it are done, after its committed work changed.
+     */
+    private void forecastCommittedCharging(ChargingPlanner planner, Robot robot) {
+        Task active = robot.getActiveTask();
+        List<Task> queued = robot.getQueuedTasks();
+        Task last = queued.isEmpty() ? active : queued.get(queued.size() - 1);
+        if (last == null) return;
+        forecastCharging(planner, robot, committedEnergy(active, queued), last);
+    }
+
+    static Point firstStopOf(Task task) {
+        return switch (task.getType()) {
+            case PICK_ORDER -> ((OrderTask) task).getItemLocation();
+            case PICK_BATCH -> ((PickBatchTask) task).getFirstStop();
+            case STOCK_ITEM -> ((StockTask) task).getLoadingStationLocation();
+            default -> null;
+        };
+    }
+
+    /**
+     * Roughly where a task leaves the robot: its last shelf (the packing station is chosen on the way).
+     */
+    private static Point lastStopOf(Task task) {
+        return switch (task.getType()) {
+            case PICK_ORDER -> ((OrderTask) task).getItemLocation();
+            case PICK_BATCH -> {
+                List<Point> tour = ((PickBatchTask) task).getTour();
+                yield tour.get(tour.size() - 1);
+            }
+            case STOCK_ITEM -> ((StockTask) task).getShelfLocation();
+            default -> null;
+        };
     }
 
     /**
-     * Register the dispatcher thread so stop() can interrupt it later.
+     * Work the dispatcher hands to idle robots (everything else is assigned by the manager itself).
+     */
+    private static boolean isDispatchable(Task task) {
+        return switch (task.getType()) {
+            case PICK_ORDER, PICK_BATCH, STOCK_ITEM -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Drops a submitted task the dispatcher cannot hand out and tells the rejection listeners.
+     */
+    private void reject(Task task) {
+        logger.log_print("error", "equipment_manager", " Unknown task type received: " + task.getType());
+        for (Consumer<Task> listener : taskRejectedListeners) {
+            listener.accept(task);
+        }
+    }
+
+    /**
+     * Returns a robot to the idle set, unless a pending task it can do was
+     * queued while it was on its way back.
+     */
+    private void makeIdle(Robot robot) {
+        fleet.add(robot);
+        availableRobots.add(robot);
+        if (!pendingPickTasks.isEmpty() && availableRobots.remove(robot) && !tryAssignPendingTaskTo(robot)) {
+            availableRobots.add(robot);
+        }
+        if (lookaheadDepth > 0 && availableRobots.remove(robot) && !tryStealFor(robot)) {
+            availableRobots.add(robot);
+        }
+    }
+
+    /**
+     * Register the dispatcher thread so stop() can interrupt it later, and
+     * join it to the clock before it runs. Call before starting the thread.
      * This is optional; if not set, it will be auto-set when run() starts.
      */
     public void registerDispatcherThread(Thread t) {
         this.dispatcherThread = t;
+        clock.register(t);
     }
 
     /**
@@ -151,8 +751,12 @@ public class EquipmentManager implements Runnable {
         if (dt != null) {
             dt.interrupt();
         }
+        Thread forwarder = this.submissionForwarder;
+        if (forwarder != null) {
+            forwarder.interrupt();
+        }
         // Interrupt robots
-        for (Thread t : robotThreads) {
+        for (Thread t : robotThreads.values()) {
             t.interrupt();
         }
 
@@ -163,7 +767,7 @@ public class EquipmentManager implements Runnable {
             if (remaining > 0) dt.join(remaining);
         }
         // Join robots
-        for (Thread t : robotThreads) {
+        for (Thread t : robotThreads.values()) {
             long remaining = Math.max(0, deadline - System.currentTimeMillis());
             if (remaining <= 0) break;
             try {
@@ -177,155 +781,699 @@ public class EquipmentManager implements Runnable {
     }
 
     /**
-     * Testing/monitoring helper: returns number of alive robot threads tracked by EM.
+     * Testing/monitoring helper: returns number of alive robot threads tracked by EM.
+     */
+    public int getAliveRobotThreadCount() {
+        int alive = 0;
+        for (Thread t : robotThreads.values()) {
+            if (t.isAlive()) alive++;
+        }
+        return alive;
+    }
+
+    /**
+     * (Public) Callback from a Robot thread when it finishes a task.
+     * Thread-safe; runs on the robot's own thread without blocking the dispatcher.
+     * With the event-loop dispatcher it only publishes an event.
+     */
+    public void reportFinishedTask(Robot robot, Task finishedTask, boolean taskStatus) throws InterruptedException {
+        List<Task> committed = committedWork(robot);
+        if (eventLoopDispatch) {
+            events.put(DispatchEvent.taskFinished(robot, finishedTask, taskStatus, committed));
+            return;
+        }
+        handleFinishedTask(robot, finishedTask, taskStatus, committed);
+    }
+
+    /**
+     * @param committed the committed tasks the robot goes on with (see committedWork)
+     */
+    private void handleFinishedTask(Robot robot, Task finishedTask, boolean taskStatus, List<Task> committed) throws InterruptedException {
+        logger.log_print("info", "equipment_manager", " Robot " + robot.getId() + " finished task " + finishedTask.getID() + ".");
+        energyCache.forget(finishedTask);
+        Long submitted = submittedAt.remove(finishedTask);
+        if (submitted != null) {
+            long completionMillis = clock.millis() - submitted;
+            long sla = finishedTask.getSlaMillis();
+            latencyMetrics.recordCompleted(finishedTask.getPriority(), completionMillis, sla != Task.NO_SLA && completionMillis > sla);
+            for (Consumer<Task> listener : taskFinishedListeners) {
+                listener.accept(finishedTask);
+            }
+        }
+
+        if (!committed.isEmpty()) {
+            ChargingPlanner planner = chargingPlanner;
+            if (planner != null) {
+                // the battery is known again: forecast from here to the end of the committed work
+                forecastCharging(planner, robot, queueEnergy(robot.getCurrentPosition(), committed), committed.get(committed.size() - 1));
+            }
+            logger.log_print("info", "equipment_manager", " Robot " + robot.getId() + " goes on with its committed tasks.");
+            return;
+        }
+
+        // Priority 1: Always try to assign a pending task first.
+        // (This function already checks battery, so it's safe)
+        boolean assignedPending = tryAssignPendingTaskTo(robot);
+
+        if (assignedPending) {
+            // Robot received a new task and is busy. Our work here is done.
+            return;
+        }
+
+        // --- No available pending task, decide what to do next ---
+        switch (finishedTask.getType()) {
+            case PICK_ORDER, PICK_BATCH, STOCK_ITEM, GO_TO_START -> {
+                if (robot.getBatteryPercentage() < LOW_BATTERY_PERCENT) {
+                    ChargingStation freeChargingStation = acquireChargingStation(robot);
+                    if (freeChargingStation != null) {
+                        freeChargingStation.setState(ObjectState.BUSY);
+                        logger.log_print("info", "equipment_manager", " Assign charging station " + freeChargingStation.getId() + " to robot " + robot.getId() + ".");
+                        robot.assignTask(new ChargeTask(freeChargingStation, robot.getId()));
+                    } else {
+                        ChargingStation closest = waitingChargingStation(robot);
+                        if (closest != null) {
+                            logger.log_print("info", "equipment_manager", " " + robot.getId() + " battery low. All stations busy. Assigning 'GoToChargingStationAndWaitTask' (Target: " + closest.getId() + ")");
+                            robot.assignTask(new GoToChargingStationAndWaitTask(closest));
+                        } else {
+                            logger.log_print("error", "equipment_manager", " No charging stations! Robot " + robot.getId() + " stuck!");
+                            makeIdle(robot);
+                        }
+                    }
+                } else if (finishedTask.getType() != TaskType.GO_TO_START && tryStealFor(robot)) {
+                    logger.log_print("info", "equipment_manager", " No pending tasks. Robot " + robot.getId() + " took over a committed task.");
+                } else if (finishedTask.getType() != TaskType.GO_TO_START && tryTopUp(robot)) {
+                    logger.log_print("info", "equipment_manager", " No pending tasks. Robot " + robot.getId() + " tops up its battery.");
+                } else {
+                    if (finishedTask.getType() == TaskType.GO_TO_START) {
+                        logger.log_print("info", "equipment_manager", " Robot " + robot.getId() + " is at Start Point. Now IDLE.");
+                        if (!availableRobots.contains(robot)) {
+                            robot.setState(RobotState.IDLE);
+                            makeIdle(robot);
+                        }
+                    } else {
+                        logger.log_print("info", "equipment_manager", "No pending tasks. Sending " + robot.getId() + " to Start Point.");
+                        robot.assignTask(new GoToStartTask(robot.getStartingPosition()));
+                    }
+                }
+            }
+            case CHARGE_ROBOT -> {
+                cancelChargingBooking(robot);
+                logger.log_print("info", "equipment_manager", " Robot " + robot.getId() + " finished charging. Sending to Start Point.");
+                robot.assignTask(new GoToStartTask(robot.getStartingPosition()));
+            }
+            case GO_TO_CHARGING_STATION_AND_WAIT -> {
+                cancelChargingBooking(robot);
+                logger.log_print("info", "equipment_manager", " Robot " + robot.getId() + " finished 'GoToWait'.");
+                if (taskStatus) {
+                    logger.log_print("info", "equipment_manager", " Robot " + robot.getId() + " is fully charged.");
+                } else {
+                    logger.log_print("info", "equipment_manager", " Robot " + robot.getId() + " cannot be charged, battery now is " + robot.getBatteryPercentage());
+                    robotsWaitingForCharge.add(robot);
+                }
+                robot.assignTask(new GoToStartTask(robot.getStartingPosition()));
+            }
+            default -> makeIdle(robot);
+        }
+    }
+
+    /**
+     * NEW METHOD: Called by a robot that timed out (15 min) while idle.
+     * Thread-safe: the robot is taken out of the idle set before anything else,
+     * so the dispatcher can no longer claim it.
+     * With the event-loop dispatcher it only publishes an event.
+     */
+    public void idleRobotRequestsCharge(Robot robot) {
+        if (eventLoopDispatch) {
+            events.add(DispatchEvent.idleTimeout(robot));
+            return;
+        }
+        handleIdleTimeout(robot);
+    }
+
+    private void handleIdleTimeout(Robot robot) {
+        logger.log_print("info", "equipment_manager", " " + robot.getId() + " (IDLE) requested charge due to timeout.");
+
+        // The claim: a robot the dispatcher took a moment ago has work and is not idle
+        if (!availableRobots.remove(robot)) {
+            logger.log_print("info", "equipment_manager", " " + robot.getId() + " was given work meanwhile. Ignoring its timeout.");
+            return;
+        }
+
+        // Check if battery actually needs charging
+        if (robot.getBatteryPercentage() >= HIGH_BATTERY_PERCENT) {
+            logger.log_print("info", "equipment_manager", " " + robot.getId() + " requested charge but is already full. Returning to IDLE.");
+            makeIdle(robot); // Add it back
+            return; // Do nothing
+        }
+        if (chargingPlanner != null && robot.getBatteryPercentage() >= LOW_BATTERY_PERCENT && chargingStations.getFreeCount() < 2) {
+            // Predictive charging: a robot that is not low leaves the last free station to one that is
+            logger.log_print("info", "equipment_manager", " " + robot.getId() + " can wait for its charge. Returning to IDLE.");
+            makeIdle(robot);
+            return;
+        }
+
+        // Battery is not full -> Assign a charge task
+        ChargingStation freeStation = acquireChargingStation(robot);
+        if (freeStation != null) {
+            // A free station is available
+            freeStation.setState(ObjectState.BUSY);
+            logger.log_print("info", "equipment_manager", " Found free station " + freeStation.getId() + ". Assigning ChargeTask.");
+            robot.assignTask(new ChargeTask(freeStation, robot.getId())); // (Modify ChargeTask constructor if needed)
+        } else {
+            // No free stations
+            ChargingStation closest = waitingChargingStation(robot);
+            if (closest != null) {
+                logger.log_print("info", "equipment_manager", " All stations busy. Assigning GoToChargingStationAndWaitTask.");
+                robot.assignTask(new GoToChargingStationAndWaitTask(closest));
+            } else {
+                logger.log_print("error", "equipment_manager", " No charging stations! Robot " + robot.getId() + " stuck!");
+                makeIdle(robot); // Add it back
+            }
+        }
+    }
+
+    /**
+     * A free charging station for a robot that has to charge now, or null.
+     * With predictive charging it is the station booked for the robot, else
+     * the nearest one that no other robot has booked before the charge would be
+     * over, else any free one it can reach: a robot running low goes before a
+     * forecast. The charge is booked from when the robot gets there.
+     */
+    private ChargingStation acquireChargingStation(Robot robot) {
+        ChargingPlanner planner = chargingPlanner;
+        Point at = robot.getCurrentPosition();
+        if (planner == null) {
+            return chargingStations.tryAcquire(at);
+        }
+        String robotId = robot.getId();
+        long now = clock.millis();
+        long needed = ChargingPlanner.chargeMillis(robot.getBatteryPercentage(), 100);
+        ChargingPlanner.Booking booking = planner.getBooking(robotId);
+        ChargingStation station = booking == null ? null : chargingStations.tryAcquire(at, s -> s == booking.station
+                && planner.arrivalMillis(s, at, now) != Long.MAX_VALUE);
+        if (station == null) {
+            station = chargingStations.tryAcquire(at, s -> planner.freeMillis(s, robotId, planner.arrivalMillis(s, at, now)) >= needed);
+        }
+        if (station == null) {
+            station = chargingStations.tryAcquire(at, s -> planner.arrivalMillis(s, at, now) != Long.MAX_VALUE);
+        }
+        if (station == null) {
+            return null;
+        }
+        long arrival = planner.arrivalMillis(station, at, now);
+        if (arrival == Long.MAX_VALUE) {
+            // cut off since it was picked: no slot to book, and no use holding it
+            chargingStations.release(station);
+            planner.cancel(robotId);
+            logger.log_print("error", "equipment_manager", String.format("Charging Station %s can no longer be reached from %s.",
+                    station.getId(), robotId));
+            return null;
+        }
+        planner.bookNow(robotId, station, arrival, arrival + needed);
+        return station;
+    }
+
+    /**
+     * Where a robot that found no free station waits: its booked station, else the closest one.
+     */
+    private ChargingStation waitingChargingStation(Robot robot) {
+        ChargingPlanner planner = chargingPlanner;
+        ChargingPlanner.Booking booking = planner == null ? null : planner.getBooking(robot.getId());
+        return booking != null ? booking.station : findClosestChargingStation(robot.getCurrentPosition());
+    }
+
+    /**
+     * Predictive charging only: sends an idle robot below TOP_UP_BELOW_PERCENT to a
+     * free station for a partial charge that ends before another robot's slot begins.
+     * Only while demand is low: nothing is pending, another robot is idle for the
+     * next order, and a station stays free for a robot that runs low. And only
+     * on the way, at a station no farther away than the top-up takes: the station
+     * is held from the moment the robot sets off.
+     * @return true if a top-up was assigned
+     */
+    private boolean tryTopUp(Robot robot) {
+        ChargingPlanner planner = chargingPlanner;
+        if (planner == null || robot.getBatteryPercentage() >= TOP_UP_BELOW_PERCENT || !pendingPickTasks.isEmpty()
+                || availableRobots.isEmpty() || chargingStations.getFreeCount() < 2) {
+            return false;
+        }
+        String robotId = robot.getId();
+        Point at = robot.getCurrentPosition();
+        long now = clock.millis();
+        long minimum = ChargingPlanner.chargeMillis(0, MIN_TOP_UP_PERCENT);
+        long fullCharge = ChargingPlanner.chargeMillis(robot.getBatteryPercentage(), 100);
+        ChargingStation station = chargingStations.tryAcquire(at, s -> planner.travelMillis(s, at) <= fullCharge
+                && planner.freeMillis(s, robotId, planner.arrivalMillis(s, at, now)) >= Math.max(minimum, planner.travelMillis(s, at)));
+        if (station == null) return false;
+        long arrival = planner.arrivalMillis(station, at, now);
+        long window = planner.freeMillis(station, robotId, arrival);
+        double target = window == Long.MAX_VALUE ? 100
+                : Math.min(100, robot.getBatteryPercentage() + (double) window / Robot.getChargeMillisPerPercent());
+        planner.bookNow(robotId, station, arrival, arrival + ChargingPlanner.chargeMillis(robot.getBatteryPercentage(), target));
+        station.setState(ObjectState.BUSY);
+        robot.assignTask(new ChargeTask(station, robotId, target));
+        return true;
+    }
+
+    private void cancelChargingBooking(Robot robot) {
+        ChargingPlanner planner = chargingPlanner;
+        if (planner != null) {
+            planner.cancel(robot.getId());
+        }
+    }
+
+    /**
+     * (Public) Called by a Task to request a Packing Station: the free one nearest
+     * to the robot. This blocks indefinitely.
+     */
+    public PackingStation requestAvailablePackingStation(Robot robot) throws InterruptedException {
+        PackingStation availableStation = packingStations.acquire(robot.getCurrentPosition());
+        logger.log_print("info", "equipment_manager", " Found available Packing Station " + availableStation.getId() + " for Robot " + robot.getId() + ".");
+        return availableStation;
+    }
+
+    /**
+     * (Public) Called by a StockTask at its loading station: waits on the clock
+     * until no other robot is loading there. Give it back with releaseLoadingStation.
+     */
+    public void acquireLoadingStation(Robot robot, LoadingStation station) throws InterruptedException {
+        loadingStationAllocator(station).acquire(robot.getCurrentPosition());
+        station.setState(ObjectState.BUSY);
+    }
+
+    /**
+     * (Public) Lets the next robot waiting at the loading station in.
+     */
+    public void releaseLoadingStation(LoadingStation station) {
+        StationAllocator<LoadingStation> allocator = loadingStationAllocator(station);
+        if (!allocator.release(station)) {
+            logger.log_print("error", "equipment_manager", String.format("Loading Station %s was released but not held.", station.getId()));
+        } else if (allocator.isFree(station)) {
+            station.setState(ObjectState.FREE);
+        }
+    }
+
+    private StationAllocator<LoadingStation> loadingStationAllocator(LoadingStation station) {
+        return loadingStations.computeIfAbsent(station, s -> new StationAllocator<>(List.of(s), this::stationCost, clock));
+    }
+
+    /**
+     * (Public) Called by a Task to request a Charging Station with a timeout.
+     */
+    public ChargingStation requestAvailableChargingStation(long timeout) throws InterruptedException {
+        // This will block for 'timeout' seconds of simulation time.
+        return chargingStations.acquire(null, timeout, TimeUnit.SECONDS);
+    }
+
+    /**
+     * (Public) Called by a Task to request the free Charging Station nearest to the robot,
+     * waiting up to 'timeout' seconds of simulation time.
+     */
+    public ChargingStation requestAvailableChargingStation(Robot robot, long timeout) throws InterruptedException {
+        return chargingStations.acquire(robot.getCurrentPosition(), timeout, TimeUnit.SECONDS);
+    }
+
+    /**
+     * (Public) Called by a Task to find the most effective path.
+     * With cooperative planning enabled the path is reserved against the other
+     * robots' routes and may contain wait steps (see TimedPath).
+     */
+    public List<Point> requestPath(Robot robot, Point targetLocation) {
+        CooperativePathPlanner planner = cooperativePlanner;
+        if (planner != null) {
+            TimedPath path = planner.plan(robot.getId(), robot.getLocation(), targetLocation);
+            if (path != null) {
+                return path;
+            }
+            logger.log_print("error", "equipment_manager", String.format("No collision-free path for Robot %s to (%d, %d); using uncoordinated path",
+                    robot.getId(), targetLocation.x, targetLocation.y));
+        }
+        if (incrementalReplanning) {
+            return replannerFor(robot, targetLocation).findPath();
+        }
+        return pathFinding.findPath(robot.getLocation(), targetLocation);
+    }
+
+    /**
+     * (Public) Called by a moving Robot when the map version changed mid-route.
+     * With incremental replanning the robot's D* Lite search is repaired;
+     * otherwise a new path is searched, but only if a newly blocked cell lies on
+     * the remaining route.
+     * @param remaining the steps the robot has not driven yet (last one is the goal)
+     * @param sinceVersion the map version the remaining route was planned against
+     * @return the new remaining route, or null to keep driving the current one
+     */
+    public List<Point> repairPath(Robot robot, List<Point> remaining, long sinceVersion) {
+        if (remaining.isEmpty()) return null;
+        Point goal = remaining.get(remaining.size() - 1);
+        WarehouseMap map = pathFinding.getWarehouseMap();
+
+        List<Point> repaired;
+        DStarLite replanner = replanners.get(robot.getId());
+        if (replanner != null && replanner.getGoal().equals(goal)) {
+            replanner.updateStart(robot.getCurrentPosition());
+            repaired = replanner.findPath();
+        } else {
+            List<Point> changed = map.changedCellsSince(sinceVersion);
+            if (changed != null && !blocksRoute(map, changed, remaining)) {
+                return null;
+            }
+            repaired = pathFinding.findPath(robot.getCurrentPosition(), goal);
+        }
+
+        if (repaired.isEmpty()) {
+            logger.log_print("error", "equipment_manager", String.format("Robot %s: no path to (%d, %d) after map change; keeping current route",
+                    robot.getId(), goal.x, goal.y));
+            return null;
+        }
+        return repaired.equals(remaining) ? null : repaired;
+    }
+
+    /** True if one of the changed cells is now blocked and lies on the route (the goal itself may be blocked). */
+    private static boolean blocksRoute(WarehouseMap map, List<Point> changed, List<Point> route) {
+        Point goal = route.get(route.size() - 1);
+        for (Point cell : changed) {
+            if (!cell.equals(goal) && !map.isWalkable(cell.x, cell.y) && route.contains(cell)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The robot's D* Lite planner for 'goal', reused while the goal stays the same.
+     */
+    private DStarLite replannerFor(Robot robot, Point goal) {
+        WarehouseMap map = pathFinding.getWarehouseMap();
+        DStarLite replanner = replanners.get(robot.getId());
+        if (replanner == null || !replanner.getGoal().equals(goal)) {
+            if (replanner != null) map.removeChangeListener(replanner);
+            replanner = new DStarLite(map, robot.getCurrentPosition(), goal);
+            map.addChangeListener(replanner);
+            replanners.put(robot.getId(), replanner);
+        } else {
+            replanner.updateStart(robot.getCurrentPosition());
+        }
+        return replanner;
+    }
+
+    /**
+     * Switches incremental (D* Lite) replanning on or off. When on, every robot
+     * keeps the search state of its current route, and blocked cells are
+     * repaired locally instead of searching again from scratch.
+     */
+    public void setIncrementalReplanning(boolean enabled) {
+        this.incrementalReplanning = enabled;
+        if (!enabled) {
+            for (DStarLite replanner : replanners.values()) {
+                pathFinding.getWarehouseMap().removeChangeListener(replanner);
+            }
+            replanners.clear();
+        }
+    }
+
+    public boolean isIncrementalReplanning() {
+        return incrementalReplanning;
+    }
+
+    /**
+     * Current version of the warehouse map; moving robots poll it to notice blocked cells.
+     */
+    public long getMapVersion() {
+        return pathFinding.getWarehouseMap().getVersion();
+    }
+
+    /**
+     * Switches cooperative (reservation-based) path planning on or off.
+     * When on, robots get collision-free paths with wait steps where their routes cross.
+     */
+    public void setCooperativePlanning(boolean enabled) {
+        if (!enabled) {
+            cooperativePlanner = null;
+        } else if (cooperativePlanner == null) {
+            ReservationTable table = new ReservationTable(Robot.getStepTickMs(), clock);
+            cooperativePlanner = new CooperativePathPlanner(pathFinding.getWarehouseMap(), table);
+        }
+    }
+
+    /**
+     * Plans paths with a cooperative planner shared with other zones (null: off),
+     * so their robots reserve in one table.
+     * Package-private for the ZoneCoordinator.
+     */
+    void setCooperativePlanner(CooperativePathPlanner planner) {
+        cooperativePlanner = planner;
+    }
+
+    public boolean isCooperativePlanning() {
+        return cooperativePlanner != null;
+    }
+
+    /**
+     * Switches predictive charging on or off. When on, a robot whose work will
+     * leave its battery low has a charging slot booked for when it is done,
+     * other charges keep clear of booked slots, robots that run out of work
+     * below TOP_UP_BELOW_PERCENT top up at a nearby free station in the meantime,
+     * and idle robots that are not low leave the last free station alone.
+     */
+    public void setPredictiveCharging(boolean enabled) {
+        if (!enabled) {
+            chargingPlanner = null;
+        } else if (chargingPlanner == null) {
+            chargingPlanner = new ChargingPlanner(allChargingStations, this::stationCost, clock);
+        }
+    }
+
+    public boolean isPredictiveCharging() {
+        return chargingPlanner != null;
+    }
+
+    /**
+     * Sets how many tasks a busy robot may have committed behind the one it is
+     * running: 0 (the default) up to 3. A task no idle robot can take then goes
+     * to the busy robot that can still do it after its committed work with the
+     * least energy, and starts the moment that robot is done. A robot that turns
+     * idle takes over the nearest committed task it can do that has not started.
+     */
+    public void setLookaheadDepth(int depth) {
+        if (depth < 0 || depth > MAX_LOOKAHEAD) {
+            throw new IllegalArgumentException("Lookahead depth must be between 0 and " + MAX_LOOKAHEAD + ": " + depth);
+        }
+        lookaheadDepth = depth;
+    }
+
+    public int getLookaheadDepth() {
+        return lookaheadDepth;
+    }
+
+    /** Tasks committed to a busy robot instead of waiting for an idle one. */
+    public long getLookaheadCommitCount() {
+        return lookaheadCommits.sum();
+    }
+
+    /** Committed tasks an idle robot took over from a busy one. */
+    public long getStealCount() {
+        return steals.sum();
+    }
+
+    /**
+     * The robot's charging slot, or null (also without predictive charging).
+     * Package-private for tests.
      */
-    public int getAliveRobotThreadCount() {
-        int alive = 0;
-        for (Thread t : robotThreads) {
-            if (t.isAlive()) alive++;
-        }
-        return alive;
+    ChargingPlanner.Booking getChargingBooking(Robot robot) {
+        ChargingPlanner planner = chargingPlanner;
+        return planner == null ? null : planner.getBooking(robot.getId());
     }
 
     /**
-     * (Public) Callback from a Robot thread when it finishes a task.
-     * This is a main entry point and MUST be thread-safe (synchronized).
+     * Sets how long the dispatcher collects incoming tasks before assigning them
+     * all at once with a minimum total travel distance (Hungarian algorithm).
+     * 0 (the default) dispatches every task on arrival to the closest robot.
      */
-    public synchronized void reportFinishedTask(Robot robot, Task finishedTask, boolean taskStatus) throws InterruptedException {
-        logger.log_print("info", "equipment_manager", " Robot " + robot.getId() + " finished task " + finishedTask.getID() + ".");
+    public void setBatchDispatchWindow(long windowMs) {
+        if (windowMs < 0) {
+            throw new IllegalArgumentException("Batch window must be >= 0: " + windowMs);
+        }
+        this.batchWindowMs = windowMs;
+    }
 
-        // Priority 1: Always try to assign a pending task first.
-        // (This function already checks battery, so it's safe)
-        boolean assignedPending = tryAssignPendingTaskTo(robot);
+    public long getBatchDispatchWindow() {
+        return batchWindowMs;
+    }
 
-        if (assignedPending) {
-            // Robot received a new task and is busy. Our work here is done.
-            return;
+    // --- Batch dispatch ---
+
+    /**
+     * Collects the first task and everything else submitted within the window.
+     */
+    private List<Task> collectBatch(Task first, long windowMs) throws InterruptedException {
+        List<Task> batch = new ArrayList<>();
+        batch.add(first);
+        long deadline = clock.millis() + windowMs;
+        long remaining;
+        while ((remaining = deadline - clock.millis()) > 0) {
+            Task next = clock.poll(taskSubmissionQueue, remaining, TimeUnit.MILLISECONDS);
+            if (next == null) break;
+            batch.add(next);
         }
+        return batch;
+    }
 
-        // --- No available pending task, decide what to do next ---
-        switch (finishedTask.getType()) {
-            case PICK_ORDER, STOCK_ITEM, GO_TO_START -> {
-                if (robot.getBatteryPercentage() < LOW_BATTERY_PERCENT) {
-                    ChargingStation freeChargingStation = requestAvailableChargingStation(0);
-                    if (freeChargingStation != null) {
-                        freeChargingStation.setState(ObjectState.BUSY);
-                        logger.log_print("info", "equipment_manager", " Assign charging station " + freeChargingStation.getId() + " to robot " + robot.getId() + ".");
-                        robot.assignTask(new ChargeTask(freeChargingStation, robot.getId()));
-                    } else {
-                        ChargingStation closest = findClosestChargingStation(robot.getCurrentPosition());
-                        if (closest != null) {
-                            logger.log_print("info", "equipment_manager", " " + robot.getId() + " battery low. All stations busy. Assigning 'GoToChargingStationAndWaitTask' (Target: " + closest.getId() + ")");
-                            robot.assignTask(new GoToChargingStationAndWaitTask(closest));
-                        } else {
-                            logger.log_print("error", "equipment_manager", " No charging stations! Robot " + robot.getId() + " stuck!");
-                            availableRobots.add(robot);
-                        }
-                    }
-                } else {
-                    if (finishedTask.getType() == TaskType.GO_TO_START) {
-                        logger.log_print("info", "equipment_manager", " Robot " + robot.getId() + " is at Start Point. Now IDLE.");
-                        if (!availableRobots.contains(robot)) {
-                            availableRobots.add(robot);
-                            robot.setState(RobotState.IDLE);
-                        }
-                    } else {
-                        logger.log_print("info", "equipment_manager", "No pending tasks. Sending " + robot.getId() + " to Start Point.");
-                        robot.assignTask(new GoToStartTask(robot.getStartingPosition()));
-                    }
-                }
-            }
-            case CHARGE_ROBOT -> {
-                logger.log_print("info", "equipment_manager", " Robot " + robot.getId() + " finished charging. Sending to Start Point.");
-                robot.assignTask(new GoToStartTask(robot.getStartingPosition()));
+    /**
+     * Assigns a batch of tasks to the idle robots, minimising the summed travel
+     * distance to the first stop of each task. Tasks left over, or whose robot was
+     * claimed by another thread while the batch was solved, go to the pending queue.
+     */
+    private void dispatchBatch(List<Task> batch) {
+        List<Task> tasks = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            if (isDispatchable(task)) {
+                submittedAt.putIfAbsent(task, clock.millis());
+                tasks.add(task);
+            } else {
+                reject(task);
             }
-            case GO_TO_CHARGING_STATION_AND_WAIT -> {
-                logger.log_print("info", "equipment_manager", " Robot " + robot.getId() + " finished 'GoToWait'.");
-                if (taskStatus) {
-                    logger.log_print("info", "equipment_manager", " Robot " + robot.getId() + " is fully charged.");
-                } else {
-                    logger.log_print("info", "equipment_manager", " Robot " + robot.getId() + " cannot be charged, battery now is " + robot.getBatteryPercentage());
-                    robotsWaitingForCharge.add(robot);
-                }
-                robot.assignTask(new GoToStartTask(robot.getStartingPosition()));
+        }
+
+        List<Robot> robots = idleSnapshot();
+        Map<Task, Robot> plan = planBatchAssignment(tasks, robots);
+        int dispatched = 0;
+        for (Task task : tasks) {
+            Robot robot = plan.get(task);
+            if (robot != null && availableRobots.remove(robot)) {
+                logger.log_print("info", "equipment_manager", " DISPATCH " + task + " -> " + robot.getId());
+                handOver(task, robot);
+                dispatched++;
+            } else {
+                offerPending(task, robots);
             }
-            default -> availableRobots.add(robot);
         }
+        logger.log_print("info", "equipment_manager", String.format(" Batch of %d task(s): %d dispatched, %d pending",
+                tasks.size(), dispatched, tasks.size() - dispatched));
     }
 
     /**
-     * NEW METHOD: Called by a robot that timed out (15 min) while idle.
-     * Must be synchronized because it conflicts with 'reportFinishedTask'
-     * and 'run' (when accessing 'availableRobots').
+     * Solves the assignment of the given tasks to the currently idle robots without
+     * changing any state. Pairs the robot lacks the battery for are never matched.
+     * Package-private for tests and the dispatch benchmark.
+     * @return the robot chosen for each task that could be assigned
      */
-    public synchronized void idleRobotRequestsCharge(Robot robot) {
-        logger.log_print("info", "equipment_manager", " " + robot.getId() + " (IDLE) requested charge due to timeout.");
+    Map<Task, Robot> planBatchAssignment(List<Task> tasks) {
+        return planBatchAssignment(tasks, idleSnapshot());
+    }
 
-        // Remove the robot from the available list to prevent race conditions
-        availableRobots.remove(robot);
+    private Map<Task, Robot> planBatchAssignment(List<Task> tasks, List<Robot> robots) {
+        Map<Task, Robot> plan = new HashMap<>();
+        if (robots.isEmpty() || tasks.isEmpty()) return plan;
 
-        // Check if battery actually needs charging
-        if (robot.getBatteryPercentage() >= HIGH_BATTERY_PERCENT) {
-            logger.log_print("info", "equipment_manager", " " + robot.getId() + " requested charge but is already full. Returning to IDLE.");
-            availableRobots.add(robot); // Add it back
-            return; // Do nothing
+        double[][] cost = new double[robots.size()][tasks.size()];
+        for (int r = 0; r < robots.size(); r++) {
+            for (int t = 0; t < tasks.size(); t++) {
+                cost[r][t] = dispatchCost(robots.get(r), tasks.get(t));
+            }
         }
 
-        // Battery is not full -> Assign a charge task
-        ChargingStation freeStation = availableChargeStations.poll();
-        if (freeStation != null) {
-            // A free station is available
-            freeStation.setState(ObjectState.BUSY);
-            logger.log_print("info", "equipment_manager", " Found free station " + freeStation.getId() + ". Assigning ChargeTask.");
-            robot.assignTask(new ChargeTask(freeStation, robot.getId())); // (Modify ChargeTask constructor if needed)
-        } else {
-            // No free stations
-            ChargingStation closest = findClosestChargingStation(robot.getCurrentPosition());
-            if (closest != null) {
-                logger.log_print("info", "equipment_manager", " All stations busy. Assigning GoToChargingStationAndWaitTask.");
-                robot.assignTask(new GoToChargingStationAndWaitTask(closest));
-            } else {
-                logger.log_print("error", "equipment_manager", " No charging stations! Robot " + robot.getId() + " stuck!");
-                availableRobots.add(robot); // Add it back
+        int[] taskOfRobot = HungarianAssignment.solve(cost);
+        for (int r = 0; r < taskOfRobot.length; r++) {
+            if (taskOfRobot[r] >= 0) {
+                plan.put(tasks.get(taskOfRobot[r]), robots.get(r));
             }
         }
+        return plan;
     }
 
     /**
-     * (Public) Called by a Task to request a Packing Station.
-     * This blocks indefinitely.
+     * Travel distance from the robot to the first stop of the task,
+     * or HungarianAssignment.INFEASIBLE if the robot cannot complete it.
      */
-    public PackingStation requestAvailablePackingStation(Robot robot) throws InterruptedException {
-        PackingStation availableStation = availablePackStations.take();
-        logger.log_print("info", "equipment_manager", " Found available Packing Station " + availableStation.getId() + " for Robot " + robot.getId() + ".");
-        return availableStation;
+    private double dispatchCost(Robot robot, Task task) {
+        Point firstStop = firstStopOf(task);
+        if (firstStop == null) {
+            return HungarianAssignment.INFEASIBLE;
+        }
+        double requiredBattery = requiredEnergy(robot, task);
+        if (requiredBattery == ENERGY_UNAVAILABLE || robot.getBatteryPercentage() < requiredBattery) {
+            return HungarianAssignment.INFEASIBLE;
+        }
+        Point start = robot.getCurrentPosition();
+        return computePathDistance(start, pathFinding.findPath(start, firstStop));
     }
 
+    // --- Internal Logic (Called from locked methods) ---
+
     /**
-     * (Public) Called by a Task to request a Charging Station with a timeout.
+     * Worst-case energy for the robot to complete the task from where it stands,
+     * or ENERGY_UNAVAILABLE. Memoised per task and robot cell (see EnergyFeasibilityCache).
      */
-    public ChargingStation requestAvailableChargingStation(long timeout) throws InterruptedException {
-        // This will block for 'timeout' seconds.
-        ChargingStation availableStation = availableChargeStations.poll(timeout, TimeUnit.SECONDS);
-        return availableStation;
+    private double requiredEnergy(Robot robot, Task task) {
+        return energyCache.requiredEnergy(task, robot.getCurrentPosition());
     }
 
     /**
-     * (Public) Called by a Task to find the most effective path.
+     * The part of a task's worst-case trip that does not depend on the robot:
+     * Order: Pick -> Farthest_Pack -> Farthest_Charge
+     * Batch: First shelf -> ... -> Last shelf -> Farthest_Pack -> Farthest_Charge
+     * Stock: Stock location -> Shelf Location -> Farthest_Charge
      */
-    public List<Point> requestPath(Robot robot, Point targetLocation) {
-        return pathFinding.findPath(robot.getLocation(), targetLocation);
-    }
+    private double taskTailEnergy(Task task) {
+        double totalDistance;
+        switch (task.getType()) {
+            case PICK_ORDER -> {
+                totalDistance = dropOffDistance(((OrderTask) task).getItemLocation());
+                if (totalDistance == ENERGY_UNAVAILABLE) return ENERGY_UNAVAILABLE;
+            }
+            case PICK_BATCH -> {
+                List<Point> tour = ((PickBatchTask) task).getTour();
+                totalDistance = 0;
+                for (int i = 1; i < tour.size(); i++) {
+                    List<Point> leg = pathFinding.findPath(tour.get(i - 1), tour.get(i));
+                    if (leg.isEmpty()) {
+                        logger.log_print("info", "equipment_manager", " Cannot find a valid path along the pick tour – energy unavailable.");
+                        return ENERGY_UNAVAILABLE;
+                    }
+                    totalDistance += computePathDistance(tour.get(i - 1), leg);
+                }
+                double dropOff = dropOffDistance(tour.get(tour.size() - 1));
+                if (dropOff == ENERGY_UNAVAILABLE) return ENERGY_UNAVAILABLE;
+                totalDistance += dropOff;
+            }
+            case STOCK_ITEM -> {
+                StockTask stockTask = (StockTask) task;
+                Point loadingPos = stockTask.getLoadingStationLocation();
+                Point shelfPos = stockTask.getShelfLocation();
+
+                // Find the farthest charging station (Worst case)
+                ChargingStation farthestChargeStation = findFarthestChargingStation(shelfPos);
+                if (farthestChargeStation == null) {
+                    logger.log_print("info", "equipment_manager", " No charging station found – cannot evaluate stock energy.");
+                    return ENERGY_UNAVAILABLE;
+                }
+                Point chargePos = farthestChargeStation.getLocation();
 
-    // --- Internal Logic (Called from locked methods) ---
+                List<Point> pathToShelf = pathFinding.findPath(loadingPos, shelfPos);
+                List<Point> pathToCharge = pathFinding.findPath(shelfPos, chargePos);
+                if (pathToShelf.isEmpty() || pathToCharge.isEmpty()) {
+                    logger.log_print("info", "equipment_manager", " Cannot find a valid path for StockTask – energy unavailable.");
+                    return ENERGY_UNAVAILABLE;
+                }
+                totalDistance = computePathDistance(loadingPos, pathToShelf) + computePathDistance(shelfPos, pathToCharge);
+            }
+            default -> {
+                return ENERGY_UNAVAILABLE;
+            }
+        }
+
+        double energyForTravel = totalDistance * Robot.getBatteryCosumedPerMeter();
+        logger.log_print("info", "equipment_manager", String.format("[%s] Energy calc for task %s without the approach (Dist: %.2f) = Total: %.2f",
+                ID, task.getID(), totalDistance, energyForTravel));
+        return energyForTravel;
+    }
 
     /**
-     * Calculates the worst-case energy required for a robot to complete an order.
-     * Path: Robot -> Pick -> Farthest_Pack -> Farthest_Charge
+     * Worst-case distance from the last pick to a packing station and on to a
+     * charger: Pick -> Farthest_Pack -> Farthest_Charge, or ENERGY_UNAVAILABLE.
      */
-    private double calculateRequiredEnergy(Robot robot, Point orderPosition) {
-        Point robotPos = robot.getCurrentPosition();
-
+    private double dropOffDistance(Point orderPosition) {
         // Find the FARTHEST packing station (worst-case scenario)
         PackingStation farthestPackStation = findFarthestPackingStation(orderPosition);
         if (farthestPackStation == null) {
@@ -342,70 +1490,27 @@ public class EquipmentManager implements Runnable {
         }
         Point chargePos = farthestChargeStation.getLocation();
 
-        // CALCULATE PATHS USING A-STAR
-        List<Point> pathToPick = pathFinding.findPath(robotPos, orderPosition);
         List<Point> pathToPack = pathFinding.findPath(orderPosition, packPos);
         List<Point> pathToCharge = pathFinding.findPath(packPos, chargePos);
-
-        if (pathToPick.isEmpty() || pathToPack.isEmpty() || pathToCharge.isEmpty()) {
+        if (pathToPack.isEmpty() || pathToCharge.isEmpty()) {
             logger.log_print("info", "equipment_manager", " Cannot find a valid path for task – energy unavailable.");
             return ENERGY_UNAVAILABLE;
         }
-
         // Use geometric distance along each path instead of raw step count
-        double distToPick = computePathDistance(robotPos, pathToPick);
-        double distToPack = computePathDistance(orderPosition, pathToPack);
-        double distToCharge = computePathDistance(packPos, pathToCharge);
-        double totalDistance = distToPick + distToPack + distToCharge;
-
-        double energyForTravel = totalDistance * Robot.getBatteryCosumedPerMeter();
-
-//        System.out.printf("[%s] Energy calculation for robot %s (Dist: %.2f * Cost: %.2f) = Total: %.2f",
-//            ID, robot.getId(), totalDistance, Robot.getBatteryCosumedPerMeter(), energyForTravel);
-        logger.log_print("info", "equipment_manager", String.format("[%s] Energy calc for %s (Dist: %.2f) = Total: %.2f",
-                ID, robot.getId(), totalDistance, energyForTravel));
-        return energyForTravel;
+        return computePathDistance(orderPosition, pathToPack) + computePathDistance(packPos, pathToCharge);
     }
 
     /**
-     * Calculates the worst-case energy required for a robot to complete an stock task.
-     * Path: Robot -> Stock location -> Shelf Location -> Farthest_Charge
+     * Energy to reach the first stop of the task (the item, the first shelf of a batch, or the loading station) from 'from'.
      */
-    private double calculateRequiredEnergyForStock(Robot robot, StockTask stockTask) {
-        Point robotPos = robot.getCurrentPosition();
-
-        // Get Stock Position and Shelf Location
-        Point loadingPos = stockTask.getLoadingStationLocation();
-        Point shelfPos = stockTask.getShelfLocation();
-
-        // Find the farthest charging station (Worst case)
-        ChargingStation farthestChargeStation = findFarthestChargingStation(shelfPos);
-        if (farthestChargeStation == null) {
-            logger.log_print("info", "equipment_manager", " No charging station found – cannot evaluate stock energy.");
-            return ENERGY_UNAVAILABLE;
-        }
-        Point chargePos = farthestChargeStation.getLocation();
-
-        // Calculate distance based on A*
-        List<Point> pathToLoad = pathFinding.findPath(robotPos, loadingPos);
-        List<Point> pathToShelf = pathFinding.findPath(loadingPos, shelfPos);
-        List<Point> pathToCharge = pathFinding.findPath(shelfPos, chargePos);
-
-        if (pathToLoad.isEmpty() || pathToShelf.isEmpty() || pathToCharge.isEmpty()) {
-            logger.log_print("info", "equipment_manager", " Cannot find a valid path for StockTask – energy unavailable.");
+    private double firstLegEnergy(Point from, Task task) {
+        Point firstStop = firstStopOf(task);
+        if (firstStop == null) return ENERGY_UNAVAILABLE;
+        List<Point> path = pathFinding.findPath(from, firstStop);
+        if (path.isEmpty()) {
             return ENERGY_UNAVAILABLE;
         }
-
-        double totalDistance = computePathDistance(robotPos, pathToLoad) +
-                computePathDistance(loadingPos, pathToShelf) +
-                computePathDistance(shelfPos, pathToCharge);
-
-        double energyForTravel = totalDistance * Robot.getBatteryCosumedPerMeter();
-
-        logger.log_print("info", "equipment_manager", String.format("[%s] Energy calc (Stock) for %s (Dist: %.2f) = Total: %.2f",
-                ID, robot.getId(), totalDistance, energyForTravel));
-
-        return energyForTravel;
+        return computePathDistance(from, path) * Robot.getBatteryCosumedPerMeter();
     }
 
     /**
@@ -462,6 +1567,18 @@ public class EquipmentManager implements Runnable {
         return farthestStation;
     }
 
+    /**
+     * Path cost from 'from' to the station at 'station' for the station allocators:
+     * a distance field lookup, straight-line distance in the same units if the
+     * station has no field, Integer.MAX_VALUE if it cannot be reached.
+     */
+    private int stationCost(Point station, Point from) {
+        int cost = pathFinding.getStationDistanceFields().getDistance(station, from);
+        if (cost == StationDistanceFields.UNREACHABLE) return Integer.MAX_VALUE;
+        if (cost < 0) return (int) Math.round(station.distance(from) * 10);
+        return cost;
+    }
+
     /**
      * Helper to find the closest charging station to a target point.
      */
@@ -486,54 +1603,63 @@ public class EquipmentManager implements Runnable {
     /**
      * (Public) Returns a station to the pool of available charging stations.
      * This is thread-safe and prioritizes waiting robots.
+     * With the event-loop dispatcher it only publishes an event.
      */
     public void releaseChargeStation(ChargingStation station) {
         if (station == null) {
             logger.log_print("error", "equipment_manager", " Attempted to release a null charging station.");
             return;
         }
+        if (eventLoopDispatch) {
+            events.add(DispatchEvent.stationReleased(station));
+            return;
+        }
+        returnChargeStation(station);
+    }
+
+    private void returnChargeStation(ChargingStation station) {
         Robot waitingRobot = robotsWaitingForCharge.poll();
 
         if (waitingRobot != null) {
+            chargingStations.reassign(station);
             waitingRobot.assignTask(new ChargeTask(station, waitingRobot.getId()));
+        } else if (!chargingStations.release(station)) {
+            logger.log_print("error", "equipment_manager", String.format("Charging Station %s was released but not held.", station.getId()));
+        } else if (chargingStations.isFree(station)) {
+            station.setState(ObjectState.FREE);
+            logger.log_print("info", "equipment_manager", String.format("Charging Station %s released back to pool. (Free: %d)",
+                    station.getId(), chargingStations.getFreeCount()));
         } else {
-            try {
-                // put() will add the station back to the queue.
-                // If the queue is full (which shouldn't happen with LinkedBlockingQueue
-                // unless you set a capacity), it will wait.
-                availableChargeStations.put(station);
-                station.setState(ObjectState.FREE);
-                logger.log_print("info", "equipment_manager", String.format("Charging Station %s released back to queue. (Queue size: %d)",
-                        station.getId(), availableChargeStations.size()));
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt(); // Re-set the interrupt flag
-                logger.log_print("error", "equipment_manager", String.format("Interrupted while trying to release station %s. Station may be lost!", station.getId()));
-            }
+            logger.log_print("info", "equipment_manager", String.format("Charging Station %s handed to the nearest waiting robot.", station.getId()));
         }
-
     }
 
     /**
      * (Public) Returns a station to the pool of available packing stations.
      * This is thread-safe.
+     * With the event-loop dispatcher it only publishes an event.
      */
     public void releasePackingStation(PackingStation station) {
         if (station == null) {
             logger.log_print("error", "equipment_manager", " Attempted to release a null packing station.");
             return;
         }
+        if (eventLoopDispatch) {
+            events.add(DispatchEvent.stationReleased(station));
+            return;
+        }
+        returnPackingStation(station);
+    }
 
-        try {
-            // put() will add the station back to the queue.
-            availablePackStations.put(station);
+    private void returnPackingStation(PackingStation station) {
+        if (!packingStations.release(station)) {
+            logger.log_print("error", "equipment_manager", String.format("Packing Station %s was released but not held.", station.getId()));
+        } else if (packingStations.isFree(station)) {
             station.setState(ObjectState.FREE);
-            logger.log_print("info", "equipment_manager", String.format("Packing Station %s released back to queue. (Queue size: %d)",
-                    station.getId(), availablePackStations.size()));
-
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // Re-set the interrupt flag
-            logger.log_print("error", "equipment_manager", String.format("Interrupted while trying to release station %s. Station may be lost!", station.getId()));
+            logger.log_print("info", "equipment_manager", String.format("Packing Station %s released back to pool. (Free: %d)",
+                    station.getId(), packingStations.getFreeCount()));
+        } else {
+            logger.log_print("info", "equipment_manager", String.format("Packing Station %s handed to the nearest waiting robot.", station.getId()));
         }
     }
 
@@ -541,105 +1667,252 @@ public class EquipmentManager implements Runnable {
      * (Public) Return current pending tasks.
      * This is thread-safe.
      */
-    public synchronized List<Task> getPendingTasks() {
-        // We must synchronize on 'this' to safely access the pendingPickTasks deque,
-        // matching the lock used by run() and reportFinishedTask().
+    public List<Task> getPendingTasks() {
+        // A snapshot (copy) of the pending index, most urgent first.
+        return pendingPickTasks.snapshot();
+    }
 
-        // Return a new ArrayList, which is a snapshot (copy) of the deque.
-        return new ArrayList<>(pendingPickTasks);
+    /**
+     * Wait, completion and SLA misses per task priority.
+     */
+    public TaskLatencyMetrics getLatencyMetrics() {
+        return latencyMetrics;
     }
 
     /**
-     * (Internal) Finds the best-matching pending task for a newly free robot.
-     * Must be called while holding the 'synchronized (this)' lock.
+     * Registers a callback for every dispatched task (order, batch or stock) that
+     * finished, successfully or not. It runs on the thread that handles the
+     * finish, so it must be quick and must not block.
      */
-    private boolean tryAssignPendingTaskTo(Robot robot) {
-        if (pendingPickTasks.isEmpty()) return false;
-        double requiredBattery;
-        for (Task task : pendingPickTasks) {
-            TaskType type = task.getType();
-            switch (type) {
-                case PICK_ORDER -> {
-                    OrderTask order = (OrderTask) task;
-                    requiredBattery = calculateRequiredEnergy(robot, order.getItemLocation());
-                }
-                case STOCK_ITEM -> {
-                    StockTask stock = (StockTask) task;
-                    requiredBattery = calculateRequiredEnergyForStock(robot, stock);
-                }
-                default -> {
-                    continue; // unsupported types not handled here
-                }
-            }
-            if (requiredBattery == ENERGY_UNAVAILABLE) {
-                logger.log_print("info", "equipment_manager", String.format("[%s] Skipping task %s – energy unavailable (path/station missing).", ID, task.getID()));
-                continue;
+    public void addTaskFinishedListener(Consumer<Task> listener) {
+        taskFinishedListeners.add(listener);
+    }
+
+    /**
+     * Registers a callback for every submitted task the dispatcher dropped
+     * because it cannot hand it out. Runs on the dispatcher thread.
+     */
+    public void addTaskRejectedListener(Consumer<Task> listener) {
+        taskRejectedListeners.add(listener);
+    }
+
+    /**
+     * Total clock time packing stations have been held by robots so far,
+     * including the stations held right now.
+     */
+    public long getPackingBusyMillis() {
+        return packingStations.getBusyMillis();
+    }
+
+    /**
+     * Uses, busy time and waiting per packing station so far.
+     */
+    public List<StationUsage> getPackingStationUsage() {
+        return packingStations.getUsage();
+    }
+
+    /**
+     * Uses, busy time and waiting per charging station so far.
+     */
+    public List<StationUsage> getChargingStationUsage() {
+        return chargingStations.getUsage();
+    }
+
+    /**
+     * Uses, busy time and waiting at one loading station so far.
+     */
+    public StationUsage getLoadingStationUsage(LoadingStation station) {
+        return loadingStationAllocator(station).getUsage().get(0);
+    }
+
+    public int getPackingStationCount() {
+        return allPackingStations.size();
+    }
+
+    /**
+     * Number of robots the manager was started with.
+     */
+    public int getFleetSize() {
+        return fleetSize;
+    }
+
+    /**
+     * Number of robots this manager runs right now (changes as zones trade robots).
+     */
+    public int getRobotCount() {
+        return fleet.size();
+    }
+
+    public int getIdleRobotCount() {
+        return availableRobots.size();
+    }
+
+    public int getPendingTaskCount() {
+        return pendingPickTasks.size();
+    }
+
+    // --- Zone handoff (see ZoneCoordinator) ---
+
+    /**
+     * Gives up the idle robot nearest to 'toward' so another zone can take it over.
+     * Package-private for the ZoneCoordinator.
+     * @return the robot, no longer run by this manager, or null if none is idle
+     */
+    Robot releaseIdleRobot(Point toward) {
+        List<Robot> idle = idleSnapshot();
+        idle.sort(Comparator.comparingDouble((Robot r) -> r.getCurrentPosition().distance(toward)));
+        for (Robot robot : idle) {
+            if (availableRobots.remove(robot)) { // the claim
+                fleet.remove(robot);
+                cancelChargingBooking(robot);
+                DStarLite replanner = replanners.remove(robot.getId());
+                if (replanner != null) pathFinding.getWarehouseMap().removeChangeListener(replanner);
+                logger.log_print("info", "equipment_manager", " Robot " + robot.getId() + " leaves for another zone.");
+                return robot;
             }
-            if (robot.getBatteryPercentage() >= requiredBattery) {
-                pendingPickTasks.remove(task);
-                robot.assignTask(task);
-                logger.log_print("info", "equipment_manager", String.format("[%s] Robot %s assigned pending task %s", this.ID, robot.getId(), task.getID()));
-                return true;
+        }
+        return null;
+    }
+
+    /**
+     * Takes over an idle robot that 'donor' released. The robot's thread keeps
+     * running; from now on it reports to this manager, which also stops it, and
+     * its home is moved into this zone.
+     * Package-private for the ZoneCoordinator.
+     */
+    void adoptRobot(Robot robot, EquipmentManager donor) {
+        Thread thread = donor.robotThreads.remove(robot.getId());
+        if (thread != null) robotThreads.put(robot.getId(), thread);
+        robot.setStartingPosition(homeInZone(robot.getStartingPosition()));
+        robot.setEquipmentManager(this);
+        fleet.add(robot);
+        logger.log_print("info", "equipment_manager", " Robot " + robot.getId() + " joins from another zone.");
+        if (eventLoopDispatch) {
+            events.add(DispatchEvent.robotJoined(robot));
+        } else {
+            makeIdle(robot);
+        }
+    }
+
+    /**
+     * A home in this zone for a robot that joins from another: the walkable cell
+     * nearest to its old home that no robot of this zone calls home.
+     */
+    private Point homeInZone(Point home) {
+        if (zone == null || zone.contains(home)) return home;
+        WarehouseMap map = pathFinding.getWarehouseMap();
+        Set<Point> taken = new HashSet<>();
+        for (Robot robot : fleet) {
+            taken.add(robot.getStartingPosition());
+        }
+        Point best = null;
+        for (int y = zone.y; y < zone.y + zone.height; y++) {
+            for (int x = zone.x; x < zone.x + zone.width; x++) {
+                if (!map.isInside(x, y) || !map.isWalkable(x, y)) continue;
+                Point cell = new Point(x, y);
+                if (!taken.contains(cell) && (best == null || cell.distanceSq(home) < best.distanceSq(home))) {
+                    best = cell;
+                }
             }
         }
+        return best == null ? home : best;
+    }
 
-        return false;
+    /**
+     * Removes the most urgent pending task so that another zone can do it.
+     * Package-private for the ZoneCoordinator.
+     * @return the task, or null if none is pending
+     */
+    Task handOffPendingTask() {
+        return pendingPickTasks.claimBest(task -> true);
     }
 
     /**
-     * (Internal) Finds the best-matching robot for a new task.
-     * Must be called while holding the 'synchronized (this)' lock.
+     * Takes over a task handed off by another zone, keeping its original submission time.
+     * Package-private for the ZoneCoordinator.
      */
-    private Robot findClosestAvailableRobot(Point target) {
-        if (availableRobots.isEmpty()) {
-            return null;
+    void acceptHandOff(Task task, EquipmentManager from) {
+        Long submitted = from.submittedAt.remove(task);
+        if (submitted != null) {
+            submittedAt.put(task, submitted);
         }
+        taskSubmissionQueue.add(task);
+    }
 
-        Robot bestRobot = null;
-        double minDistance = Double.MAX_VALUE;
+    /**
+     * (Internal) Finds the most urgent pending task a newly free robot has the battery for.
+     * The caller owns the robot; the task is claimed by removing it from the index.
+     */
+    private boolean tryAssignPendingTaskTo(Robot robot) {
+        if (pendingPickTasks.isEmpty()) return false;
+        Task task = pendingPickTasks.claimBest(candidate -> {
+            double requiredBattery = requiredEnergy(robot, candidate);
+            if (requiredBattery == ENERGY_UNAVAILABLE) {
+                logger.log_print("info", "equipment_manager", String.format("[%s] Skipping task %s – energy unavailable (path/station missing).", ID, candidate.getID()));
+                return false;
+            }
+            return robot.getBatteryPercentage() >= requiredBattery;
+        });
+        if (task == null) return false;
+        handOver(task, robot);
+        logger.log_print("info", "equipment_manager", String.format("[%s] Robot %s assigned pending task %s", this.ID, robot.getId(), task.getID()));
+        return true;
+    }
 
-        for (Robot robot : availableRobots) {
-            double requiredBattery = calculateRequiredEnergy(robot, target);
+    /**
+     * (Internal) Finds the idle robot closest to the first shelf of a new order
+     * or pick batch that has enough battery for it. Robots are visited
+     * nearest-first, so the first one that passes the energy check is the
+     * answer and farther robots are never evaluated.
+     */
+    private Robot findClosestAvailableRobot(Task order, Set<Robot> excluded, Set<Robot> evaluated) {
+        Iterator<Robot> nearest = availableRobots.nearestFirst(firstStopOf(order));
+        while (nearest.hasNext()) {
+            Robot robot = nearest.next();
+            if (excluded.contains(robot)) continue;
+            evaluated.add(robot);
+            double requiredBattery = requiredEnergy(robot, order);
             if (requiredBattery == ENERGY_UNAVAILABLE) {
                 continue; // skip un-evaluable
             }
             if (robot.getBatteryPercentage() >= requiredBattery) {
-                double distance = robot.getCurrentPosition().distance(target);
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    bestRobot = robot;
-                }
-            } else {
-                logger.log_print("info", "equipment_manager", String.format("Robot %s battery %.2f < needed %.2f", robot.getId(), robot.getBatteryPercentage(), requiredBattery));
+                return robot;
             }
+            logger.log_print("info", "equipment_manager", String.format("Robot %s battery %.2f < needed %.2f", robot.getId(), robot.getBatteryPercentage(), requiredBattery));
         }
-        return bestRobot;
+        return null;
     }
 
     /**
-     * (Internal) Finds the best-matching robot for a new task.
-     * Must be called while holding the 'synchronized (this)' lock.
+     * (Internal) Finds the idle robot with the shortest path to the loading station.
+     * A path of n steps covers at most n cells per axis, so a robot d cells away
+     * (straight line) needs at least d / sqrt(2) steps; once that bound exceeds
+     * the best path found, no farther robot can win and the search stops.
      */
-    private Robot findAvailableRobotForStocking(StockTask stockTask) {
-        if (availableRobots.isEmpty()) {
-            return null;
-        }
-
+    private Robot findAvailableRobotForStocking(StockTask stockTask, Set<Robot> excluded, Set<Robot> evaluated) {
         Robot bestRobot = null;
-        double minDistance = Double.MAX_VALUE;
+        int minSteps = Integer.MAX_VALUE;
         Point target = stockTask.getLoadingStationLocation();
 
-        for (Robot robot : availableRobots) {
-            double requiredBattery = calculateRequiredEnergyForStock(robot, stockTask);
+        Iterator<Robot> nearest = availableRobots.nearestFirst(target);
+        while (nearest.hasNext()) {
+            Robot robot = nearest.next();
+            if (excluded.contains(robot)) continue;
+            if (bestRobot != null && robot.getCurrentPosition().distance(target) / Math.sqrt(2) > minSteps) {
+                break;
+            }
+            evaluated.add(robot);
+            double requiredBattery = requiredEnergy(robot, stockTask);
             if (requiredBattery == ENERGY_UNAVAILABLE) {
                 continue; // cannot evaluate, skip
             }
             if (robot.getBatteryPercentage() >= requiredBattery) {
                 List<Point> path = pathFinding.findPath(robot.getCurrentPosition(), target);
                 if (!path.isEmpty()) {
-                    double distance = path.size();
-                    if (distance < minDistance) {
-                        minDistance = distance;
+                    int steps = path.size();
+                    // Ties go to the lower id, as with an id-ordered scan
+                    if (steps < minSteps || (steps == minSteps && robot.getId().compareTo(bestRobot.getId()) < 0)) {
+                        minSteps = steps;
                         bestRobot = robot;
                     }
                 }
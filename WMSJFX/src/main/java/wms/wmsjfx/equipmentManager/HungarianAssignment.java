@@ -0,0 +1,124 @@
+package wms.wmsjfx.equipmentManager;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment of rows (robots) to columns (tasks) with the
+ * Hungarian algorithm (shortest augmenting paths with potentials, O(n^2 m)).
+ * The matrix may be rectangular; every row gets at most one column and
+ * every column at most one row. Pairs that must not be assigned are marked
+ * INFEASIBLE; the solver first maximises the number of feasible pairs and
+ * among those minimises the total cost.
+ */
+public final class HungarianAssignment {
+
+    /** Cost of a pair that cannot be assigned (e.g. the robot lacks the battery). */
+    public static final double INFEASIBLE = Double.POSITIVE_INFINITY;
+
+    private HungarianAssignment() {
+    }
+
+    /**
+     * @param cost cost[row][column] >= 0, or INFEASIBLE
+     * @return for each row the assigned column, or -1 if the row stays unassigned
+     */
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        int columns = rows == 0 ? 0 : cost[0].length;
+        int[] result = new int[rows];
+        Arrays.fill(result, -1);
+        if (rows == 0 || columns == 0) return result;
+
+        // The algorithm needs rows <= columns; otherwise solve the transposed problem
+        boolean transposed = rows > columns;
+        int n = transposed ? columns : rows;
+        int m = transposed ? rows : columns;
+
+        // Infeasible pairs get a cost above any complete feasible assignment
+        double maxCost = 0;
+        for (double[] row : cost) {
+            for (double c : row) {
+                if (c != INFEASIBLE) maxCost = Math.max(maxCost, c);
+            }
+        }
+        double big = (maxCost + 1) * (n + 1);
+
+        double[][] a = new double[n][m];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                double c = transposed ? cost[j][i] : cost[i][j];
+                a[i][j] = (c == INFEASIBLE) ? big : c;
+            }
+        }
+
+        int[] columnOwner = assign(a, n, m);
+        for (int j = 0; j < m; j++) {
+            int i = columnOwner[j];
+            if (i < 0 || a[i][j] == big) continue;
+            if (transposed) result[j] = i;
+            else result[i] = j;
+        }
+        return result;
+    }
+
+    /**
+     * Core algorithm for n <= m on a finite matrix.
+     * @return for each column the row assigned to it, or -1
+     */
+    private static int[] assign(double[][] a, int n, int m) {
+        // 1-based as in the textbook formulation; index 0 is the virtual start column
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] owner = new int[m + 1]; // row (1-based) assigned to column j, 0 = none
+        int[] way = new int[m + 1];
+        double[] minSlack = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            owner[0] = i;
+            int j0 = 0;
+            Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = owner[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) continue;
+                    double slack = a[i0 - 1][j - 1] - u[i0] - v[j];
+                    if (slack < minSlack[j]) {
+                        minSlack[j] = slack;
+                        way[j] = j0;
+                    }
+                    if (minSlack[j] < delta) {
+                        delta = minSlack[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[owner[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minSlack[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (owner[j0] != 0);
+
+            // Flip the augmenting path
+            do {
+                int j1 = way[j0];
+                owner[j0] = owner[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] columnOwner = new int[m];
+        for (int j = 1; j <= m; j++) {
+            columnOwner[j - 1] = owner[j] - 1;
+        }
+        return columnOwner;
+    }
+}
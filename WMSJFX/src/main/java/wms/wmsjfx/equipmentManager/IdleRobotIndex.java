@@ -0,0 +1,204 @@
+package wms.wmsjfx.equipmentManager;
+
+import java.awt.Point;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The idle robots, bucketed on a coarse grid by the cell they stand on.
+ * It is used exactly like a concurrent set: adding a robot makes it idle and
+ * removing it is the claim. On top of that, nearestFirst() visits robots in
+ * order of straight-line distance from a target, opening buckets ring by ring,
+ * so a caller that stops at the first good robot never looks at the rest of
+ * the fleet. Idle robots stand still, so a robot's bucket is fixed when it is
+ * added; a robot that moves leaves the set first (claim) and is re-added where
+ * it ends up.
+ */
+final class IdleRobotIndex extends AbstractSet<Robot> {
+
+    static final int BUCKET_SIZE = 8;
+
+    private static final Comparator<Candidate> NEAREST =
+            Comparator.<Candidate>comparingDouble(c -> c.distance).thenComparing(c -> c.robot.getId());
+
+    private final int bucketsX;
+    private final int bucketsY;
+    private final Map<Robot, Long> bucketOf = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Robot>> buckets = new ConcurrentHashMap<>();
+
+    private static final class Candidate {
+        final Robot robot;
+        final double distance;
+
+        Candidate(Robot robot, double distance) {
+            this.robot = robot;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * @param mapWidth  width of the floor in cells
+     * @param mapHeight height of the floor in cells
+     */
+    IdleRobotIndex(int mapWidth, int mapHeight) {
+        this.bucketsX = Math.max(1, (mapWidth + BUCKET_SIZE - 1) / BUCKET_SIZE);
+        this.bucketsY = Math.max(1, (mapHeight + BUCKET_SIZE - 1) / BUCKET_SIZE);
+    }
+
+    @Override
+    public boolean add(Robot robot) {
+        long key = keyOf(robot.getCurrentPosition());
+        if (bucketOf.putIfAbsent(robot, key) != null) return false;
+        buckets.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(robot);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        Long key = bucketOf.remove(o);
+        if (key == null) return false;
+        Set<Robot> bucket = buckets.get(key);
+        if (bucket != null) bucket.remove(o);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return bucketOf.containsKey(o);
+    }
+
+    @Override
+    public int size() {
+        return bucketOf.size();
+    }
+
+    @Override
+    public Iterator<Robot> iterator() {
+        Iterator<Robot> robots = bucketOf.keySet().iterator();
+        return new Iterator<>() {
+            private Robot last;
+
+            @Override
+            public boolean hasNext() {
+                return robots.hasNext();
+            }
+
+            @Override
+            public Robot next() {
+                return last = robots.next();
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) throw new IllegalStateException();
+                IdleRobotIndex.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    /**
+     * Idle robots in ascending straight-line distance from 'target', ties by id.
+     * Lazy and weakly consistent: robots claimed meanwhile may still show up,
+     * so the caller claims with remove() as usual.
+     */
+    Iterator<Robot> nearestFirst(Point target) {
+        return new NearestFirst(target);
+    }
+
+    private long keyOf(Point cell) {
+        return key(bucketX(cell.x), bucketY(cell.y));
+    }
+
+    private int bucketX(int x) {
+        return Math.min(bucketsX - 1, Math.max(0, Math.floorDiv(x, BUCKET_SIZE)));
+    }
+
+    private int bucketY(int y) {
+        return Math.min(bucketsY - 1, Math.max(0, Math.floorDiv(y, BUCKET_SIZE)));
+    }
+
+    private static long key(int bx, int by) {
+        return ((long) by << 32) | (bx & 0xffffffffL);
+    }
+
+    /**
+     * Scans the rings of buckets around the target's bucket. A found robot is
+     * only handed out once no unscanned ring can hold a robot that is closer:
+     * every cell of ring r is at least (r - 1) * BUCKET_SIZE + 1 cells away.
+     */
+    private final class NearestFirst implements Iterator<Robot> {
+        private final Point target;
+        private final int centerX;
+        private final int centerY;
+        private final int lastRing;
+        private final PriorityQueue<Candidate> found = new PriorityQueue<>(NEAREST);
+        private int ring = 0;
+        private int seen = 0;
+        private Robot next;
+
+        NearestFirst(Point target) {
+            this.target = target;
+            this.centerX = bucketX(target.x);
+            this.centerY = bucketY(target.y);
+            this.lastRing = Math.max(Math.max(centerX, bucketsX - 1 - centerX), Math.max(centerY, bucketsY - 1 - centerY));
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) next = advance();
+            return next != null;
+        }
+
+        @Override
+        public Robot next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Robot robot = next;
+            next = null;
+            return robot;
+        }
+
+        private Robot advance() {
+            while (true) {
+                boolean exhausted = ring > lastRing || seen >= bucketOf.size();
+                if (!found.isEmpty() && (exhausted || found.peek().distance < lowerBound(ring))) {
+                    return found.poll().robot;
+                }
+                if (exhausted) return null;
+                scanRing(ring++);
+            }
+        }
+
+        private double lowerBound(int r) {
+            return r == 0 ? 0 : (r - 1) * BUCKET_SIZE + 1;
+        }
+
+        private void scanRing(int r) {
+            for (int by = centerY - r; by <= centerY + r; by++) {
+                if (by < 0 || by >= bucketsY) continue;
+                boolean edgeRow = by == centerY - r || by == centerY + r;
+                for (int bx = centerX - r; bx <= centerX + r; bx += edgeRow ? 1 : 2 * r) {
+                    if (bx >= 0 && bx < bucketsX) scanBucket(key(bx, by));
+                    if (r == 0) break;
+                }
+            }
+        }
+
+        private void scanBucket(long key) {
+            Set<Robot> bucket = buckets.get(key);
+            if (bucket == null) return;
+            for (Robot robot : bucket) {
+                Long current = bucketOf.get(robot);
+                if (current == null || current != key) continue; // claimed meanwhile
+                found.add(new Candidate(robot, robot.getCurrentPosition().distance(target)));
+                seen++;
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package wms.wmsjfx.equipmentManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import wms.wmsjfx.taskManager.Task;
+
+/**
+ * Tasks waiting for a robot, ordered by priority, then by slack (the latest
+ * start that still meets the SLA), then by arrival, in one sorted set.
+ * Finding the best task a robot can do walks the set from its head and stops
+ * at the first task the robot can take, so it only costs the more urgent
+ * tasks the robot had to skip.
+ * Lock-free like the rest of the dispatcher: removing a task is the claim.
+ */
+final class PendingTaskIndex {
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingInt((Entry e) -> e.priority)
+            .thenComparingLong(e -> e.latestStart)
+            .thenComparingLong(e -> e.sequence);
+
+    private final Map<Task, Entry> entries = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> ordered = new ConcurrentSkipListSet<>(ORDER);
+    private final AtomicLong sequence = new AtomicLong();
+
+    private static final class Entry {
+        final Task task;
+        final int priority;
+        final long latestStart;
+        final long sequence;
+
+        Entry(Task task, long latestStart, long sequence) {
+            this.task = task;
+            this.priority = task.getPriority().ordinal();
+            this.latestStart = latestStart;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * @param latestStart latest start time that meets the task's SLA, Long.MAX_VALUE without one
+     */
+    void offer(Task task, long latestStart) {
+        Entry entry = new Entry(task, latestStart, sequence.getAndIncrement());
+        // Into the order first, so remove() always finds a published entry there
+        ordered.add(entry);
+        if (entries.putIfAbsent(task, entry) != null) {
+            ordered.remove(entry); // already pending
+        }
+    }
+
+    /**
+     * Claims 'task'. Returns false if it is not pending (any more).
+     */
+    boolean remove(Task task) {
+        Entry entry = entries.remove(task);
+        if (entry == null) return false;
+        ordered.remove(entry);
+        return true;
+    }
+
+    /**
+     * Claims and returns the first task in index order that 'eligible' accepts, or null.
+     */
+    Task claimBest(Predicate<Task> eligible) {
+        for (Entry entry : ordered) {
+            // A failed remove means another thread claimed it in the meantime; go on
+            if (eligible.test(entry.task) && remove(entry.task)) return entry.task;
+        }
+        return null;
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * The pending tasks in index order.
+     */
+    List<Task> snapshot() {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(ORDER);
+        List<Task> tasks = new ArrayList<>(sorted.size());
+        for (Entry entry : sorted) tasks.add(entry.task);
+        return tasks;
+    }
+}
@@ -1,11 +1,14 @@
 package wms.wmsjfx.equipmentManager;
 
+import wms.wmsjfx.pathFinding.TimedPath;
+import wms.wmsjfx.simulation.SimulationClock;
 import wms.wmsjfx.taskManager.FindChargeTimeoutException;
 import wms.wmsjfx.taskManager.Task;
 import wms.wmsjfx.warehouse.WahouseObjectType;
 import wms.wmsjfx.warehouse.WarehouseObject;
 
 import java.awt.Point;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -26,6 +29,7 @@ public class Robot extends WarehouseObject implements Runnable {
     private static final int DROPPING_TIME_MS = 50;
     private static final int CHARGING_1_PERCENTAGE_TIME_MS = 10;
     private static final long MOVE_DELAY_PER_METER_MS = 250; // Speed simulation
+    private static final long STEP_TICK_MS = (long) Math.ceil(MOVE_DELAY_PER_METER_MS * Math.sqrt(2)); // One (diagonal) step per reservation tick
     private static final double BATTERY_COSUMED_PER_METER = 1;
     private static final long IDLE_CHARGE_TIMEOUT_SECONDS = 30; // IDLE status timeout for charging
     private static final double FULL_BATTERY = 100;
@@ -40,7 +44,7 @@ public class Robot extends WarehouseObject implements Runnable {
     private final BlockingQueue<Task> taskQueue = new LinkedBlockingQueue<>();
 
     // Reference to the central manager to report completion and pass to tasks
-    private EquipmentManager equipmentManager;
+    private volatile EquipmentManager equipmentManager; // changes when the robot moves to another zone
     private Logger logger = new Logger();
 
     /**
@@ -73,8 +77,64 @@ public class Robot extends WarehouseObject implements Runnable {
 
     public Task getActiveTask() { return activeTask; }
 
+    /** Snapshot of the tasks assigned but not started yet, oldest first (for inspection and tests). */
+    public List<Task> getQueuedTasks() { return new ArrayList<>(taskQueue); }
+
+    // Lookahead: tasks are committed to and stolen from the queue only while a task
+    // runs, so the robot never reports a finish without seeing what is queued next
+    private final Object commitLock = new Object();
+    private boolean executing; // guarded by commitLock
+
+    /**
+     * Queues a task behind the one this robot is executing, to start as soon as that finishes.
+     * @return false if the robot is not executing a task right now (the task is not queued)
+     */
+    public boolean commitTask(Task task) {
+        synchronized (commitLock) {
+            if (!executing) return false;
+            taskQueue.add(task);
+        }
+        logger.log_print("info", this.getId(), String.format("[%s] Committed task: %s", super.getId(), task.getDescription()));
+        return true;
+    }
+
+    /**
+     * Takes back a queued task that has not started, while the robot is busy with another one.
+     * @return false if the task already started or the robot is between tasks
+     */
+    public boolean unassignTask(Task task) {
+        synchronized (commitLock) {
+            return executing && taskQueue.remove(task);
+        }
+    }
+
+    private void setExecuting(boolean value) {
+        synchronized (commitLock) {
+            executing = value;
+        }
+    }
+
+    /**
+     * Takes the next queued task as if the robot had started it, without running it.
+     * Package-private for tests.
+     */
+    void startNextTask() {
+        synchronized (commitLock) {
+            activeTask = taskQueue.poll();
+            executing = activeTask != null;
+        }
+    }
+
     @Override
     public void run() {
+        try {
+            processTasks();
+        } finally {
+            clock().deregister(Thread.currentThread());
+        }
+    }
+
+    private void processTasks() {
         logger.log_print("info", this.getId(), String.format("[%s] Robot thread started at (%d, %d)", super.getId(), currentPosition.x, currentPosition.y));
         Task currentTask = null; // Track the task being executed
         boolean taskStatus = false; // Report success/failure
@@ -88,7 +148,7 @@ public class Robot extends WarehouseObject implements Runnable {
                 if (equipmentManager != null) { // Only wait if manager is set
                     logger.log_print("info", this.getId(), String.format("[%s] IDLE. Waiting for task (%d sec timeout)...", super.getId(), IDLE_CHARGE_TIMEOUT_SECONDS));
                     // Wait for a task, with a timeout
-                    currentTask = taskQueue.poll(IDLE_CHARGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                    currentTask = clock().poll(taskQueue, IDLE_CHARGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
                 } else {
                     // Fallback if manager isn't set, wait forever
                     currentTask = taskQueue.take();
@@ -98,6 +158,7 @@ public class Robot extends WarehouseObject implements Runnable {
                     // --- TASK RECEIVED ---
                     try {
                         activeTask = currentTask;
+                        setExecuting(true);
                         // Execute the task
                         currentTask.execute(this, this.equipmentManager);
                         taskStatus = true; // Mark as success
@@ -109,6 +170,8 @@ public class Robot extends WarehouseObject implements Runnable {
                         taskStatus = false;
                         logger.log_print("error", this.getId(), String.format("[%s] Task %s CRASHED (Unexpected): %s", super.getId(), currentTask.getType(), e.getMessage()));
                         e.printStackTrace();
+                    } finally {
+                        setExecuting(false);
                     }
 
                 } else {
@@ -165,7 +228,7 @@ public class Robot extends WarehouseObject implements Runnable {
         long moveTimeMs = (long) (distance * MOVE_DELAY_PER_METER_MS);
 
         if (moveTimeMs > 0) {
-            Thread.sleep(moveTimeMs); // Simulate travel time
+            clock().sleep(moveTimeMs); // Simulate travel time
         }
 
         // Check if thread was interrupted during sleep
@@ -180,16 +243,43 @@ public class Robot extends WarehouseObject implements Runnable {
         // Optional: Log the start of the entire multi-step move
         logger.log_print("info", this.getId(), String.format("[%s] Starting multi-step path from (%d, %d). Steps: %d", super.getId(), currentPosition.x, currentPosition.y, steps.size()));
         this.state = RobotState.MOVING;
+        // A reserved path must be driven in step with the reservation ticks
+        TimedPath timedPath = (steps instanceof TimedPath) ? (TimedPath) steps : null;
+        // Cells may get blocked while we drive; an unreserved route is repaired mid-way
+        boolean repairable = timedPath == null && equipmentManager != null;
+        long seenVersion = repairable ? equipmentManager.getMapVersion() : 0;
+        List<Point> route = steps;
         // Iterate through each Point (step) in the list
-        for (Point nextStep : steps) {
+        int i = 0;
+        while (i < route.size()) {
+            if (repairable && equipmentManager.getMapVersion() != seenVersion) {
+                long sinceVersion = seenVersion;
+                seenVersion = equipmentManager.getMapVersion();
+                List<Point> repaired = equipmentManager.repairPath(this, route.subList(i, route.size()), sinceVersion);
+                if (repaired != null) {
+                    logger.log_print("info", this.getId(), String.format("[%s] Map changed, switching to repaired path at (%d, %d). Steps: %d", super.getId(), currentPosition.x, currentPosition.y, repaired.size()));
+                    route = repaired;
+                    i = 0;
+                    continue;
+                }
+            }
+            Point nextStep = route.get(i);
+            if (timedPath != null) {
+                // Leave no earlier than the step's tick; a wait step (same point) only waits here
+                long waitMs = timedPath.departureMillis(i) - clock().millis();
+                if (waitMs > 0) {
+                    clock().sleep(waitMs);
+                }
+            }
             // Call the existing moveTo function for the next step.
             // moveTo() will handle:
             // 1. Calculating distance from currentPosition to nextStep
             // 2. Consuming battery
-            // 3. Simulating travel time (Thread.sleep)
+            // 3. Simulating travel time (sleeping on the simulation clock)
             // 4. Checking for InterruptedException
             // 5. Updating this.currentPosition to nextStep
             moveTo(nextStep);
+            i++;
         }
 
         // Optional: Log the completion of the entire path
@@ -205,7 +295,7 @@ public class Robot extends WarehouseObject implements Runnable {
 //        info("[%s] Picking up %s at (%d,%d)", super.getId(), itemId, currentPosition.x, currentPosition.y);
         logger.log_print("info", this.getId(), String.format("[%s] Picking up %s at (%d,%d)", super.getId(), itemId, currentPosition.x, currentPosition.y));
         this.state = RobotState.PICKING;
-        Thread.sleep(PICKING_TIME_MS);
+        clock().sleep(PICKING_TIME_MS);
         if(Thread.currentThread().isInterrupted()) throw new InterruptedException("PickUp interrupted");
 //        info("[%s] Picked %s", super.getId(), itemId);
         logger.log_print("info", this.getId(), String.format("[%s] Picked %s", super.getId(), itemId));
@@ -219,7 +309,7 @@ public class Robot extends WarehouseObject implements Runnable {
     public void dropItem(String itemId) throws InterruptedException {
         logger.log_print("info", this.getId(), String.format("[%s] Dropping %s at (%d,%d)", super.getId(), itemId, currentPosition.x, currentPosition.y));
         this.state = RobotState.PACKING;
-        Thread.sleep(DROPPING_TIME_MS);
+        clock().sleep(DROPPING_TIME_MS);
         if(Thread.currentThread().isInterrupted()) throw new InterruptedException("DropItem interrupted");
         logger.log_print("info", this.getId(), String.format("[%s] Dropped %s", super.getId(), itemId));
     }
@@ -230,14 +320,23 @@ public class Robot extends WarehouseObject implements Runnable {
      * @throws InterruptedException if the thread is interrupted during sleep (charging).
      */
     public void charge() throws InterruptedException {
+        chargeTo(FULL_BATTERY);
+    }
+
+    /**
+     * Simulates charging the battery up to 'targetPercentage' (a partial top-up below 100%).
+     * @throws InterruptedException if the thread is interrupted during sleep (charging).
+     */
+    public void chargeTo(double targetPercentage) throws InterruptedException {
+        double target = Math.min(FULL_BATTERY, targetPercentage);
         logger.log_print("info", this.getId(), String.format("[%s] Charging at (%d,%d) current %.0f%%", super.getId(), currentPosition.x, currentPosition.y, batteryPercentage));
 
         // Calculate how much charge is needed
-        double neededPercentage = 100.0 - batteryPercentage;
+        double neededPercentage = target - batteryPercentage;
 
         // Check if charging is necessary
         if (neededPercentage <= 0) {
-            logger.log_print("info", this.getId(), String.format("[%s] Already fully charged", super.getId()));
+            logger.log_print("info", this.getId(), String.format("[%s] Already charged to %.0f%%", super.getId(), batteryPercentage));
             return; // No need to charge
         }
 
@@ -248,7 +347,7 @@ public class Robot extends WarehouseObject implements Runnable {
         this.state = RobotState.CHARGING;
         logger.log_print("info", this.getId(), String.format("[%s] Charging for %dms", super.getId(), chargeTimeMs));
         // Simulate the charging time
-        Thread.sleep(chargeTimeMs);
+        clock().sleep(chargeTimeMs);
 
         // Check if thread was interrupted during sleep
         if (Thread.currentThread().isInterrupted()) {
@@ -257,9 +356,9 @@ public class Robot extends WarehouseObject implements Runnable {
             throw new InterruptedException("Charge interrupted for Robot " + super.getId());
         }
 
-        // If successful, set battery to 100%
-        this.batteryPercentage = FULL_BATTERY;
-        logger.log_print("info", this.getId(), String.format("[%s] Fully charged", super.getId()));
+        // If successful, set battery to the target
+        this.batteryPercentage = target;
+        logger.log_print("info", this.getId(), String.format("[%s] Charged to %.0f%%", super.getId(), target));
     }
 
 
@@ -267,6 +366,25 @@ public class Robot extends WarehouseObject implements Runnable {
         this.equipmentManager = manager;
     }
 
+    /** The manager's clock; real time for a robot without a manager. */
+    private SimulationClock clock() {
+        EquipmentManager manager = equipmentManager;
+        return manager != null ? manager.getSimulationClock() : SimulationClock.realTime();
+    }
+
+    public static long getStepTickMs() {
+        return STEP_TICK_MS;
+    }
+
+    public static long getMoveDelayPerMeterMs() {
+        return MOVE_DELAY_PER_METER_MS;
+    }
+
+    /** Charging time for one percent of battery. */
+    public static long getChargeMillisPerPercent() {
+        return CHARGING_1_PERCENTAGE_TIME_MS;
+    }
+
     public static double getBatteryCosumedPerMeter() {
         return BATTERY_COSUMED_PER_METER;
     }
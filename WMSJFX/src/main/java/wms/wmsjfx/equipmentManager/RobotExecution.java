@@ -0,0 +1,23 @@
+package wms.wmsjfx.equipmentManager;
+
+/**
+ * How the EquipmentManager runs its robots. Robots spend nearly all their time
+ * sleeping (travel, picking, charging) or waiting for a task, so with virtual
+ * threads a fleet of thousands needs only a handful of carrier (OS) threads.
+ */
+public enum RobotExecution {
+    /** One platform (OS) thread per robot. */
+    PLATFORM_THREADS,
+    /** One virtual thread per robot. */
+    VIRTUAL_THREADS;
+
+    /**
+     * Creates (but does not start) a thread of this kind running the robot.
+     */
+    Thread newThread(Runnable robot, String name) {
+        return switch (this) {
+            case PLATFORM_THREADS -> Thread.ofPlatform().name(name).unstarted(robot);
+            case VIRTUAL_THREADS -> Thread.ofVirtual().name(name).unstarted(robot);
+        };
+    }
+}
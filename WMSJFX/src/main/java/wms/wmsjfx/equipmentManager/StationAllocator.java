@@ -0,0 +1,269 @@
+package wms.wmsjfx.equipmentManager;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.ToIntBiFunction;
+
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.warehouse.WarehouseObject;
+
+/**
+ * Hands out a pool of stations (packing or charging) by location: a robot gets
+ * the free station with the lowest path cost from where it stands.
+ * When none is free the robot waits; a released station goes to the waiting
+ * robot nearest to it. To stay fair, a robot that has been passed over
+ * 'maxBypasses' times by later arrivals gets the next station whatever the distance.
+ * Waits run on the SimulationClock, so they may time out in simulated time.
+ * Counts uses, busy time and waiting per station (see StationUsage).
+ * Thread-safe.
+ */
+public final class StationAllocator<S extends WarehouseObject> {
+
+    public static final int DEFAULT_MAX_BYPASSES = 3;
+
+    private final ToIntBiFunction<Point, Point> cost; // (station, from) -> path cost
+    private final int maxBypasses;
+    private final SimulationClock clock;
+    private final long createdAt;
+
+    // guarded by this
+    private final Map<S, Counters> counters = new LinkedHashMap<>();
+    private final Set<S> free = new LinkedHashSet<>();
+    private final List<Waiter<S>> waiters = new ArrayList<>(); // arrival order
+    private long timeouts;
+
+    private static final class Counters {
+        long acquisitions;
+        long busyMillis;  // completed holds
+        long heldSince = -1; // -1: free
+        long waitMillis;
+    }
+
+    private static final class Waiter<S> {
+        final Point from;
+        final long since;
+        final BlockingQueue<S> handOff = new LinkedBlockingQueue<>();
+        int bypassed;
+
+        Waiter(Point from, long since) {
+            this.from = from;
+            this.since = since;
+        }
+    }
+
+    /**
+     * @param cost path cost from a cell (second argument, may be null for "anywhere")
+     *             to a station's location (first argument); Integer.MAX_VALUE if unreachable
+     */
+    public StationAllocator(Collection<S> stations, ToIntBiFunction<Point, Point> cost, SimulationClock clock) {
+        this(stations, cost, DEFAULT_MAX_BYPASSES, clock);
+    }
+
+    public StationAllocator(Collection<S> stations, ToIntBiFunction<Point, Point> cost, int maxBypasses, SimulationClock clock) {
+        if (maxBypasses < 0) {
+            throw new IllegalArgumentException("maxBypasses must not be negative: " + maxBypasses);
+        }
+        this.cost = cost;
+        this.maxBypasses = maxBypasses;
+        this.clock = clock;
+        this.createdAt = clock.millis();
+        for (S station : stations) {
+            counters.put(station, new Counters());
+            free.add(station);
+        }
+    }
+
+    /**
+     * The nearest free station to 'from', or null if all are held. Never waits.
+     */
+    public S tryAcquire(Point from) {
+        return tryAcquire(from, station -> true);
+    }
+
+    /**
+     * The nearest free station to 'from' that is 'usable', or null. Never waits.
+     */
+    public synchronized S tryAcquire(Point from, Predicate<? super S> usable) {
+        S nearest = null;
+        int best = Integer.MAX_VALUE;
+        for (S station : free) {
+            if (!usable.test(station)) continue;
+            int c = costFrom(station, from);
+            if (nearest == null || c < best) {
+                nearest = station;
+                best = c;
+            }
+        }
+        if (nearest != null) {
+            free.remove(nearest);
+            take(nearest, 0);
+        }
+        return nearest;
+    }
+
+    /**
+     * The nearest free station to 'from', waiting as long as it takes for one.
+     */
+    public S acquire(Point from) throws InterruptedException {
+        return acquire(from, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The nearest free station to 'from', waiting up to 'timeout' of simulated time.
+     * @return the station, or null if the timeout passed first
+     */
+    public S acquire(Point from, long timeout, TimeUnit unit) throws InterruptedException {
+        Waiter<S> waiter;
+        synchronized (this) {
+            S station = tryAcquire(from);
+            if (station != null || timeout <= 0) {
+                if (station == null) timeouts++;
+                return station;
+            }
+            waiter = new Waiter<>(from, clock.millis());
+            waiters.add(waiter);
+        }
+        S station;
+        try {
+            station = timeout == Long.MAX_VALUE
+                    ? clock.take(waiter.handOff)
+                    : clock.poll(waiter.handOff, timeout, unit);
+        } catch (InterruptedException e) {
+            synchronized (this) {
+                if (!waiters.remove(waiter)) {
+                    // Handed over just as we were interrupted: pass it on
+                    S handed = waiter.handOff.poll();
+                    if (handed != null) release(handed);
+                }
+            }
+            throw e;
+        }
+        if (station != null) return station;
+        synchronized (this) {
+            if (waiters.remove(waiter)) {
+                timeouts++;
+                return null;
+            }
+        }
+        return waiter.handOff.poll(); // handed over just as the wait ran out
+    }
+
+    /**
+     * Gives a held station back: to the waiting robot nearest to it, or to the free pool.
+     * @return false if 'station' is not one of ours or was not held
+     */
+    public synchronized boolean release(S station) {
+        Counters c = counters.get(station);
+        if (c == null || c.heldSince < 0) return false;
+        long now = clock.millis();
+        c.busyMillis += now - c.heldSince;
+        c.heldSince = -1;
+        if (waiters.isEmpty()) {
+            free.add(station);
+            return true;
+        }
+        Waiter<S> next = nextWaiter(station);
+        take(station, now - next.since);
+        next.handOff.add(station);
+        return true;
+    }
+
+    /**
+     * Records that a held station went straight on to another robot without being released.
+     * @return false if 'station' is not one of ours or was not held
+     */
+    public synchronized boolean reassign(S station) {
+        Counters c = counters.get(station);
+        if (c == null || c.heldSince < 0) return false;
+        long now = clock.millis();
+        c.busyMillis += now - c.heldSince;
+        take(station, 0);
+        return true;
+    }
+
+    /**
+     * Picks and removes the waiter that gets 'station': the nearest one, unless the
+     * longest waiting one has been passed over too often. Lock held.
+     */
+    private Waiter<S> nextWaiter(S station) {
+        int chosen = 0;
+        if (waiters.get(0).bypassed < maxBypasses) {
+            int best = Integer.MAX_VALUE;
+            for (int i = 0; i < waiters.size(); i++) {
+                int c = costFrom(station, waiters.get(i).from);
+                if (i == 0 || c < best) {
+                    chosen = i;
+                    best = c;
+                }
+            }
+        }
+        for (int i = 0; i < chosen; i++) {
+            waiters.get(i).bypassed++;
+        }
+        return waiters.remove(chosen);
+    }
+
+    private void take(S station, long waitMillis) {
+        Counters c = counters.get(station);
+        c.acquisitions++;
+        c.heldSince = clock.millis();
+        c.waitMillis += waitMillis;
+    }
+
+    private int costFrom(S station, Point from) {
+        return from == null ? 0 : cost.applyAsInt(station.getLocation(), from);
+    }
+
+    public synchronized boolean isFree(S station) {
+        return free.contains(station);
+    }
+
+    public synchronized int getFreeCount() {
+        return free.size();
+    }
+
+    public synchronized int getWaitingCount() {
+        return waiters.size();
+    }
+
+    /** Waits that ended without a station (including zero-timeout requests that found none). */
+    public synchronized long getTimeoutCount() {
+        return timeouts;
+    }
+
+    /**
+     * Total time stations have been held so far, including the ones held right now.
+     */
+    public synchronized long getBusyMillis() {
+        long now = clock.millis();
+        long busy = 0;
+        for (Counters c : counters.values()) {
+            busy += c.busyMillis + (c.heldSince < 0 ? 0 : now - c.heldSince);
+        }
+        return busy;
+    }
+
+    /**
+     * Usage of every station, in the order the stations were given.
+     */
+    public synchronized List<StationUsage> getUsage() {
+        long now = clock.millis();
+        List<StationUsage> usage = new ArrayList<>();
+        for (Map.Entry<S, Counters> entry : counters.entrySet()) {
+            Counters c = entry.getValue();
+            long busy = c.busyMillis + (c.heldSince < 0 ? 0 : now - c.heldSince);
+            usage.add(new StationUsage(entry.getKey().getId(), c.acquisitions, busy, c.waitMillis, now - createdAt));
+        }
+        return usage;
+    }
+}
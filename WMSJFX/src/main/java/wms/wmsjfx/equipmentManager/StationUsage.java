@@ -0,0 +1,50 @@
+package wms.wmsjfx.equipmentManager;
+
+/**
+ * How much one station has been used, in simulation time, as counted by its
+ * StationAllocator: how often it was taken, how long it was held (including
+ * right now) and how long the robots that got it had been waiting for it.
+ */
+public final class StationUsage {
+    private final String stationId;
+    private final long acquisitions;
+    private final long busyMillis;
+    private final long waitMillis;
+    private final long observedMillis;
+
+    public StationUsage(String stationId, long acquisitions, long busyMillis, long waitMillis, long observedMillis) {
+        this.stationId = stationId;
+        this.acquisitions = acquisitions;
+        this.busyMillis = busyMillis;
+        this.waitMillis = waitMillis;
+        this.observedMillis = observedMillis;
+    }
+
+    public String getStationId() {
+        return stationId;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions;
+    }
+
+    public long getBusyMillis() {
+        return busyMillis;
+    }
+
+    /** Total time robots waited before being handed this station. */
+    public long getWaitMillis() {
+        return waitMillis;
+    }
+
+    /** Share of the time since the allocator was created that the station was held, between 0 and 1. */
+    public double getUtilisation() {
+        return observedMillis <= 0 ? 0 : Math.min(1.0, (double) busyMillis / observedMillis);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d uses, busy %d ms (%.0f%%), waited %d ms",
+                stationId, acquisitions, busyMillis, getUtilisation() * 100, waitMillis);
+    }
+}
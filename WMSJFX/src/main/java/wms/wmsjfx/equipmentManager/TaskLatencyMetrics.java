@@ -0,0 +1,84 @@
+package wms.wmsjfx.equipmentManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import wms.wmsjfx.taskManager.TaskPriority;
+
+/**
+ * Per-priority latency of PICK_ORDER and STOCK_ITEM tasks, in simulation milliseconds:
+ * wait (submission to assignment), completion (submission to finish) and SLA misses.
+ * Thread-safe; updated by the EquipmentManager.
+ */
+public final class TaskLatencyMetrics {
+
+    private final Counters[] byPriority = new Counters[TaskPriority.values().length];
+
+    private static final class Counters {
+        final LongAdder assigned = new LongAdder();
+        final LongAdder waitTotal = new LongAdder();
+        final AtomicLong maxWait = new AtomicLong();
+        final LongAdder completed = new LongAdder();
+        final LongAdder completionTotal = new LongAdder();
+        final LongAdder slaMisses = new LongAdder();
+    }
+
+    TaskLatencyMetrics() {
+        for (int i = 0; i < byPriority.length; i++) {
+            byPriority[i] = new Counters();
+        }
+    }
+
+    void recordAssigned(TaskPriority priority, long waitMillis) {
+        Counters c = byPriority[priority.ordinal()];
+        c.assigned.increment();
+        c.waitTotal.add(waitMillis);
+        c.maxWait.accumulateAndGet(waitMillis, Math::max);
+    }
+
+    void recordCompleted(TaskPriority priority, long completionMillis, boolean missedSla) {
+        Counters c = byPriority[priority.ordinal()];
+        c.completed.increment();
+        c.completionTotal.add(completionMillis);
+        if (missedSla) c.slaMisses.increment();
+    }
+
+    public long getAssignedCount(TaskPriority priority) {
+        return byPriority[priority.ordinal()].assigned.sum();
+    }
+
+    public double getMeanWaitMillis(TaskPriority priority) {
+        Counters c = byPriority[priority.ordinal()];
+        long n = c.assigned.sum();
+        return n == 0 ? 0 : (double) c.waitTotal.sum() / n;
+    }
+
+    public long getMaxWaitMillis(TaskPriority priority) {
+        return byPriority[priority.ordinal()].maxWait.get();
+    }
+
+    public long getCompletedCount(TaskPriority priority) {
+        return byPriority[priority.ordinal()].completed.sum();
+    }
+
+    public double getMeanCompletionMillis(TaskPriority priority) {
+        Counters c = byPriority[priority.ordinal()];
+        long n = c.completed.sum();
+        return n == 0 ? 0 : (double) c.completionTotal.sum() / n;
+    }
+
+    public long getSlaMisses(TaskPriority priority) {
+        return byPriority[priority.ordinal()].slaMisses.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (TaskPriority p : TaskPriority.values()) {
+            sb.append(String.format("%-8s assigned=%d wait(avg/max)=%.0f/%d ms completed=%d completion(avg)=%.0f ms slaMisses=%d%n",
+                    p, getAssignedCount(p), getMeanWaitMillis(p), getMaxWaitMillis(p),
+                    getCompletedCount(p), getMeanCompletionMillis(p), getSlaMisses(p)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,319 @@
+package wms.wmsjfx.equipmentManager;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import wms.wmsjfx.logger.Logger;
+import wms.wmsjfx.pathFinding.CooperativePathPlanner;
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.pathFinding.ReservationTable;
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.taskManager.Task;
+import wms.wmsjfx.warehouse.WarehouseManager;
+import wms.wmsjfx.warehouse.WarehouseObject;
+
+/**
+ * Splits the floor into zones, each run by its own EquipmentManager: its own
+ * dispatcher thread, robots and station queues. Zones schedule in parallel
+ * and never share a lock.
+ * Tasks from the building-wide submission queue are routed to the zone that
+ * holds their first stop (tasks outside every zone go to the first one).
+ * Every rebalance interval the coordinator looks for a zone with a backlog
+ * (pending tasks its robots cannot take) and a zone with idle robots and no
+ * backlog. It moves the idle robot nearest to the backlog over (robot handoff).
+ * If the idle zone is down to its minimum number of robots, the most urgent
+ * pending task is handed to it instead (task handoff).
+ * All zones run on one clock and one PathFinding. Cooperative path planning
+ * (setCooperativePlanning) reserves in one table for all zones, so routes
+ * across a zone border and robots handed to another zone are checked against
+ * every robot on the floor.
+ */
+public final class ZoneCoordinator implements Runnable {
+
+    private static final long DEFAULT_REBALANCE_INTERVAL_MS = 5_000;
+
+    private final List<Rectangle> zones;
+    private final List<EquipmentManager> managers = new ArrayList<>();
+    private final List<BlockingQueue<Task>> zoneQueues = new ArrayList<>();
+    private final List<Thread> dispatchers = new ArrayList<>();
+    private final BlockingQueue<Task> taskSubmissionQueue;
+    private final SimulationClock clock;
+    private final PathFinding pathFinding;
+    private volatile long rebalanceIntervalMs = DEFAULT_REBALANCE_INTERVAL_MS;
+    private volatile int minRobotsPerZone = 1;
+    private volatile boolean stopping = false;
+    private volatile Thread coordinatorThread;
+    private final LongAdder robotHandoffs = new LongAdder();
+    private final LongAdder taskHandoffs = new LongAdder();
+    Logger logger = new Logger();
+
+    /**
+     * @param zones disjoint rectangles of the floor; every robot and station must lie in one of them,
+     *              and every zone needs a packing and a charging station
+     */
+    public ZoneCoordinator(WarehouseManager warehouseManager,
+                           List<Rectangle> zones,
+                           BlockingQueue<Task> taskSubmissionQueue,
+                           PathFinding pathFinding,
+                           RobotExecution robotExecution,
+                           SimulationClock clock) {
+        validate(warehouseManager, zones);
+        this.zones = List.copyOf(zones);
+        this.taskSubmissionQueue = taskSubmissionQueue;
+        this.clock = clock;
+        this.pathFinding = pathFinding;
+        for (Rectangle zone : this.zones) {
+            BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+            zoneQueues.add(queue);
+            managers.add(new EquipmentManager(warehouseManager, queue, pathFinding, robotExecution, clock, zone));
+        }
+    }
+
+    private static void validate(WarehouseManager warehouseManager, List<Rectangle> zones) {
+        if (zones.isEmpty()) {
+            throw new IllegalArgumentException("At least one zone is required");
+        }
+        for (int i = 0; i < zones.size(); i++) {
+            for (int j = i + 1; j < zones.size(); j++) {
+                if (zones.get(i).intersects(zones.get(j))) {
+                    throw new IllegalArgumentException("Zones " + i + " and " + j + " overlap");
+                }
+            }
+        }
+        List<WarehouseObject> equipment = new ArrayList<>();
+        equipment.addAll(warehouseManager.getAllRobots());
+        equipment.addAll(warehouseManager.getAllPackingStations());
+        equipment.addAll(warehouseManager.getAllChargingStations());
+        for (WarehouseObject object : equipment) {
+            if (indexOf(zones, object.getLocation()) < 0) {
+                throw new IllegalArgumentException(object.getId() + " at " + object.getLocation() + " is in no zone");
+            }
+        }
+        for (Rectangle zone : zones) {
+            boolean packing = warehouseManager.getAllPackingStations().stream().anyMatch(s -> zone.contains(s.getLocation()));
+            boolean charging = warehouseManager.getAllChargingStations().stream().anyMatch(s -> zone.contains(s.getLocation()));
+            if (!packing || !charging) {
+                throw new IllegalArgumentException("Zone " + zone + " needs a packing and a charging station");
+            }
+        }
+    }
+
+    private static int indexOf(List<Rectangle> zones, Point cell) {
+        for (int i = 0; i < zones.size(); i++) {
+            if (zones.get(i).contains(cell)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Starts every zone's dispatcher and the coordinator itself, each on its own thread.
+     */
+    public void start() {
+        for (int i = 0; i < managers.size(); i++) {
+            Thread dispatcher = new Thread(managers.get(i), "EM-Dispatcher-Zone" + i);
+            dispatcher.setDaemon(true);
+            managers.get(i).registerDispatcherThread(dispatcher);
+            dispatchers.add(dispatcher);
+            dispatcher.start();
+        }
+        Thread coordinator = new Thread(this, "Zone-Coordinator");
+        coordinator.setDaemon(true);
+        coordinatorThread = coordinator;
+        clock.register(coordinator);
+        coordinator.start();
+    }
+
+    @Override
+    public void run() {
+        if (coordinatorThread == null) { // run directly rather than through start()
+            coordinatorThread = Thread.currentThread();
+            clock.register(coordinatorThread);
+        }
+        logger.log_print("info", "equipment_manager", " Zone coordinator started with " + zones.size() + " zones.");
+        try {
+            long nextRebalance = clock.millis() + rebalanceIntervalMs;
+            while (!Thread.currentThread().isInterrupted() && !stopping) {
+                long wait = nextRebalance - clock.millis();
+                if (wait > 0) {
+                    Task task = clock.poll(taskSubmissionQueue, wait, TimeUnit.MILLISECONDS);
+                    if (task != null) {
+                        route(task);
+                        continue;
+                    }
+                }
+                rebalance();
+                nextRebalance = clock.millis() + rebalanceIntervalMs;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            clock.deregister(Thread.currentThread());
+        }
+        logger.log_print("info", "equipment_manager", " Zone coordinator stopped.");
+    }
+
+    /**
+     * Hands a submitted task to the zone that holds its first stop.
+     */
+    void route(Task task) {
+        Point firstStop = EquipmentManager.firstStopOf(task);
+        int zone = firstStop == null ? -1 : indexOf(zones, firstStop);
+        zoneQueues.get(Math.max(0, zone)).add(task);
+    }
+
+    /**
+     * Moves idle robots (or, failing that, pending tasks) towards the zones with a
+     * backlog, at most one move per zone and call.
+     * Package-private for tests.
+     */
+    void rebalance() {
+        for (int moves = 0; moves < managers.size(); moves++) {
+            int needy = -1;
+            double worstBacklog = 0;
+            for (int i = 0; i < managers.size(); i++) {
+                EquipmentManager em = managers.get(i);
+                double backlog = em.getPendingTaskCount() / (double) Math.max(1, em.getRobotCount());
+                if (backlog > worstBacklog) {
+                    needy = i;
+                    worstBacklog = backlog;
+                }
+            }
+            if (needy < 0) return;
+
+            int donor = -1;
+            int mostIdle = 0;
+            for (int i = 0; i < managers.size(); i++) {
+                EquipmentManager em = managers.get(i);
+                if (i == needy || em.getPendingTaskCount() > 0) continue;
+                if (em.getIdleRobotCount() > mostIdle) {
+                    donor = i;
+                    mostIdle = em.getIdleRobotCount();
+                }
+            }
+            if (donor < 0) return;
+
+            EquipmentManager from = managers.get(donor);
+            EquipmentManager to = managers.get(needy);
+            if (from.getRobotCount() > minRobotsPerZone) {
+                List<Task> pending = to.getPendingTasks();
+                Point toward = pending.isEmpty() ? center(zones.get(needy)) : EquipmentManager.firstStopOf(pending.get(0));
+                Robot robot = from.releaseIdleRobot(toward);
+                if (robot != null) {
+                    to.adoptRobot(robot, from);
+                    robotHandoffs.increment();
+                    logger.log_print("info", "equipment_manager", " REBALANCE robot " + robot.getId() + ": zone " + donor + " -> zone " + needy);
+                    continue;
+                }
+            }
+            Task task = to.handOffPendingTask();
+            if (task == null) return;
+            from.acceptHandOff(task, to);
+            taskHandoffs.increment();
+            logger.log_print("info", "equipment_manager", " REBALANCE " + task + ": zone " + needy + " -> zone " + donor);
+        }
+    }
+
+    private static Point center(Rectangle zone) {
+        return new Point((int) zone.getCenterX(), (int) zone.getCenterY());
+    }
+
+    /**
+     * Stops the coordinator and every zone, waiting up to 'timeoutMs' for each zone.
+     */
+    public void stop(long timeoutMs) throws InterruptedException {
+        stopping = true;
+        Thread coordinator = coordinatorThread;
+        if (coordinator != null) {
+            coordinator.interrupt();
+            coordinator.join(Math.max(1, timeoutMs));
+        }
+        for (EquipmentManager em : managers) {
+            em.stop(timeoutMs);
+        }
+    }
+
+    /**
+     * How often backlogs are compared, in clock time.
+     */
+    public void setRebalanceIntervalMs(long intervalMs) {
+        if (intervalMs <= 0) {
+            throw new IllegalArgumentException("Rebalance interval must be positive: " + intervalMs);
+        }
+        this.rebalanceIntervalMs = intervalMs;
+    }
+
+    public long getRebalanceIntervalMs() {
+        return rebalanceIntervalMs;
+    }
+
+    /**
+     * Robots a zone keeps however idle it is; beyond that it hands over tasks instead of robots.
+     */
+    public void setMinRobotsPerZone(int minRobots) {
+        if (minRobots < 0) {
+            throw new IllegalArgumentException("Minimum robots per zone must not be negative: " + minRobots);
+        }
+        this.minRobotsPerZone = minRobots;
+    }
+
+    public int getMinRobotsPerZone() {
+        return minRobotsPerZone;
+    }
+
+    /**
+     * The zone managers, in the order the zones were given.
+     */
+    /**
+     * Switches cooperative path planning on or off in every zone. The zones
+     * share one planner and its ReservationTable; switch it here rather than
+     * on a zone's manager, which would reserve for that zone only.
+     */
+    public void setCooperativePlanning(boolean enabled) {
+        if (enabled == isCooperativePlanning()) return;
+        CooperativePathPlanner planner = null;
+        if (enabled) {
+            ReservationTable table = new ReservationTable(Robot.getStepTickMs(), clock);
+            planner = new CooperativePathPlanner(pathFinding.getWarehouseMap(), table);
+        }
+        for (EquipmentManager em : managers) {
+            em.setCooperativePlanner(planner);
+        }
+    }
+
+    public boolean isCooperativePlanning() {
+        return managers.get(0).isCooperativePlanning();
+    }
+
+    public List<EquipmentManager> getZoneManagers() {
+        return List.copyOf(managers);
+    }
+
+    /**
+     * Index of the zone that holds 'cell', or -1.
+     */
+    public int zoneOf(Point cell) {
+        return indexOf(zones, cell);
+    }
+
+    public long getRobotHandoffCount() {
+        return robotHandoffs.sum();
+    }
+
+    public long getTaskHandoffCount() {
+        return taskHandoffs.sum();
+    }
+
+    /**
+     * Tasks routed to a zone that its dispatcher has not taken yet.
+     * Package-private for tests.
+     */
+    List<Task> getQueuedTasks(int zone) {
+        return new ArrayList<>(zoneQueues.get(zone));
+    }
+}
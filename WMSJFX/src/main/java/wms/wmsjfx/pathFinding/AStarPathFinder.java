@@ -0,0 +1,140 @@
+package wms.wmsjfx.pathFinding;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plain grid A* over the WarehouseMap (8-connected, 10/14 costs, diagonal
+ * moves as the map's CornerCutting rule allows).
+ * A search borrows a SearchContext from a small shared pool, so a
+ * steady-state findPath() allocates nothing except the returned path.
+ * The search can be confined to a rectangle of the map, which the
+ * hierarchical planner uses for its intra-cluster searches.
+ */
+public class AStarPathFinder implements PathFinder {
+
+    private final WarehouseMap warehouseMap;
+    private final ScratchPool<SearchContext> searchContexts;
+    private volatile int lastExpandedNodes;
+
+    public AStarPathFinder(WarehouseMap warehouseMap) {
+        this.warehouseMap = warehouseMap;
+        int cellCount = warehouseMap.getMapSizeX() * warehouseMap.getMapSizeY();
+        this.searchContexts = new ScratchPool<>(() -> new SearchContext(cellCount));
+    }
+
+    @Override
+    public int getLastExpandedNodes() {
+        return lastExpandedNodes;
+    }
+
+    /** Package-private for tests. */
+    ScratchPool<SearchContext> getSearchContexts() {
+        return searchContexts;
+    }
+
+    @Override
+    public List<Point> findPath(Point startPos, Point targetPos) {
+        List<Point> path = findPath(startPos, targetPos, 0, 0, warehouseMap.getMapSizeX() - 1, warehouseMap.getMapSizeY() - 1);
+        if (path.isEmpty() && !startPos.equals(targetPos)) {
+            System.out.println("Cannot find path from " + startPos + " to " + targetPos);
+        }
+        return path;
+    }
+
+    /**
+     * Same as findPath(start, target), but only cells inside 'bounds' are
+     * expanded. Start and target must lie inside the bounds.
+     * Unlike the unbounded search, a miss is not reported on the console.
+     */
+    public List<Point> findPath(Point startPos, Point targetPos, Rectangle bounds) {
+        return findPath(startPos, targetPos, bounds.x, bounds.y,
+                bounds.x + bounds.width - 1, bounds.y + bounds.height - 1);
+    }
+
+    private List<Point> findPath(Point startPos, Point targetPos, int minX, int minY, int maxX, int maxY) {
+        SearchContext ctx = searchContexts.borrow();
+        try {
+            return search(ctx, startPos, targetPos, minX, minY, maxX, maxY);
+        } finally {
+            lastExpandedNodes = ctx.expandedNodes;
+            searchContexts.release(ctx);
+        }
+    }
+
+    private List<Point> search(SearchContext ctx, Point startPos, Point targetPos, int minX, int minY, int maxX, int maxY) {
+        int width = warehouseMap.getMapSizeX();
+        int start = startPos.y * width + startPos.x;
+        int target = targetPos.y * width + targetPos.x;
+
+        // --- borrowed node table, reset in O(1)
+        ctx.reset();
+        int[] gCost = ctx.gCost;
+        int[] hCost = ctx.hCost;
+        int[] parent = ctx.parent;
+        IndexedNodeHeap openSet = ctx.openSet;
+        int[] neighbors = ctx.neighbors;
+        int[] stepCosts = ctx.stepCosts;
+
+        gCost[start] = 0;
+        hCost[start] = PathFinder.octileDistance(startPos.x, startPos.y, targetPos.x, targetPos.y);
+        openSet.add(start);
+
+        while (!openSet.isEmpty()) {
+            // Node with lowest fCost (ties: lowest hCost)
+            int current = openSet.poll();
+            ctx.close(current);
+
+            // --- Target reached
+            if (current == target) {
+                return retracePath(parent, start, target, width);
+            }
+
+            // --- Loop through the surrounding cells we can drive to
+            int neighborCount = warehouseMap.getNeighbors(current, target, neighbors, stepCosts);
+            for (int i = 0; i < neighborCount; i++) {
+                int neighbor = neighbors[i];
+                int neighborX = neighbor % width;
+                int neighborY = neighbor / width;
+                if (neighborX < minX || neighborX > maxX || neighborY < minY || neighborY > maxY) continue;
+
+                // Skip closed cells
+                if (ctx.isClosed(neighbor)) continue;
+
+                int newCost = gCost[current] + stepCosts[i];
+                boolean queued = openSet.contains(neighbor);
+
+                if (!queued || newCost < gCost[neighbor]) {
+                    gCost[neighbor] = newCost;
+                    hCost[neighbor] = PathFinder.octileDistance(neighborX, neighborY, targetPos.x, targetPos.y);
+                    parent[neighbor] = current;
+
+                    if (queued) openSet.decreaseKey(neighbor);
+                    else openSet.add(neighbor);
+                }
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Retraces the path from target cell back to start cell.
+     * The start cell itself is not part of the result.
+     */
+    private List<Point> retracePath(int[] parent, int start, int target, int width) {
+        int length = 0;
+        for (int cell = target; cell != start; cell = parent[cell]) {
+            length++;
+        }
+
+        List<Point> path = new ArrayList<>(length);
+        for (int cell = target; cell != start; cell = parent[cell]) {
+            path.add(new Point(cell % width, cell / width));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
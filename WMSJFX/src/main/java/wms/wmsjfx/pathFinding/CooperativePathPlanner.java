@@ -0,0 +1,196 @@
+package wms.wmsjfx.pathFinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Cooperative path planning (HCA*) for several robots on one WarehouseMap.
+ * Each robot plans in space-time: besides the 8 moves it may wait a tick,
+ * and a (cell, tick) held by another robot in the shared ReservationTable is
+ * treated as blocked, as is a move that would swap cells with another robot.
+ * The route found is then reserved for the robot, which parks at its goal until
+ * it plans again. If a concurrent planner reserved a conflicting route first,
+ * the robot plans again against the updated table.
+ * The search is bounded by a horizon (in ticks, counted from the start tick)
+ * and a maximum number of expanded states; beyond that plan() gives up and
+ * the caller has to fall back to an uncoordinated route.
+ * Only walkable cells are reserved: stations and shelves are entered only as
+ * the end of a route and may be served to several robots by their own allocation.
+ */
+public class CooperativePathPlanner {
+
+    public static final int DEFAULT_HORIZON_TICKS = 256;
+    private static final int MAX_EXPANDED_STATES = 200_000;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int WAIT_COST = PathFinder.STRAIGHT_COST - 1; // standing still drains no battery, so prefer it to a shuffle
+
+    private final WarehouseMap warehouseMap;
+    private final ReservationTable reservationTable;
+    private final int horizonTicks;
+    private final int width;
+    private final int cellCount;
+
+    public CooperativePathPlanner(WarehouseMap warehouseMap, ReservationTable reservationTable) {
+        this(warehouseMap, reservationTable, DEFAULT_HORIZON_TICKS);
+    }
+
+    public CooperativePathPlanner(WarehouseMap warehouseMap, ReservationTable reservationTable, int horizonTicks) {
+        if (horizonTicks < 1) {
+            throw new IllegalArgumentException("horizonTicks must be positive: " + horizonTicks);
+        }
+        this.warehouseMap = warehouseMap;
+        this.reservationTable = reservationTable;
+        this.horizonTicks = horizonTicks;
+        this.width = warehouseMap.getMapSizeX();
+        this.cellCount = width * warehouseMap.getMapSizeY();
+    }
+
+    public ReservationTable getReservationTable() {
+        return reservationTable;
+    }
+
+    /**
+     * Plans and reserves a collision-free route starting with the next tick,
+     * so that the first step gets a whole tick to be driven.
+     * @see #plan(String, Point, Point, long)
+     */
+    public TimedPath plan(String robotId, Point start, Point target) {
+        return plan(robotId, start, target, reservationTable.currentTick() + 1);
+    }
+
+    /**
+     * Plans and reserves a collision-free route for the robot standing on 'start' at 'startTick'.
+     * Step i of the result is the cell the robot occupies at tick startTick + i + 1;
+     * a wait is a step equal to the previous one. The robot's earlier
+     * reservations are released first.
+     * @return the reserved route, or null if no conflict-free route was found within the horizon
+     */
+    public TimedPath plan(String robotId, Point start, Point target, long startTick) {
+        if (!warehouseMap.isInside(start) || !warehouseMap.isInside(target)) return null;
+        reservationTable.release(robotId);
+        if (start.equals(target)) {
+            reservationTable.park(robotId, cellOf(start), startTick);
+            return new TimedPath(new ArrayList<>(), startTick, reservationTable);
+        }
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            int[] cells = search(robotId, cellOf(start), cellOf(target), startTick);
+            if (cells == null) break;
+            if (reservationTable.reserve(robotId, reservable(cells), startTick)) {
+                List<Point> steps = new ArrayList<>(cells.length - 1);
+                for (int i = 1; i < cells.length; i++) {
+                    steps.add(new Point(cells[i] % width, cells[i] / width));
+                }
+                return new TimedPath(steps, startTick, reservationTable);
+            }
+            // Lost a race against another robot's reservation; the table now shows it
+        }
+        // Stay put in the table so that others plan around us
+        reservationTable.park(robotId, cellOf(start), startTick);
+        return null;
+    }
+
+    /**
+     * Space-time A*: a state is (cell, tick offset), every action takes one tick.
+     * @return the cells occupied at ticks startTick, startTick + 1, ... (start and target included)
+     */
+    private int[] search(String robotId, int start, int target, long startTick) {
+        int targetX = target % width;
+        int targetY = target / width;
+
+        Map<Long, Integer> gCost = new HashMap<>();
+        Map<Long, Long> parent = new HashMap<>();
+        Set<Long> closed = new HashSet<>();
+        // entries: {f, h, state}
+        PriorityQueue<long[]> openSet = new PriorityQueue<>((a, b) -> a[0] != b[0]
+                ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        int[] neighbors = new int[8];
+        int[] stepCosts = new int[8];
+
+        long startState = state(start, 0);
+        int h0 = PathFinder.octileDistance(start % width, start / width, targetX, targetY);
+        gCost.put(startState, 0);
+        openSet.add(new long[] { h0, h0, startState });
+
+        while (!openSet.isEmpty() && closed.size() < MAX_EXPANDED_STATES) {
+            long current = openSet.poll()[2];
+            if (!closed.add(current)) continue; // stale queue entry
+
+            int cell = (int) (current % cellCount);
+            int offset = (int) (current / cellCount);
+            if (cell == target && offset > 0 && isGoalClear(robotId, cell, startTick + offset)) {
+                return retrace(parent, current, offset);
+            }
+            if (offset == horizonTicks) continue;
+
+            long nextTick = startTick + offset + 1;
+            int g = gCost.get(current);
+
+            // Waiting in place, then the cells we can drive to
+            int count = warehouseMap.getNeighbors(cell, target, neighbors, stepCosts);
+            for (int i = -1; i < count; i++) {
+                boolean wait = i < 0;
+                int next = wait ? cell : neighbors[i];
+                if (warehouseMap.isWalkable(next)) {
+                    if (!reservationTable.isFree(next, nextTick, robotId)) continue;
+                    if (!wait && reservationTable.isSwap(cell, next, nextTick - 1, robotId)) continue;
+                }
+
+                long nextState = state(next, offset + 1);
+                if (closed.contains(nextState)) continue;
+                int newCost = g + (wait ? WAIT_COST : stepCosts[i]);
+                Integer known = gCost.get(nextState);
+                if (known == null || newCost < known) {
+                    gCost.put(nextState, newCost);
+                    parent.put(nextState, current);
+                    int h = PathFinder.octileDistance(next % width, next / width, targetX, targetY);
+                    openSet.add(new long[] { newCost + h, h, nextState });
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A walkable goal must stay free from the arrival on, since the robot parks there.
+     */
+    private boolean isGoalClear(String robotId, int cell, long arrivalTick) {
+        if (!warehouseMap.isWalkable(cell)) return true;
+        return reservationTable.isFreeFrom(cell, arrivalTick, robotId);
+    }
+
+    private int[] retrace(Map<Long, Long> parent, long goalState, int length) {
+        int[] cells = new int[length + 1];
+        long state = goalState;
+        for (int i = length; i >= 0; i--) {
+            cells[i] = (int) (state % cellCount);
+            if (i > 0) state = parent.get(state);
+        }
+        return cells;
+    }
+
+    /** The route with non-walkable cells (stations, shelves) marked -1. */
+    private int[] reservable(int[] cells) {
+        int[] result = new int[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            boolean walkable = warehouseMap.isWalkable(cells[i]);
+            result[i] = walkable ? cells[i] : -1;
+        }
+        return result;
+    }
+
+    private long state(int cell, int offset) {
+        return (long) offset * cellCount + cell;
+    }
+
+    private int cellOf(Point p) {
+        return p.y * width + p.x;
+    }
+}
@@ -0,0 +1,15 @@
+package wms.wmsjfx.pathFinding;
+
+/**
+ * Whether a robot may drive diagonally past blocked cells (shelves, stations).
+ * A diagonal move from (x, y) to (x + dx, y + dy) passes the two corner cells
+ * (x + dx, y) and (x, y + dy).
+ */
+public enum CornerCutting {
+    /** Diagonal moves are allowed whatever the corner cells hold. */
+    ALLOWED,
+    /** Not between two blocked corner cells: at least one of them must be walkable. */
+    ONE_CORNER_FREE,
+    /** Both corner cells must be walkable; routes keep clear of shelf corners. */
+    FORBIDDEN
+}
@@ -0,0 +1,249 @@
+package wms.wmsjfx.pathFinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Incremental planner (D* Lite) for one robot and one goal.
+ * The search runs backwards from the goal and keeps its g/rhs tables between
+ * calls, so when cells are blocked or freed only the part of the search they
+ * affect is repaired, and when the robot moves on only the key modifier km grows.
+ * Same map rules as A*: 8-connected, 10/14 costs, diagonal moves as the map's
+ * CornerCutting rule allows, the goal may be a station or shelf, every other
+ * cell entered must be walkable.
+ * Map changes arrive through MapChangeListener (on any thread) and are applied
+ * by the owning robot's thread on the next findPath(); the planner is
+ * otherwise not thread-safe.
+ */
+public class DStarLite implements MapChangeListener {
+
+    private static final int INF = Integer.MAX_VALUE;
+    private static final long NOT_OPEN = -1;
+
+    private final WarehouseMap warehouseMap;
+    private final int width;
+    private final int height;
+    private final int goal;
+    private int start;
+    private int lastStart;
+    private int km;
+
+    private final int[] g;
+    private final int[] rhs;
+    private final long[] openKey; // key the cell is queued with, or NOT_OPEN
+    private final PriorityQueue<long[]> openSet = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+    private final Queue<Integer> changedCells = new ConcurrentLinkedQueue<>();
+    // Neighbour scratch: 'adjacent' for the cell being expanded, 'successors' for rhs computations inside that loop
+    private final int[] adjacent = new int[8];
+    private final int[] adjacentCosts = new int[8];
+    private final int[] successors = new int[8];
+    private final int[] successorCosts = new int[8];
+    private int expandedNodes;
+
+    public DStarLite(WarehouseMap warehouseMap, Point start, Point goal) {
+        this.warehouseMap = warehouseMap;
+        this.width = warehouseMap.getMapSizeX();
+        this.height = warehouseMap.getMapSizeY();
+        int cellCount = width * height;
+        this.goal = goal.y * width + goal.x;
+        this.start = start.y * width + start.x;
+        this.lastStart = this.start;
+
+        this.g = new int[cellCount];
+        this.rhs = new int[cellCount];
+        this.openKey = new long[cellCount];
+        Arrays.fill(g, INF);
+        Arrays.fill(rhs, INF);
+        Arrays.fill(openKey, NOT_OPEN);
+
+        rhs[this.goal] = 0;
+        insert(this.goal, calculateKey(this.goal));
+    }
+
+    public Point getGoal() {
+        return pointOf(goal);
+    }
+
+    /**
+     * Number of cells expanded by the most recent findPath().
+     */
+    public int getLastExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * Tells the planner where the robot is now. Keys already queued stay valid
+     * because km absorbs the change of the heuristic's origin.
+     */
+    public void updateStart(Point position) {
+        int cell = position.y * width + position.x;
+        if (cell == start) return;
+        km += heuristic(lastStart, cell);
+        lastStart = cell;
+        start = cell;
+    }
+
+    @Override
+    public void cellChanged(int x, int y, boolean walkable) {
+        changedCells.add(y * width + x);
+    }
+
+    /**
+     * Applies pending map changes, repairs the search and returns the route from
+     * the current start (excluded) to the goal; empty if the goal is unreachable.
+     */
+    public List<Point> findPath() {
+        expandedNodes = 0;
+        Integer changed;
+        while ((changed = changedCells.poll()) != null) {
+            // Entering 'changed' got cheaper or impossible: every neighbour's rhs may change
+            int cx = changed % width;
+            int cy = changed / width;
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    if ((dx != 0 || dy != 0) && warehouseMap.isInside(cx + dx, cy + dy)) {
+                        int u = (cy + dy) * width + cx + dx;
+                        if (u != goal) {
+                            rhs[u] = minSuccessorCost(u);
+                            updateVertex(u);
+                        }
+                    }
+                }
+            }
+        }
+        computeShortestPath();
+        return extractPath();
+    }
+
+    private void computeShortestPath() {
+        while (true) {
+            long[] top = peekValid();
+            long startKey = calculateKey(start);
+            if (top == null || (top[0] >= startKey && rhs[start] <= g[start])) return;
+
+            int u = (int) top[1];
+            long oldKey = top[0];
+            long newKey = calculateKey(u);
+            if (oldKey < newKey) {
+                insert(u, newKey);
+            } else if (g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                remove(u);
+                expandedNodes++;
+                int count = warehouseMap.getAdjacentCells(u, adjacent, adjacentCosts);
+                for (int i = 0; i < count; i++) {
+                    int s = adjacent[i];
+                    if (s != goal) {
+                        int viaU = add(enterCost(u, adjacentCosts[i]), g[u]);
+                        if (viaU < rhs[s]) rhs[s] = viaU;
+                        updateVertex(s);
+                    }
+                }
+            } else {
+                int oldG = g[u];
+                g[u] = INF;
+                expandedNodes++;
+                int count = warehouseMap.getAdjacentCells(u, adjacent, adjacentCosts);
+                for (int i = 0; i < count; i++) {
+                    int s = adjacent[i];
+                    if (s != goal && rhs[s] == add(enterCost(u, adjacentCosts[i]), oldG)) {
+                        rhs[s] = minSuccessorCost(s);
+                    }
+                    updateVertex(s);
+                }
+                if (u != goal) rhs[u] = minSuccessorCost(u);
+                updateVertex(u);
+            }
+        }
+    }
+
+    private List<Point> extractPath() {
+        List<Point> path = new ArrayList<>();
+        if (rhs[start] == INF) return path;
+        int current = start;
+        int limit = width * height;
+        while (current != goal && path.size() < limit) {
+            int best = -1;
+            int bestCost = INF;
+            int count = warehouseMap.getNeighbors(current, goal, successors, successorCosts);
+            for (int i = 0; i < count; i++) {
+                int cost = add(successorCosts[i], g[successors[i]]);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = successors[i];
+                }
+            }
+            if (best < 0) return new ArrayList<>();
+            path.add(pointOf(best));
+            current = best;
+        }
+        return path;
+    }
+
+    // ------------------------------------------------------------ helpers
+
+    private void updateVertex(int u) {
+        if (g[u] != rhs[u]) {
+            insert(u, calculateKey(u));
+        } else if (openKey[u] != NOT_OPEN) {
+            remove(u);
+        }
+    }
+
+    /** Key [min(g, rhs) + h(start, s) + km ; min(g, rhs)] packed into one long. */
+    private long calculateKey(int s) {
+        int m = Math.min(g[s], rhs[s]);
+        if (m == INF) return Long.MAX_VALUE;
+        long k1 = (long) m + heuristic(start, s) + km;
+        return (k1 << 32) | m;
+    }
+
+    private void insert(int u, long key) {
+        openKey[u] = key;
+        openSet.add(new long[] { key, u });
+    }
+
+    private void remove(int u) {
+        openKey[u] = NOT_OPEN; // the queue entry turns stale and is skipped later
+    }
+
+    /** Top of the open set, dropping entries that were removed or re-keyed. */
+    private long[] peekValid() {
+        long[] top;
+        while ((top = openSet.peek()) != null && openKey[(int) top[1]] != top[0]) {
+            openSet.poll();
+        }
+        return top;
+    }
+
+    private int minSuccessorCost(int u) {
+        int best = INF;
+        int count = warehouseMap.getNeighbors(u, goal, successors, successorCosts);
+        for (int i = 0; i < count; i++) {
+            best = Math.min(best, add(successorCosts[i], g[successors[i]]));
+        }
+        return best;
+    }
+
+    /** Cost of a step onto v: v must be walkable unless it is the goal. */
+    private int enterCost(int v, int stepCost) {
+        return (v == goal || warehouseMap.isWalkable(v)) ? stepCost : INF;
+    }
+
+    private int heuristic(int a, int b) {
+        return PathFinder.octileDistance(a % width, a / width, b % width, b / width);
+    }
+
+    private static int add(int a, int b) {
+        return (a == INF || b == INF) ? INF : a + b;
+    }
+
+    private Point pointOf(int cell) {
+        return new Point(cell % width, cell / width);
+    }
+}
@@ -0,0 +1,274 @@
+package wms.wmsjfx.pathFinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cost (10 straight / 14 diagonal) from every cell of the WarehouseMap to one
+ * fixed target cell, built with a reverse Dijkstra search.
+ * Uses the same rules as PathFinding: a route may start on any cell and end on
+ * the (possibly non-walkable) target, but every cell in between must be walkable,
+ * and diagonal steps follow the map's CornerCutting rule.
+ * Distances are kept as chars (2 bytes a cell). A field whose costs outgrow
+ * that is marked overflowed and no longer answers; callers search instead.
+ * Not thread-safe on its own; StationDistanceFields guards access.
+ */
+class DistanceField {
+
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final char NONE = Character.MAX_VALUE; // stored for UNREACHABLE
+    private static final int MAX_DISTANCE = NONE - 1;
+
+    /**
+     * Working space for building and repairing fields: one per
+     * StationDistanceFields, used by one field at a time under its write lock.
+     */
+    static final class Scratch {
+        private final int[] key;            // queue order: a queued cell's distance
+        private final IndexedNodeHeap queue; // ordered by distance only (no heuristic)
+        private final BitSet affected;
+        private final int[] open;           // dependents still to follow
+        private final int[] neighbors = new int[8];
+        private final int[] stepCosts = new int[8];
+
+        Scratch(int cellCount) {
+            this.key = new int[cellCount];
+            this.queue = new IndexedNodeHeap(cellCount, key, new int[cellCount]);
+            this.affected = new BitSet(cellCount);
+            this.open = new int[cellCount + 1];
+        }
+    }
+
+    private final WarehouseMap map;
+    private final int width;
+    private final int target;
+    private final char[] distance;
+    private boolean overflowed;
+
+    DistanceField(WarehouseMap map, Point target, Scratch scratch) {
+        this.map = map;
+        this.width = map.getMapSizeX();
+        this.target = target.y * width + target.x;
+        this.distance = new char[width * map.getMapSizeY()];
+        rebuild(scratch);
+    }
+
+    /**
+     * Recomputes the whole field from scratch.
+     */
+    void rebuild(Scratch s) {
+        Arrays.fill(distance, NONE);
+        overflowed = false;
+        s.queue.clear();
+        distance[target] = 0;
+        enqueue(s, target);
+        propagate(s);
+    }
+
+    /** True if some cost did not fit; the field is then of no use. */
+    boolean isOverflowed() {
+        return overflowed;
+    }
+
+    int distanceFrom(int x, int y) {
+        return distanceOf(y * width + x);
+    }
+
+    /**
+     * Repairs the field after the walkability of (x, y) changed.
+     * Only cells whose distance can actually change are touched. Under a
+     * CornerCutting rule other than ALLOWED the cell is also a corner of the
+     * diagonal moves between its side neighbours, which open or close with it.
+     */
+    void cellChanged(int x, int y, boolean walkable, Scratch s) {
+        if (overflowed) return;
+        int cell = y * width + x;
+        boolean corners = map.getCornerCutting() != CornerCutting.ALLOWED;
+        s.queue.clear();
+        if (walkable) {
+            // Seeds keep their distance; they may now lead others to the target
+            if (cell != target) seed(s, cell); // the target always expands
+            for (int i = 0; corners && i < 4; i++) {
+                if (!hasCornerMove(x, y, i)) continue;
+                seed(s, cornerMoveSide(x, y, i));
+                seed(s, cornerMoveEnd(x, y, i));
+            }
+        } else {
+            // Cells whose shortest route ran through this cell or a closed move lose it
+            int roots = 0;
+            if (cell != target && distanceOf(cell) != UNREACHABLE) {
+                s.open[roots++] = cell;
+            }
+            for (int i = 0; corners && i < 4; i++) {
+                if (!hasCornerMove(x, y, i)) continue;
+                int side = cornerMoveSide(x, y, i);
+                int end = cornerMoveEnd(x, y, i);
+                roots = addIfTight(s, side, end, roots);
+                roots = addIfTight(s, end, side, roots);
+            }
+            collectDependents(s, roots);
+            BitSet affected = s.affected;
+            for (int c = affected.nextSetBit(0); c >= 0; c = affected.nextSetBit(c + 1)) {
+                distance[c] = NONE;
+            }
+            for (int c = affected.nextSetBit(0); c >= 0; c = affected.nextSetBit(c + 1)) {
+                int best = bestFromNeighbors(s, c);
+                if (best != UNREACHABLE) {
+                    store(c, best);
+                    enqueue(s, c);
+                }
+            }
+            affected.clear();
+        }
+        propagate(s);
+    }
+
+    /**
+     * Follows the distance gradient from (x, y) down to the target.
+     * The result excludes the start cell and ends on the target; it is empty
+     * if the target cannot be reached.
+     * Safe to call from several threads at once while no repair runs.
+     */
+    List<Point> pathFrom(int x, int y) {
+        int current = y * width + x;
+        if (distanceOf(current) == UNREACHABLE) {
+            return Collections.emptyList();
+        }
+        int[] neighbors = new int[8]; // callers run concurrently under a read lock
+        int[] stepCosts = new int[8];
+        List<Point> path = new ArrayList<>(distanceOf(current) / 10 + 1);
+        while (current != target) {
+            int next = -1;
+            int count = map.getNeighbors(current, target, neighbors, stepCosts);
+            for (int i = 0; i < count && next < 0; i++) {
+                int n = neighbors[i];
+                if (distanceOf(n) == UNREACHABLE) continue;
+                if (distanceOf(n) + stepCosts[i] == distanceOf(current)) next = n;
+            }
+            if (next < 0) {
+                return Collections.emptyList(); // field is inconsistent with the map; caller falls back to A*
+            }
+            path.add(new Point(next % width, next / width));
+            current = next;
+        }
+        return path;
+    }
+
+    private int distanceOf(int cell) {
+        char d = distance[cell];
+        return d == NONE ? UNREACHABLE : d;
+    }
+
+    /** @return false if 'cost' does not fit, which marks the field overflowed */
+    private boolean store(int cell, int cost) {
+        if (cost > MAX_DISTANCE) {
+            overflowed = true;
+            return false;
+        }
+        distance[cell] = (char) cost;
+        return true;
+    }
+
+    private boolean canExpand(int cell) {
+        return cell == target || map.isWalkable(cell);
+    }
+
+    private void enqueue(Scratch s, int cell) {
+        s.key[cell] = distance[cell];
+        s.queue.add(cell);
+    }
+
+    private void seed(Scratch s, int cell) {
+        if (distanceOf(cell) != UNREACHABLE && !s.queue.contains(cell)) enqueue(s, cell);
+    }
+
+    /**
+     * Whether diagonal move i with (x, y) as a corner lies on the map. The four
+     * moves run between its left (i < 2) or right neighbour, the side cell, and
+     * its upper (i even) or lower neighbour, the end cell.
+     */
+    private boolean hasCornerMove(int x, int y, int i) {
+        return map.isInside(x + (i < 2 ? -1 : 1), y) && map.isInside(x, y + (i % 2 == 0 ? -1 : 1));
+    }
+
+    private int cornerMoveSide(int x, int y, int i) {
+        return y * width + x + (i < 2 ? -1 : 1);
+    }
+
+    private int cornerMoveEnd(int x, int y, int i) {
+        return (y + (i % 2 == 0 ? -1 : 1)) * width + x;
+    }
+
+    /**
+     * Marks 'to' as affected if its shortest route may have taken the diagonal
+     * move onto 'from' that just closed.
+     */
+    private int addIfTight(Scratch s, int from, int to, int roots) {
+        if (to == target || s.affected.get(to)) return roots;
+        int d = distanceOf(from);
+        if (d == UNREACHABLE || distanceOf(to) != d + PathFinder.DIAGONAL_COST) return roots;
+        s.affected.set(to);
+        if (canExpand(to)) s.open[roots++] = to;
+        return roots;
+    }
+
+    /**
+     * Dijkstra relaxation from everything already in the queue.
+     */
+    private void propagate(Scratch s) {
+        IndexedNodeHeap queue = s.queue;
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            if (!canExpand(current)) continue; // reachable as a start cell, but not a way through
+            int count = map.getAdjacentCells(current, s.neighbors, s.stepCosts);
+            for (int i = 0; i < count; i++) {
+                int n = s.neighbors[i];
+                int newCost = distance[current] + s.stepCosts[i];
+                if (newCost < distanceOf(n) && store(n, newCost)) {
+                    s.key[n] = newCost;
+                    if (queue.contains(n)) queue.decreaseKey(n);
+                    else queue.add(n);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds to 'affected' every cell whose shortest route to the target may pass
+     * through one of the first 'roots' cells of 'open': every cell reachable from
+     * them over tight edges (distance[n] == distance[c] + cost).
+     */
+    private void collectDependents(Scratch s, int roots) {
+        int[] open = s.open;
+        int size = roots;
+        while (size > 0) {
+            int current = open[--size];
+            int d = distanceOf(current);
+            int count = map.getAdjacentCells(current, s.neighbors, s.stepCosts);
+            for (int i = 0; i < count; i++) {
+                int n = s.neighbors[i];
+                if (n == target || s.affected.get(n) || distanceOf(n) == UNREACHABLE) continue;
+                if (distanceOf(n) == d + s.stepCosts[i]) {
+                    s.affected.set(n);
+                    if (canExpand(n)) open[size++] = n;
+                }
+            }
+        }
+    }
+
+    private int bestFromNeighbors(Scratch s, int cell) {
+        int best = UNREACHABLE;
+        int count = map.getNeighbors(cell, target, s.neighbors, s.stepCosts);
+        for (int i = 0; i < count; i++) {
+            int n = s.neighbors[i];
+            if (s.affected.get(n) || distanceOf(n) == UNREACHABLE) continue;
+            best = Math.min(best, distanceOf(n) + s.stepCosts[i]);
+        }
+        return best;
+    }
+}
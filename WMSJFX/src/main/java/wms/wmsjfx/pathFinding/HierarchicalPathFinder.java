@@ -0,0 +1,517 @@
+package wms.wmsjfx.pathFinding;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hierarchical path finding (HPA*) for large warehouse floors.
+ * The map is split into square clusters. Where two neighbouring clusters
+ * share an open stretch of border, an entrance (a pair of cells, one on each
+ * side) is placed; the entrance cells are the nodes of a small abstract graph
+ * whose intra-cluster edge costs are precomputed with a flood (Dijkstra)
+ * confined to the cluster.
+ * A query floods the clusters around start and target to link them into
+ * that graph, searches it with A* and then refines
+ * every abstract edge into single-cell steps; intra-cluster segments are
+ * computed on first use and memoized per cluster.
+ * Routes are near-optimal (they cross cluster borders only at entrances).
+ * If the abstract graph finds no route the query falls back to a full A*,
+ * so a reachable target is never reported as unreachable.
+ * When a cell changes, only its cluster and the four neighbouring clusters are rebuilt.
+ * The graph is built on the first query; queries may run concurrently,
+ * a rebuild takes the write lock.
+ */
+public class HierarchicalPathFinder implements PathFinder, MapChangeListener {
+
+    public static final int DEFAULT_CLUSTER_SIZE = 10;
+
+    private static final int MAX_ENTRANCE_WIDTH = 6; // wider openings get an entrance at each end
+    private static final int NO_EDGE = -1;
+
+    private final WarehouseMap warehouseMap;
+    private final AStarPathFinder localSearch;
+    private final int width;
+    private final int height;
+    private final int clusterSize;
+    private final int clustersX;
+    private final int clustersY;
+    private final ScratchPool<Scratch> scratchPool; // borrowed under the lock, one per running query
+    private volatile int lastExpandedNodes;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile Cluster[] clusters; // null until the first query
+    private int[][] eastEntrances;       // per cluster: (own cell, cell in east cluster) pairs
+    private int[][] southEntrances;      // per cluster: (own cell, cell in south cluster) pairs
+
+    public HierarchicalPathFinder(WarehouseMap warehouseMap) {
+        this(warehouseMap, DEFAULT_CLUSTER_SIZE);
+    }
+
+    public HierarchicalPathFinder(WarehouseMap warehouseMap, int clusterSize) {
+        if (clusterSize < 2) {
+            throw new IllegalArgumentException("clusterSize must be at least 2: " + clusterSize);
+        }
+        this.warehouseMap = warehouseMap;
+        this.localSearch = new AStarPathFinder(warehouseMap);
+        this.width = warehouseMap.getMapSizeX();
+        this.height = warehouseMap.getMapSizeY();
+        this.clusterSize = clusterSize;
+        this.clustersX = (width + clusterSize - 1) / clusterSize;
+        this.clustersY = (height + clusterSize - 1) / clusterSize;
+        int cellCount = width * height;
+        this.scratchPool = new ScratchPool<>(() -> new Scratch(cellCount));
+    }
+
+    /**
+     * Number of abstract graph nodes the most recent query expanded.
+     */
+    @Override
+    public int getLastExpandedNodes() {
+        return lastExpandedNodes;
+    }
+
+    /**
+     * Number of entrance nodes in the abstract graph (builds it if needed).
+     */
+    public int getAbstractNodeCount() {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (Cluster cluster : clusters) count += cluster.nodes.length;
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Point> findPath(Point startPos, Point targetPos) {
+        if (startPos.equals(targetPos)) return new ArrayList<>();
+        ensureBuilt();
+
+        List<Point> path;
+        lock.readLock().lock();
+        Scratch scratch = scratchPool.borrow();
+        try {
+            path = searchAbstract(scratch, startPos, targetPos);
+        } finally {
+            lastExpandedNodes = scratch.search.expandedNodes;
+            scratchPool.release(scratch);
+            lock.readLock().unlock();
+        }
+        // Only a route squeezing diagonally past a cluster corner is missed by the entrances
+        return path != null ? path : localSearch.findPath(startPos, targetPos);
+    }
+
+    @Override
+    public void cellChanged(int x, int y, boolean walkable) {
+        if (clusters == null) return; // nothing built yet
+        lock.writeLock().lock();
+        try {
+            int cx = x / clusterSize;
+            int cy = y / clusterSize;
+            int id = cy * clustersX + cx;
+
+            // Entrances on all four borders of the cluster
+            eastEntrances[id] = findEntrances(id, true);
+            southEntrances[id] = findEntrances(id, false);
+            if (cx > 0) eastEntrances[id - 1] = findEntrances(id - 1, true);
+            if (cy > 0) southEntrances[id - clustersX] = findEntrances(id - clustersX, false);
+
+            // Clusters sharing one of those borders see their node set change
+            Scratch scratch = scratchPool.borrow(); // all free: queries hold theirs under the read lock
+            try {
+                rebuildCluster(id, scratch.startField);
+                if (cx > 0) rebuildCluster(id - 1, scratch.startField);
+                if (cx < clustersX - 1) rebuildCluster(id + 1, scratch.startField);
+                if (cy > 0) rebuildCluster(id - clustersX, scratch.startField);
+                if (cy < clustersY - 1) rebuildCluster(id + clustersX, scratch.startField);
+            } finally {
+                scratchPool.release(scratch);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ------------------------------------------------------------ graph build
+
+    private void ensureBuilt() {
+        if (clusters != null) return;
+        lock.writeLock().lock();
+        try {
+            if (clusters != null) return;
+            int count = clustersX * clustersY;
+            Cluster[] built = new Cluster[count];
+            for (int id = 0; id < count; id++) {
+                int cx = id % clustersX;
+                int cy = id / clustersX;
+                int x = cx * clusterSize;
+                int y = cy * clusterSize;
+                built[id] = new Cluster(new Rectangle(x, y,
+                        Math.min(clusterSize, width - x), Math.min(clusterSize, height - y)));
+            }
+            this.eastEntrances = new int[count][];
+            this.southEntrances = new int[count][];
+            // Published before it is filled; readers wait on the lock until we are done
+            clusters = built;
+            for (int id = 0; id < count; id++) {
+                eastEntrances[id] = findEntrances(id, true);
+                southEntrances[id] = findEntrances(id, false);
+            }
+            Scratch scratch = scratchPool.borrow();
+            try {
+                for (int id = 0; id < count; id++) {
+                    rebuildCluster(id, scratch.startField);
+                }
+            } finally {
+                scratchPool.release(scratch);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Scans the east (or south) border of a cluster for maximal runs where both
+     * sides are walkable and places one entrance in the middle of a narrow run,
+     * or one at each end of a wide run.
+     */
+    private int[] findEntrances(int id, boolean east) {
+        Rectangle bounds = clusters[id].bounds;
+        int borderX = bounds.x + bounds.width - 1;
+        int borderY = bounds.y + bounds.height - 1;
+        if (east ? borderX + 1 >= width : borderY + 1 >= height) return new int[0];
+
+        List<Integer> pairs = new ArrayList<>();
+        int length = east ? bounds.height : bounds.width;
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean open = i < length && (east
+                    ? warehouseMap.isWalkable(borderX, bounds.y + i) && warehouseMap.isWalkable(borderX + 1, bounds.y + i)
+                    : warehouseMap.isWalkable(bounds.x + i, borderY) && warehouseMap.isWalkable(bounds.x + i, borderY + 1));
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 < MAX_ENTRANCE_WIDTH) {
+                    addEntrance(pairs, east, bounds, borderX, borderY, (runStart + runEnd) / 2);
+                } else {
+                    addEntrance(pairs, east, bounds, borderX, borderY, runStart);
+                    addEntrance(pairs, east, bounds, borderX, borderY, runEnd);
+                }
+                runStart = -1;
+            }
+        }
+        int[] result = new int[pairs.size()];
+        for (int i = 0; i < result.length; i++) result[i] = pairs.get(i);
+        return result;
+    }
+
+    private void addEntrance(List<Integer> pairs, boolean east, Rectangle bounds, int borderX, int borderY, int offset) {
+        if (east) {
+            int y = bounds.y + offset;
+            pairs.add(y * width + borderX);
+            pairs.add(y * width + borderX + 1);
+        } else {
+            int x = bounds.x + offset;
+            pairs.add(borderY * width + x);
+            pairs.add((borderY + 1) * width + x);
+        }
+    }
+
+    /**
+     * Collects the cluster's entrance nodes from its four borders and
+     * recomputes the intra-cluster costs between them, flooding in 'field'.
+     */
+    private void rebuildCluster(int id, SearchContext field) {
+        Cluster cluster = clusters[id];
+        int cx = id % clustersX;
+        int cy = id / clustersX;
+
+        Map<Integer, List<Integer>> links = new LinkedHashMap<>();
+        collectLinks(links, eastEntrances[id], 0);
+        collectLinks(links, southEntrances[id], 0);
+        if (cx > 0) collectLinks(links, eastEntrances[id - 1], 1);
+        if (cy > 0) collectLinks(links, southEntrances[id - clustersX], 1);
+
+        int n = links.size();
+        int[] nodes = new int[n];
+        int[][] interLinks = new int[n][];
+        int index = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : links.entrySet()) {
+            nodes[index] = entry.getKey();
+            interLinks[index] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+            index++;
+        }
+
+        // One flood per node yields its costs to all other nodes of the cluster
+        int[][] intraCost = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            flood(field, nodes[i], cluster.bounds, -1);
+            for (int j = 0; j < n; j++) {
+                intraCost[i][j] = (i != j && field.isClosed(nodes[j])) ? field.gCost[nodes[j]] : NO_EDGE;
+            }
+        }
+
+        cluster.nodes = nodes;
+        cluster.interLinks = interLinks;
+        cluster.intraCost = intraCost;
+        cluster.refinedSegments.clear();
+    }
+
+    /**
+     * Adds the entrance pairs to 'links': side 0 is this cluster's cell when the
+     * pairs come from its own east/south border, side 1 when they come from the
+     * west/north neighbour.
+     */
+    private static void collectLinks(Map<Integer, List<Integer>> links, int[] pairs, int side) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            int own = pairs[i + side];
+            int other = pairs[i + 1 - side];
+            links.computeIfAbsent(own, c -> new ArrayList<>()).add(other);
+        }
+    }
+
+    // ------------------------------------------------------------ query
+
+    /**
+     * Links start and target into the abstract graph, runs A* on it and refines the result.
+     * @return the step-by-step path, or null if the abstract graph has no route
+     */
+    private List<Point> searchAbstract(Scratch scratch, Point startPos, Point targetPos) {
+        int start = startPos.y * width + startPos.x;
+        int target = targetPos.y * width + targetPos.x;
+
+        // Costs from the start into the clusters it touches, and from the target's clusters into the target
+        List<Integer> startClusters = touchedClusters(startPos);
+        SearchContext fromStart = scratch.startField;
+        flood(fromStart, start, boundsOf(startClusters, startPos), target);
+        SearchContext toTarget = scratch.targetField;
+        flood(toTarget, target, boundsOf(touchedClusters(targetPos), targetPos), -1);
+
+        SearchContext ctx = scratch.search;
+        ctx.reset();
+        int[] gCost = ctx.gCost;
+        int[] parent = ctx.parent;
+        IndexedNodeHeap openSet = ctx.openSet;
+
+        gCost[start] = 0;
+        ctx.hCost[start] = PathFinder.octileDistance(startPos.x, startPos.y, targetPos.x, targetPos.y);
+        openSet.add(start);
+
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            ctx.close(current);
+
+            if (current == target) {
+                return refine(parent, start, target, fromStart, toTarget);
+            }
+
+            if (current == start) {
+                for (int id : startClusters) {
+                    for (int node : clusters[id].nodes) {
+                        if (fromStart.isClosed(node)) relax(ctx, current, node, fromStart.gCost[node], targetPos);
+                    }
+                }
+                if (fromStart.isClosed(target)) relax(ctx, current, target, fromStart.gCost[target], targetPos);
+            }
+            Cluster cluster = clusterOf(current);
+            int index = cluster.indexOf(current);
+            if (index >= 0) {
+                for (int j = 0; j < cluster.nodes.length; j++) {
+                    int cost = cluster.intraCost[index][j];
+                    if (cost != NO_EDGE) relax(ctx, current, cluster.nodes[j], cost, targetPos);
+                }
+                for (int other : cluster.interLinks[index]) {
+                    relax(ctx, current, other, STRAIGHT_COST, targetPos);
+                }
+            }
+            if (toTarget.isClosed(current)) {
+                relax(ctx, current, target, toTarget.gCost[current], targetPos);
+            }
+        }
+        return null;
+    }
+
+    private void relax(SearchContext ctx, int current, int next, int edgeCost, Point targetPos) {
+        if (ctx.isClosed(next)) return;
+        int newCost = ctx.gCost[current] + edgeCost;
+        boolean queued = ctx.openSet.contains(next);
+        if (!queued || newCost < ctx.gCost[next]) {
+            ctx.gCost[next] = newCost;
+            ctx.hCost[next] = PathFinder.octileDistance(next % width, next / width, targetPos.x, targetPos.y);
+            ctx.parent[next] = current;
+            if (queued) ctx.openSet.decreaseKey(next);
+            else ctx.openSet.add(next);
+        }
+    }
+
+    /**
+     * Dijkstra from 'source' over the walkable cells inside 'bounds'; afterwards a
+     * cell is closed in 'ctx' iff it was reached, with its cost in gCost and the
+     * next cell towards the source in parent. The grid is undirected, so the same
+     * flood serves routes out of a start and routes into a target.
+     * The source may be a blocked cell; 'enterable' (or -1) is a blocked cell that
+     * may be reached but not driven through.
+     */
+    private void flood(SearchContext ctx, int source, Rectangle bounds, int enterable) {
+        ctx.reset();
+        int[] gCost = ctx.gCost;
+        IndexedNodeHeap openSet = ctx.openSet;
+        int maxX = bounds.x + bounds.width - 1;
+        int maxY = bounds.y + bounds.height - 1;
+
+        gCost[source] = 0;
+        ctx.hCost[source] = 0;
+        ctx.parent[source] = -1;
+        openSet.add(source);
+
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            ctx.close(current);
+            if (current != source && !warehouseMap.isWalkable(current)) continue;
+
+            int neighborCount = warehouseMap.getNeighbors(current, enterable, ctx.neighbors, ctx.stepCosts);
+            for (int i = 0; i < neighborCount; i++) {
+                int neighbor = ctx.neighbors[i];
+                int neighborX = neighbor % width;
+                int neighborY = neighbor / width;
+                if (neighborX < bounds.x || neighborX > maxX || neighborY < bounds.y || neighborY > maxY) continue;
+                if (ctx.isClosed(neighbor)) continue;
+
+                int newCost = gCost[current] + ctx.stepCosts[i];
+                boolean queued = openSet.contains(neighbor);
+                if (!queued || newCost < gCost[neighbor]) {
+                    gCost[neighbor] = newCost;
+                    ctx.hCost[neighbor] = 0;
+                    ctx.parent[neighbor] = current;
+                    if (queued) openSet.decreaseKey(neighbor);
+                    else openSet.add(neighbor);
+                }
+            }
+        }
+    }
+
+    /** Cluster of the cell plus the clusters of its on-map neighbours. */
+    private List<Integer> touchedClusters(Point p) {
+        List<Integer> ids = new ArrayList<>(4);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                int x = p.x + dx;
+                int y = p.y + dy;
+                if (!warehouseMap.isInside(x, y)) continue;
+                int id = (y / clusterSize) * clustersX + x / clusterSize;
+                if (!ids.contains(id)) ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Bounding box of the given clusters. A cell on a cluster edge touches the
+     * clusters of its neighbours too, so a robot parked on a station at a border
+     * can still leave (or a shelf be reached) through the next cluster.
+     */
+    private Rectangle boundsOf(List<Integer> ids, Point p) {
+        Rectangle bounds = new Rectangle(p.x, p.y, 1, 1);
+        for (int id : ids) {
+            bounds = bounds.union(clusters[id].bounds);
+        }
+        return bounds;
+    }
+
+    /**
+     * Walks the abstract path back from the target and expands every edge into single-cell steps.
+     */
+    private List<Point> refine(int[] parent, int start, int target, SearchContext fromStart, SearchContext toTarget) {
+        List<Integer> abstractPath = new ArrayList<>();
+        for (int cell = target; cell != start; cell = parent[cell]) {
+            abstractPath.add(cell);
+        }
+        abstractPath.add(start);
+
+        List<Point> path = new ArrayList<>();
+        for (int i = abstractPath.size() - 1; i > 0; i--) {
+            int from = abstractPath.get(i);
+            int to = abstractPath.get(i - 1);
+            boolean startLink = from == start && fromStart.isClosed(to);
+            boolean targetLink = to == target && toTarget.isClosed(from);
+            if (targetLink && (!startLink || toTarget.gCost[from] < fromStart.gCost[to])) {
+                // parent chain of the target flood leads from 'from' into the target
+                for (int cell = toTarget.parent[from]; cell != -1; cell = toTarget.parent[cell]) {
+                    path.add(pointOf(cell));
+                }
+            } else if (startLink) {
+                int first = path.size();
+                for (int cell = to; cell != start; cell = fromStart.parent[cell]) {
+                    path.add(pointOf(cell));
+                }
+                Collections.reverse(path.subList(first, path.size()));
+            } else if (clusterOf(from) != clusterOf(to)) {
+                path.add(pointOf(to)); // entrance crossing, one straight step
+            } else {
+                path.addAll(intraSegment(clusterOf(from), from, to));
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Step-by-step route between two entrance nodes of a cluster, computed on first use.
+     */
+    private List<Point> intraSegment(Cluster cluster, int from, int to) {
+        long key = ((long) from << 32) | to;
+        return cluster.refinedSegments.computeIfAbsent(key,
+                k -> localSearch.findPath(pointOf(from), pointOf(to), cluster.bounds));
+    }
+
+    private Cluster clusterOf(int cell) {
+        return clusters[((cell / width) / clusterSize) * clustersX + (cell % width) / clusterSize];
+    }
+
+    private Point pointOf(int cell) {
+        return new Point(cell % width, cell / width);
+    }
+
+    /** The three contexts one query needs; borrowed together so queries cannot hold part of a set each. */
+    private static final class Scratch {
+        final SearchContext search;      // abstract graph search
+        final SearchContext startField;  // flood out of the start's clusters (and cluster rebuilds)
+        final SearchContext targetField; // flood into the target's clusters
+
+        Scratch(int cellCount) {
+            this.search = new SearchContext(cellCount);
+            this.startField = new SearchContext(cellCount);
+            this.targetField = new SearchContext(cellCount);
+        }
+    }
+
+    private static final class Cluster {
+        final Rectangle bounds;
+        int[] nodes = new int[0];     // cells of the entrance nodes
+        int[][] interLinks;           // per node: cells across the border
+        int[][] intraCost;            // NO_EDGE if the two nodes are not connected inside the cluster
+        final Map<Long, List<Point>> refinedSegments = new ConcurrentHashMap<>();
+
+        Cluster(Rectangle bounds) {
+            this.bounds = bounds;
+        }
+
+        int indexOf(int cell) {
+            for (int i = 0; i < nodes.length; i++) {
+                if (nodes[i] == cell) return i;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package wms.wmsjfx.pathFinding;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of cell indices used as the A* open set.
+ * Ordering is by fCost (gCost + hCost) and ties are broken on the lower hCost,
+ * the same rule the original linear scan used.
+ * The heap remembers where each cell sits, so contains() is O(1) and a
+ * decrease-key after a cheaper path was found is O(log n).
+ * Slots are stamped with a generation so clear() is O(1) and the heap can be
+ * reused for the next search without touching its arrays.
+ */
+class IndexedNodeHeap {
+
+    private static final int NOT_IN_HEAP = -1;
+
+    private final int[] heap;       // heap slot -> cell index
+    private final int[] slotOfCell; // cell index -> heap slot (or NOT_IN_HEAP)
+    private final int[] slotGeneration; // generation in which slotOfCell was written
+    private final int[] gCost;
+    private final int[] hCost;
+    private int size;
+    private int generation = 1;
+
+    IndexedNodeHeap(int cellCount, int[] gCost, int[] hCost) {
+        this.heap = new int[cellCount];
+        this.slotOfCell = new int[cellCount];
+        this.slotGeneration = new int[cellCount];
+        this.gCost = gCost;
+        this.hCost = hCost;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int cell) {
+        return slotGeneration[cell] == generation && slotOfCell[cell] != NOT_IN_HEAP;
+    }
+
+    /**
+     * Empties the heap in O(1) by moving to a new generation.
+     */
+    void clear() {
+        size = 0;
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(slotGeneration, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Adds a cell whose costs are already written to the cost arrays.
+     */
+    void add(int cell) {
+        heap[size] = cell;
+        slotOfCell[cell] = size;
+        slotGeneration[cell] = generation;
+        siftUp(size++);
+    }
+
+    /**
+     * Restores heap order after the gCost of a queued cell was lowered.
+     */
+    void decreaseKey(int cell) {
+        siftUp(slotOfCell[cell]);
+    }
+
+    /**
+     * Removes and returns the cell with the lowest fCost.
+     */
+    int poll() {
+        int top = heap[0];
+        slotOfCell[top] = NOT_IN_HEAP;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            slotOfCell[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private boolean less(int a, int b) {
+        int fa = gCost[a] + hCost[a];
+        int fb = gCost[b] + hCost[b];
+        return fa < fb || (fa == fb && hCost[a] < hCost[b]);
+    }
+
+    private void siftUp(int slot) {
+        int cell = heap[slot];
+        while (slot > 0) {
+            int parentSlot = (slot - 1) >>> 1;
+            int parentCell = heap[parentSlot];
+            if (!less(cell, parentCell)) break;
+            heap[slot] = parentCell;
+            slotOfCell[parentCell] = slot;
+            slot = parentSlot;
+        }
+        heap[slot] = cell;
+        slotOfCell[cell] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int cell = heap[slot];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && less(heap[right], heap[child])) child = right;
+            if (!less(heap[child], cell)) break;
+            heap[slot] = heap[child];
+            slotOfCell[heap[slot]] = slot;
+            slot = child;
+        }
+        heap[slot] = cell;
+        slotOfCell[cell] = slot;
+    }
+}
@@ -0,0 +1,221 @@
+package wms.wmsjfx.pathFinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Jump Point Search over the WarehouseMap.
+ * The map is a uniform-cost 8-connected grid where diagonal moves are allowed
+ * past blocked cells, which is the case the original JPS pruning rules cover:
+ * straight runs through open aisles are "jumped" without pushing every cell
+ * onto the open set, and the result has the same optimal cost as A*.
+ * Jump points are expanded back to single-cell steps before returning.
+ * Like A*, the route may start on any cell and end on a non-walkable target.
+ * The pruning rules do not hold when the map restricts corner cutting
+ * (CornerCutting other than ALLOWED); such maps are searched with plain A*.
+ */
+public class JumpPointPathFinder implements PathFinder {
+
+    private static final int NONE = -1;
+
+    private final WarehouseMap warehouseMap;
+    private final int width;
+    private final int height;
+    private final ScratchPool<SearchContext> searchContexts;
+    private volatile int lastExpandedNodes;
+    private final AStarPathFinder fallback; // null unless corner cutting is restricted
+
+    public JumpPointPathFinder(WarehouseMap warehouseMap) {
+        this.warehouseMap = warehouseMap;
+        this.width = warehouseMap.getMapSizeX();
+        this.height = warehouseMap.getMapSizeY();
+        int cellCount = width * height;
+        this.searchContexts = new ScratchPool<>(() -> new SearchContext(cellCount));
+        this.fallback = warehouseMap.getCornerCutting() == CornerCutting.ALLOWED ? null : new AStarPathFinder(warehouseMap);
+    }
+
+    @Override
+    public int getLastExpandedNodes() {
+        if (fallback != null) return fallback.getLastExpandedNodes();
+        return lastExpandedNodes;
+    }
+
+    @Override
+    public List<Point> findPath(Point startPos, Point targetPos) {
+        if (fallback != null) return fallback.findPath(startPos, targetPos);
+        SearchContext ctx = searchContexts.borrow();
+        try {
+            return search(ctx, startPos, targetPos);
+        } finally {
+            lastExpandedNodes = ctx.expandedNodes;
+            searchContexts.release(ctx);
+        }
+    }
+
+    private List<Point> search(SearchContext ctx, Point startPos, Point targetPos) {
+        int start = startPos.y * width + startPos.x;
+        int target = targetPos.y * width + targetPos.x;
+
+        ctx.reset();
+        int[] gCost = ctx.gCost;
+        int[] hCost = ctx.hCost;
+        int[] parent = ctx.parent;
+        IndexedNodeHeap openSet = ctx.openSet;
+
+        gCost[start] = 0;
+        hCost[start] = PathFinder.octileDistance(startPos.x, startPos.y, targetPos.x, targetPos.y);
+        parent[start] = NONE;
+        openSet.add(start);
+
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            ctx.close(current);
+
+            if (current == target) {
+                return expandJumpPoints(parent, target);
+            }
+
+            int cx = current % width;
+            int cy = current / width;
+
+            if (parent[current] == NONE) {
+                // Start node: every direction is a candidate
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dy = -1; dy <= 1; dy++) {
+                        if (dx != 0 || dy != 0) {
+                            addSuccessor(ctx, current, cx, cy, dx, dy, target, targetPos);
+                        }
+                    }
+                }
+                continue;
+            }
+
+            int px = parent[current] % width;
+            int py = parent[current] / width;
+            int dx = Integer.signum(cx - px);
+            int dy = Integer.signum(cy - py);
+
+            // Natural and forced neighbours of the travel direction
+            if (dx != 0 && dy != 0) {
+                addSuccessor(ctx, current, cx, cy, 0, dy, target, targetPos);
+                addSuccessor(ctx, current, cx, cy, dx, 0, target, targetPos);
+                addSuccessor(ctx, current, cx, cy, dx, dy, target, targetPos);
+                if (!passable(cx - dx, cy, target)) addSuccessor(ctx, current, cx, cy, -dx, dy, target, targetPos);
+                if (!passable(cx, cy - dy, target)) addSuccessor(ctx, current, cx, cy, dx, -dy, target, targetPos);
+            } else if (dx != 0) {
+                addSuccessor(ctx, current, cx, cy, dx, 0, target, targetPos);
+                if (!passable(cx, cy + 1, target)) addSuccessor(ctx, current, cx, cy, dx, 1, target, targetPos);
+                if (!passable(cx, cy - 1, target)) addSuccessor(ctx, current, cx, cy, dx, -1, target, targetPos);
+            } else {
+                addSuccessor(ctx, current, cx, cy, 0, dy, target, targetPos);
+                if (!passable(cx + 1, cy, target)) addSuccessor(ctx, current, cx, cy, 1, dy, target, targetPos);
+                if (!passable(cx - 1, cy, target)) addSuccessor(ctx, current, cx, cy, -1, dy, target, targetPos);
+            }
+        }
+
+        System.out.println("Cannot find path from " + startPos + " to " + targetPos);
+        return new ArrayList<>();
+    }
+
+    /**
+     * Jumps from (cx, cy) in direction (dx, dy) and queues the jump point found, if any.
+     */
+    private void addSuccessor(SearchContext ctx, int current, int cx, int cy, int dx, int dy,
+                              int target, Point targetPos) {
+        int jumpPoint = jump(cx, cy, dx, dy, target);
+        if (jumpPoint == NONE || ctx.isClosed(jumpPoint)) return;
+
+        int jx = jumpPoint % width;
+        int jy = jumpPoint / width;
+        int newCost = ctx.gCost[current] + PathFinder.octileDistance(cx, cy, jx, jy);
+        boolean queued = ctx.openSet.contains(jumpPoint);
+
+        if (!queued || newCost < ctx.gCost[jumpPoint]) {
+            ctx.gCost[jumpPoint] = newCost;
+            ctx.hCost[jumpPoint] = PathFinder.octileDistance(jx, jy, targetPos.x, targetPos.y);
+            ctx.parent[jumpPoint] = current;
+
+            if (queued) ctx.openSet.decreaseKey(jumpPoint);
+            else ctx.openSet.add(jumpPoint);
+        }
+    }
+
+    /**
+     * Walks from (x, y) in direction (dx, dy) until a cell with a forced
+     * neighbour, the target, or an obstacle is met.
+     * @return the jump point cell, or NONE if the run hits an obstacle or the map edge
+     */
+    private int jump(int x, int y, int dx, int dy, int target) {
+        while (true) {
+            int nx = x + dx;
+            int ny = y + dy;
+            if (!passable(nx, ny, target)) return NONE;
+
+            int cell = ny * width + nx;
+            if (cell == target) return cell;
+
+            if (dx != 0 && dy != 0) {
+                if ((!passable(nx - dx, ny, target) && passable(nx - dx, ny + dy, target))
+                        || (!passable(nx, ny - dy, target) && passable(nx + dx, ny - dy, target))) {
+                    return cell;
+                }
+                // A diagonal step is a jump point if a straight run from it finds one
+                if (jump(nx, ny, dx, 0, target) != NONE || jump(nx, ny, 0, dy, target) != NONE) {
+                    return cell;
+                }
+            } else if (dx != 0) {
+                if ((!passable(nx, ny + 1, target) && passable(nx + dx, ny + 1, target))
+                        || (!passable(nx, ny - 1, target) && passable(nx + dx, ny - 1, target))) {
+                    return cell;
+                }
+            } else {
+                if ((!passable(nx + 1, ny, target) && passable(nx + 1, ny + dy, target))
+                        || (!passable(nx - 1, ny, target) && passable(nx - 1, ny + dy, target))) {
+                    return cell;
+                }
+            }
+            x = nx;
+            y = ny;
+        }
+    }
+
+    /**
+     * A cell can be driven through if it is on the map and walkable; the target
+     * counts as passable even when it is a station or shelf.
+     */
+    private boolean passable(int x, int y, int target) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return false;
+        return warehouseMap.isWalkable(x, y) || y * width + x == target;
+    }
+
+    /**
+     * Turns the chain of jump points into single-cell steps (start excluded).
+     */
+    private List<Point> expandJumpPoints(int[] parent, int target) {
+        int length = 0;
+        for (int cell = target; parent[cell] != NONE; cell = parent[cell]) {
+            int from = parent[cell];
+            length += Math.max(Math.abs(cell % width - from % width), Math.abs(cell / width - from / width));
+        }
+
+        Point[] steps = new Point[length];
+        int index = length;
+        for (int cell = target; parent[cell] != NONE; cell = parent[cell]) {
+            int from = parent[cell];
+            int x = cell % width;
+            int y = cell / width;
+            int dx = Integer.signum(from % width - x);
+            int dy = Integer.signum(from / width - y);
+            // Walk back from the jump point towards its parent, filling the array from the end
+            while (x != from % width || y != from / width) {
+                steps[--index] = new Point(x, y);
+                x += dx;
+                y += dy;
+            }
+        }
+        List<Point> path = new ArrayList<>(length);
+        for (Point step : steps) path.add(step);
+        return path;
+    }
+}
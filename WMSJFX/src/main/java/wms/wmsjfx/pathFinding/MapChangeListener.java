@@ -0,0 +1,13 @@
+package wms.wmsjfx.pathFinding;
+
+/**
+ * Callback for components that keep data derived from the WarehouseMap
+ * (distance fields, search graphs) and need to repair it when a cell changes.
+ */
+public interface MapChangeListener {
+    /**
+     * Called after the walkability of cell (x, y) was changed.
+     * @param walkable the new walkability of the cell
+     */
+    void cellChanged(int x, int y, boolean walkable);
+}
@@ -0,0 +1,11 @@
+package wms.wmsjfx.pathFinding;
+
+/**
+ * Search algorithms PathFinding can be switched between.
+ */
+public enum PathAlgorithm {
+    A_STAR,
+    JUMP_POINT_SEARCH,
+    /** HPA*: near-optimal, for large floors. */
+    HIERARCHICAL
+}
@@ -0,0 +1,158 @@
+package wms.wmsjfx.pathFinding;
+
+import java.awt.Point;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe cache of A* results keyed by (start cell, target cell).
+ * The key space is split over lock-striped segments, each an access-ordered
+ * LinkedHashMap that evicts its least recently used entry when full, so
+ * concurrent robots rarely wait on the same lock.
+ * Every entry remembers the WarehouseMap version it was computed for; once the
+ * map's walkability changes, the whole cache is dropped on the next access.
+ */
+public class PathCache {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private final WarehouseMap warehouseMap;
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile long cachedVersion;
+
+    public PathCache(WarehouseMap warehouseMap, int capacity) {
+        if (capacity < SEGMENT_COUNT) {
+            throw new IllegalArgumentException("Capacity must be at least " + SEGMENT_COUNT);
+        }
+        this.warehouseMap = warehouseMap;
+        this.cachedVersion = warehouseMap.getVersion();
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(capacity / SEGMENT_COUNT);
+        }
+    }
+
+    /**
+     * Returns the cached path from start to target, or null (counted as a miss)
+     * if there is none for the current map version.
+     */
+    public List<Point> get(Point start, Point target) {
+        long mapVersion = warehouseMap.getVersion();
+        if (mapVersion != cachedVersion) {
+            invalidateAll(mapVersion);
+        }
+        long key = key(start, target);
+        Entry entry = segmentFor(key).get(key);
+        if (entry == null || entry.version != mapVersion) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.path;
+    }
+
+    /**
+     * Stores a path computed against the given map version and returns the
+     * (unmodifiable) list that is now shared by all callers.
+     * If the map changed while the path was searched, it is not cached.
+     */
+    public List<Point> put(Point start, Point target, List<Point> path, long computedForVersion) {
+        List<Point> shared = Collections.unmodifiableList(path);
+        if (computedForVersion == warehouseMap.getVersion()) {
+            long key = key(start, target);
+            segmentFor(key).put(key, new Entry(shared, computedForVersion));
+        }
+        return shared;
+    }
+
+    /**
+     * Drops every cached path.
+     */
+    public void clear() {
+        invalidateAll(warehouseMap.getVersion());
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private void invalidateAll(long mapVersion) {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        cachedVersion = mapVersion;
+    }
+
+    private long key(Point start, Point target) {
+        int width = warehouseMap.getMapSizeX();
+        long startCell = (long) start.y * width + start.x;
+        long targetCell = (long) target.y * width + target.x;
+        return (startCell << 32) | targetCell;
+    }
+
+    private Segment segmentFor(long key) {
+        long h = key * 0x9E3779B97F4A7C15L; // spread neighbouring cells over segments
+        return segments[(int) (h >>> 60) & (SEGMENT_COUNT - 1)];
+    }
+
+    private static final class Entry {
+        final List<Point> path;
+        final long version;
+
+        Entry(List<Point> path, long version) {
+            this.path = path;
+            this.version = version;
+        }
+    }
+
+    /**
+     * One lock stripe: an LRU map guarded by its own monitor.
+     */
+    private static final class Segment extends LinkedHashMap<Long, Entry> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        synchronized Entry get(long key) {
+            return super.get(key);
+        }
+
+        synchronized void put(long key, Entry entry) {
+            super.put(key, entry);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > capacity;
+        }
+    }
+}
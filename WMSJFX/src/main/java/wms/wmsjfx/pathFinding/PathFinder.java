@@ -0,0 +1,50 @@
+package wms.wmsjfx.pathFinding;
+
+import java.awt.Point;
+import java.util.List;
+
+/**
+ * Common contract of the grid search algorithms behind PathFinding.
+ * Implementations must be safe for concurrent calls from several robots.
+ */
+public interface PathFinder {
+
+    int STRAIGHT_COST = 10;
+    int DIAGONAL_COST = 14;
+
+    /**
+     * Finds a path between two on-map points.
+     * The returned list excludes start and ends with target, moving one cell per
+     * element (as Robot.stepMove expects); it is empty when no path exists.
+     */
+    List<Point> findPath(Point start, Point target);
+
+    /**
+     * Number of nodes the most recent findPath() on this finder expanded (any thread).
+     */
+    int getLastExpandedNodes();
+
+    /**
+     * Returns diagonal (14) and straight (10) distance cost.
+     */
+    static int octileDistance(int ax, int ay, int bx, int by) {
+        int dstX = Math.abs(ax - bx);
+        int dstY = Math.abs(ay - by);
+        return (dstX > dstY)
+                ? DIAGONAL_COST * dstY + STRAIGHT_COST * (dstX - dstY)
+                : DIAGONAL_COST * dstX + STRAIGHT_COST * (dstY - dstX);
+    }
+
+    /**
+     * Cost of driving a step-by-step path that starts next to 'from'.
+     */
+    static int pathCost(Point from, List<Point> path) {
+        int cost = 0;
+        Point prev = from;
+        for (Point step : path) {
+            cost += (step.x != prev.x && step.y != prev.y) ? DIAGONAL_COST : STRAIGHT_COST;
+            prev = step;
+        }
+        return cost;
+    }
+}
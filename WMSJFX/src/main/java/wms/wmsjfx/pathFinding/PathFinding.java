@@ -2,22 +2,40 @@ package wms.wmsjfx.pathFinding;
 
 import java.awt.Point;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import wms.wmsjfx.warehouse.WarehouseManager;
 import wms.wmsjfx.warehouse.WarehouseObject;
 
 
 /**
- * Thread-safe PathFinding class using A* algorithm.
+ * Thread-safe PathFinding entry point used by the EquipmentManager.
  * It does NOT modify WarehouseMap nodes directly.
- * Each call to findPath() creates local TempNodes to store gCost/hCost/parent,
- * so multiple threads (robots) can call findPath() concurrently.
+ * The grid search itself is delegated to a selectable PathFinder
+ * (A* by default, Jump Point Search, or hierarchical HPA* for large floors).
+ * Each search borrows a SearchContext (int-indexed cost tables with cell index = y * mapSizeX + x,
+ * an indexed binary heap as open set and generation-stamped closed marks) from a
+ * ScratchPool sized to the threads that can run at once, so multiple threads
+ * (robots) can call findPath() concurrently without one context per thread.
+ * Results are kept in a bounded PathCache that is invalidated whenever the
+ * walkability of the WarehouseMap changes.
+ * Routes to fixed warehouse objects (stations, shelves) are read from
+ * precomputed StationDistanceFields instead of running a search.
+ * Each search strategy, the cache and the distance fields are built on first
+ * use, so a caller only pays for what it uses.
  */
 public class PathFinding {
 
+    private static final int PATH_CACHE_CAPACITY = 4096;
+
     private final WarehouseMap warehouseMap;
+    private final List<WarehouseObject> warehouseObjects; // targets of the distance fields
+    private final Map<PathAlgorithm, PathFinder> pathFinders = new ConcurrentHashMap<>();
+    private volatile PathAlgorithm algorithm = PathAlgorithm.A_STAR;
+    private volatile PathCache pathCache;
+    private volatile StationDistanceFields stationDistanceFields;
 
     public PathFinding(WarehouseManager warehouseManager) {
-        List<WarehouseObject> warehouseObjects = warehouseManager.getAllWarehouseObjects();
+        this.warehouseObjects = warehouseManager.getAllWarehouseObjects();
         System.out.println(warehouseObjects);
         System.out.println(warehouseManager.getWarehouseArea().width);
         System.out.println(warehouseManager.getWarehouseArea().height);
@@ -25,121 +43,95 @@ public class PathFinding {
         warehouseMap.showMap();
     }
 
-    /**
-     * Finds a path between startPos and targetPos using A* algorithm.
-     * Safe for multi-threaded calls.
-     */
-    public List<Point> findPath(Point startPos, Point targetPos) {
-        // --- local cache to store temporary node data (per thread, per call)
-        Map<Point, TempNode> localNodes = new HashMap<>();
-
-        // Initialize start and target nodes
-        TempNode startNode = new TempNode(startPos);
-        TempNode targetNode = new TempNode(targetPos);
-        localNodes.put(startPos, startNode);
-        localNodes.put(targetPos, targetNode);
-
-        List<TempNode> openSet = new ArrayList<>();
-        Set<Point> closedSet = new HashSet<>();
-        openSet.add(startNode);
+    public WarehouseMap getWarehouseMap() {
+        return warehouseMap;
+    }
 
-        while (!openSet.isEmpty()) {
-            // Find node with lowest fCost in openSet
-            TempNode currentNode = openSet.get(0);
-            for (int i = 1; i < openSet.size(); i++) {
-                TempNode n = openSet.get(i);
-                if (n.fCost() < currentNode.fCost() ||
-                        (n.fCost() == currentNode.fCost() && n.hCost < currentNode.hCost)) {
-                    currentNode = n;
+    public PathCache getPathCache() {
+        PathCache cache = pathCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = pathCache;
+                if (cache == null) {
+                    cache = new PathCache(warehouseMap, PATH_CACHE_CAPACITY);
+                    pathCache = cache;
                 }
             }
-            openSet.remove(currentNode);
-            closedSet.add(currentNode.position);
-
-            // --- Target reached
-            if (currentNode.position.equals(targetPos)) {
-                return retracePath(currentNode);
-            }
-
-            // --- Loop through neighbors from the map
-            for (Node neighborNode : warehouseMap.getNeighbors(warehouseMap.getWarehouseObject(currentNode.position))) {
-                if (neighborNode == null) continue;
-
-                Point neighborPos = neighborNode.position;
-
-                // Skip closed or blocked cells
-                if (closedSet.contains(neighborPos)) continue;
-                if (!neighborNode.walkable && !neighborPos.equals(targetPos)) continue;
-
-                // Get or create local TempNode for this position
-                TempNode neighbor = localNodes.get(neighborPos);
-                if (neighbor == null) {
-                    neighbor = new TempNode(neighborPos);
-                    localNodes.put(neighborPos, neighbor);
-                }
-
-                int newCost = currentNode.gCost + getDistance(currentNode.position, neighbor.position);
-
-                if (newCost < neighbor.gCost || !openSet.contains(neighbor)) {
-                    neighbor.gCost = newCost;
-                    neighbor.hCost = getDistance(neighbor.position, targetPos);
-                    neighbor.parent = currentNode;
+        }
+        return cache;
+    }
 
-                    if (!openSet.contains(neighbor)) openSet.add(neighbor);
+    public StationDistanceFields getStationDistanceFields() {
+        StationDistanceFields fields = stationDistanceFields;
+        if (fields == null) {
+            synchronized (this) {
+                fields = stationDistanceFields;
+                if (fields == null) {
+                    fields = StationDistanceFields.create(warehouseMap, warehouseObjects);
+                    stationDistanceFields = fields;
                 }
             }
         }
+        return fields;
+    }
 
-        System.out.println("Cannot find path from " + startPos + " to " + targetPos);
-        return new ArrayList<>();
+    public PathAlgorithm getAlgorithm() {
+        return algorithm;
     }
 
     /**
-     * Retraces the path from target node back to start node.
+     * Selects the search algorithm used for cache misses.
+     * Routes may differ between algorithms (equal-cost ties, or HPA*'s near-optimal routes),
+     * so the cache is cleared to keep results consistent.
      */
-    private List<Point> retracePath(TempNode targetNode) {
-        List<Point> path = new ArrayList<>();
-        TempNode current = targetNode;
-
-        while (current != null) {
-            path.add(current.position);
-            current = current.parent;
+    public void setAlgorithm(PathAlgorithm algorithm) {
+        this.algorithm = algorithm;
+        PathCache cache = pathCache;
+        if (cache != null) {
+            cache.clear();
         }
-        Collections.reverse(path);
+    }
 
-        // Optional: remove first point (start position)
-        if (!path.isEmpty()) path.remove(0);
-        return path;
+    public PathFinder getPathFinder(PathAlgorithm algorithm) {
+        return pathFinders.computeIfAbsent(algorithm, this::createPathFinder);
     }
 
-    /**
-     * Returns diagonal (14) and straight (10) distance cost.
-     */
-    private int getDistance(Point a, Point b) {
-        int dstX = Math.abs(a.x - b.x);
-        int dstY = Math.abs(a.y - b.y);
-        return (dstX > dstY)
-                ? 14 * dstY + 10 * (dstX - dstY)
-                : 14 * dstX + 10 * (dstY - dstX);
+    private PathFinder createPathFinder(PathAlgorithm algorithm) {
+        return switch (algorithm) {
+            case A_STAR -> new AStarPathFinder(warehouseMap);
+            case JUMP_POINT_SEARCH -> new JumpPointPathFinder(warehouseMap);
+            case HIERARCHICAL -> {
+                HierarchicalPathFinder hierarchical = new HierarchicalPathFinder(warehouseMap);
+                warehouseMap.addChangeListener(hierarchical); // before its first query builds the graph
+                yield hierarchical;
+            }
+        };
     }
 
     /**
-     * Local temporary node for thread-safe pathfinding.
-     * Each robot/thread has its own TempNode set.
+     * Finds a path between startPos and targetPos using the selected algorithm.
+     * The returned list excludes startPos and ends with targetPos;
+     * it is empty when no path exists. The list is shared through the
+     * path cache and must not be modified.
+     * Safe for multi-threaded calls.
      */
-    private static class TempNode {
-        final Point position;
-        int gCost = Integer.MAX_VALUE;
-        int hCost;
-        TempNode parent;
-
-        TempNode(Point position) {
-            this.position = position;
-            this.gCost = 0; // will be updated for start node
+    public List<Point> findPath(Point startPos, Point targetPos) {
+        if (!warehouseMap.isInside(startPos) || !warehouseMap.isInside(targetPos)) {
+            System.out.println("Cannot find path from " + startPos + " to " + targetPos);
+            return Collections.emptyList();
         }
 
-        int fCost() {
-            return gCost + hCost;
+        PathCache cache = getPathCache();
+        List<Point> cached = cache.get(startPos, targetPos);
+        if (cached != null) {
+            return cached;
+        }
+        long mapVersion = warehouseMap.getVersion();
+        List<Point> path = getStationDistanceFields().pathTo(targetPos, startPos);
+        if (path == null || (path.isEmpty() && !startPos.equals(targetPos))) {
+            // no field for this target, or nothing to follow
+            path = getPathFinder(algorithm).findPath(startPos, targetPos);
         }
+        return cache.put(startPos, targetPos, path, mapVersion);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,143 @@
+package wms.wmsjfx.pathFinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Orders the shelves of a multi-stop pick tour.
+ * The tour is open: it may start at any of its stops (the robot is not known
+ * yet when a batch is planned) and ends at a drop point, usually a packing
+ * station. A first tour is built nearest-neighbour backwards from the drop
+ * point, then improved with 2-opt until no segment reversal shortens it.
+ * Distances between shelves come from the StationDistanceFields, so the
+ * distance matrix costs one array lookup per pair; cells without a field fall
+ * back to a path search. Costs are in path units (10 straight, 14 diagonal).
+ */
+public class PickTourPlanner {
+
+    /** Cost used for a pair of stops that cannot reach each other. */
+    static final double UNREACHABLE_COST = 1e9;
+
+    private final PathFinding pathFinding;
+
+    public PickTourPlanner(PathFinding pathFinding) {
+        this.pathFinding = pathFinding;
+    }
+
+    /**
+     * @param stops distinct locations to visit (duplicates are visited once)
+     * @param end   where the tour ends, or null for a tour that may end anywhere
+     * @return the stops in visiting order
+     */
+    public List<Point> plan(Collection<Point> stops, Point end) {
+        List<Point> points = new ArrayList<>(new LinkedHashSet<>(stops));
+        int n = points.size();
+        if (n <= 1) return points;
+
+        double[][] distance = new double[n][n];
+        double[] toEnd = new double[n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j) distance[i][j] = cost(points.get(i), points.get(j));
+            }
+            toEnd[i] = end == null ? 0 : cost(points.get(i), end);
+        }
+
+        List<Point> tour = new ArrayList<>(n);
+        for (int index : order(distance, toEnd)) {
+            tour.add(points.get(index));
+        }
+        return tour;
+    }
+
+    /**
+     * Cost of visiting 'tour' in order and then going to 'end' (if not null).
+     */
+    public double length(List<Point> tour, Point end) {
+        double total = 0;
+        for (int i = 1; i < tour.size(); i++) {
+            total += cost(tour.get(i - 1), tour.get(i));
+        }
+        if (end != null && !tour.isEmpty()) total += cost(tour.get(tour.size() - 1), end);
+        return total;
+    }
+
+    /**
+     * Path cost from 'from' to 'to', or UNREACHABLE_COST.
+     */
+    double cost(Point from, Point to) {
+        if (from.equals(to)) return 0;
+        StationDistanceFields fields = pathFinding.getStationDistanceFields();
+        int distance = fields.getDistance(to, from);
+        if (distance >= 0) {
+            return distance == StationDistanceFields.UNREACHABLE ? UNREACHABLE_COST : distance;
+        }
+        List<Point> path = pathFinding.findPath(from, to);
+        if (path.isEmpty()) return UNREACHABLE_COST;
+        double total = 0;
+        Point prev = from;
+        for (Point step : path) {
+            total += (prev.x != step.x && prev.y != step.y) ? 14 : 10;
+            prev = step;
+        }
+        return total;
+    }
+
+    /**
+     * Nearest neighbour + 2-opt over a distance matrix.
+     * @param distance distance[i][j] between stops i and j
+     * @param toEnd    distance from each stop to the fixed end of the tour (all 0 for a free end)
+     * @return the stop indices in visiting order
+     */
+    static int[] order(double[][] distance, double[] toEnd) {
+        int n = toEnd.length;
+        int[] tour = new int[n];
+        boolean[] used = new boolean[n];
+
+        // Nearest neighbour, built from the end backwards so the tour finishes close to the drop point
+        for (int position = n - 1; position >= 0; position--) {
+            int best = -1;
+            double bestDistance = Double.POSITIVE_INFINITY;
+            for (int stop = 0; stop < n; stop++) {
+                if (used[stop]) continue;
+                double d = position == n - 1 ? toEnd[stop] : distance[stop][tour[position + 1]];
+                if (d < bestDistance) {
+                    bestDistance = d;
+                    best = stop;
+                }
+            }
+            tour[position] = best;
+            used[best] = true;
+        }
+
+        // 2-opt: reverse tour[i..j] while that shortens the open path
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    double before = (i > 0 ? distance[tour[i - 1]][tour[i]] : 0)
+                            + (j < n - 1 ? distance[tour[j]][tour[j + 1]] : toEnd[tour[j]]);
+                    double after = (i > 0 ? distance[tour[i - 1]][tour[j]] : 0)
+                            + (j < n - 1 ? distance[tour[i]][tour[j + 1]] : toEnd[tour[i]]);
+                    if (after < before - 1e-9) {
+                        reverse(tour, i, j);
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return tour;
+    }
+
+    private static void reverse(int[] tour, int from, int to) {
+        while (from < to) {
+            int tmp = tour[from];
+            tour[from++] = tour[to];
+            tour[to--] = tmp;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package wms.wmsjfx.pathFinding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import wms.wmsjfx.simulation.SimulationClock;
+
+/**
+ * Space-time reservation table shared by all robots.
+ * Time is divided into ticks of a fixed length (one grid step per tick);
+ * a robot owns (cell, tick) while it stands on the cell during that tick.
+ * A robot that reached its goal "parks" there: the cell stays blocked for
+ * all later ticks until the robot plans its next route.
+ * All operations are lock-free (concurrent maps, putIfAbsent), so many
+ * robot threads can look up and reserve at the same time.
+ */
+public class ReservationTable {
+
+    private final long tickMillis;
+    private final SimulationClock clock;
+    private final long epochMillis;
+
+    // cell -> (tick -> robot), ordered by tick so a parking robot can check all later ticks of its goal
+    private final Map<Integer, ConcurrentNavigableMap<Long, String>> reservations = new ConcurrentHashMap<>();
+    private final Map<Integer, Parking> parkedCells = new ConcurrentHashMap<>();
+    private final Map<String, List<Long>> keysByRobot = new ConcurrentHashMap<>(); // (tick << 32 | cell)
+    private final Map<String, Integer> parkedCellByRobot = new ConcurrentHashMap<>();
+
+    public ReservationTable(long tickMillis) {
+        this(tickMillis, SimulationClock.realTime());
+    }
+
+    /**
+     * @param clock the time robots drive in; ticks are counted from its current time
+     */
+    public ReservationTable(long tickMillis, SimulationClock clock) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive: " + tickMillis);
+        }
+        this.tickMillis = tickMillis;
+        this.clock = clock;
+        this.epochMillis = clock.millis();
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    public long currentTick() {
+        return (clock.millis() - epochMillis) / tickMillis;
+    }
+
+    /**
+     * Clock time (SimulationClock.millis) at which 'tick' begins.
+     */
+    public long tickStartMillis(long tick) {
+        return epochMillis + tick * tickMillis;
+    }
+
+    /**
+     * The robot holding 'cell' at 'tick' (through a reservation or by parking there), or null.
+     */
+    public String ownerOf(int cell, long tick) {
+        String owner = reservedBy(cell, tick);
+        if (owner != null) return owner;
+        Parking parking = parkedCells.get(cell);
+        return (parking != null && tick >= parking.fromTick) ? parking.robotId : null;
+    }
+
+    /**
+     * True if no robot other than 'robotId' holds 'cell' at 'tick'.
+     */
+    public boolean isFree(int cell, long tick, String robotId) {
+        // Both count: a robot's own reservation must not hide another robot parking there
+        String owner = reservedBy(cell, tick);
+        if (owner != null && !owner.equals(robotId)) return false;
+        Parking parking = parkedCells.get(cell);
+        return parking == null || tick < parking.fromTick || parking.robotId.equals(robotId);
+    }
+
+    /**
+     * True if 'cell' is free for 'robotId' at every tick of [fromTick, toTick].
+     */
+    public boolean isFree(int cell, long fromTick, long toTick, String robotId) {
+        for (long tick = fromTick; tick <= toTick; tick++) {
+            if (!isFree(cell, tick, robotId)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * True if no robot other than 'robotId' holds 'cell' at 'fromTick' or any later
+     * tick, i.e. the robot could park there.
+     */
+    public boolean isFreeFrom(int cell, long fromTick, String robotId) {
+        Parking parking = parkedCells.get(cell);
+        if (parking != null && !parking.robotId.equals(robotId)) return false;
+        ConcurrentNavigableMap<Long, String> ticks = reservations.get(cell);
+        if (ticks == null) return true;
+        for (String owner : ticks.tailMap(fromTick, true).values()) {
+            if (!owner.equals(robotId)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reserves cells[i] at tick startTick + i for the robot and parks it on the
+     * last cell. Either all reservations are made or none: if another robot holds
+     * one of the (cell, tick) pairs, would swap cells with this robot between two
+     * ticks, or passes the goal at any time after arrival, everything is rolled back
+     * and false is returned. Each side checks after writing its own entries,
+     * so of two robots committing conflicting routes at once at least one fails.
+     * Cells marked -1 are not reserved (blocked cells such as stations, which
+     * robots only enter as the end of a route).
+     * The robot's previous reservations and parking must have been released.
+     */
+    public boolean reserve(String robotId, int[] cells, long startTick) {
+        List<Long> taken = new ArrayList<>(cells.length);
+        keysByRobot.put(robotId, taken);
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] < 0) continue;
+            String previous = reservations.computeIfAbsent(cells[i], c -> new ConcurrentSkipListMap<>())
+                    .putIfAbsent(startTick + i, robotId);
+            if (previous == null) {
+                taken.add(key(cells[i], startTick + i));
+            } else if (!previous.equals(robotId)) {
+                release(robotId);
+                return false;
+            }
+        }
+
+        int goal = cells[cells.length - 1];
+        long arrival = startTick + cells.length - 1;
+        if (goal >= 0) {
+            if (parkedCells.putIfAbsent(goal, new Parking(robotId, arrival)) != null) {
+                release(robotId);
+                return false;
+            }
+            parkedCellByRobot.put(robotId, goal);
+        }
+
+        if (!isConsistent(robotId, cells, startTick)
+                || (goal >= 0 && !isFreeFrom(goal, arrival, robotId))) {
+            release(robotId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks a route against parking spots and cell swaps of other robots.
+     */
+    private boolean isConsistent(String robotId, int[] cells, long startTick) {
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] < 0) continue;
+            if (!isFree(cells[i], startTick + i, robotId)) return false;
+            if (i + 1 < cells.length && cells[i + 1] >= 0 && cells[i + 1] != cells[i]
+                    && isSwap(cells[i], cells[i + 1], startTick + i, robotId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True if another robot moves from 'to' to 'from' while 'robotId' moves from
+     * 'from' to 'to' between 'tick' and 'tick' + 1 (the two would pass through each other).
+     */
+    public boolean isSwap(int from, int to, long tick, String robotId) {
+        String other = reservedBy(to, tick);
+        return other != null && !other.equals(robotId) && other.equals(reservedBy(from, tick + 1));
+    }
+
+    /**
+     * Drops all reservations and the parking spot of the robot.
+     */
+    public void release(String robotId) {
+        List<Long> keys = keysByRobot.remove(robotId);
+        if (keys != null) {
+            for (long k : keys) {
+                ConcurrentNavigableMap<Long, String> ticks = reservations.get((int) k);
+                if (ticks != null) ticks.remove(k >>> 32, robotId);
+            }
+        }
+        Integer parked = parkedCellByRobot.remove(robotId);
+        if (parked != null) {
+            parkedCells.computeIfPresent(parked, (cell, p) -> p.robotId.equals(robotId) ? null : p);
+        }
+    }
+
+    /**
+     * Parks the robot on 'cell' from 'fromTick' on without any route (e.g. an idle robot at home).
+     * @return false if another robot already parks there
+     */
+    public boolean park(String robotId, int cell, long fromTick) {
+        release(robotId);
+        if (parkedCells.putIfAbsent(cell, new Parking(robotId, fromTick)) != null) return false;
+        parkedCellByRobot.put(robotId, cell);
+        return true;
+    }
+
+    /**
+     * Number of (cell, tick) reservations currently held.
+     */
+    public int size() {
+        int size = 0;
+        for (Map<Long, String> ticks : reservations.values()) size += ticks.size();
+        return size;
+    }
+
+    private String reservedBy(int cell, long tick) {
+        ConcurrentNavigableMap<Long, String> ticks = reservations.get(cell);
+        return (ticks != null) ? ticks.get(tick) : null;
+    }
+
+    private static long key(int cell, long tick) {
+        return (tick << 32) | cell;
+    }
+
+    private static final class Parking {
+        final String robotId;
+        final long fromTick;
+
+        Parking(String robotId, long fromTick) {
+            this.robotId = robotId;
+            this.fromTick = fromTick;
+        }
+    }
+}
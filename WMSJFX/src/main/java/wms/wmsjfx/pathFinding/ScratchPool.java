@@ -0,0 +1,89 @@
+package wms.wmsjfx.pathFinding;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A bounded set of reusable search scratch objects (SearchContexts are a few
+ * full-floor arrays each). Searches borrow one and give it back when done;
+ * at most 'capacity' exist, created on first need. A search that finds them
+ * all in use waits for one. The default capacity is the number of threads
+ * that can run at once (virtual thread carriers), so thousands of robot
+ * threads share a handful of contexts instead of holding one each.
+ */
+final class ScratchPool<T> {
+
+    private final Supplier<T> factory;
+    private final int capacity;
+    private final BlockingQueue<T> free;
+    private final AtomicInteger created = new AtomicInteger();
+
+    ScratchPool(Supplier<T> factory) {
+        this(defaultCapacity(), factory);
+    }
+
+    ScratchPool(int capacity, Supplier<T> factory) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        }
+        this.factory = factory;
+        this.capacity = capacity;
+        this.free = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Threads that can run at once: the virtual thread scheduler's parallelism
+     * if set, otherwise the number of processors.
+     */
+    static int defaultCapacity() {
+        String parallelism = System.getProperty("jdk.virtualThreadScheduler.parallelism");
+        if (parallelism != null) {
+            try {
+                return Math.max(1, Integer.parseInt(parallelism.trim()));
+            } catch (NumberFormatException ignored) {
+                // fall back to the processor count, as the scheduler does
+            }
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * A free object, a new one while fewer than 'capacity' exist, or the next one given back.
+     */
+    T borrow() {
+        T scratch = free.poll();
+        if (scratch != null) return scratch;
+        while (true) {
+            int count = created.get();
+            if (count >= capacity) break;
+            if (created.compareAndSet(count, count + 1)) return factory.get();
+        }
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return free.take();
+                } catch (InterruptedException e) {
+                    interrupted = true; // a search is short: finish it, keep the flag for the caller
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    void release(T scratch) {
+        free.add(scratch);
+    }
+
+    /** Objects created so far. Package-private for tests. */
+    int getCreatedCount() {
+        return created.get();
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+}
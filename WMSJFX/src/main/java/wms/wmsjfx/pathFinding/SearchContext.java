@@ -0,0 +1,54 @@
+package wms.wmsjfx.pathFinding;
+
+import java.util.Arrays;
+
+/**
+ * Reusable scratch space for one grid search.
+ * Holds the int-indexed cost/parent tables, the open set heap, the closed marks
+ * and scratch arrays for the neighbours of the cell being expanded.
+ * A search starts with reset(), which only bumps a generation counter, so the
+ * arrays are never cleared or re-allocated between searches.
+ * Not thread-safe: a search borrows one from a ScratchPool and gives it back.
+ */
+class SearchContext {
+
+    final int[] gCost;
+    final int[] hCost;
+    final int[] parent;
+    final IndexedNodeHeap openSet;
+    final int[] neighbors = new int[8];  // scratch for WarehouseMap.getNeighbors
+    final int[] stepCosts = new int[8];
+
+    private final int[] closedGeneration; // == generation when the cell is closed
+    private int generation = 1;
+    int expandedNodes;
+
+    SearchContext(int cellCount) {
+        this.gCost = new int[cellCount];
+        this.hCost = new int[cellCount];
+        this.parent = new int[cellCount];
+        this.closedGeneration = new int[cellCount];
+        this.openSet = new IndexedNodeHeap(cellCount, gCost, hCost);
+    }
+
+    /**
+     * Prepares the context for a new search in O(1).
+     */
+    void reset() {
+        openSet.clear();
+        expandedNodes = 0;
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(closedGeneration, 0);
+            generation = 1;
+        }
+    }
+
+    void close(int cell) {
+        closedGeneration[cell] = generation;
+        expandedNodes++;
+    }
+
+    boolean isClosed(int cell) {
+        return closedGeneration[cell] == generation;
+    }
+}
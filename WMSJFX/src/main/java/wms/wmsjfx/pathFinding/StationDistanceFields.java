@@ -0,0 +1,131 @@
+package wms.wmsjfx.pathFinding;
+
+import java.awt.Point;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseObject;
+
+/**
+ * One precomputed DistanceField per fixed warehouse object
+ * (shelves, packing, loading and charging stations; robots move and are skipped).
+ * "Cost from any cell to station X" becomes an O(1) array lookup and a full
+ * route can be read off the field's gradient without searching.
+ * Fields are repaired incrementally when the WarehouseMap reports a cell change,
+ * one after the other with one set of working arrays.
+ * Lookups may run concurrently; a repair takes the write lock.
+ */
+public class StationDistanceFields implements MapChangeListener {
+
+    /** Returned by getDistance() when the station cannot be reached. */
+    public static final int UNREACHABLE = DistanceField.UNREACHABLE;
+
+    private final WarehouseMap warehouseMap;
+    private final Map<Integer, DistanceField> fieldsByCell = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final DistanceField.Scratch scratch; // guarded by the write lock
+
+    /**
+     * Registers the fields with 'warehouseMap' for repairs, then builds them.
+     * Registering first means a change made during the build is repaired afterwards.
+     */
+    public static StationDistanceFields create(WarehouseMap warehouseMap, List<WarehouseObject> warehouseObjects) {
+        StationDistanceFields fields = new StationDistanceFields(warehouseMap);
+        warehouseMap.addChangeListener(fields);
+        fields.build(warehouseObjects);
+        return fields;
+    }
+
+    private StationDistanceFields(WarehouseMap warehouseMap) {
+        this.warehouseMap = warehouseMap;
+        this.scratch = new DistanceField.Scratch(warehouseMap.getMapSizeX() * warehouseMap.getMapSizeY());
+    }
+
+    private void build(List<WarehouseObject> warehouseObjects) {
+        lock.writeLock().lock();
+        try {
+            for (WarehouseObject object : warehouseObjects) {
+                if (object.getObjectType() == WahouseObjectType.Robot) continue;
+                Point location = object.getLocation();
+                if (!warehouseMap.isInside(location)) continue;
+                fieldsByCell.computeIfAbsent(cellOf(location), c -> new DistanceField(warehouseMap, location, scratch));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * True if a field exists for the fixed object standing on this cell.
+     */
+    public boolean hasField(Point station) {
+        if (!warehouseMap.isInside(station)) return false;
+        lock.readLock().lock();
+        try {
+            return usableField(station) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Path cost (10 per straight step, 14 per diagonal) from 'from' to the fixed
+     * object at 'station', or UNREACHABLE. Returns -1 if no field exists for 'station'.
+     */
+    public int getDistance(Point station, Point from) {
+        if (!warehouseMap.isInside(station) || !warehouseMap.isInside(from)) return -1;
+        lock.readLock().lock();
+        try {
+            DistanceField field = usableField(station);
+            return field == null ? -1 : field.distanceFrom(from.x, from.y);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reconstructs an optimal route from 'from' to the fixed object at 'station'
+     * by following the field gradient (same contract as PathFinding.findPath).
+     * Returns null if no field exists for 'station'.
+     */
+    public List<Point> pathTo(Point station, Point from) {
+        if (!warehouseMap.isInside(station) || !warehouseMap.isInside(from)) return null;
+        lock.readLock().lock();
+        try {
+            DistanceField field = usableField(station);
+            return field == null ? null : field.pathFrom(from.x, from.y);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getFieldCount() {
+        return fieldsByCell.size();
+    }
+
+    @Override
+    public void cellChanged(int x, int y, boolean walkable) {
+        lock.writeLock().lock();
+        try {
+            for (DistanceField field : fieldsByCell.values()) {
+                field.cellChanged(x, y, walkable, scratch);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** The field for 'station', or null if there is none or its costs overflowed. Under a lock. */
+    private DistanceField usableField(Point station) {
+        DistanceField field = fieldsByCell.get(cellOf(station));
+        return field == null || field.isOverflowed() ? null : field;
+    }
+
+    private int cellOf(Point p) {
+        return p.y * warehouseMap.getMapSizeX() + p.x;
+    }
+}
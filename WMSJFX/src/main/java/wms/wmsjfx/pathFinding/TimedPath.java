@@ -0,0 +1,53 @@
+package wms.wmsjfx.pathFinding;
+
+import java.awt.Point;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * A route reserved in a ReservationTable: step i has to be driven during tick
+ * startTick + i, so the robot leaves for it no earlier than departureMillis(i).
+ * A step equal to the previous position is a wait.
+ * Otherwise it behaves like the plain step lists returned by PathFinding.
+ */
+public class TimedPath extends AbstractList<Point> {
+
+    private final List<Point> steps;
+    private final long startTick;
+    private final ReservationTable reservationTable;
+
+    public TimedPath(List<Point> steps, long startTick, ReservationTable reservationTable) {
+        this.steps = steps;
+        this.startTick = startTick;
+        this.reservationTable = reservationTable;
+    }
+
+    public long getStartTick() {
+        return startTick;
+    }
+
+    /**
+     * Clock time (SimulationClock.millis) at which the robot may leave for step 'index'.
+     */
+    public long departureMillis(int index) {
+        return reservationTable.tickStartMillis(startTick + index);
+    }
+
+    public int getWaitCount() {
+        int waits = 0;
+        for (int i = 1; i < steps.size(); i++) {
+            if (steps.get(i).equals(steps.get(i - 1))) waits++;
+        }
+        return waits;
+    }
+
+    @Override
+    public Point get(int index) {
+        return steps.get(index);
+    }
+
+    @Override
+    public int size() {
+        return steps.size();
+    }
+}
@@ -2,7 +2,11 @@ package wms.wmsjfx.pathFinding;
 
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import wms.wmsjfx.equipmentManager.ChargingStation;
 import wms.wmsjfx.equipmentManager.Robot;
@@ -11,67 +15,293 @@ import wms.wmsjfx.warehouse.StorageShelf;
 import wms.wmsjfx.warehouse.WahouseObjectType;
 import wms.wmsjfx.warehouse.WarehouseObject;
 
+/**
+ * The warehouse floor as a grid of cells (cell index = y * mapSizeX + x).
+ * Walkability is kept in a bitset and the NodeType of each cell as one byte,
+ * so even a 1000x1000 floor takes about 1 MB and no per-cell objects.
+ * The bitset words are atomic, so searches on other threads see a change as
+ * soon as it is made.
+ * Node objects are only created as views by getWarehouseObject()/getNeighbors().
+ */
 public class WarehouseMap {
-    private Node nodeArray[][];
+    private static final NodeType[] NODE_TYPES = NodeType.values();
+
+    /** The 8 neighbour directions, in the order neighbours are reported. */
+    static final int[] NEIGHBOR_DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    static final int[] NEIGHBOR_DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final boolean[] DIAGONAL = new boolean[8];
+    static {
+        for (int i = 0; i < 8; i++) DIAGONAL[i] = NEIGHBOR_DX[i] != 0 && NEIGHBOR_DY[i] != 0;
+    }
+
+    private final AtomicLongArray walkableBits; // bit (cell & 63) of word (cell >> 6) is set if the cell is walkable
+    private final byte[] nodeTypes;     // NodeType ordinal per cell
     private final int mapSizeX;
     private final  int mapSizeY;
     private final List<WarehouseObject> warehouseObjects;
+    private final CornerCutting cornerCutting;
+    private final int[] neighborOffsets = new int[8]; // cell index delta per direction
+    // Bumped on every walkability change so path caches can detect stale results
+    private final AtomicLong version = new AtomicLong();
+    private final List<MapChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    // Recent walkability changes, for readers that poll getVersion() instead of listening
+    private static final int CHANGE_LOG_CAPACITY = 1024;
+    private final long[] changeLogVersion = new long[CHANGE_LOG_CAPACITY];
+    private final int[] changeLogCell = new int[CHANGE_LOG_CAPACITY];
+    private int changeLogSize;
+    private int changeLogHead; // slot of the oldest entry
+    private long droppedUpToVersion; // versions at or below this may be missing from the log
 
     public WarehouseMap(int mapSizeX, int mapSizeY, List<WarehouseObject> warehouseObjects) {
+        this(mapSizeX, mapSizeY, warehouseObjects, CornerCutting.ALLOWED);
+    }
+
+    public WarehouseMap(int mapSizeX, int mapSizeY, List<WarehouseObject> warehouseObjects, CornerCutting cornerCutting) {
         this.mapSizeX = mapSizeX;
         this.mapSizeY = mapSizeY;
         this.warehouseObjects = warehouseObjects;
-        try {
-            nodeArray = new Node[mapSizeX][mapSizeY];
-        } catch (Exception e) {
-            System.out.println("Got error" + e);
+        this.cornerCutting = cornerCutting;
+        for (int i = 0; i < 8; i++) {
+            neighborOffsets[i] = NEIGHBOR_DY[i] * mapSizeX + NEIGHBOR_DX[i];
         }
-        System.out.println("Create successfully");
+        int cellCount = mapSizeX * mapSizeY;
+        this.walkableBits = new AtomicLongArray((cellCount + 63) >> 6);
+        this.nodeTypes = new byte[cellCount];
         createWarehouseMap();
         System.out.println("Create successfully");
     }
 
     private void createWarehouseMap() {
+        // Every cell starts as a walkable aisle (NodeType.None)
+        for (int word = 0; word < walkableBits.length(); word++) {
+            walkableBits.set(word, -1L);
+        }
+        Arrays.fill(nodeTypes, (byte) NodeType.None.ordinal());
+
         for (WarehouseObject object : warehouseObjects) {
+            Point location = object.getLocation();
             switch (object.getObjectType()) {
                 case WahouseObjectType.ChargingStation:
-                    addWarehouseObject(NodeType.ChargingStation, false, object.getLocation());
+                    writeCell(cellOf(location), NodeType.ChargingStation, false);
                     break;
                 case WahouseObjectType.PackingStation:
-                    addWarehouseObject(NodeType.PackingStation, false, object.getLocation());
+                    writeCell(cellOf(location), NodeType.PackingStation, false);
                     break;
                 case WahouseObjectType.LoadingStation:
-                    addWarehouseObject(NodeType.LoadingStation, false, object.getLocation());
+                    writeCell(cellOf(location), NodeType.LoadingStation, false);
                     break;
                 case WahouseObjectType.StorageShelf:
-                    addWarehouseObject(NodeType.Shelf, false, object.getLocation());
+                    writeCell(cellOf(location), NodeType.Shelf, false);
                     break;
                 case WahouseObjectType.Robot:
-                    addWarehouseObject(NodeType.Robot, true, object.getLocation());
+                    writeCell(cellOf(location), NodeType.Robot, true);
                     break;
 
                 default:
-                    addWarehouseObject(NodeType.None, true, object.getLocation());
+                    writeCell(cellOf(location), NodeType.None, true);
                     break;
             }
         }
+    }
 
-        for (int x = 0 ; x < this.mapSizeX; x++) {
-            for (int y = 0; y < this.mapSizeY; y++) {
-                if (getWarehouseObject(new Point(x,y)) == null) {
-                    addWarehouseObject(NodeType.None, true, new Point(x,y));
-                }
+    public void addWarehouseObject(NodeType nodeType, boolean walkable, Point position) {
+        boolean wasWalkable = writeCell(cellOf(position), nodeType, walkable);
+        if (wasWalkable != walkable) {
+            notifyCellChanged(position, walkable);
+            bumpVersion(position);
+        }
+    }
+
+    /**
+     * Changes whether robots may drive through a cell (e.g. an aisle is blocked
+     * or a shelf was moved away). Notifies change listeners and bumps the map version.
+     */
+    public void setWalkable(Point position, boolean walkable) {
+        int cell = cellOf(position);
+        if (writeWalkable(cell, walkable) == walkable) return;
+        // Listeners repair derived data before the new version becomes visible,
+        // so a cache entry stamped with the new version never holds a stale route
+        notifyCellChanged(position, walkable);
+        bumpVersion(position);
+    }
+
+    /**
+     * Stores type and walkability of a cell.
+     * @return whether the cell was walkable before
+     */
+    private synchronized boolean writeCell(int cell, NodeType nodeType, boolean walkable) {
+        nodeTypes[cell] = (byte) nodeType.ordinal();
+        return writeWalkable(cell, walkable);
+    }
+
+    // Neighbouring cells share a word of the bitset, so the word is updated atomically
+    private boolean writeWalkable(int cell, boolean walkable) {
+        long mask = 1L << cell; // shift distance is taken mod 64
+        int word = cell >> 6;
+        long was = walkable
+                ? walkableBits.getAndAccumulate(word, mask, (bits, m) -> bits | m)
+                : walkableBits.getAndAccumulate(word, ~mask, (bits, m) -> bits & m);
+        return (was & mask) != 0;
+    }
+
+    public void addChangeListener(MapChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(MapChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void notifyCellChanged(Point position, boolean walkable) {
+        for (MapChangeListener listener : changeListeners) {
+            listener.cellChanged(position.x, position.y, walkable);
+        }
+    }
+
+    /**
+     * Logs the changed cell under the next version, then publishes that
+     * version, so a reader that sees a version also finds its change in the log.
+     */
+    private synchronized void bumpVersion(Point changedCell) {
+        recordChange(changedCell, version.get() + 1);
+        version.incrementAndGet();
+    }
+
+    private void recordChange(Point position, long changeVersion) {
+        int slot = (changeLogHead + changeLogSize) % CHANGE_LOG_CAPACITY;
+        if (changeLogSize == CHANGE_LOG_CAPACITY) {
+            droppedUpToVersion = changeLogVersion[changeLogHead];
+            changeLogHead = (changeLogHead + 1) % CHANGE_LOG_CAPACITY;
+        } else {
+            changeLogSize++;
+        }
+        changeLogVersion[slot] = changeVersion;
+        changeLogCell[slot] = position.y * mapSizeX + position.x;
+    }
+
+    /**
+     * Cells whose walkability changed after 'sinceVersion' (a value of getVersion()),
+     * oldest first. Lets a robot check whether a change touches its route.
+     * Returns null if the changes are too old to be still logged; the caller
+     * then has to assume that any cell may have changed.
+     */
+    public synchronized List<Point> changedCellsSince(long sinceVersion) {
+        if (sinceVersion < droppedUpToVersion) return null;
+        List<Point> cells = new ArrayList<>();
+        for (int i = 0; i < changeLogSize; i++) {
+            int slot = (changeLogHead + i) % CHANGE_LOG_CAPACITY;
+            if (changeLogVersion[slot] > sinceVersion) {
+                int cell = changeLogCell[slot];
+                cells.add(new Point(cell % mapSizeX, cell / mapSizeX));
             }
         }
+        return cells;
     }
 
-    public void addWarehouseObject(NodeType nodeType, boolean walkable, Point position) {
-        Node newNode = new Node(nodeType, walkable, position);
-        nodeArray[position.x][position.y] = newNode;
+    /**
+     * Returns a counter that changes whenever the walkability of any cell changes.
+     */
+    public long getVersion() {
+        return version.get();
     }
 
+    /**
+     * A Node view of the cell; a snapshot that is not updated by later map changes,
+     * and changing it does not change the map.
+     */
     public Node getWarehouseObject(Point position) {
-        return nodeArray[position.x][position.y];
+        return new Node(getNodeType(position.x, position.y), isWalkable(position.x, position.y), new Point(position));
+    }
+
+    public NodeType getNodeType(int x, int y) {
+        return NODE_TYPES[nodeTypes[y * mapSizeX + x]];
+    }
+
+    public int getMapSizeX() {
+        return mapSizeX;
+    }
+
+    public int getMapSizeY() {
+        return mapSizeY;
+    }
+
+    public boolean isInside(Point position) {
+        return isInside(position.x, position.y);
+    }
+
+    public boolean isInside(int x, int y) {
+        return x >= 0 && x < mapSizeX && y >= 0 && y < mapSizeY;
+    }
+
+    public boolean isWalkable(int x, int y) {
+        return isWalkable(y * mapSizeX + x);
+    }
+
+    /**
+     * Walkability by cell index (y * mapSizeX + x).
+     */
+    public boolean isWalkable(int cell) {
+        return (walkableBits.get(cell >> 6) & (1L << cell)) != 0;
+    }
+
+    public CornerCutting getCornerCutting() {
+        return cornerCutting;
+    }
+
+    /**
+     * Fills 'neighbors' with the cells a robot on 'cell' can drive to in one step
+     * and 'stepCosts' with the cost of each step (PathFinder.STRAIGHT_COST or
+     * DIAGONAL_COST). A neighbour must be walkable unless it is 'target' (pass -1
+     * for none); diagonal steps also follow the map's CornerCutting rule.
+     * Allocates nothing, so searches can call it on every expansion.
+     * @param neighbors at least 8 slots
+     * @param stepCosts at least 8 slots
+     * @return the number of neighbours written
+     */
+    public int getNeighbors(int cell, int target, int[] neighbors, int[] stepCosts) {
+        return collectNeighbors(cell, target, true, neighbors, stepCosts);
+    }
+
+    /**
+     * Like getNeighbors(cell, target, ...), but the neighbours' own walkability is
+     * not checked: these are all cells from which a robot could step onto 'cell'
+     * (or onto which it could step, were they free). Used by reverse searches.
+     */
+    public int getAdjacentCells(int cell, int[] neighbors, int[] stepCosts) {
+        return collectNeighbors(cell, -1, false, neighbors, stepCosts);
+    }
+
+    private int collectNeighbors(int cell, int target, boolean walkableOnly, int[] neighbors, int[] stepCosts) {
+        int x = cell % mapSizeX;
+        int y = cell / mapSizeX;
+        // Interior cells have all 8 neighbours on the map
+        boolean interior = x > 0 && y > 0 && x < mapSizeX - 1 && y < mapSizeY - 1;
+        int count = 0;
+        for (int i = 0; i < 8; i++) {
+            if (!interior && !isInside(x + NEIGHBOR_DX[i], y + NEIGHBOR_DY[i])) continue;
+            int neighbor = cell + neighborOffsets[i];
+            if (walkableOnly && neighbor != target && !isWalkable(neighbor)) continue;
+            if (DIAGONAL[i] && !canPassCorners(cell, NEIGHBOR_DX[i], NEIGHBOR_DY[i])) continue;
+            neighbors[count] = neighbor;
+            stepCosts[count++] = DIAGONAL[i] ? PathFinder.DIAGONAL_COST : PathFinder.STRAIGHT_COST;
+        }
+        return count;
+    }
+
+    /**
+     * Whether the CornerCutting rule lets a robot on 'cell' move diagonally by (dx, dy).
+     * The target cell must be on the map.
+     */
+    boolean canPassCorners(int cell, int dx, int dy) {
+        if (cornerCutting == CornerCutting.ALLOWED) return true;
+        boolean first = isWalkable(cell + dx);
+        boolean second = isWalkable(cell + dy * mapSizeX);
+        return cornerCutting == CornerCutting.FORBIDDEN ? first && second : first || second;
+    }
+
+    private int cellOf(Point position) {
+        return position.y * mapSizeX + position.x;
     }
 
     public void showMap() {
@@ -84,33 +314,27 @@ public class WarehouseMap {
 
             // Loop through each column (x) for the current row (y)
             for (int x = 0; x < mapSizeX; x++) {
-                Node currentNode = nodeArray[x][y];
-
-                if (currentNode == null) {
-                    System.out.print("? "); // '?' for uninitialized/null cells
-                } else {
-                    // Use a switch to print the correct character based on the Node's type
-                    switch (currentNode.nodeType) {
-                        case Robot:
-                            System.out.print("R ");
-                            break;
-                        case PackingStation:
-                            System.out.print("P ");
-                            break;
-                        case LoadingStation:
-                            System.out.print("L ");
-                            break;
-                        case Shelf:
-                            System.out.print("S ");
-                            break;
-                        case ChargingStation:
-                            System.out.print("C ");
-                            break;
-                        case None:
-                        default:
-                            System.out.print(". "); // '.' for default paths (NodeType.None)
-                            break;
-                    }
+                // Use a switch to print the correct character based on the cell's type
+                switch (getNodeType(x, y)) {
+                    case Robot:
+                        System.out.print("R ");
+                        break;
+                    case PackingStation:
+                        System.out.print("P ");
+                        break;
+                    case LoadingStation:
+                        System.out.print("L ");
+                        break;
+                    case Shelf:
+                        System.out.print("S ");
+                        break;
+                    case ChargingStation:
+                        System.out.print("C ");
+                        break;
+                    case None:
+                    default:
+                        System.out.print(". "); // '.' for default paths (NodeType.None)
+                        break;
                 }
             }
             System.out.println(); // Newline at the end of the row
@@ -131,6 +355,10 @@ public class WarehouseMap {
         System.out.println();
     }
 
+    /**
+     * Node views of all on-map neighbours, walkable or not. Kept for callers
+     * working with Nodes; searches use the allocation-free getNeighbors(int, int, int[], int[]).
+     */
     public List<Node> getNeighbors(Node currentNode) {
         List<Node> neighborsList = new ArrayList<>();
 
@@ -144,7 +372,7 @@ public class WarehouseMap {
                 int checkY = currentNode.position.y + y;
 
                 if (checkX >= 0 && checkX < mapSizeX && checkY >= 0 && checkY < mapSizeY) {
-                    neighborsList.add(nodeArray[checkX][checkY]);
+                    neighborsList.add(getWarehouseObject(new Point(checkX, checkY)));
                 }
             }
         }
@@ -0,0 +1,171 @@
+package wms.wmsjfx.simulation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Discrete-event time. Every sleep and timeout is a wake-up in a priority queue;
+ * once all participants are waiting (and none waits on a queue that already
+ * has an element), time jumps to the earliest wake-up and releases its waiters.
+ * A thread that waits without being registered takes part while it waits.
+ * Waits on a queue notice elements put by any thread, but elements from
+ * threads outside the simulation are only seen after a short real-time delay.
+ */
+final class DiscreteEventClock extends SimulationClock {
+
+    private static final long QUEUE_RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    // ReentrantLock rather than a monitor: waiting does not pin virtual threads
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> wakeUps = new PriorityQueue<>(
+            Comparator.comparingLong((Waiter w) -> w.wakeAt).thenComparingLong(w -> w.sequence));
+    private final List<Waiter> queueWaiters = new ArrayList<>();
+    private final Set<Thread> participants = new HashSet<>();
+    private int waiting; // participants currently blocked in await()
+    private long sequence;
+    private volatile long now;
+
+    private static final class Waiter {
+        final long wakeAt;   // Long.MAX_VALUE: no timeout
+        final long sequence; // FIFO among equal wake-up times
+        final BlockingQueue<?> queue; // null for a plain sleep
+        final Condition released;
+        boolean due;
+
+        Waiter(long wakeAt, long sequence, BlockingQueue<?> queue, Condition released) {
+            this.wakeAt = wakeAt;
+            this.sequence = sequence;
+            this.queue = queue;
+            this.released = released;
+        }
+    }
+
+    @Override
+    public long millis() {
+        return now;
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            await(null, plus(now, millis));
+        }
+    }
+
+    @Override
+    public <E> E poll(BlockingQueue<E> queue, long timeout, TimeUnit unit) throws InterruptedException {
+        long wakeAt = plus(now, unit.toMillis(timeout));
+        E element;
+        while ((element = queue.poll()) == null) {
+            if (!await(queue, wakeAt)) return queue.poll();
+        }
+        return element;
+    }
+
+    @Override
+    public <E> E take(BlockingQueue<E> queue) throws InterruptedException {
+        E element;
+        while ((element = queue.poll()) == null) {
+            await(queue, Long.MAX_VALUE);
+        }
+        return element;
+    }
+
+    @Override
+    public void register(Thread thread) {
+        lock.lock();
+        try {
+            participants.add(thread);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deregister(Thread thread) {
+        lock.lock();
+        try {
+            if (participants.remove(thread)) advanceIfAllWaiting();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until time reaches 'wakeAt' or, if 'queue' is given, the queue has an element.
+     * @return false if the time is up
+     */
+    private boolean await(BlockingQueue<?> queue, long wakeAt) throws InterruptedException {
+        Thread current = Thread.currentThread();
+        lock.lockInterruptibly();
+        try {
+            if (now >= wakeAt) return false;
+            boolean temporary = participants.add(current);
+            Waiter waiter = new Waiter(wakeAt, sequence++, queue, lock.newCondition());
+            if (wakeAt != Long.MAX_VALUE) wakeUps.add(waiter);
+            if (queue != null) queueWaiters.add(waiter);
+            waiting++;
+            try {
+                advanceIfAllWaiting();
+                while (!waiter.due && (queue == null || queue.isEmpty())) {
+                    if (queue == null) {
+                        waiter.released.await();
+                    } else {
+                        waiter.released.awaitNanos(QUEUE_RECHECK_NANOS);
+                    }
+                }
+                return !waiter.due;
+            } finally {
+                if (!waiter.due) {
+                    wakeUps.remove(waiter);
+                    waiting--;
+                }
+                if (queue != null) queueWaiters.remove(waiter);
+                if (temporary) {
+                    participants.remove(current);
+                    advanceIfAllWaiting();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves time to the earliest wake-up when nobody can act any more. Lock held.
+     */
+    private void advanceIfAllWaiting() {
+        if (waiting < participants.size() || wakeUps.isEmpty()) return;
+        for (Waiter waiter : queueWaiters) {
+            if (!waiter.queue.isEmpty()) {
+                // That waiter is about to run; let it
+                waiter.released.signal();
+                return;
+            }
+        }
+        now = wakeUps.peek().wakeAt;
+        while (!wakeUps.isEmpty() && wakeUps.peek().wakeAt == now) {
+            Waiter waiter = wakeUps.poll();
+            waiter.due = true;
+            waiting--;
+            waiter.released.signal();
+        }
+    }
+
+    private static long plus(long time, long millis) {
+        return millis >= Long.MAX_VALUE - time ? Long.MAX_VALUE : time + Math.max(0, millis);
+    }
+
+    @Override
+    public String toString() {
+        return "discrete-event";
+    }
+}
@@ -0,0 +1,50 @@
+package wms.wmsjfx.simulation;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall-clock time multiplied by a constant factor (1 is real time).
+ * Waits are plain timed waits, shortened by the factor.
+ */
+final class ScaledClock extends SimulationClock {
+
+    private final double speedUp;
+    private final long epochMillis = System.currentTimeMillis();
+    private final long epochNanos = System.nanoTime();
+
+    ScaledClock(double speedUp) {
+        this.speedUp = speedUp;
+    }
+
+    @Override
+    public long millis() {
+        return epochMillis + (long) ((System.nanoTime() - epochNanos) / 1e6 * speedUp);
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            TimeUnit.NANOSECONDS.sleep(realNanos(TimeUnit.MILLISECONDS.toNanos(millis)));
+        }
+    }
+
+    @Override
+    public <E> E poll(BlockingQueue<E> queue, long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(realNanos(unit.toNanos(timeout)), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public <E> E take(BlockingQueue<E> queue) throws InterruptedException {
+        return queue.take();
+    }
+
+    private long realNanos(long simulatedNanos) {
+        return (long) (simulatedNanos / speedUp); // saturates at Long.MAX_VALUE
+    }
+
+    @Override
+    public String toString() {
+        return speedUp == 1 ? "real time" : "x" + speedUp;
+    }
+}
@@ -0,0 +1,69 @@
+package wms.wmsjfx.simulation;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time robots, the dispatcher and the reservation table live in.
+ * Travel, picking and charging sleep on it, and station and idle timeouts
+ * wait on it, so the same code can run in real time, faster than real time
+ * or as a discrete-event simulation. All times are simulated milliseconds.
+ */
+public abstract class SimulationClock {
+
+    private static final SimulationClock REAL_TIME = new ScaledClock(1);
+
+    /** Wall-clock time; the default. */
+    public static SimulationClock realTime() {
+        return REAL_TIME;
+    }
+
+    /**
+     * Time running 'speedUp' times faster than the wall clock (e.g. 10 or 100).
+     */
+    public static SimulationClock scaled(double speedUp) {
+        if (!(speedUp > 0)) {
+            throw new IllegalArgumentException("speedUp must be positive: " + speedUp);
+        }
+        return new ScaledClock(speedUp);
+    }
+
+    /**
+     * Time that jumps from one wake-up to the next as soon as every registered
+     * thread is waiting, so a shift takes only as long as the work in it.
+     */
+    public static SimulationClock discreteEvent() {
+        return new DiscreteEventClock();
+    }
+
+    public abstract long millis();
+
+    /**
+     * Waits 'millis' of simulated time.
+     */
+    public abstract void sleep(long millis) throws InterruptedException;
+
+    /**
+     * Takes the head of 'queue', waiting up to 'timeout' of simulated time.
+     * @return the element, or null if the timeout passed first
+     */
+    public abstract <E> E poll(BlockingQueue<E> queue, long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Takes the head of 'queue', waiting as long as it takes.
+     */
+    public abstract <E> E take(BlockingQueue<E> queue) throws InterruptedException;
+
+    /**
+     * Makes 'thread' a participant: simulated time does not move on while it is
+     * running. Call it before the thread starts. Only discrete-event time uses it.
+     */
+    public void register(Thread thread) {
+    }
+
+    /**
+     * Called when a registered thread is done (typically from the thread itself).
+     */
+    public void deregister(Thread thread) {
+    }
+}
@@ -8,13 +8,24 @@ import wms.wmsjfx.equipmentManager.EquipmentManager;
 import wms.wmsjfx.equipmentManager.Robot;
 
 public class ChargeTask implements Task{
+    private static final double FULL_BATTERY = 100;
+
     private final ChargingStation chargingStation;
     private final String ID;
     private final TaskType taskType = TaskType.CHARGE_ROBOT;
+    private final double targetPercentage;
 
     public ChargeTask(ChargingStation chargeStation, String robotId) {
+        this(chargeStation, robotId, FULL_BATTERY);
+    }
+
+    /**
+     * A partial charge (top-up) that stops at 'targetPercentage'.
+     */
+    public ChargeTask(ChargingStation chargeStation, String robotId, double targetPercentage) {
         this.chargingStation = chargeStation;
         this.ID = "Charge-" + robotId;
+        this.targetPercentage = targetPercentage;
     }
 
     @Override
@@ -24,9 +35,18 @@ public class ChargeTask implements Task{
 
     @Override
     public String getDescription() {
-        return String.format("Task: Move to (%.1f, %.1f) and charge.",
+        return String.format("Task: Move to (%.1f, %.1f) and charge to %.0f%%.",
                 chargingStation.getLocation().getX(),
-                chargingStation.getLocation().getY());
+                chargingStation.getLocation().getY(),
+                targetPercentage);
+    }
+
+    public ChargingStation getChargingStation() {
+        return chargingStation;
+    }
+
+    public double getTargetPercentage() {
+        return targetPercentage;
     }
 
     @Override
@@ -39,7 +59,7 @@ public class ChargeTask implements Task{
         System.out.printf("[charging][%s] Executing %s...%n", robot.getId(), this.ID);
         List<Point> steps = manager.requestPath(robot, chargingStation.getLocation());
         robot.stepMove(steps);
-        robot.charge();
+        robot.chargeTo(targetPercentage);
         // Release charging station
         manager.releaseChargeStation(chargingStation);
     }
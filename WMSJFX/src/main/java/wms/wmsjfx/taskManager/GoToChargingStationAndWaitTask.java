@@ -46,7 +46,7 @@ public class GoToChargingStationAndWaitTask implements Task {
 
         // 2. Wait for 15 minutes for available charging station
         robot.setState(RobotState.WAITING_FOR_AVAILABLE_CHARGING_STATION);
-        ChargingStation foundChargingStation = manager.requestAvailableChargingStation(15);
+        ChargingStation foundChargingStation = manager.requestAvailableChargingStation(robot, 15);
 
         if (foundChargingStation != null) {
             System.out.printf("[charging][%s] Found charging station %s for %s%n", this.getClass().getSimpleName(), foundChargingStation.getId(), robot.getId());
@@ -0,0 +1,89 @@
+package wms.wmsjfx.taskManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import wms.wmsjfx.warehouse.exceptions.InventoryException;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * A customer order with one or more lines. It is not a Task itself: the
+ * OrderBatcher groups its lines with those of other orders into a PickBatchTask,
+ * so the whole order is picked on one tour with one packing drop.
+ */
+public class MultiLineOrder {
+    private final String orderId;
+    private final List<OrderLine> lines;
+    private final TaskPriority priority;
+    private final long slaMillis;
+
+    public MultiLineOrder(String orderId, List<OrderLine> lines, WarehouseManager warehouseManager) throws OrderTaskException {
+        this(orderId, lines, warehouseManager, TaskPriority.STANDARD, Task.NO_SLA);
+    }
+
+    /**
+     * @param slaMillis time allowed from submission to completion, or Task.NO_SLA
+     */
+    public MultiLineOrder(String orderId, List<OrderLine> lines, WarehouseManager warehouseManager,
+                          TaskPriority priority, long slaMillis) throws OrderTaskException {
+        // ========== VALIDATION ==========
+        if (orderId == null || orderId.isBlank()) {
+            throw new OrderTaskException("Order ID cannot be null or blank");
+        }
+        if (lines == null || lines.isEmpty()) {
+            throw new OrderTaskException("An order needs at least one line");
+        }
+        if (priority == null || slaMillis <= 0) {
+            throw new OrderTaskException("Priority must be set and the SLA must be positive");
+        }
+        Map<String, Integer> quantityByProduct = new HashMap<>();
+        for (OrderLine line : lines) {
+            if (line.getProductID() == null || line.getProductID().isBlank()) {
+                throw new OrderTaskException("productID cannot be null or blank");
+            }
+            if (line.getQuantity() <= 0) {
+                throw new OrderTaskException("Quantity must be greater than zero");
+            }
+            try {
+                if (!warehouseManager.isProductInStock(line.getProductID())) {
+                    throw new OrderTaskException("Product " + line.getProductID() + " is not in stock");
+                }
+            } catch (InventoryException e) {
+                throw new OrderTaskException("Unknown product " + line.getProductID(), e);
+            }
+            quantityByProduct.merge(line.getProductID(), line.getQuantity(), Integer::sum);
+        }
+        for (Map.Entry<String, Integer> e : quantityByProduct.entrySet()) {
+            if (e.getValue() > warehouseManager.getProductQuantity(e.getKey())) {
+                throw new OrderTaskException("Quantity is not enough");
+            }
+        }
+
+        this.orderId = orderId;
+        this.lines = List.copyOf(lines);
+        this.priority = priority;
+        this.slaMillis = slaMillis;
+    }
+
+    public String getID() {
+        return orderId;
+    }
+
+    public List<OrderLine> getLines() {
+        return lines;
+    }
+
+    public TaskPriority getPriority() {
+        return priority;
+    }
+
+    public long getSlaMillis() {
+        return slaMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "MultiLineOrder [ID=" + orderId + ", lines=" + lines + "]";
+    }
+}
@@ -0,0 +1,345 @@
+package wms.wmsjfx.taskManager;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import wms.wmsjfx.pathFinding.PickTourPlanner;
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * Groups the lines of multi-line orders into PickBatchTasks.
+ * Orders of the same priority that arrive within 'windowMillis' of the first
+ * one share a batch, as long as the batch stays within 'maxLines' and the
+ * warehouse holds enough of every product for all of them; an order that does
+ * not fit closes the open batch and starts the next. A closed batch gets one
+ * pick tour over its shelves (PickTourPlanner) ending at the packing station
+ * nearest to them, and is put on the task submission queue as a single task.
+ * If the stock went down since its orders were accepted, the batch is split
+ * and every order tried on its own; an order that still cannot be picked, or
+ * any order while there is no packing station, is rejected (see
+ * addRejectedOrderListener).
+ * With a window of 0 every order becomes its own batch at once. Otherwise
+ * run() has to run on its own thread, which closes batches when their
+ * window ends; on a discrete-event clock register that thread like the dispatcher.
+ */
+public class OrderBatcher implements Runnable {
+
+    public static final int DEFAULT_MAX_LINES = 10;
+
+    private final BlockingQueue<Task> taskSubmissionQueue;
+    private final WarehouseManager warehouseManager;
+    private final PickTourPlanner tourPlanner;
+    private final SimulationClock clock;
+    private final long windowMillis;
+    private final int maxLines;
+    private final BlockingQueue<MultiLineOrder> incoming = new LinkedBlockingQueue<>();
+    private final Map<TaskPriority, OpenBatch> open = new EnumMap<>(TaskPriority.class); // guarded by this
+    private final AtomicInteger batchIdCounter = new AtomicInteger(0);
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder orders = new LongAdder();
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final List<Consumer<MultiLineOrder>> rejectedOrderListeners = new CopyOnWriteArrayList<>();
+
+    private static final class OpenBatch {
+        final TaskPriority priority;
+        final long closesAt;
+        final List<MultiLineOrder> orders = new ArrayList<>();
+        final Map<String, Integer> quantityByProduct = new LinkedHashMap<>();
+        int lineCount;
+        long deadline = Long.MAX_VALUE; // earliest SLA deadline of its orders
+
+        OpenBatch(TaskPriority priority, long closesAt) {
+            this.priority = priority;
+            this.closesAt = closesAt;
+        }
+
+        void add(MultiLineOrder order, long now) {
+            orders.add(order);
+            lineCount += order.getLines().size();
+            for (OrderLine line : order.getLines()) {
+                quantityByProduct.merge(line.getProductID(), line.getQuantity(), Integer::sum);
+            }
+            if (order.getSlaMillis() != Task.NO_SLA) {
+                deadline = Math.min(deadline, now + order.getSlaMillis());
+            }
+        }
+    }
+
+    public OrderBatcher(BlockingQueue<Task> taskSubmissionQueue, WarehouseManager warehouseManager,
+                        PickTourPlanner tourPlanner, long windowMillis) {
+        this(taskSubmissionQueue, warehouseManager, tourPlanner, windowMillis, DEFAULT_MAX_LINES, SimulationClock.realTime());
+    }
+
+    /**
+     * @param windowMillis how long the first order of a batch waits for others (0: no batching across orders)
+     * @param maxLines     most order lines one robot picks on a tour
+     */
+    public OrderBatcher(BlockingQueue<Task> taskSubmissionQueue, WarehouseManager warehouseManager,
+                        PickTourPlanner tourPlanner, long windowMillis, int maxLines, SimulationClock clock) {
+        if (windowMillis < 0 || maxLines <= 0) {
+            throw new IllegalArgumentException("The window must not be negative and a batch needs room for a line");
+        }
+        this.taskSubmissionQueue = taskSubmissionQueue;
+        this.warehouseManager = warehouseManager;
+        this.tourPlanner = tourPlanner;
+        this.windowMillis = windowMillis;
+        this.maxLines = maxLines;
+        this.clock = clock;
+    }
+
+    /**
+     * Hands an order to the batcher. Without a window it is batched and submitted right away.
+     */
+    public void submit(MultiLineOrder order) throws InterruptedException {
+        if (windowMillis == 0) {
+            List<PickBatchTask> ready;
+            synchronized (this) {
+                ready = add(order, clock.millis());
+                ready.addAll(closeAll());
+            }
+            submitAll(ready);
+        } else {
+            incoming.put(order);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                long wait = millisUntilNextClose();
+                MultiLineOrder order = wait == Long.MAX_VALUE
+                        ? clock.take(incoming)
+                        : clock.poll(incoming, wait, TimeUnit.MILLISECONDS);
+                List<PickBatchTask> ready;
+                synchronized (this) {
+                    ready = order != null ? add(order, clock.millis()) : new ArrayList<>();
+                    ready.addAll(closeDue(clock.millis()));
+                }
+                submitAll(ready);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Nothing that was accepted is lost on shutdown; the flag is cleared so the last puts can go through
+        Thread.interrupted();
+        try {
+            flush();
+        } catch (InterruptedException e) {
+            System.err.println("[OrderBatcher] Interrupted while flushing open batches");
+        } finally {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Closes and submits every open batch, whether its window has ended or not.
+     */
+    public void flush() throws InterruptedException {
+        List<PickBatchTask> ready;
+        synchronized (this) {
+            ready = new ArrayList<>();
+            MultiLineOrder order;
+            while ((order = incoming.poll()) != null) {
+                ready.addAll(add(order, clock.millis()));
+            }
+            ready.addAll(closeAll());
+        }
+        submitAll(ready);
+    }
+
+    private synchronized long millisUntilNextClose() {
+        long next = Long.MAX_VALUE;
+        for (OpenBatch batch : open.values()) {
+            next = Math.min(next, batch.closesAt);
+        }
+        return next == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(0, next - clock.millis());
+    }
+
+    /**
+     * Adds the order to the open batch of its priority.
+     * @return the batches this closed (the previous one if the order did not fit, or a full one)
+     */
+    private List<PickBatchTask> add(MultiLineOrder order, long now) {
+        List<PickBatchTask> ready = new ArrayList<>();
+        OpenBatch batch = open.get(order.getPriority());
+        if (batch != null && !fits(batch, order)) {
+            open.remove(order.getPriority());
+            close(batch, now, ready);
+            batch = null;
+        }
+        if (batch == null) {
+            batch = new OpenBatch(order.getPriority(), now + windowMillis);
+            open.put(order.getPriority(), batch);
+        }
+        batch.add(order, now);
+        if (batch.lineCount >= maxLines) {
+            open.remove(order.getPriority());
+            close(batch, now, ready);
+        }
+        return ready;
+    }
+
+    /**
+     * An order fits if the batch keeps within maxLines and the stock covers the combined quantities.
+     * An order that is too big on its own still gets a batch of its own.
+     */
+    private boolean fits(OpenBatch batch, MultiLineOrder order) {
+        if (batch.lineCount + order.getLines().size() > maxLines) return false;
+        Map<String, Integer> extra = new HashMap<>();
+        for (OrderLine line : order.getLines()) {
+            extra.merge(line.getProductID(), line.getQuantity(), Integer::sum);
+        }
+        for (Map.Entry<String, Integer> e : extra.entrySet()) {
+            int combined = batch.quantityByProduct.getOrDefault(e.getKey(), 0) + e.getValue();
+            if (combined > warehouseManager.getProductQuantity(e.getKey())) return false;
+        }
+        return true;
+    }
+
+    private List<PickBatchTask> closeDue(long now) {
+        List<PickBatchTask> ready = new ArrayList<>();
+        Iterator<OpenBatch> it = open.values().iterator();
+        while (it.hasNext()) {
+            OpenBatch batch = it.next();
+            if (batch.closesAt <= now) {
+                it.remove();
+                close(batch, now, ready);
+            }
+        }
+        return ready;
+    }
+
+    private List<PickBatchTask> closeAll() {
+        return closeDue(Long.MAX_VALUE);
+    }
+
+    /**
+     * Turns an open batch into a task: one line per product, one stop per shelf, one tour.
+     */
+    private void close(OpenBatch batch, long now, List<PickBatchTask> ready) {
+        List<String> orderIds = new ArrayList<>();
+        for (MultiLineOrder order : batch.orders) {
+            orderIds.add(order.getID());
+        }
+        List<OrderLine> merged = new ArrayList<>();
+        Set<Point> stops = new LinkedHashSet<>();
+        for (Map.Entry<String, Integer> e : batch.quantityByProduct.entrySet()) {
+            merged.add(new OrderLine(e.getKey(), e.getValue()));
+            stops.add(warehouseManager.getProductLocationByProductID(e.getKey()));
+        }
+        Point packingStation = nearestPackingStation(stops);
+        if (packingStation == null) {
+            reject(batch.orders, "no packing station to end the tour at");
+            return;
+        }
+        List<Point> tour = tourPlanner.plan(stops, packingStation);
+        long slaMillis = batch.deadline == Long.MAX_VALUE ? Task.NO_SLA : Math.max(1, batch.deadline - now);
+        String batchId = "Batch-" + batchIdCounter.incrementAndGet();
+        try {
+            ready.add(new PickBatchTask(batchId, orderIds, merged, tour, warehouseManager, batch.priority, slaMillis));
+            batches.increment();
+            orders.add(batch.orders.size());
+            lines.add(batch.lineCount);
+        } catch (OrderTaskException e) {
+            if (batch.orders.size() == 1) {
+                reject(batch.orders, e.getMessage());
+                return;
+            }
+            // Stock went down since the orders were accepted: the ones still in stock go out alone
+            for (MultiLineOrder order : batch.orders) {
+                OpenBatch alone = new OpenBatch(batch.priority, batch.closesAt);
+                alone.add(order, now);
+                alone.deadline = batch.deadline;
+                close(alone, now, ready);
+            }
+        }
+    }
+
+    private void reject(List<MultiLineOrder> refused, String reason) {
+        for (MultiLineOrder order : refused) {
+            System.err.println("[OrderBatcher] Rejected " + order.getID() + ": " + reason);
+            rejected.increment();
+            for (Consumer<MultiLineOrder> listener : rejectedOrderListeners) {
+                listener.accept(order);
+            }
+        }
+    }
+
+    /**
+     * The packing station closest (straight line) to the centre of the stops, or null if there is none.
+     */
+    private Point nearestPackingStation(Set<Point> stops) {
+        double cx = 0, cy = 0;
+        for (Point stop : stops) {
+            cx += stop.x;
+            cy += stop.y;
+        }
+        cx /= stops.size();
+        cy /= stops.size();
+        Point best = null;
+        double bestDistance = Double.MAX_VALUE;
+        for (PackingStation station : warehouseManager.getAllPackingStations()) {
+            double d = station.getLocation().distance(cx, cy);
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = station.getLocation();
+            }
+        }
+        return best;
+    }
+
+    private void submitAll(List<PickBatchTask> ready) throws InterruptedException {
+        for (PickBatchTask task : ready) {
+            taskSubmissionQueue.put(task);
+            System.out.printf("[OrderBatcher] Submitted %s (%d orders, %d lines, %d stops)%n",
+                    task.getID(), task.getOrderIds().size(), task.getLines().size(), task.getTour().size());
+        }
+    }
+
+    /** Batches submitted so far. */
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /** Orders that went into submitted batches. */
+    public long getOrderCount() {
+        return orders.sum();
+    }
+
+    /** Order lines that went into submitted batches (before merging lines of the same product). */
+    public long getLineCount() {
+        return lines.sum();
+    }
+
+    /** Orders rejected so far. */
+    public long getRejectedOrderCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Registers a callback for every accepted order that could not be batched
+     * after all. It runs while the batcher holds its lock, so it must be quick.
+     */
+    public void addRejectedOrderListener(Consumer<MultiLineOrder> listener) {
+        rejectedOrderListeners.add(listener);
+    }
+}
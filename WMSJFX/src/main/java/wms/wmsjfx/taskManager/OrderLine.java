@@ -0,0 +1,27 @@
+package wms.wmsjfx.taskManager;
+
+/**
+ * One line of a customer order: a product and how many of it.
+ */
+public final class OrderLine {
+    private final String productID;
+    private final int quantity;
+
+    public OrderLine(String productID, int quantity) {
+        this.productID = productID;
+        this.quantity = quantity;
+    }
+
+    public String getProductID() {
+        return productID;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public String toString() {
+        return quantity + "x " + productID;
+    }
+}
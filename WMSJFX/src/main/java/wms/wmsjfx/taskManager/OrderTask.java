@@ -22,9 +22,21 @@ public class OrderTask implements Task {
     private final int quantity;
     private final TaskType taskType = TaskType.PICK_ORDER;
     private final WarehouseManager warehouseManager;
+    private final TaskPriority priority;
+    private final long slaMillis;
 
     public OrderTask(String orderId, String productID, int quantity, WarehouseManager warehouseManager) throws OrderTaskException {
+        this(orderId, productID, quantity, warehouseManager, TaskPriority.STANDARD, NO_SLA);
+    }
+
+    /**
+     * @param slaMillis time allowed from submission to completion, or NO_SLA
+     */
+    public OrderTask(String orderId, String productID, int quantity, WarehouseManager warehouseManager,
+                     TaskPriority priority, long slaMillis) throws OrderTaskException {
         super();
+        this.priority = priority;
+        this.slaMillis = slaMillis;
         this.orderId = orderId;
         this.productID = productID;
         this.quantity = quantity;
@@ -43,6 +55,10 @@ public class OrderTask implements Task {
         if (quantity > warehouseManager.getProductQuantity(productID)) {
             throw new OrderTaskException("Quantity is not enough");
         }
+
+        if (priority == null || slaMillis <= 0) {
+            throw new OrderTaskException("Priority must be set and the SLA must be positive");
+        }
     }
 
     /**
@@ -106,6 +122,10 @@ public class OrderTask implements Task {
         return itemLocation;
     }
 
+    public int getQuantity() {
+        return quantity;
+    }
+
     @Override
     public String getID() {
         return this.orderId;
@@ -121,6 +141,16 @@ public class OrderTask implements Task {
         return taskType;
     }
 
+    @Override
+    public TaskPriority getPriority() {
+        return priority;
+    }
+
+    @Override
+    public long getSlaMillis() {
+        return slaMillis;
+    }
+
     @Override
     public String toString() {
         return "Task [taskType=" + taskType + ", " + "itemName=" + productID + "]";
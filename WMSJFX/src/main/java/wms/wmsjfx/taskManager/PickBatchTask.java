@@ -0,0 +1,164 @@
+package wms.wmsjfx.taskManager;
+
+import wms.wmsjfx.equipmentManager.EquipmentManager;
+import wms.wmsjfx.equipmentManager.Robot;
+import wms.wmsjfx.equipmentManager.RobotState;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks the lines of one or more orders on a single tour over the shelves,
+ * then delivers everything with one packing drop.
+ * The tour (the shelves in visiting order) is planned by the OrderBatcher;
+ * the packing station is requested *during* execution (Just-in-Time), as for an OrderTask.
+ */
+public class PickBatchTask implements Task {
+    private final String batchId;
+    private final List<String> orderIds;
+    private final List<OrderLine> lines;
+    private final List<Point> tour;
+    private final Map<Point, List<OrderLine>> linesByStop = new LinkedHashMap<>();
+    private final TaskType taskType = TaskType.PICK_BATCH;
+    private final WarehouseManager warehouseManager;
+    private final TaskPriority priority;
+    private final long slaMillis;
+
+    /**
+     * @param lines     the lines to pick, at most one per product
+     * @param tour      the shelves of the lines in visiting order
+     * @param slaMillis time allowed from submission to completion, or NO_SLA
+     */
+    public PickBatchTask(String batchId, List<String> orderIds, List<OrderLine> lines, List<Point> tour,
+                         WarehouseManager warehouseManager, TaskPriority priority, long slaMillis) throws OrderTaskException {
+        // ========== VALIDATION ==========
+        if (batchId == null || batchId.isBlank()) {
+            throw new OrderTaskException("Batch ID cannot be null or blank");
+        }
+        if (lines == null || lines.isEmpty() || tour == null || tour.isEmpty()) {
+            throw new OrderTaskException("A batch needs at least one line and one stop");
+        }
+        if (priority == null || slaMillis <= 0) {
+            throw new OrderTaskException("Priority must be set and the SLA must be positive");
+        }
+        for (Point stop : tour) {
+            linesByStop.put(stop, new ArrayList<>());
+        }
+        for (OrderLine line : lines) {
+            if (line.getQuantity() > warehouseManager.getProductQuantity(line.getProductID())) {
+                throw new OrderTaskException("Quantity is not enough");
+            }
+            List<OrderLine> atStop = linesByStop.get(warehouseManager.getProductLocationByProductID(line.getProductID()));
+            if (atStop == null) {
+                throw new OrderTaskException("The tour does not visit the shelf of " + line.getProductID());
+            }
+            atStop.add(line);
+        }
+
+        this.batchId = batchId;
+        this.orderIds = List.copyOf(orderIds);
+        this.lines = List.copyOf(lines);
+        this.tour = List.copyOf(tour);
+        this.warehouseManager = warehouseManager;
+        this.priority = priority;
+        this.slaMillis = slaMillis;
+    }
+
+    /**
+     * Execution script for the batch: every shelf of the tour, then one packing station.
+     * @param robot The Robot performing the task.
+     * @param manager The EquipmentManager to request resources from.
+     * @throws InterruptedException If the robot is interrupted.
+     */
+    @Override
+    public void execute(Robot robot, EquipmentManager manager) throws InterruptedException {
+        System.out.printf("[robot][%s] Executing %s (%d lines, %d stops)%n", robot.getId(), batchId, lines.size(), tour.size());
+
+        // 1. Walk the tour and pick every line at its shelf
+        for (Point stop : tour) {
+            List<Point> steps = manager.requestPath(robot, stop);
+            robot.stepMove(steps);
+            for (OrderLine line : linesByStop.get(stop)) {
+                robot.pickUpItem(line.getProductID());
+            }
+        }
+
+        // 2. --- JUST-IN-TIME STATION REQUEST ---
+        robot.setState(RobotState.WAITING_FOR_AVAILABLE_PACKING_STATION);
+        PackingStation assignedStation = manager.requestAvailablePackingStation(robot);
+        if (assignedStation == null) {
+            System.err.printf("[robot][%s] No Packing Station for %s. Aborting.%n", robot.getId(), batchId);
+            return;
+        }
+
+        // 3. One drop for the whole batch
+        List<Point> steps = manager.requestPath(robot, assignedStation.getLocation());
+        robot.stepMove(steps);
+        for (OrderLine line : lines) {
+            robot.dropItem(line.getProductID());
+        }
+        System.out.printf("[robot][%s] Completed %s at %s%n", robot.getId(), batchId, assignedStation.getId());
+        manager.releasePackingStation(assignedStation);
+
+        // 4. Reduce the quantity of every picked product
+        for (OrderLine line : lines) {
+            warehouseManager.decreaseProductQuantity(line.getProductID(), line.getQuantity());
+        }
+
+        // DO NOT report completion here. Robot's run() loop handles that.
+    }
+
+    /**
+     * The first shelf of the tour: where a robot has to go first.
+     */
+    public Point getFirstStop() {
+        return tour.get(0);
+    }
+
+    public List<Point> getTour() {
+        return tour;
+    }
+
+    public List<OrderLine> getLines() {
+        return lines;
+    }
+
+    public List<String> getOrderIds() {
+        return orderIds;
+    }
+
+    @Override
+    public String getID() {
+        return batchId;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Pick " + lines.size() + " lines for " + orderIds + " [ID: " + batchId + "]";
+    }
+
+    @Override
+    public TaskType getType() {
+        return taskType;
+    }
+
+    @Override
+    public TaskPriority getPriority() {
+        return priority;
+    }
+
+    @Override
+    public long getSlaMillis() {
+        return slaMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Task [taskType=" + taskType + ", " + "batch=" + batchId + ", lines=" + lines + "]";
+    }
+}
@@ -18,6 +18,8 @@ public class StockTask implements Task {
     private final int quantity;
     private final WarehouseManager warehouseManager;
     private final TaskType taskType = TaskType.STOCK_ITEM;
+    private final TaskPriority priority;
+    private final long slaMillis;
     // ...
 
     public StockTask(String stockId,
@@ -25,7 +27,25 @@ public class StockTask implements Task {
                      LoadingStation loadingStation,
                      int quantity,
                      WarehouseManager warehouseManager) throws OrderTaskException {
+        this(stockId, productID, loadingStation, quantity, warehouseManager, TaskPriority.STANDARD, NO_SLA);
+    }
+
+    /**
+     * @param slaMillis time allowed from submission to completion, or NO_SLA
+     */
+    public StockTask(String stockId,
+                     String productID,
+                     LoadingStation loadingStation,
+                     int quantity,
+                     WarehouseManager warehouseManager,
+                     TaskPriority priority,
+                     long slaMillis) throws OrderTaskException {
         // ... (Validation)
+        if (priority == null || slaMillis <= 0) {
+            throw new OrderTaskException("Priority must be set and the SLA must be positive");
+        }
+        this.priority = priority;
+        this.slaMillis = slaMillis;
         this.stockId = stockId;
         this.productID = productID;
         this.quantity = quantity;
@@ -46,10 +66,9 @@ public class StockTask implements Task {
         System.out.printf("[%s] Arrived at %s. Waiting for access...%n",
                 robot.getId(), this.loadingStation.getId());
 
+        // Robot is waiting until the loading station is free (on the simulation clock)
+        manager.acquireLoadingStation(robot, this.loadingStation);
         try {
-            // Robot is waiting until the loading station is free
-            this.loadingStation.acquire();
-
             // 3. Pick the order
             System.out.printf("[%s] Acquired %s. Picking up item...%n",
                     robot.getId(), this.loadingStation.getId());
@@ -59,7 +78,7 @@ public class StockTask implements Task {
             // 4. Return Lock
             System.out.printf("[%s] Releasing %s.%n",
                     robot.getId(), this.loadingStation.getId());
-            this.loadingStation.release();
+            manager.releaseLoadingStation(this.loadingStation);
         }
 
         // 5. Go to shelf to load item
@@ -83,6 +102,18 @@ public class StockTask implements Task {
         return this.shelfLocation.getLocation();
     }
 
+    public String getLoadingStationId() {
+        return this.loadingStation.getId();
+    }
+
+    public String getProductID() {
+        return this.productID;
+    }
+
+    public int getQuantity() {
+        return this.quantity;
+    }
+
     @Override
     public String getID() {
         return this.stockId;
@@ -97,4 +128,14 @@ public class StockTask implements Task {
     public TaskType getType() {
         return taskType;
     }
+
+    @Override
+    public TaskPriority getPriority() {
+        return priority;
+    }
+
+    @Override
+    public long getSlaMillis() {
+        return slaMillis;
+    }
 }
\ No newline at end of file
@@ -8,6 +8,9 @@ import wms.wmsjfx.equipmentManager.EquipmentManager; // <-- Needs reference to t
  * Execute method now requires EquipmentManager for Just-in-Time resource requests.
  */
 public interface Task { 
+    /** getSlaMillis() of a task without a deadline. */
+    long NO_SLA = Long.MAX_VALUE;
+
     String getID();
     String getDescription();
     TaskType getType();
@@ -20,4 +23,15 @@ public interface Task {
      * @throws InterruptedException If the robot's thread is interrupted.
      */
     void execute(Robot robot, EquipmentManager manager) throws InterruptedException, FindChargeTimeoutException; 
+
+    default TaskPriority getPriority() {
+        return TaskPriority.STANDARD;
+    }
+
+    /**
+     * Time allowed from submission to completion, in simulation milliseconds, or NO_SLA.
+     */
+    default long getSlaMillis() {
+        return NO_SLA;
+    }
 }
\ No newline at end of file
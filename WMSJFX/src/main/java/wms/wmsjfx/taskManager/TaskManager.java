@@ -1,6 +1,7 @@
 package wms.wmsjfx.taskManager;
 
 import java.awt.Point;
+import java.util.List;
 import java.util.concurrent.BlockingQueue; // Dùng queue chung
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -15,6 +16,7 @@ public class TaskManager {
     private final AtomicInteger orderIdCounter = new AtomicInteger(0);
     private final AtomicInteger stockIdCounter = new AtomicInteger(0);
     private final WarehouseManager warehouseManager;
+    private volatile OrderBatcher orderBatcher; // needed for multi-line orders
 
     // Queue for sending tasks to equipment manager
     public TaskManager(BlockingQueue<Task> taskSubmissionQueue, WarehouseManager warehouseManager) {
@@ -24,6 +26,11 @@ public class TaskManager {
 
     // Method for creating Order task
     public void createNewOrder(String productID, int quantity) throws TaskCreationException {
+        createNewOrder(productID, quantity, TaskPriority.STANDARD, Task.NO_SLA);
+    }
+
+    // Order task with a priority and an SLA (ms from submission to completion, or Task.NO_SLA)
+    public void createNewOrder(String productID, int quantity, TaskPriority priority, long slaMillis) throws TaskCreationException {
 
         int newId = orderIdCounter.incrementAndGet();
         String taskId = "Order-" + newId;
@@ -32,7 +39,7 @@ public class TaskManager {
         final Task newTask;
 
         try {
-            newTask = new OrderTask(taskId, productID, quantity, warehouseManager);
+            newTask = new OrderTask(taskId, productID, quantity, warehouseManager, priority, slaMillis);
         } catch (OrderTaskException e) {
             // Chain the validation error from Order into a higher-level exception
             throw new TaskCreationException("Order validation failed for " + taskId, e);
@@ -52,15 +59,56 @@ public class TaskManager {
         }
     }
 
+    // Multi-line orders are batched and picked on one tour; they need an OrderBatcher
+    public void setOrderBatcher(OrderBatcher orderBatcher) {
+        this.orderBatcher = orderBatcher;
+    }
+
+    // Method for creating a multi-line Order
+    public void createNewOrder(List<OrderLine> lines) throws TaskCreationException {
+        createNewOrder(lines, TaskPriority.STANDARD, Task.NO_SLA);
+    }
+
+    // Multi-line Order with a priority and an SLA (ms from submission to completion, or Task.NO_SLA)
+    public void createNewOrder(List<OrderLine> lines, TaskPriority priority, long slaMillis) throws TaskCreationException {
+        int newId = orderIdCounter.incrementAndGet();
+        String orderId = "Order-" + newId;
+
+        OrderBatcher batcher = orderBatcher;
+        if (batcher == null) {
+            throw new TaskCreationException("No OrderBatcher set for multi-line order " + orderId);
+        }
+
+        final MultiLineOrder order;
+        try {
+            order = new MultiLineOrder(orderId, lines, warehouseManager, priority, slaMillis);
+        } catch (OrderTaskException e) {
+            throw new TaskCreationException("Order validation failed for " + orderId, e);
+        }
+
+        try {
+            batcher.submit(order);
+            System.out.printf("[TaskManager] Submitted %s (%d lines) for batching%n", orderId, lines.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("[TaskManager] Interrupted while submitting " + orderId);
+        }
+    }
+
     // Method for creating Stock task
     public void createNewStock(String loadingStationID, String productID, int quantity) throws TaskCreationException {
+        createNewStock(loadingStationID, productID, quantity, TaskPriority.STANDARD, Task.NO_SLA);
+    }
+
+    // Stock task with a priority and an SLA (ms from submission to completion, or Task.NO_SLA)
+    public void createNewStock(String loadingStationID, String productID, int quantity, TaskPriority priority, long slaMillis) throws TaskCreationException {
         int newId = stockIdCounter.incrementAndGet();
         String taskId = "Stock-" + newId;
 
         final Task newTask;
         LoadingStation loadingStation = (LoadingStation) warehouseManager.getObjectFromFloor(loadingStationID);
         try {
-            newTask = new StockTask(taskId, productID, loadingStation, quantity, warehouseManager);
+            newTask = new StockTask(taskId, productID, loadingStation, quantity, warehouseManager, priority, slaMillis);
         } catch (OrderTaskException e) {
             // Chain the validation error from Stock into a higher-level exception
             throw new TaskCreationException("Order validation failed for " + taskId, e);
@@ -0,0 +1,8 @@
+package wms.wmsjfx.taskManager;
+
+// Most urgent first: pending tasks are handed out in this order
+public enum TaskPriority {
+    EXPRESS,
+    STANDARD,
+    BULK,
+}
@@ -3,6 +3,7 @@ package wms.wmsjfx.taskManager;
 // Send to equipment manager
 public enum TaskType {
     PICK_ORDER,
+    PICK_BATCH,
     CHARGE_ROBOT,
     GO_TO_CHARGING_STATION_AND_WAIT,
     STOCK_ITEM,
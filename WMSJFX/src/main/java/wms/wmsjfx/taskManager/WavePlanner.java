@@ -0,0 +1,259 @@
+package wms.wmsjfx.taskManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import wms.wmsjfx.equipmentManager.EquipmentManager;
+import wms.wmsjfx.simulation.SimulationClock;
+
+/**
+ * Holds submitted tasks back and releases them to the EquipmentManager in waves.
+ * At most 'capacity' tasks are in flight: no more than there are robots, and no
+ * more than 'tasksPerStation' per packing station, so robots do not pile up
+ * waiting for a station. The next wave goes out once the tasks in flight drop
+ * to the number of packing stations: the stations are still busy with the
+ * tail of the last wave while the next one travels to its shelves. A wave
+ * fills the free capacity, most urgent tasks first; if the backlog is smaller,
+ * it waits up to 'maxHoldMillis' for more. A task the dispatcher rejects
+ * frees its slot like a finished one.
+ * Every wave is reported (WaveReport) with its throughput and the packing
+ * station utilisation while it was open.
+ * run() has to run on its own thread; on a discrete-event clock register that
+ * thread like the dispatcher.
+ */
+public final class WavePlanner implements Runnable {
+
+    public static final int DEFAULT_TASKS_PER_STATION = 2;
+    public static final long DEFAULT_MAX_HOLD_MILLIS = 5_000;
+
+    private final BlockingQueue<Task> backlog;
+    private final BlockingQueue<Task> release;
+    private final int capacity;
+    private final int lowWater;
+    private final int packingStations;
+    private final long maxHoldMillis;
+    private final LongSupplier packingBusyMillis;
+    private final SimulationClock clock;
+
+    // guarded by this
+    private final PriorityQueue<Held> held = new PriorityQueue<>(
+            Comparator.<Held>comparingInt(h -> h.task.getPriority().ordinal()).thenComparingLong(h -> h.sequence));
+    private final Map<Task, Wave> waveOf = new HashMap<>();
+    private long sequence;
+    private long oldestHeldAt = Long.MAX_VALUE;
+    private int inFlight;
+    private int waveCounter;
+
+    private final BlockingQueue<Boolean> wakeups = new LinkedBlockingQueue<>(); // a task finished
+    private final List<WaveReport> reports = new CopyOnWriteArrayList<>();
+
+    private static final class Held {
+        final Task task;
+        final long sequence;
+
+        Held(Task task, long sequence) {
+            this.task = task;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final class Wave {
+        final int number;
+        final int taskCount;
+        final int orderCount;
+        final long releasedAt;
+        final long packingBusyAtRelease;
+        int remaining;
+
+        Wave(int number, int taskCount, int orderCount, long releasedAt, long packingBusyAtRelease) {
+            this.number = number;
+            this.taskCount = taskCount;
+            this.orderCount = orderCount;
+            this.releasedAt = releasedAt;
+            this.packingBusyAtRelease = packingBusyAtRelease;
+            this.remaining = taskCount;
+        }
+    }
+
+    /**
+     * Plans waves for 'equipmentManager', sized to its fleet and packing stations,
+     * and registers for its task-finished callbacks.
+     * @param backlog where the TaskManager submits tasks
+     * @param release the EquipmentManager's task submission queue
+     */
+    public WavePlanner(BlockingQueue<Task> backlog, BlockingQueue<Task> release, EquipmentManager equipmentManager) {
+        this(backlog, release, equipmentManager.getFleetSize(), equipmentManager.getPackingStationCount(),
+                DEFAULT_TASKS_PER_STATION, DEFAULT_MAX_HOLD_MILLIS,
+                equipmentManager::getPackingBusyMillis, equipmentManager.getSimulationClock());
+        equipmentManager.addTaskFinishedListener(this::taskFinished);
+        equipmentManager.addTaskRejectedListener(this::taskRejected);
+    }
+
+    /**
+     * @param tasksPerStation   tasks in flight per packing station (1: no robot ever queues for a station)
+     * @param maxHoldMillis     longest a task is held for a wave to fill up
+     * @param packingBusyMillis total time packing stations have been in use so far
+     */
+    public WavePlanner(BlockingQueue<Task> backlog, BlockingQueue<Task> release, int robots, int packingStations,
+                       int tasksPerStation, long maxHoldMillis, LongSupplier packingBusyMillis, SimulationClock clock) {
+        if (robots <= 0 || packingStations <= 0 || tasksPerStation <= 0 || maxHoldMillis < 0) {
+            throw new IllegalArgumentException("Waves need robots, packing stations and room for a task per station");
+        }
+        this.backlog = backlog;
+        this.release = release;
+        this.capacity = Math.min(robots, packingStations * tasksPerStation);
+        this.lowWater = Math.min(packingStations, capacity - 1);
+        this.packingStations = packingStations;
+        this.maxHoldMillis = maxHoldMillis;
+        this.packingBusyMillis = packingBusyMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                releaseDueWave();
+                wakeups.clear();
+                if (!hasRoom()) {
+                    clock.take(wakeups); // until a task finishes
+                    continue;
+                }
+                long hold = millisUntilHoldExpires();
+                Task task = hold == Long.MAX_VALUE
+                        ? clock.take(backlog)
+                        : clock.poll(backlog, hold, TimeUnit.MILLISECONDS);
+                if (task != null) hold(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Callback for a finished task (see EquipmentManager.addTaskFinishedListener).
+     * Closes the task's wave when it was the last one.
+     */
+    public void taskFinished(Task task) {
+        leave(task);
+    }
+
+    /**
+     * Callback for a released task the dispatcher dropped (see
+     * EquipmentManager.addTaskRejectedListener). Frees its slot like a finish.
+     */
+    public void taskRejected(Task task) {
+        leave(task);
+    }
+
+    private void leave(Task task) {
+        synchronized (this) {
+            Wave wave = waveOf.remove(task);
+            if (wave == null) return;
+            inFlight--;
+            if (--wave.remaining == 0) {
+                long now = clock.millis();
+                long span = Math.max(1, now - wave.releasedAt);
+                double busy = packingBusyMillis.getAsLong() - wave.packingBusyAtRelease;
+                double utilisation = Math.min(1.0, busy / ((double) packingStations * span));
+                WaveReport report = new WaveReport(wave.number, wave.taskCount, wave.orderCount, wave.releasedAt, now, utilisation);
+                reports.add(report);
+                System.out.println("[WavePlanner] " + report);
+            }
+        }
+        wakeups.offer(Boolean.TRUE);
+    }
+
+    /**
+     * Releases the next wave if there is room for it and it is full or has waited long enough.
+     * @return the number of tasks released
+     */
+    int releaseDueWave() throws InterruptedException {
+        List<Task> wave = new ArrayList<>();
+        synchronized (this) {
+            Task task;
+            while ((task = backlog.poll()) != null) {
+                hold(task);
+            }
+            if (held.isEmpty() || !hasRoom()) return 0;
+            int room = capacity - inFlight;
+            if (held.size() < room && clock.millis() - oldestHeldAt < maxHoldMillis) return 0;
+
+            int orders = 0;
+            while (wave.size() < room && !held.isEmpty()) {
+                Task next = held.poll().task;
+                wave.add(next);
+                orders += orderCount(next);
+            }
+            Wave planned = new Wave(++waveCounter, wave.size(), orders, clock.millis(), packingBusyMillis.getAsLong());
+            for (Task next : wave) {
+                waveOf.put(next, planned);
+            }
+            inFlight += wave.size();
+            // Leftovers restart their hold; they lead the next wave once there is room anyway
+            oldestHeldAt = held.isEmpty() ? Long.MAX_VALUE : clock.millis();
+        }
+        for (int i = 0; i < wave.size(); i++) {
+            try {
+                release.put(wave.get(i));
+            } catch (InterruptedException e) {
+                // The rest never reached the dispatcher: hold them again and free their slots
+                for (Task unreleased : wave.subList(i, wave.size())) {
+                    taskRejected(unreleased);
+                    hold(unreleased);
+                }
+                throw e;
+            }
+        }
+        return wave.size();
+    }
+
+    private synchronized void hold(Task task) {
+        if (held.isEmpty()) oldestHeldAt = clock.millis();
+        held.add(new Held(task, sequence++));
+    }
+
+    private synchronized boolean hasRoom() {
+        return inFlight <= lowWater;
+    }
+
+    private synchronized long millisUntilHoldExpires() {
+        if (held.isEmpty()) return Long.MAX_VALUE;
+        return Math.max(0, oldestHeldAt + maxHoldMillis - clock.millis());
+    }
+
+    private static int orderCount(Task task) {
+        return switch (task.getType()) {
+            case PICK_BATCH -> ((PickBatchTask) task).getOrderIds().size();
+            case PICK_ORDER -> 1;
+            default -> 0;
+        };
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlight;
+    }
+
+    public synchronized int getHeldCount() {
+        return held.size();
+    }
+
+    /** Most tasks in flight at once. */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** Reports of the waves completed so far, in completion order. */
+    public List<WaveReport> getWaveReports() {
+        return new ArrayList<>(reports);
+    }
+}
@@ -0,0 +1,66 @@
+package wms.wmsjfx.taskManager;
+
+/**
+ * What one released wave achieved, in simulation time: from its release until
+ * its last task finished. Packing utilisation is the share of packing-station
+ * time that was in use over that span (by this wave or any other in flight).
+ */
+public final class WaveReport {
+    private final int waveNumber;
+    private final int taskCount;
+    private final int orderCount;
+    private final long releasedAtMillis;
+    private final long completedAtMillis;
+    private final double packingUtilisation;
+
+    public WaveReport(int waveNumber, int taskCount, int orderCount,
+                      long releasedAtMillis, long completedAtMillis, double packingUtilisation) {
+        this.waveNumber = waveNumber;
+        this.taskCount = taskCount;
+        this.orderCount = orderCount;
+        this.releasedAtMillis = releasedAtMillis;
+        this.completedAtMillis = completedAtMillis;
+        this.packingUtilisation = packingUtilisation;
+    }
+
+    public int getWaveNumber() {
+        return waveNumber;
+    }
+
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    /** Customer orders in the wave (a pick batch counts each of its orders, a stock task none). */
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public long getReleasedAtMillis() {
+        return releasedAtMillis;
+    }
+
+    public long getCompletedAtMillis() {
+        return completedAtMillis;
+    }
+
+    public long getDurationMillis() {
+        return completedAtMillis - releasedAtMillis;
+    }
+
+    /** Orders per hour of simulation time while the wave was open. */
+    public double getOrdersPerHour() {
+        return orderCount * 3_600_000.0 / Math.max(1, getDurationMillis());
+    }
+
+    /** Between 0 and 1. */
+    public double getPackingUtilisation() {
+        return packingUtilisation;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Wave %d: %d tasks, %d orders in %d ms, %.1f orders/h, packing %.0f%%",
+                waveNumber, taskCount, orderCount, getDurationMillis(), getOrdersPerHour(), packingUtilisation * 100);
+    }
+}
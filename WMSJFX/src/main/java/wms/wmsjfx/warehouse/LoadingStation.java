@@ -15,6 +15,9 @@ public class LoadingStation extends WarehouseObject {
         this.location = new Point(x, y);
     }
 
+    /**
+     * Blocks outside the SimulationClock; robots go through EquipmentManager.acquireLoadingStation.
+     */
     public void acquire() throws InterruptedException {
         permit.acquire();
         this.state = ObjectState.BUSY;
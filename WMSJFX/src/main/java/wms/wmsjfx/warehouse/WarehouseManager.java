@@ -8,6 +8,8 @@ import wms.wmsjfx.warehouse.datamanager.WarehouseDataPacket;
 import java.awt.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
 
 
 /**
@@ -17,6 +19,7 @@ import java.util.List;
 public class WarehouseManager {
     public final WarehouseFloorManager floorManager;
     public final Inventory inventory;
+    private final List<BiConsumer<String, Integer>> quantityListeners = new CopyOnWriteArrayList<>();
 
 
     public WarehouseManager(int width, int length) {
@@ -67,10 +70,24 @@ public class WarehouseManager {
 
     public void increaseProductQuantity (String productID, int amount){
         inventory.increaseProductQuantity(productID, amount);
+        for (BiConsumer<String, Integer> listener : quantityListeners) {
+            listener.accept(productID, amount);
+        }
     }
 
     public void decreaseProductQuantity (String productID, int amount){
         inventory.decreaseProductQuantity(productID, amount);
+        for (BiConsumer<String, Integer> listener : quantityListeners) {
+            listener.accept(productID, -amount);
+        }
+    }
+
+    /**
+     * Registers a callback for every change of a product's quantity: (productID, signed amount).
+     * It runs on the thread that made the change, after the change.
+     */
+    public void addQuantityListener(BiConsumer<String, Integer> listener) {
+        quantityListeners.add(listener);
     }
 
     public List<InventoryDataPacket> exportInventoryData(){
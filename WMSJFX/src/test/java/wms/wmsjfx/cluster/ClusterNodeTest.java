@@ -0,0 +1,120 @@
+package wms.wmsjfx.cluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.taskManager.TaskManager;
+import wms.wmsjfx.taskManager.TaskPriority;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * Cluster wire format, and two nodes in separate JVMs on loopback.
+ */
+class ClusterNodeTest {
+
+    @Test
+    @DisplayName("Frames split at any byte still decode to the messages sent, and a bad length is rejected")
+    void framesSplitAnywhere_decodeToSameMessages() throws Exception {
+        List<ClusterMessage> sent = List.of(
+                ClusterMessage.hello(3),
+                ClusterMessage.orderSubmitted(0, "Order-1", "P1", 2, TaskPriority.EXPRESS, 60_000),
+                ClusterMessage.stockSubmitted(1, "Stock-7", "L0", "P0", 5, TaskPriority.STANDARD, Long.MAX_VALUE),
+                ClusterMessage.taskFinished(1, "Order-1"),
+                ClusterMessage.inventoryChanged(2, "P2", -4));
+        ByteBuffer stream = ByteBuffer.allocate(1024);
+        for (ClusterMessage message : sent) stream.put(message.toFrame());
+        stream.flip();
+        byte[] bytes = new byte[stream.remaining()];
+        stream.get(bytes);
+
+        for (int chunk : new int[]{1, 3, 7, bytes.length}) {
+            FrameDecoder decoder = new FrameDecoder();
+            List<ClusterMessage> received = new ArrayList<>();
+            for (int from = 0; from < bytes.length; from += chunk) {
+                received.addAll(decoder.feed(ByteBuffer.wrap(bytes, from, Math.min(chunk, bytes.length - from))));
+            }
+            assertEquals(sent.toString(), received.toString(), "chunks of " + chunk);
+            assertEquals(-4, received.get(4).getQuantity());
+            assertEquals(TaskPriority.EXPRESS, received.get(1).getPriority());
+        }
+
+        ByteBuffer bad = ByteBuffer.allocate(8).putInt(ClusterMessage.MAX_FRAME_BYTES + 1).putInt(0).flip();
+        assertThrows(ProtocolException.class, () -> new FrameDecoder().feed(bad));
+    }
+
+    @Test
+    @DisplayName("Two nodes in two JVMs: an order for the other zone runs there, its completion comes back and inventory follows")
+    void twoProcesses_orderRoutedByZone_completionAndInventoryReplicated() throws Exception {
+        List<InetSocketAddress> addresses = ClusterTestNode.freeAddresses(2);
+        Process child = ClusterTestNode.spawn(1, addresses, 50);
+        BlockingQueue<String> statusLines = new LinkedBlockingQueue<>();
+        Thread drain = new Thread(() -> {
+            try (BufferedReader out = new BufferedReader(new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = out.readLine()) != null) {
+                    if (line.startsWith("node ")) statusLines.add(line);
+                }
+            } catch (Exception ignored) {
+                // child gone
+            }
+        }, "Child-Stdout");
+        drain.setDaemon(true);
+        drain.start();
+
+        WarehouseManager wm = ClusterTestNode.floor(2);
+        ClusterNode node = ClusterTestNode.newNode(0, addresses, wm, 50);
+        try (Writer childInput = new OutputStreamWriter(child.getOutputStream(), StandardCharsets.UTF_8)) {
+            node.start();
+            assertTrue(node.awaitConnected(20, TimeUnit.SECONDS), "nodes connected");
+
+            TaskManager taskManager = new TaskManager(node.getSubmissionQueue(), wm);
+            taskManager.createNewOrder("P1", 3); // shelf in node 1's zone
+            taskManager.createNewOrder("P0", 2); // shelf in our zone
+
+            assertTrue(waitFor(() -> node.getCompletedCount() == 2, 30_000), "both orders reported finished");
+            assertEquals(1, node.getForwardedCount());
+            assertEquals(0, node.getReceivedCount());
+            assertTrue(waitFor(() -> wm.getProductQuantity("P1") == ClusterTestNode.STOCK - 3, 10_000),
+                    "node 1's pick replicated here");
+            assertEquals(ClusterTestNode.STOCK - 2, wm.getProductQuantity("P0"));
+
+            childInput.write("status\n");
+            childInput.flush();
+            String status = statusLines.poll(10, TimeUnit.SECONDS);
+            assertNotNull(status, "child answered");
+            assertTrue(status.contains("received=1"), status);
+            assertTrue(status.contains("completed=0"), "the forwarded order counts on node 0: " + status);
+        } finally {
+            node.stop(2000);
+            if (!child.waitFor(10, TimeUnit.SECONDS)) {
+                child.destroyForcibly();
+            }
+        }
+    }
+
+    private static boolean waitFor(BooleanSupplier condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) return false;
+            Thread.sleep(20);
+        }
+        return true;
+    }
+}
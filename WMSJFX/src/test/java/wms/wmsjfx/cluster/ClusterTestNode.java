@@ -0,0 +1,115 @@
+package wms.wmsjfx.cluster;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+import wms.wmsjfx.equipmentManager.ChargingStation;
+import wms.wmsjfx.equipmentManager.Robot;
+import wms.wmsjfx.equipmentManager.RobotExecution;
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.taskManager.TaskManager;
+import wms.wmsjfx.warehouse.LoadingStation;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * A cluster node in its own JVM, for the multi-process test and benchmark.
+ * The floor is one STRIP-wide column per node; node i's column has shelf
+ * "S{i}" with product "P{i}", loading station "L{i}", packing station,
+ * charger and ROBOTS robots. Takes ClusterNodeMain's commands on standard input.
+ * Args: nodeId nodeCount port0,port1,... speedUp
+ */
+public class ClusterTestNode {
+
+    static final int STRIP = 10;
+    static final int HEIGHT = 10;
+    static final int ROBOTS = 2;
+    static final int STOCK = 1_000_000;
+
+    public static void main(String[] args) throws Exception {
+        int nodeId = Integer.parseInt(args[0]);
+        int nodeCount = Integer.parseInt(args[1]);
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String port : args[2].split(",")) {
+            addresses.add(new InetSocketAddress("127.0.0.1", Integer.parseInt(port)));
+        }
+        double speedUp = Double.parseDouble(args[3]);
+
+        WarehouseManager wm = floor(nodeCount);
+        ClusterNode node = newNode(nodeId, addresses, wm, speedUp);
+        node.start();
+        ClusterNodeMain.serve(node, new TaskManager(node.getSubmissionQueue(), wm), System.in, System.out);
+        node.stop(2000);
+        System.exit(0);
+    }
+
+    static WarehouseManager floor(int nodeCount) {
+        WarehouseManager wm = new WarehouseManager(STRIP * nodeCount, HEIGHT);
+        for (int i = 0; i < nodeCount; i++) {
+            int x0 = i * STRIP;
+            wm.addObjectToFloor(new StorageShelf("S" + i, x0 + 5, 2, WahouseObjectType.StorageShelf));
+            wm.addProductToInventory(new Product("P" + i, "P" + i), STOCK, "S" + i);
+            wm.addObjectToFloor(new LoadingStation("L" + i, x0, 4, WahouseObjectType.LoadingStation));
+            wm.addObjectToFloor(new PackingStation("PACK" + i, x0 + 1, HEIGHT - 1, WahouseObjectType.PackingStation));
+            wm.addObjectToFloor(new ChargingStation("CHG" + i, x0 + 8, 0, WahouseObjectType.ChargingStation));
+            for (int r = 0; r < ROBOTS; r++) {
+                wm.addObjectToFloor(new Robot("R" + i + "-" + r, new Point(x0 + 2 + 5 * (r % 2), 5 + r / 2), null,
+                        WahouseObjectType.Robot));
+            }
+        }
+        return wm;
+    }
+
+    static List<Rectangle> zones(int nodeCount) {
+        List<Rectangle> zones = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            zones.add(new Rectangle(i * STRIP, 0, STRIP, HEIGHT));
+        }
+        return zones;
+    }
+
+    static ClusterNode newNode(int nodeId, List<InetSocketAddress> addresses, WarehouseManager wm, double speedUp) {
+        return new ClusterNode(nodeId, addresses, zones(addresses.size()), wm, new PathFinding(wm),
+                RobotExecution.PLATFORM_THREADS, SimulationClock.scaled(speedUp));
+    }
+
+    /** Loopback addresses on ports that were free a moment ago. */
+    static List<InetSocketAddress> freeAddresses(int count) throws IOException {
+        List<ServerSocket> sockets = new ArrayList<>();
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                ServerSocket socket = new ServerSocket(0);
+                sockets.add(socket);
+                addresses.add(new InetSocketAddress("127.0.0.1", socket.getLocalPort()));
+            }
+        } finally {
+            for (ServerSocket socket : sockets) socket.close();
+        }
+        return addresses;
+    }
+
+    /** Starts node 'nodeId' in a child JVM on this test classpath. */
+    static Process spawn(int nodeId, List<InetSocketAddress> addresses, double speedUp) throws IOException {
+        StringBuilder ports = new StringBuilder();
+        for (InetSocketAddress address : addresses) {
+            if (ports.length() > 0) ports.append(',');
+            ports.append(address.getPort());
+        }
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), ClusterTestNode.class.getName(),
+                String.valueOf(nodeId), String.valueOf(addresses.size()), ports.toString(), String.valueOf(speedUp))
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+    }
+}
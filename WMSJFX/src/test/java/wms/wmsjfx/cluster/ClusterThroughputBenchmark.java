@@ -0,0 +1,120 @@
+package wms.wmsjfx.cluster;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manual benchmark (not run by surefire): weak scaling of a cluster of 1, 2
+ * and 4 node processes on loopback. Each node owns one ClusterTestNode strip
+ * and gets the same number of orders; a share of them are for another
+ * node's shelf, so they are forwarded, run there and reported back. Reports
+ * orders finished per second for the whole cluster. With one core per node
+ * the rate should grow about linearly with the node count; at higher
+ * speed-ups the nodes become CPU-bound and share the cores instead.
+ * Run with: java -cp target/classes:target/test-classes wms.wmsjfx.cluster.ClusterThroughputBenchmark [ordersPerNode] [remoteShare] [speedUp]
+ */
+public class ClusterThroughputBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int ordersPerNode = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        double remoteShare = args.length > 1 ? Double.parseDouble(args[1]) : 0.2;
+        double speedUp = args.length > 2 ? Double.parseDouble(args[2]) : 50;
+
+        double base = 0;
+        for (int nodeCount : new int[]{1, 2, 4}) {
+            double seconds = run(nodeCount, ordersPerNode, remoteShare, speedUp);
+            double rate = nodeCount * ordersPerNode / seconds;
+            if (nodeCount == 1) base = rate;
+            System.out.printf("%d node(s): %d orders in %.2f s (%.0f orders/s, %.2fx one node)%n",
+                    nodeCount, nodeCount * ordersPerNode, seconds, rate, rate / base);
+        }
+    }
+
+    /** Runs one cluster until every node has seen all its orders finish; returns the seconds it took. */
+    private static double run(int nodeCount, int ordersPerNode, double remoteShare, double speedUp) throws Exception {
+        List<InetSocketAddress> addresses = ClusterTestNode.freeAddresses(nodeCount);
+        List<Child> children = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            children.add(new Child(ClusterTestNode.spawn(i, addresses, speedUp)));
+        }
+        try {
+            for (Child child : children) {
+                while (!child.status().contains("connected=true")) {
+                    Thread.sleep(100);
+                }
+            }
+
+            Random random = new Random(11);
+            long start = System.nanoTime();
+            for (int i = 0; i < nodeCount; i++) {
+                StringBuilder orders = new StringBuilder();
+                for (int o = 0; o < ordersPerNode; o++) {
+                    int shelf = nodeCount > 1 && random.nextDouble() < remoteShare
+                            ? (i + 1 + random.nextInt(nodeCount - 1)) % nodeCount
+                            : i;
+                    orders.append("order P").append(shelf).append(" 1\n");
+                }
+                children.get(i).send(orders.toString());
+            }
+            for (Child child : children) {
+                while (!child.status().contains("completed=" + ordersPerNode)) {
+                    Thread.sleep(50);
+                }
+            }
+            return (System.nanoTime() - start) / 1e9;
+        } finally {
+            for (Child child : children) child.close();
+        }
+    }
+
+    /** A node process, driven through its standard input. */
+    private static final class Child {
+        final Process process;
+        final Writer input;
+        final BlockingQueue<String> statusLines = new LinkedBlockingQueue<>();
+
+        Child(Process process) {
+            this.process = process;
+            this.input = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+            Thread drain = new Thread(() -> {
+                try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = out.readLine()) != null) {
+                        if (line.startsWith("node ")) statusLines.add(line);
+                    }
+                } catch (Exception ignored) {
+                    // process gone
+                }
+            });
+            drain.setDaemon(true);
+            drain.start();
+        }
+
+        void send(String lines) throws Exception {
+            input.write(lines);
+            input.flush();
+        }
+
+        String status() throws Exception {
+            send("status\n");
+            String line = statusLines.poll(30, TimeUnit.SECONDS);
+            if (line == null) throw new IllegalStateException("node did not answer");
+            return line;
+        }
+
+        void close() throws Exception {
+            input.close();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package wms.wmsjfx.equipmentManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.taskManager.ChargeTask;
+import wms.wmsjfx.taskManager.GoToStartTask;
+import wms.wmsjfx.taskManager.OrderTask;
+import wms.wmsjfx.taskManager.Task;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+class ChargingPlannerTest {
+
+    private static final ChargingStation WEST = new ChargingStation("West", 0, 0, WahouseObjectType.ChargingStation);
+    private static final ChargingStation EAST = new ChargingStation("East", 20, 0, WahouseObjectType.ChargingStation);
+
+    /** Path cost 10 per metre along the axes: 250 ms of travel per metre, 10 ms of charging per percent. */
+    private static ChargingPlanner planner() {
+        return new ChargingPlanner(List.of(WEST, EAST),
+                (station, from) -> 10 * (Math.abs(station.x - from.x) + Math.abs(station.y - from.y)),
+                SimulationClock.discreteEvent());
+    }
+
+    @Test
+    @DisplayName("A robot is booked where its charge finishes first; a later robot gets the next free slot")
+    void bookingsDoNotOverlap() {
+        ChargingPlanner planner = planner();
+
+        // 2 m to West: arrives at 1500 ms with 18%, charged 820 ms later
+        ChargingPlanner.Booking first = planner.book("R1", new Point(2, 0), 1_000, 20);
+        assertSame(WEST, first.station);
+        assertEquals(1_500, first.startMillis);
+        assertEquals(2_320, first.endMillis);
+
+        ChargingPlanner.Booking second = planner.book("R2", new Point(2, 0), 1_000, 20);
+        assertSame(WEST, second.station, "waiting for West still beats driving to East");
+        assertEquals(2_320, second.startMillis);
+
+        planner.cancel("R1");
+        assertEquals(1_500, planner.book("R2", new Point(2, 0), 1_000, 20).startMillis);
+        assertEquals(1, planner.getBookingCount(), "a robot holds one booking at a time");
+    }
+
+    @Test
+    @DisplayName("freeMillis is the room left before another robot's slot")
+    void freeMillis_gapBeforeOtherSlots() {
+        ChargingPlanner planner = planner();
+        planner.bookNow("R1", WEST, 1_000, 2_000);
+
+        assertEquals(1_000, planner.freeMillis(WEST, "R2", 0));
+        assertEquals(0, planner.freeMillis(WEST, "R2", 1_500), "a charge is under way");
+        assertEquals(Long.MAX_VALUE, planner.freeMillis(WEST, "R2", 2_000));
+        assertEquals(Long.MAX_VALUE, planner.freeMillis(WEST, "R1", 0), "a robot's own slot is no obstacle");
+        assertEquals(Long.MAX_VALUE, planner.freeMillis(EAST, "R2", 0));
+    }
+
+    /** A 20x10 floor: shelf S1 at (5, 2), packing at (0, 9), chargers at (0, 0) and (19, 9). */
+    private static WarehouseManager floor() {
+        WarehouseManager wm = new WarehouseManager(20, 10);
+        wm.addObjectToFloor(new StorageShelf("S1", 5, 2, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new PackingStation("P1", 0, 9, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("C1", 19, 9, WahouseObjectType.ChargingStation));
+        wm.addObjectToFloor(new ChargingStation("C2", 0, 0, WahouseObjectType.ChargingStation));
+        wm.addProductToInventory(new Product("Bolt", "B"), 100, "S1");
+        return wm;
+    }
+
+    @Test
+    @DisplayName("With predictive charging a robot whose order will leave it low is booked a slot near the shelf, and charges there")
+    void lowForecast_bookedStationUsed() throws Exception {
+        WarehouseManager wm = floor();
+        EquipmentManager em = new EquipmentManager(wm, new ArrayBlockingQueue<>(4), new PathFinding(wm),
+                RobotExecution.PLATFORM_THREADS, SimulationClock.discreteEvent());
+        em.setPredictiveCharging(true);
+        Robot robot = new Robot("R1", new Point(14, 6), em, WahouseObjectType.Robot);
+        robot.setBatteryPercentage(45);
+        em.getRobot().add(robot);
+        OrderTask order = new OrderTask("O1", "B", 1, wm);
+
+        em.replay(List.of(DispatchEvent.taskSubmitted(order)));
+        assertEquals(List.of(order), robot.getQueuedTasks());
+        ChargingPlanner.Booking booking = em.getChargingBooking(robot);
+        assertNotNull(booking);
+        assertEquals("C2", booking.station.getId(), "C2 is nearer the shelf the robot ends at");
+
+        robot.setBatteryPercentage(20);
+        em.reportFinishedTask(robot, order, true);
+        Task next = robot.getQueuedTasks().get(1);
+        assertInstanceOf(ChargeTask.class, next);
+        assertEquals("C2", ((ChargeTask) next).getChargingStation().getId(), "its booked station, not the nearest (C1)");
+    }
+
+    @Test
+    @DisplayName("A robot that has to charge now is booked from when it reaches the station, however long the drive")
+    void chargeNow_bookedFromArrival() throws Exception {
+        WarehouseManager wm = floor();
+        PathFinding pathFinding = new PathFinding(wm);
+        EquipmentManager em = new EquipmentManager(wm, new ArrayBlockingQueue<>(4), pathFinding,
+                RobotExecution.PLATFORM_THREADS, SimulationClock.discreteEvent());
+        em.setPredictiveCharging(true);
+        // 80% to charge takes 800 ms; the drive to either station takes longer
+        Robot robot = new Robot("R1", new Point(10, 5), em, WahouseObjectType.Robot);
+        robot.setBatteryPercentage(20);
+
+        em.reportFinishedTask(robot, new OrderTask("O1", "B", 1, wm), true);
+
+        Task next = robot.getQueuedTasks().get(0);
+        assertInstanceOf(ChargeTask.class, next);
+        ChargingStation station = ((ChargeTask) next).getChargingStation();
+        ChargingPlanner.Booking booking = em.getChargingBooking(robot);
+        assertSame(station, booking.station);
+        long travel = new ChargingPlanner(List.of(station), pathFinding.getStationDistanceFields()::getDistance,
+                SimulationClock.discreteEvent()).travelMillis(station, robot.getCurrentPosition());
+        assertTrue(travel > ChargingPlanner.chargeMillis(20, 100));
+        assertEquals(travel, booking.startMillis);
+        assertEquals(booking.startMillis + ChargingPlanner.chargeMillis(20, 100), booking.endMillis);
+    }
+
+    @Test
+    @DisplayName("With predictive charging a robot out of work below the top-up level tops up at a nearby station instead of going home")
+    void noPendingWork_topUp() throws Exception {
+        for (boolean predictive : new boolean[]{false, true}) {
+            WarehouseManager wm = floor();
+            EquipmentManager em = new EquipmentManager(wm, new ArrayBlockingQueue<>(4), new PathFinding(wm),
+                    RobotExecution.PLATFORM_THREADS, SimulationClock.discreteEvent());
+            em.setPredictiveCharging(predictive);
+            em.getRobot().add(new Robot("R2", new Point(10, 5), em, WahouseObjectType.Robot)); // idle for the next order
+            // 1 m from C2: the drive is shorter than the 400 ms top-up
+            Robot robot = new Robot("R1", new Point(1, 0), em, WahouseObjectType.Robot);
+            robot.setBatteryPercentage(60);
+
+            em.reportFinishedTask(robot, new OrderTask("O1", "B", 1, wm), true);
+
+            Task next = robot.getQueuedTasks().get(0);
+            if (predictive) {
+                assertInstanceOf(ChargeTask.class, next);
+                assertEquals(100, ((ChargeTask) next).getTargetPercentage(), 1e-9, "no slot is booked after it");
+            } else {
+                assertInstanceOf(GoToStartTask.class, next);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package wms.wmsjfx.equipmentManager;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.taskManager.OrderTask;
+import wms.wmsjfx.taskManager.Task;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * Manual benchmark (not run by surefire): greedy one-task-at-a-time dispatch against
+ * batched Hungarian assignment. Each wave places idle robots at random and submits a
+ * burst of pick orders; reported are the summed travel to the pick locations and the
+ * time the dispatcher spends deciding.
+ * Run with: java -cp target/classes:target/test-classes wms.wmsjfx.equipmentManager.DispatchBenchmark [robots] [tasks] [waves]
+ */
+public class DispatchBenchmark {
+
+    private static final int SIZE = 40;
+
+    public static void main(String[] args) throws Exception {
+        int robots = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int tasks = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int waves = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        WarehouseManager wm = new WarehouseManager(SIZE, SIZE);
+        List<String> products = new ArrayList<>();
+        for (int x = 3; x < SIZE - 2; x += 4) {
+            for (int y = 2; y < SIZE - 2; y += 3) {
+                String shelf = "S" + x + "-" + y;
+                wm.addObjectToFloor(new StorageShelf(shelf, x, y, WahouseObjectType.StorageShelf));
+                String product = "P" + x + "-" + y;
+                wm.addProductToInventory(new Product(product, product), 1_000, shelf);
+                products.add(product);
+            }
+        }
+        wm.addObjectToFloor(new PackingStation("PACK", 0, SIZE / 2, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("CHARGE", SIZE - 1, SIZE / 2, WahouseObjectType.ChargingStation));
+
+        PathFinding pathFinding = new PathFinding(wm);
+        EquipmentManager em = new EquipmentManager(wm, new LinkedBlockingQueue<>(), pathFinding);
+        Random random = new Random(42);
+
+        double greedyTravel = 0, batchTravel = 0;
+        long greedyDecisionNs = 0, batchDecisionNs = 0;
+        double greedyLatencyNs = 0; // mean wait of a task in the burst until its robot is chosen
+        int greedyAssigned = 0, batchAssigned = 0;
+
+        for (int wave = 0; wave < waves; wave++) {
+            List<Robot> fleet = new ArrayList<>();
+            for (int r = 0; r < robots; r++) {
+                Point p;
+                do {
+                    p = new Point(random.nextInt(SIZE), random.nextInt(SIZE));
+                } while (!pathFinding.getWarehouseMap().isWalkable(p.x, p.y));
+                fleet.add(new Robot("R" + r, p, null, WahouseObjectType.Robot));
+            }
+            List<Task> burst = new ArrayList<>();
+            for (int t = 0; t < tasks; t++) {
+                String product = products.get(random.nextInt(products.size()));
+                burst.add(new OrderTask("W" + wave + "-" + t, product, 1, wm));
+            }
+
+            // Greedy: tasks in arrival order, each to the closest feasible robot
+            em.getRobot().clear();
+            em.getRobot().addAll(fleet);
+            long start = System.nanoTime();
+            long waited = 0;
+            for (Task task : burst) {
+                Robot robot = em.selectRobot(task);
+                waited += System.nanoTime() - start;
+                if (robot == null) continue;
+                em.getRobot().remove(robot);
+                greedyTravel += travel(pathFinding, robot, task);
+                greedyAssigned++;
+            }
+            greedyDecisionNs += System.nanoTime() - start;
+            greedyLatencyNs += (double) waited / burst.size();
+
+            // Batch: the whole burst at once
+            em.getRobot().clear();
+            em.getRobot().addAll(fleet);
+            start = System.nanoTime();
+            Map<Task, Robot> plan = em.planBatchAssignment(burst);
+            batchDecisionNs += System.nanoTime() - start;
+            for (Map.Entry<Task, Robot> e : plan.entrySet()) {
+                batchTravel += travel(pathFinding, e.getValue(), e.getKey());
+            }
+            batchAssigned += plan.size();
+        }
+        em.getRobot().clear();
+
+        System.out.printf("%d robots, %d tasks per wave, %d waves on a %dx%d floor%n", robots, tasks, waves, SIZE, SIZE);
+        System.out.printf("greedy     assigned %4d  travel %9.1f m  decision %7.1f ms/wave  mean latency %7.1f ms%n",
+                greedyAssigned, greedyTravel, greedyDecisionNs / 1e6 / waves, greedyLatencyNs / 1e6 / waves);
+        System.out.printf("hungarian  assigned %4d  travel %9.1f m  decision %7.1f ms/wave  mean latency %7.1f ms + window%n",
+                batchAssigned, batchTravel, batchDecisionNs / 1e6 / waves, batchDecisionNs / 1e6 / waves);
+    }
+
+    private static double travel(PathFinding pathFinding, Robot robot, Task task) {
+        Point prev = robot.getCurrentPosition();
+        double d = 0;
+        for (Point step : pathFinding.findPath(prev, ((OrderTask) task).getItemLocation())) {
+            d += prev.distance(step);
+            prev = step;
+        }
+        return d;
+    }
+}
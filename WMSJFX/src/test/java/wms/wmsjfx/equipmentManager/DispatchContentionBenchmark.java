@@ -0,0 +1,133 @@
+package wms.wmsjfx.equipmentManager;
+
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.taskManager.GoToStartTask;
+import wms.wmsjfx.taskManager.OrderTask;
+import wms.wmsjfx.taskManager.Task;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * Manual benchmark (not run by surefire): how long robot threads are blocked on
+ * EquipmentManager locks while the dispatcher evaluates a steady stream of orders.
+ * Blocked time comes from JVM thread contention monitoring, so it counts only
+ * waiting for a monitor, not the caller's own path and energy computations.
+ * Robots are simulated by reporter threads (no Robot threads are started), each
+ * reporting its robot back at the start position over and over; the dispatcher
+ * keeps claiming those robots for new orders.
+ * Pass "events" as the third argument to run the event-loop dispatcher instead.
+ * Run with: java -cp target/classes:target/test-classes wms.wmsjfx.equipmentManager.DispatchContentionBenchmark [reporters] [seconds] [events]
+ */
+public class DispatchContentionBenchmark {
+
+    private static final int SIZE = 40;
+    private static final int FLEET = 16;
+
+    public static void main(String[] args) throws Exception {
+        int reporters = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        boolean eventLoop = args.length > 2 && args[2].equals("events");
+
+        WarehouseManager wm = new WarehouseManager(SIZE, SIZE);
+        List<String> products = new ArrayList<>();
+        for (int x = 3; x < SIZE - 2; x += 4) {
+            for (int y = 2; y < SIZE - 2; y += 3) {
+                String shelf = "S" + x + "-" + y;
+                wm.addObjectToFloor(new StorageShelf(shelf, x, y, WahouseObjectType.StorageShelf));
+                wm.addProductToInventory(new Product(shelf, shelf), 1_000_000, shelf);
+                products.add(shelf);
+            }
+        }
+        wm.addObjectToFloor(new PackingStation("PACK", 0, SIZE / 2, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("CHARGE", SIZE - 1, SIZE / 2, WahouseObjectType.ChargingStation));
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.setThreadContentionMonitoringEnabled(true);
+
+        LinkedBlockingQueue<Task> submissions = new LinkedBlockingQueue<>();
+        EquipmentManager em = new EquipmentManager(wm, submissions, new PathFinding(wm));
+        em.setEventLoopDispatch(eventLoop);
+        Random random = new Random(1);
+        for (int r = 0; r < FLEET; r++) {
+            em.getRobot().add(new Robot("F" + r, new Point(1 + 2 * r, 1), null, WahouseObjectType.Robot));
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread dispatcher = new Thread(em, "Dispatcher");
+        dispatcher.setDaemon(true); // may still be working off a backlog when the run ends
+        dispatcher.start();
+        AtomicInteger submitted = new AtomicInteger();
+        Thread producer = new Thread(() -> {
+            while (running.get()) {
+                try {
+                    submissions.put(new OrderTask("O" + submitted.getAndIncrement(), products.get(random.nextInt(products.size())), 1, wm));
+                    Thread.sleep(5);
+                } catch (Exception e) {
+                    return;
+                }
+            }
+        }, "Producer");
+        producer.start();
+
+        ConcurrentLinkedQueue<Long> waits = new ConcurrentLinkedQueue<>();
+        List<Thread> reporterThreads = new ArrayList<>();
+        for (int i = 0; i < reporters; i++) {
+            Robot robot = new Robot("R" + i, new Point(1 + 2 * i, SIZE - 2), null, WahouseObjectType.Robot);
+            Task back = new GoToStartTask(robot.getStartingPosition());
+            Thread t = new Thread(() -> {
+                while (running.get()) {
+                    try {
+                        long start = System.nanoTime();
+                        em.reportFinishedTask(robot, back, true);
+                        waits.add(System.nanoTime() - start);
+                        Thread.sleep(2);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "Reporter-" + i);
+            t.start();
+            reporterThreads.add(t);
+        }
+
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        long reporterBlockedMs = 0;
+        for (Thread t : reporterThreads) {
+            reporterBlockedMs += threads.getThreadInfo(t.threadId()).getBlockedTime();
+        }
+        long dispatcherBlockedMs = threads.getThreadInfo(dispatcher.threadId()).getBlockedTime();
+        for (Thread t : reporterThreads) t.join();
+        producer.join();
+        dispatcher.interrupt();
+        dispatcher.join(1000);
+
+        long[] sorted = waits.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("%s dispatcher, %d reporter threads, %d idle robots, %d s%n",
+                eventLoop ? "event-loop" : "greedy", reporters, FLEET, seconds);
+        System.out.printf("reportFinishedTask calls %d  p50 %.2f ms  p99 %.2f ms  max %.2f ms%n", sorted.length,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+        System.out.printf("blocked on monitors: reporters %d ms in total, dispatcher %d ms%n", reporterBlockedMs, dispatcherBlockedMs);
+        System.out.printf("orders submitted %d, still queued for dispatch %d, pending %d%n",
+                submitted.get(), submissions.size(), em.getPendingTasks().size());
+    }
+
+    private static double percentile(long[] sorted, double q) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) (q * sorted.length))] / 1e6;
+    }
+}
@@ -0,0 +1,63 @@
+package wms.wmsjfx.equipmentManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.pathFinding.WarehouseMap;
+import wms.wmsjfx.taskManager.GoToStartTask;
+import wms.wmsjfx.taskManager.Task;
+
+class EnergyFeasibilityCacheTest {
+
+    private final WarehouseMap map = new WarehouseMap(10, 10, List.of());
+    private final AtomicInteger tailCalls = new AtomicInteger();
+    private final AtomicInteger legCalls = new AtomicInteger();
+    // Tail of 20, leg = Manhattan distance to (9, 9); (0, 0) has no route
+    private final EnergyFeasibilityCache cache = new EnergyFeasibilityCache(map,
+            task -> {
+                tailCalls.incrementAndGet();
+                return 20;
+            },
+            (from, task) -> {
+                legCalls.incrementAndGet();
+                return from.equals(new Point(0, 0)) ? EnergyFeasibilityCache.UNAVAILABLE : (9 - from.x) + (9 - from.y);
+            });
+
+    @Test
+    @DisplayName("The task tail is computed once; the leg once per robot cell")
+    void tailOncePerTask_legOncePerCell() {
+        Task task = new GoToStartTask(new Point(9, 9));
+
+        assertEquals(36.0, cache.requiredEnergy(task, new Point(1, 1)));
+        assertEquals(36.0, cache.requiredEnergy(task, new Point(1, 1)));
+        assertEquals(28.0, cache.requiredEnergy(task, new Point(5, 5)));
+        assertEquals(EnergyFeasibilityCache.UNAVAILABLE, cache.requiredEnergy(task, new Point(0, 0)));
+        assertEquals(EnergyFeasibilityCache.UNAVAILABLE, cache.requiredEnergy(task, new Point(0, 0)));
+
+        assertEquals(1, tailCalls.get());
+        assertEquals(3, legCalls.get());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    @DisplayName("A map change drops every entry; forgotten tasks are removed")
+    void mapChangeInvalidates_forgetRemoves() {
+        Task task = new GoToStartTask(new Point(9, 9));
+        cache.requiredEnergy(task, new Point(1, 1));
+
+        map.setWalkable(new Point(4, 4), false);
+        cache.requiredEnergy(task, new Point(1, 1));
+        assertEquals(2, tailCalls.get());
+        assertEquals(2, legCalls.get());
+
+        cache.forget(task);
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,96 @@
+package wms.wmsjfx.equipmentManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.taskManager.OrderTask;
+import wms.wmsjfx.taskManager.Task;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * Batched (window) dispatch in the EquipmentManager.
+ * Robots are added to the idle list directly, so no Robot threads are started.
+ */
+class EquipmentManagerBatchDispatchTest {
+
+    private final BlockingQueue<Task> queue = new ArrayBlockingQueue<>(32);
+    private final WarehouseManager wm = new WarehouseManager(14, 3);
+    private Robot near;
+    private Robot far;
+
+    /** Two shelves on a corridor; one robot right next to the first, one at the far end. */
+    private EquipmentManager newEM() {
+        wm.addObjectToFloor(new StorageShelf("S1", 5, 0, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new StorageShelf("S2", 11, 0, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new PackingStation("P1", 0, 2, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("C1", 13, 2, WahouseObjectType.ChargingStation));
+        wm.addProductToInventory(new Product("Bolt", "B"), 5, "S1");
+        wm.addProductToInventory(new Product("Nut", "N"), 5, "S2");
+
+        EquipmentManager em = new EquipmentManager(wm, queue, new PathFinding(wm));
+        near = new Robot("NEAR", new Point(6, 1), null, WahouseObjectType.Robot);
+        far = new Robot("FAR", new Point(0, 1), null, WahouseObjectType.Robot);
+        em.getRobot().add(near);
+        em.getRobot().add(far);
+        return em;
+    }
+
+    @Test
+    @DisplayName("The batch plan minimises total travel instead of taking the closest robot per task")
+    void planMinimisesTotalTravel() throws Exception {
+        EquipmentManager em = newEM();
+        Task bolt = new OrderTask("O1", "B", 1, wm);
+        Task nut = new OrderTask("O2", "N", 1, wm);
+
+        // Greedy would send NEAR to the bolts (1.4) and FAR all the way to the nuts (11.4)
+        Map<Task, Robot> plan = em.planBatchAssignment(List.of(bolt, nut));
+        assertSame(far, plan.get(bolt));
+        assertSame(near, plan.get(nut));
+        assertEquals(2, em.getRobot().size(), "Planning alone must not change the idle list");
+    }
+
+    @Test
+    @DisplayName("Tasks arriving within the window are dispatched together; the surplus goes to pending")
+    void windowDispatch_assignsAndQueuesSurplus() throws Exception {
+        EquipmentManager em = newEM();
+        em.setBatchDispatchWindow(200);
+        queue.put(new OrderTask("O1", "B", 1, wm));
+        queue.put(new OrderTask("O2", "N", 1, wm));
+        queue.put(new OrderTask("O3", "B", 1, wm));
+
+        Thread dispatcher = new Thread(em, "Dispatcher");
+        dispatcher.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (em.getPendingTasks().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        dispatcher.interrupt();
+        dispatcher.join(2000);
+
+        assertTrue(em.getRobot().isEmpty(), "Both idle robots should have been dispatched");
+        assertEquals(1, em.getPendingTasks().size());
+        // Both robots serve the close bolt orders; the far-away nut order waits
+        assertEquals("O2", em.getPendingTasks().get(0).getID());
+    }
+
+    @Test
+    @DisplayName("A negative batch window is rejected")
+    void negativeWindowRejected() {
+        EquipmentManager em = newEM();
+        assertThrows(IllegalArgumentException.class, () -> em.setBatchDispatchWindow(-1));
+        assertEquals(0, em.getBatchDispatchWindow());
+    }
+}
@@ -2,20 +2,29 @@ package wms.wmsjfx.equipmentManager;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.taskManager.GoToStartTask;
+import wms.wmsjfx.taskManager.OrderTask;
 import wms.wmsjfx.taskManager.Task;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
 import wms.wmsjfx.warehouse.WahouseObjectType;
 import wms.wmsjfx.warehouse.WarehouseManager;
 
 /**
- * EquipmentManager charger allocation edge cases.
+ * EquipmentManager charger allocation and dispatch contention edge cases.
  * These tests avoid starting Robot threads by creating a WarehouseManager with 0 robots.
  */
 class EquipmentManagerContentionTest {
@@ -50,6 +59,8 @@ class EquipmentManagerContentionTest {
         Robot r2 = new Robot("R2", new java.awt.Point(1,1), null, WahouseObjectType.Robot);
         r1.setEquipmentManager(em);
         r2.setEquipmentManager(em);
+        em.getRobot().add(r1);
+        em.getRobot().add(r2);
 
         // Make them "request" charge while idle
         em.idleRobotRequestsCharge(r1);
@@ -88,4 +99,102 @@ class EquipmentManagerContentionTest {
         assertNotNull(got3, "Station should be available after release");
         assertEquals("C1", got3.getId());
     }
+
+    @Test
+    @DisplayName("An idle timeout of a robot the dispatcher claimed a moment earlier is ignored")
+    void idleTimeout_afterClaim_ignored() throws Exception {
+        WarehouseManager wm = stockedFloor();
+        EquipmentManager em = new EquipmentManager(wm, new ArrayBlockingQueue<>(4), new PathFinding(wm));
+        Robot robot = new Robot("R1", new Point(0, 11), null, WahouseObjectType.Robot);
+        robot.setBatteryPercentage(50);
+        em.getRobot().add(robot);
+        Task order = new OrderTask("O1", "B", 1, wm);
+        em.replay(List.of(DispatchEvent.taskSubmitted(order)));
+        assertEquals(List.of(order), robot.getQueuedTasks());
+
+        em.idleRobotRequestsCharge(robot); // timed out just before the order reached it
+
+        assertEquals(List.of(order), robot.getQueuedTasks(), "no charge queued behind the order");
+        assertFalse(em.getRobot().contains(robot), "a robot with work is not idle");
+    }
+
+    /** A 12x12 floor with one stocked shelf, a packing and a charging station, and no robots. */
+    private static WarehouseManager stockedFloor() {
+        WarehouseManager wm = new WarehouseManager(12, 12);
+        wm.addObjectToFloor(new StorageShelf("S1", 6, 6, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new PackingStation("P1", 0, 0, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("C1", 11, 11, WahouseObjectType.ChargingStation));
+        wm.addProductToInventory(new Product("Bolt", "B"), 100, "S1");
+        return wm;
+    }
+
+    @Test
+    @DisplayName("Robot callbacks do not wait for a thread holding the manager's monitor")
+    void callbacks_doNotBlockOnManagerMonitor() throws Exception {
+        EquipmentManager em = newEMWithEmptyFloor();
+        Robot robot = new Robot("R1", new Point(0, 0), null, WahouseObjectType.Robot);
+
+        Thread caller = new Thread(() -> {
+            try {
+                em.reportFinishedTask(robot, new GoToStartTask(new Point(0, 0)), true);
+                em.idleRobotRequestsCharge(robot);
+                em.getPendingTasks();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        synchronized (em) {
+            caller.start();
+            caller.join(2000);
+            assertFalse(caller.isAlive(), "Callbacks blocked on the EquipmentManager monitor");
+        }
+        assertTrue(em.getRobot().contains(robot));
+    }
+
+    @Test
+    @DisplayName("Robots finishing at the same time each claim a different pending task")
+    void concurrentFinishers_claimEachPendingTaskOnce() throws Exception {
+        WarehouseManager wm = stockedFloor();
+        BlockingQueue<Task> sharedQueue = new ArrayBlockingQueue<>(32);
+        EquipmentManager em = new EquipmentManager(wm, sharedQueue, new PathFinding(wm));
+
+        // No idle robots yet, so every submitted order goes to the pending queue
+        int count = 12;
+        for (int i = 0; i < count; i++) {
+            sharedQueue.put(new OrderTask("O" + i, "B", 1, wm));
+        }
+        Thread dispatcher = new Thread(em, "Dispatcher");
+        dispatcher.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (em.getPendingTasks().size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, em.getPendingTasks().size());
+
+        // The same number of robots report back at once; each must end up with its own task
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> finishers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Robot robot = new Robot("R" + i, new Point(i, 1), null, WahouseObjectType.Robot);
+            Thread t = new Thread(() -> {
+                try {
+                    go.await();
+                    em.reportFinishedTask(robot, new GoToStartTask(robot.getStartingPosition()), true);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            t.start();
+            finishers.add(t);
+        }
+        go.countDown();
+        for (Thread t : finishers) {
+            t.join(10_000);
+        }
+        dispatcher.interrupt();
+        dispatcher.join(2000);
+
+        assertTrue(em.getPendingTasks().isEmpty(), "Left pending: " + em.getPendingTasks());
+        assertTrue(em.getRobot().isEmpty(), "A robot went idle, so some task was handed out twice");
+    }
 }
@@ -0,0 +1,148 @@
+package wms.wmsjfx.equipmentManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.taskManager.GoToStartTask;
+import wms.wmsjfx.taskManager.OrderTask;
+import wms.wmsjfx.taskManager.Task;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * Event-loop dispatch mode of the EquipmentManager.
+ * Robots are added to the idle set directly, so no Robot threads are started.
+ */
+class EquipmentManagerEventLoopTest {
+
+    /** One warehouse with two idle robots; identical every time it is built. */
+    private static final class World {
+        final WarehouseManager wm = new WarehouseManager(14, 3);
+        final BlockingQueue<Task> queue = new ArrayBlockingQueue<>(32);
+        final Map<String, Robot> robots = new HashMap<>();
+        final EquipmentManager em;
+
+        World() {
+            wm.addObjectToFloor(new StorageShelf("S1", 5, 0, WahouseObjectType.StorageShelf));
+            wm.addObjectToFloor(new StorageShelf("S2", 11, 0, WahouseObjectType.StorageShelf));
+            wm.addObjectToFloor(new PackingStation("P1", 0, 2, WahouseObjectType.PackingStation));
+            wm.addObjectToFloor(new ChargingStation("C1", 13, 2, WahouseObjectType.ChargingStation));
+            wm.addProductToInventory(new Product("Bolt", "B"), 50, "S1");
+            wm.addProductToInventory(new Product("Nut", "N"), 50, "S2");
+            em = new EquipmentManager(wm, queue, new PathFinding(wm));
+            em.setEventLoopDispatch(true);
+            robots.put("NEAR", new Robot("NEAR", new Point(6, 1), null, WahouseObjectType.Robot));
+            robots.put("FAR", new Robot("FAR", new Point(0, 1), null, WahouseObjectType.Robot));
+            em.getRobot().addAll(robots.values());
+        }
+
+        Task order(String id, String product) throws Exception {
+            return new OrderTask(id, product, 1, wm);
+        }
+
+        /** Task ids queued per robot plus the pending ids: the decisions taken so far. */
+        Map<String, List<String>> decisions() {
+            Map<String, List<String>> decisions = new HashMap<>();
+            for (Robot robot : robots.values()) {
+                List<String> ids = new ArrayList<>();
+                for (Task task : robot.getQueuedTasks()) ids.add(task.getID());
+                decisions.put(robot.getId(), ids);
+            }
+            List<String> pending = new ArrayList<>();
+            for (Task task : em.getPendingTasks()) pending.add(task.getID());
+            decisions.put("pending", pending);
+            return decisions;
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean(), "Timed out waiting for the dispatcher");
+    }
+
+    @Test
+    @DisplayName("Robot callbacks only publish events; every decision is made on the dispatcher thread")
+    void callbacksPublish_dispatcherDecides() throws Exception {
+        World world = new World();
+        List<String> processingThreads = new CopyOnWriteArrayList<>();
+        world.em.setEventRecorder(event -> processingThreads.add(Thread.currentThread().getName()));
+        Thread dispatcher = new Thread(world.em, "Dispatcher");
+        dispatcher.start();
+
+        world.queue.put(world.order("O1", "B"));
+        Robot busy = world.robots.get("NEAR");
+        // The robot is claimed before the task is queued on it; wait for both
+        await(() -> world.em.getRobot().size() == 1 && !busy.getQueuedTasks().isEmpty());
+        assertEquals(List.of("O1"), world.decisions().get("NEAR"));
+
+        // The robot reports back; the call returns and the dispatcher puts it back to idle
+        world.em.reportFinishedTask(busy, new GoToStartTask(busy.getStartingPosition()), true);
+        await(() -> world.em.getRobot().contains(busy));
+        assertThrows(IllegalStateException.class, () -> world.em.setEventLoopDispatch(false));
+
+        dispatcher.interrupt();
+        dispatcher.join(2000);
+        assertEquals(2, processingThreads.size());
+        assertTrue(processingThreads.stream().allMatch("Dispatcher"::equals), processingThreads.toString());
+    }
+
+    @Test
+    @DisplayName("Replaying the recorded events on an identical floor reproduces every decision")
+    void recordedRun_replaysToSameDecisions() throws Exception {
+        World live = new World();
+        List<DispatchEvent> recorded = new CopyOnWriteArrayList<>();
+        live.em.setEventRecorder(recorded::add);
+        Thread dispatcher = new Thread(live.em, "Dispatcher");
+        dispatcher.start();
+
+        for (int i = 0; i < 4; i++) {
+            live.queue.put(live.order("O" + i, i % 2 == 0 ? "B" : "N"));
+        }
+        await(() -> live.em.getPendingTasks().size() == 2);
+        Robot near = live.robots.get("NEAR");
+        live.em.reportFinishedTask(near, new GoToStartTask(near.getStartingPosition()), true);
+        live.em.idleRobotRequestsCharge(live.robots.get("FAR"));
+        await(() -> recorded.size() == 6);
+        dispatcher.interrupt();
+        dispatcher.join(2000);
+
+        // Rebuild the same events against a fresh, identical floor
+        World replayed = new World();
+        List<DispatchEvent> translated = new ArrayList<>();
+        for (DispatchEvent event : recorded) {
+            switch (event.getType()) {
+                case TASK_SUBMITTED -> {
+                    Task task = replayed.order(event.getTask().getID(), ((OrderTask) event.getTask()).getItemName());
+                    translated.add(DispatchEvent.taskSubmitted(task));
+                }
+                case TASK_FINISHED -> translated.add(DispatchEvent.taskFinished(replayed.robots.get(event.getRobot().getId()),
+                        new GoToStartTask(event.getRobot().getStartingPosition()), event.isSuccess()));
+                case IDLE_TIMEOUT -> translated.add(DispatchEvent.idleTimeout(replayed.robots.get(event.getRobot().getId())));
+                default -> fail("Unexpected event " + event);
+            }
+        }
+        replayed.em.replay(translated);
+
+        assertEquals(live.decisions(), replayed.decisions());
+        assertEquals(live.em.getRobot().size(), replayed.em.getRobot().size());
+    }
+}
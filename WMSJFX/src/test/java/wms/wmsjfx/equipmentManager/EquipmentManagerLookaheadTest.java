@@ -0,0 +1,182 @@
+package wms.wmsjfx.equipmentManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.taskManager.OrderTask;
+import wms.wmsjfx.taskManager.Task;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * Lookahead commits and work stealing. No Robot threads are started: a robot
+ * "runs" a task once the test calls startNextTask.
+ */
+class EquipmentManagerLookaheadTest {
+
+    private final WarehouseManager wm = new WarehouseManager(20, 10);
+
+    /** A 20x10 floor: shelf S1 at (5, 2), packing at (0, 9), a charger at (19, 9); R1 idle next to the shelf. */
+    private EquipmentManager newEM(Robot... robots) {
+        wm.addObjectToFloor(new StorageShelf("S1", 5, 2, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new PackingStation("P1", 0, 9, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("C1", 19, 9, WahouseObjectType.ChargingStation));
+        wm.addProductToInventory(new Product("Bolt", "B"), 100, "S1");
+        EquipmentManager em = new EquipmentManager(wm, new ArrayBlockingQueue<>(8), new PathFinding(wm),
+                RobotExecution.PLATFORM_THREADS, SimulationClock.discreteEvent());
+        for (Robot robot : robots) {
+            em.getRobot().add(robot);
+        }
+        return em;
+    }
+
+    @Test
+    @DisplayName("Without lookahead a task nobody idle can take waits; with it, it is queued behind a running task up to the depth")
+    void busyRobot_committedUpToDepth() throws Exception {
+        Robot r1 = new Robot("R1", new Point(6, 3), null, WahouseObjectType.Robot);
+        EquipmentManager em = newEM(r1);
+        assertThrows(IllegalArgumentException.class, () -> em.setLookaheadDepth(4));
+        Task o1 = new OrderTask("O1", "B", 1, wm);
+        Task o2 = new OrderTask("O2", "B", 1, wm);
+        Task o3 = new OrderTask("O3", "B", 1, wm);
+
+        em.replay(List.of(DispatchEvent.taskSubmitted(o1)));
+        assertFalse(r1.commitTask(o2), "nothing is committed to a robot between tasks");
+        r1.startNextTask();
+        em.replay(List.of(DispatchEvent.taskSubmitted(o2)));
+        assertEquals(List.of(), r1.getQueuedTasks(), "lookahead is off by default");
+
+        em.setLookaheadDepth(1);
+        em.replay(List.of(DispatchEvent.taskSubmitted(o3)));
+        assertEquals(List.of(o3), r1.getQueuedTasks());
+        assertEquals(1, em.getLookaheadCommitCount());
+
+        em.replay(List.of(DispatchEvent.taskSubmitted(new OrderTask("O4", "B", 1, wm))));
+        assertEquals(List.of(o3), r1.getQueuedTasks(), "the queue is full at depth 1");
+
+        em.reportFinishedTask(r1, o1, true);
+        assertEquals(List.of(o3), r1.getQueuedTasks(), "no trip home or pending task is queued behind committed work");
+    }
+
+    @Test
+    @DisplayName("A robot that runs out of work takes over a task committed to a busy robot that has not started it")
+    void idleRobot_stealsCommittedTask() throws Exception {
+        Robot r1 = new Robot("R1", new Point(6, 3), null, WahouseObjectType.Robot);
+        Robot r2 = new Robot("R2", new Point(4, 3), null, WahouseObjectType.Robot);
+        EquipmentManager em = newEM(r1);
+        em.setLookaheadDepth(2);
+        Task o1 = new OrderTask("O1", "B", 1, wm);
+        Task o2 = new OrderTask("O2", "B", 1, wm);
+        em.replay(List.of(DispatchEvent.taskSubmitted(o1)));
+        r1.startNextTask();
+        em.replay(List.of(DispatchEvent.taskSubmitted(o2)));
+        assertEquals(List.of(o2), r1.getQueuedTasks());
+
+        em.reportFinishedTask(r2, new OrderTask("O0", "B", 1, wm), true);
+
+        assertEquals(List.of(o2), r2.getQueuedTasks());
+        assertEquals(List.of(), r1.getQueuedTasks());
+        assertEquals(1, em.getStealCount());
+        assertFalse(r1.unassignTask(o2), "a task can only be taken back once");
+    }
+
+    @Test
+    @DisplayName("With predictive charging a committed task is forecast after the whole chain, and a steal rebooks both robots")
+    void committedChain_forecastAndStealRebooks() throws Exception {
+        Robot r1 = new Robot("R1", new Point(6, 3), null, WahouseObjectType.Robot);
+        Robot r2 = new Robot("R2", new Point(4, 3), null, WahouseObjectType.Robot);
+        EquipmentManager em = newEM(r1);
+        em.setLookaheadDepth(1);
+        em.setPredictiveCharging(true);
+        r1.setBatteryPercentage(80); // about 30% per order: one leaves it fine, two leave it low
+        r2.setBatteryPercentage(40);
+        Task o1 = new OrderTask("O1", "B", 1, wm);
+        Task o2 = new OrderTask("O2", "B", 1, wm);
+
+        em.replay(List.of(DispatchEvent.taskSubmitted(o1)));
+        assertNull(em.getChargingBooking(r1));
+        r1.startNextTask();
+        em.replay(List.of(DispatchEvent.taskSubmitted(o2)));
+        assertEquals(List.of(o2), r1.getQueuedTasks());
+        assertNotNull(em.getChargingBooking(r1), "low once O1 and O2 are done");
+
+        em.reportFinishedTask(r2, new OrderTask("O0", "B", 1, wm), true);
+        assertEquals(List.of(o2), r2.getQueuedTasks());
+        assertNull(em.getChargingBooking(r1), "fine after O1 alone");
+        assertNotNull(em.getChargingBooking(r2));
+    }
+
+    @Test
+    @DisplayName("With predictive charging a robot that goes on with committed work is forecast from the battery it has left")
+    void finishedWithCommittedWork_reforecast() throws Exception {
+        Robot r1 = new Robot("R1", new Point(6, 3), null, WahouseObjectType.Robot);
+        EquipmentManager em = newEM(r1);
+        em.setLookaheadDepth(1);
+        em.setPredictiveCharging(true);
+        r1.setBatteryPercentage(80);
+        Task o1 = new OrderTask("O1", "B", 1, wm);
+        Task o2 = new OrderTask("O2", "B", 1, wm);
+        em.replay(List.of(DispatchEvent.taskSubmitted(o1)));
+        r1.startNextTask();
+        em.replay(List.of(DispatchEvent.taskSubmitted(o2)));
+        ChargingPlanner.Booking afterBoth = em.getChargingBooking(r1);
+        assertNotNull(afterBoth);
+
+        r1.setBatteryPercentage(40);
+        em.reportFinishedTask(r1, o1, true);
+
+        assertEquals(List.of(o2), r1.getQueuedTasks());
+        ChargingPlanner.Booking afterO2 = em.getChargingBooking(r1);
+        assertNotNull(afterO2);
+        assertTrue(afterO2.startMillis < afterBoth.startMillis, "only O2 is left before the charge: " + afterO2 + " vs " + afterBoth);
+    }
+
+    @Test
+    @DisplayName("With the event loop, a robot that already started its committed task when its report is handled stays busy")
+    void eventLoop_committedTaskStartedBeforeReportHandled() throws Exception {
+        Robot r1 = new Robot("R1", new Point(6, 3), null, WahouseObjectType.Robot);
+        EquipmentManager em = newEM(r1);
+        em.setEventLoopDispatch(true);
+        em.setLookaheadDepth(1);
+        Task o1 = new OrderTask("O1", "B", 1, wm);
+        Task o2 = new OrderTask("O2", "B", 1, wm);
+        Task o3 = new OrderTask("O3", "B", 1, wm);
+        em.replay(List.of(DispatchEvent.taskSubmitted(o1)));
+        r1.startNextTask();
+        em.replay(List.of(DispatchEvent.taskSubmitted(o2), DispatchEvent.taskSubmitted(o3)));
+        assertEquals(List.of(o2), r1.getQueuedTasks());
+        assertEquals(List.of(o3), em.getPendingTasks(), "the queue is full at depth 1");
+
+        // The robot reports O1 and takes O2 off its queue before the dispatcher sees the report
+        em.reportFinishedTask(r1, o1, true);
+        r1.startNextTask();
+        List<DispatchEvent> handled = new CopyOnWriteArrayList<>();
+        em.setEventRecorder(handled::add);
+        Thread dispatcher = new Thread(em, "Dispatcher");
+        dispatcher.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (handled.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        dispatcher.interrupt();
+        dispatcher.join(2000);
+
+        assertEquals(List.of(o2), handled.get(0).getCommittedTasks());
+        assertSame(o2, r1.getActiveTask());
+        assertEquals(List.of(), r1.getQueuedTasks(), "nothing is queued behind the running task");
+        assertFalse(em.getRobot().contains(r1), "a busy robot is not idle");
+        assertEquals(List.of(o3), em.getPendingTasks());
+    }
+}
@@ -0,0 +1,62 @@
+package wms.wmsjfx.equipmentManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.taskManager.GoToStartTask;
+import wms.wmsjfx.taskManager.OrderTask;
+import wms.wmsjfx.taskManager.Task;
+import wms.wmsjfx.taskManager.TaskPriority;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * Priority- and SLA-aware pending queue of the EquipmentManager.
+ * No robot is idle when the orders arrive, so all of them go pending.
+ */
+class EquipmentManagerPriorityTest {
+
+    @Test
+    @DisplayName("A freed robot takes the express order first, then the tightest SLA, and latencies are recorded per priority")
+    void freedRobotTakesMostUrgentPendingTask() throws Exception {
+        WarehouseManager wm = new WarehouseManager(14, 3);
+        wm.addObjectToFloor(new StorageShelf("S1", 5, 0, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new PackingStation("P1", 0, 2, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("C1", 13, 2, WahouseObjectType.ChargingStation));
+        wm.addProductToInventory(new Product("Bolt", "B"), 10, "S1");
+        EquipmentManager em = new EquipmentManager(wm, new ArrayBlockingQueue<>(16), new PathFinding(wm));
+
+        Task bulk = new OrderTask("bulk", "B", 1, wm, TaskPriority.BULK, Task.NO_SLA);
+        Task standard = new OrderTask("standard", "B", 1, wm);
+        Task standardWithSla = new OrderTask("standard-sla", "B", 1, wm, TaskPriority.STANDARD, 60_000);
+        Task express = new OrderTask("express", "B", 1, wm, TaskPriority.EXPRESS, Task.NO_SLA);
+        em.replay(List.of(DispatchEvent.taskSubmitted(bulk), DispatchEvent.taskSubmitted(standard),
+                DispatchEvent.taskSubmitted(standardWithSla), DispatchEvent.taskSubmitted(express)));
+        assertEquals(List.of(express, standardWithSla, standard, bulk), em.getPendingTasks());
+
+        Robot robot = new Robot("R1", new Point(6, 1), null, WahouseObjectType.Robot);
+        em.reportFinishedTask(robot, new GoToStartTask(robot.getStartingPosition()), true);
+        assertEquals(List.of(express), robot.getQueuedTasks());
+
+        em.reportFinishedTask(robot, express, true);
+        assertEquals(List.of(express, standardWithSla), robot.getQueuedTasks());
+
+        TaskLatencyMetrics metrics = em.getLatencyMetrics();
+        assertEquals(1, metrics.getAssignedCount(TaskPriority.EXPRESS));
+        assertEquals(1, metrics.getCompletedCount(TaskPriority.EXPRESS));
+        assertEquals(1, metrics.getAssignedCount(TaskPriority.STANDARD));
+        assertEquals(0, metrics.getAssignedCount(TaskPriority.BULK));
+        assertEquals(0, metrics.getSlaMisses(TaskPriority.STANDARD));
+        assertTrue(metrics.getMaxWaitMillis(TaskPriority.EXPRESS) >= 0);
+    }
+}
@@ -56,4 +56,30 @@ class EquipmentManagerShutdownTest {
         assertFalse(dispatcher.isAlive(), "Dispatcher thread should be terminated after stop()");
         assertEquals(0, em.getAliveRobotThreadCount(), "All robot threads should be terminated after stop()");
     }
+
+    @Test
+    @DisplayName("With virtual-thread execution robots run on virtual threads and stop() still joins them all")
+    void virtualThreads_stopInterruptsAndJoins() throws Exception {
+        WarehouseManager wm = new WarehouseManager(20, 20);
+        int fleet = 200;
+        for (int i = 0; i < fleet; i++) {
+            wm.addObjectToFloor(new Robot("V" + i, new Point(i % 20, i / 20), null, WahouseObjectType.Robot));
+        }
+
+        EquipmentManager em = new EquipmentManager(wm, new ArrayBlockingQueue<>(16), new PathFinding(wm),
+                RobotExecution.VIRTUAL_THREADS);
+        Thread dispatcher = new Thread(em, "EM-Dispatcher-Test-Virtual");
+        em.registerDispatcherThread(dispatcher);
+        dispatcher.start();
+
+        assertEquals(fleet, em.getAliveRobotThreadCount());
+        // Virtual threads are not platform threads, so none of them shows up here
+        assertTrue(Thread.getAllStackTraces().keySet().stream().noneMatch(t -> t.getName().startsWith("Robot-V")));
+
+        em.stop(3000);
+
+        dispatcher.join(100);
+        assertFalse(dispatcher.isAlive(), "Dispatcher thread should be terminated after stop()");
+        assertEquals(0, em.getAliveRobotThreadCount(), "All robot threads should be terminated after stop()");
+    }
 }
@@ -0,0 +1,88 @@
+package wms.wmsjfx.equipmentManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class HungarianAssignmentTest {
+
+    private static final double INF = HungarianAssignment.INFEASIBLE;
+
+    /** Best (most pairs, then lowest cost) over all assignments, by exhaustive search. */
+    private static double[] bruteForce(double[][] cost, int row, boolean[] usedColumns) {
+        if (row == cost.length) return new double[] {0, 0};
+        double[] best = bruteForce(cost, row + 1, usedColumns); // leave the row unassigned
+        for (int j = 0; j < usedColumns.length; j++) {
+            if (usedColumns[j] || cost[row][j] == INF) continue;
+            usedColumns[j] = true;
+            double[] rest = bruteForce(cost, row + 1, usedColumns);
+            usedColumns[j] = false;
+            double pairs = rest[0] + 1;
+            double total = rest[1] + cost[row][j];
+            if (pairs > best[0] || (pairs == best[0] && total < best[1] - 1e-9)) {
+                best = new double[] {pairs, total};
+            }
+        }
+        return best;
+    }
+
+    @Test
+    @DisplayName("Matches an exhaustive search on random square, rectangular and partly infeasible matrices")
+    void optimalAgainstBruteForce() {
+        Random random = new Random(7);
+        for (int round = 0; round < 300; round++) {
+            int rows = 1 + random.nextInt(6);
+            int columns = 1 + random.nextInt(6);
+            double[][] cost = new double[rows][columns];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    cost[i][j] = random.nextDouble() < 0.2 ? INF : random.nextInt(50) + random.nextDouble();
+                }
+            }
+
+            int[] result = HungarianAssignment.solve(cost);
+            assertEquals(rows, result.length);
+            boolean[] taken = new boolean[columns];
+            int pairs = 0;
+            double total = 0;
+            for (int i = 0; i < rows; i++) {
+                if (result[i] < 0) continue;
+                assertFalse(taken[result[i]], "Column assigned twice in round " + round);
+                taken[result[i]] = true;
+                assertNotEquals(INF, cost[i][result[i]], "Infeasible pair chosen in round " + round);
+                pairs++;
+                total += cost[i][result[i]];
+            }
+
+            double[] expected = bruteForce(cost, 0, new boolean[columns]);
+            assertEquals((int) expected[0], pairs, "Pairs in round " + round);
+            assertEquals(expected[1], total, 1e-6, "Cost in round " + round);
+        }
+    }
+
+    @Test
+    @DisplayName("Beats the greedy choice where the closest robot is better kept for another task")
+    void beatsGreedy() {
+        // Robot 0 is closest to both tasks; greedy gives it task 0 and sends robot 1 far away
+        double[][] cost = {
+                {1, 5},
+                {5, 11}
+        };
+        assertArrayEquals(new int[] {1, 0}, HungarianAssignment.solve(cost));
+    }
+
+    @Test
+    @DisplayName("Rows without any feasible column stay unassigned")
+    void infeasibleRowsUnassigned() {
+        double[][] cost = {
+                {INF, INF},
+                {3, INF},
+                {2, 4}
+        };
+        assertArrayEquals(new int[] {-1, 0, 1}, HungarianAssignment.solve(cost));
+        assertArrayEquals(new int[0], HungarianAssignment.solve(new double[0][0]));
+    }
+}
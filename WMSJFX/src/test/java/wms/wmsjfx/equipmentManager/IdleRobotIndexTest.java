@@ -0,0 +1,82 @@
+package wms.wmsjfx.equipmentManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.warehouse.WahouseObjectType;
+
+class IdleRobotIndexTest {
+
+    private static Robot robot(String id, int x, int y) {
+        return new Robot(id, new Point(x, y), null, WahouseObjectType.Robot);
+    }
+
+    private static List<Robot> drain(Iterator<Robot> robots) {
+        List<Robot> result = new ArrayList<>();
+        robots.forEachRemaining(result::add);
+        return result;
+    }
+
+    @Test
+    @DisplayName("nearestFirst returns every idle robot by straight-line distance, ties by id")
+    void nearestFirst_matchesFullSort() {
+        Random random = new Random(7);
+        IdleRobotIndex index = new IdleRobotIndex(100, 60);
+        List<Robot> robots = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Robot robot = robot(String.format("R%03d", i), random.nextInt(100), random.nextInt(60));
+            robots.add(robot);
+            index.add(robot);
+        }
+
+        for (int query = 0; query < 20; query++) {
+            Point target = new Point(random.nextInt(100), random.nextInt(60));
+            List<Robot> expected = new ArrayList<>(robots);
+            expected.sort(Comparator.<Robot>comparingDouble(r -> r.getCurrentPosition().distance(target))
+                    .thenComparing(Robot::getId));
+            assertEquals(expected, drain(index.nearestFirst(target)));
+        }
+    }
+
+    @Test
+    @DisplayName("Removing a robot is the claim: it is gone from the set and from nearest-first queries")
+    void remove_isClaim() {
+        IdleRobotIndex index = new IdleRobotIndex(40, 40);
+        Robot near = robot("near", 2, 2);
+        Robot far = robot("far", 35, 35);
+        assertTrue(index.add(near));
+        assertTrue(index.add(far));
+        assertFalse(index.add(near), "a robot is idle at most once");
+
+        assertTrue(index.remove(near));
+        assertFalse(index.remove(near), "only one caller wins the claim");
+        assertFalse(index.contains(near));
+        assertEquals(1, index.size());
+        assertEquals(List.of(far), drain(index.nearestFirst(new Point(0, 0))));
+    }
+
+    @Test
+    @DisplayName("clear() through the set view empties every bucket")
+    void clear_emptiesBuckets() {
+        IdleRobotIndex index = new IdleRobotIndex(40, 40);
+        index.add(robot("a", 0, 0));
+        index.add(robot("b", 39, 39));
+
+        index.clear();
+
+        assertTrue(index.isEmpty());
+        assertFalse(index.nearestFirst(new Point(20, 20)).hasNext());
+        Robot again = robot("c", 20, 20);
+        index.add(again);
+        assertEquals(List.of(again), drain(index.nearestFirst(new Point(0, 0))));
+    }
+}
@@ -0,0 +1,68 @@
+package wms.wmsjfx.equipmentManager;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.taskManager.OrderTask;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * Manual benchmark (not run by surefire): time to choose the robot for a new pick
+ * order with a large idle fleet spread over a big floor. Every order is new, so
+ * nothing is cached and each robot that gets evaluated costs a path search.
+ * Run with: java -cp target/classes:target/test-classes wms.wmsjfx.equipmentManager.NearestRobotBenchmark [robots] [orders]
+ */
+public class NearestRobotBenchmark {
+
+    private static final int SIZE = 48;
+
+    public static void main(String[] args) throws Exception {
+        int robots = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int orders = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        WarehouseManager wm = new WarehouseManager(SIZE, SIZE);
+        List<String> products = new ArrayList<>();
+        for (int x = 3; x < SIZE - 2; x += 4) {
+            for (int y = 2; y < SIZE - 2; y += 3) {
+                String shelf = "S" + x + "-" + y;
+                wm.addObjectToFloor(new StorageShelf(shelf, x, y, WahouseObjectType.StorageShelf));
+                String product = "P" + x + "-" + y;
+                wm.addProductToInventory(new Product(product, product), 1_000, shelf);
+                products.add(product);
+            }
+        }
+        wm.addObjectToFloor(new PackingStation("PACK", SIZE / 2, 0, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("CHARGE", SIZE / 2, SIZE - 1, WahouseObjectType.ChargingStation));
+
+        PathFinding pathFinding = new PathFinding(wm);
+        EquipmentManager em = new EquipmentManager(wm, new LinkedBlockingQueue<>(), pathFinding);
+        Random random = new Random(42);
+        for (int r = 0; r < robots; r++) {
+            Point p;
+            do {
+                p = new Point(random.nextInt(SIZE), random.nextInt(SIZE));
+            } while (!pathFinding.getWarehouseMap().isWalkable(p.x, p.y));
+            em.getRobot().add(new Robot("R" + r, p, null, WahouseObjectType.Robot));
+        }
+
+        long start = System.nanoTime();
+        int found = 0;
+        for (int i = 0; i < orders; i++) {
+            String product = products.get(random.nextInt(products.size()));
+            if (em.selectRobot(new OrderTask("O" + i, product, 1, wm)) != null) found++;
+        }
+        long elapsed = System.nanoTime() - start;
+        em.getRobot().clear();
+
+        System.out.printf("%d idle robots on a %dx%d floor, %d orders: %d matched, %.3f ms per order%n",
+                robots, SIZE, SIZE, orders, found, elapsed / 1e6 / orders);
+    }
+}
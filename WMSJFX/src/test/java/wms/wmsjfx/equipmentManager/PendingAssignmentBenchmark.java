@@ -0,0 +1,64 @@
+package wms.wmsjfx.equipmentManager;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.taskManager.GoToStartTask;
+import wms.wmsjfx.taskManager.OrderTask;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * Manual benchmark (not run by surefire): cost of a robot finishing a task while
+ * many orders are pending. Every finish scans the whole pending queue; the robot
+ * is too low on battery for any of them, so every task is evaluated each time.
+ * Run with: java -cp target/classes:target/test-classes wms.wmsjfx.equipmentManager.PendingAssignmentBenchmark [pending (at most 500)] [finishes]
+ */
+public class PendingAssignmentBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int pending = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int finishes = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        WarehouseManager wm = new WarehouseManager(60, 60);
+        for (int y = 5; y < 55; y++) {
+            for (int x = 5; x < 55; x += 5) {
+                wm.addObjectToFloor(new StorageShelf("S" + x + "-" + y, x, y, WahouseObjectType.StorageShelf));
+            }
+        }
+        wm.addObjectToFloor(new PackingStation("P1", 0, 59, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new PackingStation("P2", 59, 59, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("C1", 0, 0, WahouseObjectType.ChargingStation));
+        wm.addObjectToFloor(new ChargingStation("C2", 59, 0, WahouseObjectType.ChargingStation));
+        for (int i = 0; i < pending; i++) {
+            int x = 5 + 5 * (i % 10);
+            int y = 5 + (i / 10) % 50;
+            wm.addProductToInventory(new Product("Item" + i, "I" + i), 10, "S" + x + "-" + y);
+        }
+
+        // No robots on the floor, so every submitted order goes pending
+        EquipmentManager em = new EquipmentManager(wm, new ArrayBlockingQueue<>(16), new PathFinding(wm));
+        List<DispatchEvent> submissions = new ArrayList<>();
+        for (int i = 0; i < pending; i++) {
+            submissions.add(DispatchEvent.taskSubmitted(new OrderTask("O" + i, "I" + i, 1, wm)));
+        }
+        em.replay(submissions);
+
+        Robot robot = new Robot("LOW", new Point(30, 2), em, WahouseObjectType.Robot);
+        robot.setBatteryPercentage(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < finishes; i++) {
+            em.reportFinishedTask(robot, new GoToStartTask(robot.getStartingPosition()), true);
+        }
+        double ms = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("%d pending, %d finishes: %.1f ms total, %.2f ms per finish (still pending: %d)%n",
+                pending, finishes, ms, ms / finishes, em.getPendingTasks().size());
+    }
+}
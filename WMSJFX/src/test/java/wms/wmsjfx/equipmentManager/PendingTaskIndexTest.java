@@ -0,0 +1,91 @@
+package wms.wmsjfx.equipmentManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.taskManager.OrderTask;
+import wms.wmsjfx.taskManager.Task;
+import wms.wmsjfx.taskManager.TaskPriority;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+class PendingTaskIndexTest {
+
+    private final WarehouseManager wm = new WarehouseManager(40, 40);
+
+    PendingTaskIndexTest() {
+        wm.addObjectToFloor(new StorageShelf("S1", 1, 1, WahouseObjectType.StorageShelf));
+        wm.addProductToInventory(new Product("Bolt", "B"), 100, "S1");
+    }
+
+    private Task order(String id, TaskPriority priority) throws Exception {
+        return new OrderTask(id, "B", 1, wm, priority, Task.NO_SLA);
+    }
+
+    @Test
+    @DisplayName("Tasks come out by priority, then latest start, then arrival")
+    void ordersByPriorityThenSlackThenArrival() throws Exception {
+        PendingTaskIndex index = new PendingTaskIndex();
+        Task bulk = order("bulk", TaskPriority.BULK);
+        Task standardLate = order("standard-late", TaskPriority.STANDARD);
+        Task standardFirst = order("standard-first", TaskPriority.STANDARD);
+        Task standardSecond = order("standard-second", TaskPriority.STANDARD);
+        Task express = order("express", TaskPriority.EXPRESS);
+
+        index.offer(bulk, 100);
+        index.offer(standardLate, 5_000);
+        index.offer(standardFirst, Long.MAX_VALUE);
+        index.offer(standardSecond, Long.MAX_VALUE);
+        index.offer(express, Long.MAX_VALUE);
+
+        assertEquals(List.of(express, standardLate, standardFirst, standardSecond, bulk), index.snapshot());
+        assertSame(express, index.claimBest(t -> true));
+        assertSame(standardLate, index.claimBest(t -> true));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    @DisplayName("claimBest skips tasks the robot cannot do and stops at the first one it can")
+    void claimBest_skipsIneligible() throws Exception {
+        PendingTaskIndex index = new PendingTaskIndex();
+        Task express = order("express", TaskPriority.EXPRESS);
+        Task standard = order("standard", TaskPriority.STANDARD);
+        index.offer(express, Long.MAX_VALUE);
+        index.offer(standard, Long.MAX_VALUE);
+        for (int i = 0; i < 50; i++) {
+            index.offer(order("bulk" + i, TaskPriority.BULK), Long.MAX_VALUE);
+        }
+
+        AtomicInteger checked = new AtomicInteger();
+        Task claimed = index.claimBest(t -> {
+            checked.incrementAndGet();
+            return t != express;
+        });
+
+        assertSame(standard, claimed);
+        assertEquals(2, checked.get(), "only the express task is skipped");
+        assertNull(index.claimBest(t -> false));
+    }
+
+    @Test
+    @DisplayName("A task can be claimed only once and offered only once")
+    void removeIsTheClaim() throws Exception {
+        PendingTaskIndex index = new PendingTaskIndex();
+        Task task = order("O1", TaskPriority.STANDARD);
+        index.offer(task, Long.MAX_VALUE);
+        index.offer(task, 0);
+        assertEquals(1, index.size());
+
+        assertTrue(index.remove(task));
+        assertFalse(index.remove(task));
+        assertTrue(index.isEmpty());
+        assertNull(index.claimBest(t -> true));
+    }
+}
@@ -0,0 +1,140 @@
+package wms.wmsjfx.equipmentManager;
+
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.taskManager.Task;
+import wms.wmsjfx.taskManager.TaskType;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * Manual benchmark (not run by surefire): memory and task throughput of a fleet
+ * running on platform threads against virtual threads. Every robot gets the
+ * same number of short tasks: search a route across the floor through
+ * requestPath, then pick and drop (100 ms of simulated work each). Memory is
+ * measured after the tasks ran, with the fleet still up, so it includes the
+ * path search scratch the robot threads used.
+ * Run with: java -cp target/classes:target/test-classes wms.wmsjfx.equipmentManager.RobotScalingBenchmark [tasksPerRobot] [fleet sizes...]
+ */
+public class RobotScalingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int tasksPerRobot = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int[] fleets = {100, 1_000, 10_000};
+        if (args.length > 1) {
+            fleets = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) fleets[i - 1] = Integer.parseInt(args[i]);
+        }
+
+        System.out.printf("%-17s %7s %10s %10s %10s %9s %12s%n",
+                "execution", "robots", "start ms", "RSS MB", "heap MB", "OS thr", "tasks/s");
+        for (int fleet : fleets) {
+            for (RobotExecution execution : RobotExecution.values()) {
+                run(execution, fleet, tasksPerRobot);
+            }
+        }
+    }
+
+    private static void run(RobotExecution execution, int fleet, int tasksPerRobot) throws Exception {
+        int side = (int) Math.ceil(Math.sqrt(fleet)) + 1;
+        WarehouseManager wm = new WarehouseManager(side, side);
+        for (int i = 0; i < fleet; i++) {
+            wm.addObjectToFloor(new Robot("B" + i, new Point(i % side, i / side), null, WahouseObjectType.Robot));
+        }
+        PathFinding pathFinding = new PathFinding(wm);
+
+        System.gc();
+        long rssBefore = rssBytes();
+        long heapBefore = usedHeap();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+        long start = System.nanoTime();
+        EquipmentManager em;
+        try {
+            em = new EquipmentManager(wm, new ArrayBlockingQueue<>(16), pathFinding, execution);
+        } catch (OutOfMemoryError e) {
+            System.out.printf("%-17s %7d  could not start: %s%n", execution, fleet, e.getMessage());
+            return;
+        }
+        long startMs = (System.nanoTime() - start) / 1_000_000;
+        int osThreads = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+
+        CountDownLatch done = new CountDownLatch(fleet * tasksPerRobot);
+        long workStart = System.nanoTime();
+        for (Robot robot : wm.getAllRobots()) {
+            for (int t = 0; t < tasksPerRobot; t++) {
+                // A different far cell per robot and task, so the path cache does not answer
+                Point at = robot.getLocation();
+                Point target = new Point(side - 1 - (at.x + t) % side, side - 1 - at.y);
+                robot.assignTask(new RouteAndPick(target, done));
+            }
+        }
+        done.await();
+        double seconds = (System.nanoTime() - workStart) / 1e9;
+        System.gc();
+        long rss = rssBytes() - rssBefore;
+        long heap = usedHeap() - heapBefore;
+
+        em.stop(10_000);
+        System.out.printf("%-17s %7d %10d %10.1f %10.1f %9d %12.0f%n", execution, fleet, startMs,
+                rss / 1e6, heap / 1e6, osThreads, fleet * tasksPerRobot / seconds);
+    }
+
+    /** Stands in for a short job: plan a route, then pick an item and drop it where the robot is. */
+    private static final class RouteAndPick implements Task {
+        private final Point target;
+        private final CountDownLatch done;
+
+        RouteAndPick(Point target, CountDownLatch done) {
+            this.target = target;
+            this.done = done;
+        }
+
+        @Override
+        public String getID() {
+            return "RouteAndPick";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Benchmark route, pick and drop";
+        }
+
+        @Override
+        public TaskType getType() {
+            return TaskType.GO_TO_START;
+        }
+
+        @Override
+        public void execute(Robot robot, EquipmentManager manager) throws InterruptedException {
+            manager.requestPath(robot, target); // searched on the robot's own thread, not driven
+            robot.pickUpItem("item");
+            robot.dropItem("item");
+            done.countDown();
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /** Resident set size of this process (Linux); 0 where /proc is not available. */
+    private static long rssBytes() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (Exception ignored) {
+            // not Linux
+        }
+        return 0;
+    }
+}
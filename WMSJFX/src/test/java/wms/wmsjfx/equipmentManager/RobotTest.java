@@ -3,6 +3,7 @@ package wms.wmsjfx.equipmentManager;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.awt.Point;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 
@@ -11,6 +12,9 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.pathFinding.ReservationTable;
+import wms.wmsjfx.pathFinding.TimedPath;
+import wms.wmsjfx.simulation.SimulationClock;
 import wms.wmsjfx.taskManager.ChargeTask;
 import wms.wmsjfx.taskManager.OrderTask;
 import wms.wmsjfx.taskManager.Task;
@@ -45,6 +49,7 @@ class RobotTest {
     private static class World {
         final WarehouseManager wm;
         final EquipmentManager em;
+        final PathFinding path;
         final PackingStation packing;
         final LoadingStation loading;
         final ChargingStation charging;
@@ -66,7 +71,7 @@ class RobotTest {
             wm.addProductToInventory(product, 10, "S1");
 
             BlockingQueue<Task> q = new ArrayBlockingQueue<>(16);
-            PathFinding path = new PathFinding(wm);
+            this.path = new PathFinding(wm);
             this.em = new EquipmentManager(wm, q, path); // 0 robots on floor
         }
     }
@@ -175,4 +180,84 @@ class RobotTest {
         // 3) Eventually robot should process GoToStart too; we can at least assert it doesn't have an active task for a moment
         assertTrue(waitUntil(() -> robot.getActiveTask() == null, 1000));
     }
+
+    @Test
+    @DisplayName("A reserved path is driven in step with its ticks, wait steps included")
+    void stepMove_followsReservationTicks() throws Exception {
+        Robot robot = new Robot("R-5", new Point(0, 0), null, WahouseObjectType.Robot);
+        ReservationTable table = new ReservationTable(400);
+        long startTick = table.currentTick() + 1;
+        TimedPath path = new TimedPath(List.of(new Point(1, 0), new Point(1, 0), new Point(2, 0)), startTick, table);
+
+        robot.stepMove(path);
+
+        // The last step may not leave before its tick, although moving takes only 250 ms per step
+        assertTrue(System.currentTimeMillis() >= path.departureMillis(2));
+        assertEquals(new Point(2, 0), robot.getCurrentPosition());
+        assertEquals(98.0, robot.getBatteryPercentage(), 0.0001, "A wait step costs no battery");
+    }
+
+    @Test
+    @DisplayName("On a discrete-event clock travel and charging take simulated time, not wall-clock time")
+    void discreteEventClock_travelAndChargeTakeSimulatedTime() throws Exception {
+        WarehouseManager wm = new WarehouseManager(6, 6);
+        EquipmentManager em = new EquipmentManager(wm, new ArrayBlockingQueue<>(16), new PathFinding(wm),
+                RobotExecution.PLATFORM_THREADS, SimulationClock.discreteEvent());
+        Robot robot = new Robot("R-8", new Point(0, 0), em, WahouseObjectType.Robot);
+        long realStart = System.nanoTime();
+
+        robot.moveTo(new Point(30, 40)); // 50 m at 250 ms per metre
+        assertEquals(12_500, em.getSimulationClock().millis());
+        assertEquals(50.0, robot.getBatteryPercentage(), 0.0001);
+
+        robot.charge(); // 50% at 10 ms per percent
+        assertEquals(13_000, em.getSimulationClock().millis());
+        assertEquals(100.0, robot.getBatteryPercentage(), 0.0001);
+        assertTrue(System.nanoTime() - realStart < 2_000_000_000L, "Simulated time must not be slept through");
+    }
+
+    @Test
+    @DisplayName("With cooperative planning, requestPath returns a reserved path")
+    void cooperativePlanning_requestPathIsReserved() {
+        World world = new World(new Point(5, 5));
+        Robot robot = new Robot("R-6", new Point(0, 0), world.em, WahouseObjectType.Robot);
+        assertFalse(world.em.isCooperativePlanning());
+
+        world.em.setCooperativePlanning(true);
+        List<Point> path = world.em.requestPath(robot, new Point(3, 0));
+        assertInstanceOf(TimedPath.class, path);
+        assertEquals(List.of(new Point(1, 0), new Point(2, 0), new Point(3, 0)), path);
+
+        world.em.setCooperativePlanning(false);
+        assertFalse(world.em.requestPath(robot, new Point(3, 0)) instanceof TimedPath);
+    }
+
+    @Test
+    @DisplayName("A cell blocked ahead of a moving robot makes it drive a repaired path around it")
+    void stepMove_picksUpRepairedPath() throws Exception {
+        World world = new World(new Point(5, 5));
+        Robot robot = new Robot("R-7", new Point(0, 0), world.em, WahouseObjectType.Robot);
+        world.em.setIncrementalReplanning(true);
+        assertTrue(world.em.isIncrementalReplanning());
+
+        List<Point> path = world.em.requestPath(robot, new Point(4, 0));
+        assertEquals(List.of(new Point(1, 0), new Point(2, 0), new Point(3, 0), new Point(4, 0)), path);
+
+        Thread mover = new Thread(() -> {
+            try {
+                robot.stepMove(path);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        mover.start();
+        assertTrue(waitUntil(() -> robot.getCurrentPosition().equals(new Point(1, 0)), 2000));
+        world.path.getWarehouseMap().setWalkable(new Point(3, 0), false);
+        mover.join(5000);
+
+        assertEquals(new Point(4, 0), robot.getCurrentPosition());
+        // Two straight steps, then around (3, 0) by two diagonals (2% each, rounded up) instead of two straight ones
+        assertEquals(94.0, robot.getBatteryPercentage(), 0.0001);
+        world.em.setIncrementalReplanning(false);
+    }
 }
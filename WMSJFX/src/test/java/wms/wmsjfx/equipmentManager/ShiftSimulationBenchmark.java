@@ -0,0 +1,96 @@
+package wms.wmsjfx.equipmentManager;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.taskManager.OrderTask;
+import wms.wmsjfx.taskManager.Task;
+import wms.wmsjfx.taskManager.TaskPriority;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * Manual benchmark (not run by surefire): simulates a shift of single-item orders
+ * on a discrete-event clock and reports how many were packed and how long the
+ * simulation took on the wall clock, plus how the charging stations were used
+ * ("predictive" books charging slots ahead and tops robots up while idle;
+ * a lookahead depth above 0 commits orders to busy robots and lets idle ones steal them).
+ * Run with: java -cp target/classes:target/test-classes wms.wmsjfx.equipmentManager.ShiftSimulationBenchmark [hours] [robots] [secondsBetweenOrders] [predictive|reactive] [lookahead]
+ */
+public class ShiftSimulationBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int hours = args.length > 0 ? Integer.parseInt(args[0]) : 24;
+        int fleet = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int orderEverySeconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        boolean predictive = args.length > 3 && args[3].equals("predictive");
+        int lookahead = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+
+        WarehouseManager wm = new WarehouseManager(20, 20);
+        for (int y = 4; y < 16; y++) {
+            wm.addObjectToFloor(new StorageShelf("S" + y, 10, y, WahouseObjectType.StorageShelf));
+        }
+        wm.addObjectToFloor(new PackingStation("P1", 0, 19, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new PackingStation("P2", 19, 19, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("C1", 0, 0, WahouseObjectType.ChargingStation));
+        wm.addObjectToFloor(new ChargingStation("C2", 19, 0, WahouseObjectType.ChargingStation));
+        for (int y = 4; y < 16; y++) {
+            wm.addProductToInventory(new Product("Item" + y, "I" + y), 1_000_000, "S" + y);
+        }
+        for (int i = 0; i < fleet; i++) {
+            wm.addObjectToFloor(new Robot("D" + i, new Point(2 + i % 16, 2 + i / 16), null, WahouseObjectType.Robot));
+        }
+
+        SimulationClock clock = SimulationClock.discreteEvent();
+        BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+        long realStart = System.nanoTime();
+        EquipmentManager em = new EquipmentManager(wm, queue, new PathFinding(wm), RobotExecution.VIRTUAL_THREADS, clock);
+        em.setPredictiveCharging(predictive);
+        em.setLookaheadDepth(lookahead);
+        Thread dispatcher = new Thread(em, "EM-Dispatcher-Shift");
+        dispatcher.setDaemon(true);
+        em.registerDispatcherThread(dispatcher);
+        dispatcher.start();
+
+        // This thread submits the orders on the simulated clock
+        clock.register(Thread.currentThread());
+        long shiftEnd = clock.millis() + TimeUnit.HOURS.toMillis(hours);
+        int submitted = 0;
+        while (clock.millis() + orderEverySeconds * 1000L <= shiftEnd) {
+            clock.sleep(orderEverySeconds * 1000L);
+            int shelf = 4 + submitted % 12;
+            queue.put(new OrderTask("O" + submitted, "I" + shelf, 1, wm));
+            submitted++;
+        }
+        clock.sleep(shiftEnd - clock.millis());
+        double realSeconds = (System.nanoTime() - realStart) / 1e9;
+
+        int packed = 0;
+        for (int y = 4; y < 16; y++) {
+            packed += 1_000_000 - wm.getProductQuantity("I" + y);
+        }
+        List<StationUsage> charging = em.getChargingStationUsage();
+        TaskLatencyMetrics latency = em.getLatencyMetrics();
+        clock.deregister(Thread.currentThread());
+        em.stop(5000);
+
+        System.out.printf("%d h shift, %d robots, %d orders submitted, %d packed, %d pending%n",
+                hours, fleet, submitted, packed, em.getPendingTasks().size());
+        System.out.printf("orders waited %.0f ms for a robot on average, took %.0f ms to complete; %d committed ahead, %d stolen%n",
+                latency.getMeanWaitMillis(TaskPriority.STANDARD), latency.getMeanCompletionMillis(TaskPriority.STANDARD),
+                em.getLookaheadCommitCount(), em.getStealCount());
+        for (StationUsage usage : charging) {
+            System.out.println("charging " + usage);
+        }
+        System.out.printf("simulated in %.1f s of wall-clock time (x%.0f)%n",
+                realSeconds, hours * 3600 / realSeconds);
+    }
+}
@@ -0,0 +1,123 @@
+package wms.wmsjfx.equipmentManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+class StationAllocatorTest {
+
+    private static final PackingStation WEST = new PackingStation("West", 0, 5, WahouseObjectType.PackingStation);
+    private static final PackingStation EAST = new PackingStation("East", 19, 5, WahouseObjectType.PackingStation);
+
+    private static StationAllocator<PackingStation> allocator(int maxBypasses, SimulationClock clock, PackingStation... stations) {
+        return new StationAllocator<>(List.of(stations),
+                (station, from) -> Math.abs(station.x - from.x) + Math.abs(station.y - from.y), maxBypasses, clock);
+    }
+
+    /** Starts a thread waiting for a station from 'from' and returns once it is queued. */
+    private static BlockingQueue<PackingStation> waitFor(StationAllocator<PackingStation> allocator, Point from) throws InterruptedException {
+        BlockingQueue<PackingStation> got = new LinkedBlockingQueue<>();
+        int waiting = allocator.getWaitingCount();
+        Thread thread = new Thread(() -> {
+            try {
+                got.add(allocator.acquire(from));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        while (allocator.getWaitingCount() == waiting) {
+            Thread.sleep(1);
+        }
+        return got;
+    }
+
+    @Test
+    @DisplayName("A robot gets the free station nearest to it, not the one released first")
+    void nearestFreeStation() {
+        StationAllocator<PackingStation> allocator = allocator(3, SimulationClock.realTime(), WEST, EAST);
+
+        assertSame(EAST, allocator.tryAcquire(new Point(15, 2)));
+        assertSame(WEST, allocator.tryAcquire(new Point(15, 2)), "the only one left");
+        assertNull(allocator.tryAcquire(new Point(15, 2)));
+        assertTrue(allocator.release(WEST));
+        assertFalse(allocator.release(WEST), "a free station cannot be released again");
+    }
+
+    @Test
+    @DisplayName("A released station goes to the nearest waiting robot, but never passes over the oldest one more than maxBypasses times")
+    void releasedStation_nearestWaiter_boundedBypasses() throws Exception {
+        StationAllocator<PackingStation> allocator = allocator(1, SimulationClock.realTime(), WEST);
+        assertSame(WEST, allocator.tryAcquire(new Point(0, 0)));
+        BlockingQueue<PackingStation> far = waitFor(allocator, new Point(18, 5));
+        BlockingQueue<PackingStation> near = waitFor(allocator, new Point(1, 5));
+        BlockingQueue<PackingStation> nearer = waitFor(allocator, new Point(0, 5));
+
+        allocator.release(WEST);
+        assertSame(WEST, nearer.poll(5, TimeUnit.SECONDS));
+        assertTrue(far.isEmpty() && near.isEmpty());
+
+        allocator.release(WEST);
+        assertSame(WEST, far.poll(5, TimeUnit.SECONDS), "passed over once already: served before the nearer robot");
+
+        allocator.release(WEST);
+        assertSame(WEST, near.poll(5, TimeUnit.SECONDS));
+        assertEquals(0, allocator.getWaitingCount());
+    }
+
+    @Test
+    @DisplayName("A wait times out in simulated time and is counted; busy time, uses and waiting are counted per station")
+    void timeoutAndUsageCounters() throws Exception {
+        SimulationClock clock = SimulationClock.discreteEvent();
+        StationAllocator<PackingStation> allocator = allocator(3, clock, WEST, EAST);
+        assertSame(WEST, allocator.acquire(new Point(0, 0)));
+        assertSame(EAST, allocator.acquire(new Point(0, 0)));
+
+        assertNull(allocator.acquire(new Point(0, 0), 5, TimeUnit.SECONDS));
+        assertEquals(5_000, clock.millis());
+        assertEquals(1, allocator.getTimeoutCount());
+        assertEquals(0, allocator.getWaitingCount());
+
+        allocator.release(WEST);
+        clock.sleep(5_000);
+        assertEquals(15_000, allocator.getBusyMillis(), "West held 5 s, East still held after 10 s");
+
+        List<StationUsage> usage = allocator.getUsage();
+        assertEquals("West", usage.get(0).getStationId());
+        assertEquals(1, usage.get(0).getAcquisitions());
+        assertEquals(0.5, usage.get(0).getUtilisation(), 1e-9);
+        assertEquals(1.0, usage.get(1).getUtilisation(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("The EquipmentManager hands a robot the packing station with the lowest path cost")
+    void equipmentManager_nearestPackingStation() throws Exception {
+        WarehouseManager wm = new WarehouseManager(20, 10);
+        wm.addObjectToFloor(new PackingStation("P1", 0, 9, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new PackingStation("P2", 19, 9, WahouseObjectType.PackingStation));
+        EquipmentManager em = new EquipmentManager(wm, new ArrayBlockingQueue<>(4), new PathFinding(wm),
+                RobotExecution.PLATFORM_THREADS, SimulationClock.discreteEvent());
+        Robot robot = new Robot("R1", new Point(15, 2), em, WahouseObjectType.Robot);
+
+        PackingStation station = em.requestAvailablePackingStation(robot);
+        assertEquals("P2", station.getId());
+        em.releasePackingStation(station);
+        assertEquals(1, em.getPackingStationUsage().get(1).getAcquisitions());
+        assertEquals(0, em.getPackingStationUsage().get(0).getAcquisitions());
+    }
+}
@@ -0,0 +1,143 @@
+package wms.wmsjfx.equipmentManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.pathFinding.TimedPath;
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.taskManager.OrderTask;
+import wms.wmsjfx.taskManager.Task;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * Zone-partitioned dispatch. The dispatchers are not started: tests route and
+ * rebalance by hand and feed a zone through replay().
+ */
+class ZoneCoordinatorTest {
+
+    private static final List<Rectangle> HALVES = List.of(new Rectangle(0, 0, 10, 10), new Rectangle(10, 0, 10, 10));
+
+    private final WarehouseManager wm = new WarehouseManager(20, 10);
+    private final Robot west1 = new Robot("W1", new Point(2, 5), null, WahouseObjectType.Robot);
+    private final Robot west2 = new Robot("W2", new Point(8, 5), null, WahouseObjectType.Robot);
+    private final Robot east = new Robot("E1", new Point(15, 5), null, WahouseObjectType.Robot);
+    private ZoneCoordinator coordinator;
+
+    /** West half: two robots, shelf S1; east half: one robot, shelf S2. Each half has a packing and a charging station. */
+    private ZoneCoordinator newCoordinator() {
+        wm.addObjectToFloor(new StorageShelf("S1", 5, 2, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new StorageShelf("S2", 15, 2, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new PackingStation("P1", 0, 9, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new PackingStation("P2", 19, 9, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("C1", 0, 0, WahouseObjectType.ChargingStation));
+        wm.addObjectToFloor(new ChargingStation("C2", 19, 0, WahouseObjectType.ChargingStation));
+        wm.addProductToInventory(new Product("Bolt", "B"), 100, "S1");
+        wm.addProductToInventory(new Product("Nut", "N"), 100, "S2");
+        wm.addObjectToFloor(west1);
+        wm.addObjectToFloor(west2);
+        wm.addObjectToFloor(east);
+        coordinator = new ZoneCoordinator(wm, HALVES, new LinkedBlockingQueue<>(), new PathFinding(wm),
+                RobotExecution.PLATFORM_THREADS, SimulationClock.realTime());
+        return coordinator;
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (coordinator != null) {
+            coordinator.stop(2000);
+        }
+    }
+
+    @Test
+    @DisplayName("Each zone runs the robots and stations inside it, and a task goes to the zone of its first stop")
+    void zonesOwnTheirEquipment_tasksRoutedByFirstStop() throws Exception {
+        ZoneCoordinator zc = newCoordinator();
+        EquipmentManager westZone = zc.getZoneManagers().get(0);
+        EquipmentManager eastZone = zc.getZoneManagers().get(1);
+        assertEquals(2, westZone.getRobotCount());
+        assertEquals(1, eastZone.getRobotCount());
+        assertEquals(1, eastZone.getPackingStationCount());
+
+        Task nuts = new OrderTask("O1", "N", 1, wm);
+        zc.route(nuts);
+        assertEquals(List.of(), zc.getQueuedTasks(0));
+        assertEquals(List.of(nuts), zc.getQueuedTasks(1));
+
+        assertThrows(IllegalArgumentException.class, () -> new ZoneCoordinator(wm,
+                List.of(new Rectangle(0, 0, 11, 10), new Rectangle(10, 0, 10, 10)), new LinkedBlockingQueue<>(),
+                new PathFinding(wm), RobotExecution.PLATFORM_THREADS, SimulationClock.realTime()), "overlapping zones");
+    }
+
+    @Test
+    @DisplayName("A zone with a backlog gets the idle robot of another zone that is nearest to the work")
+    void backlog_robotHandedOver() throws Exception {
+        ZoneCoordinator zc = newCoordinator();
+        EquipmentManager westZone = zc.getZoneManagers().get(0);
+        EquipmentManager eastZone = zc.getZoneManagers().get(1);
+        east.setBatteryPercentage(1);
+        eastZone.replay(List.of(DispatchEvent.taskSubmitted(new OrderTask("O1", "N", 1, wm))));
+        assertEquals(1, eastZone.getPendingTaskCount(), "E1 is too low for the order");
+
+        zc.rebalance();
+
+        assertEquals(1, zc.getRobotHandoffCount());
+        assertEquals(0, eastZone.getPendingTaskCount(), "the new robot took the order");
+        assertEquals(2, eastZone.getRobotCount());
+        assertEquals(1, westZone.getRobotCount());
+        assertTrue(westZone.getRobot().contains(west1), "W2 is the one nearer the shelf");
+        assertEquals(new Point(10, 5), west2.getStartingPosition(), "W2's home moved to the nearest cell of its new zone");
+        assertEquals(1, westZone.getAliveRobotThreadCount());
+        assertEquals(2, eastZone.getAliveRobotThreadCount(), "the east zone now stops W2's thread");
+    }
+
+    @Test
+    @DisplayName("A zone down to its minimum robots takes over the backlog's task instead of giving up a robot")
+    void donorAtMinimum_taskHandedOver() throws Exception {
+        ZoneCoordinator zc = newCoordinator();
+        zc.setMinRobotsPerZone(2);
+        EquipmentManager eastZone = zc.getZoneManagers().get(1);
+        east.setBatteryPercentage(1);
+        Task nuts = new OrderTask("O1", "N", 1, wm);
+        eastZone.replay(List.of(DispatchEvent.taskSubmitted(nuts)));
+
+        zc.rebalance();
+
+        assertEquals(0, zc.getRobotHandoffCount());
+        assertEquals(1, zc.getTaskHandoffCount());
+        assertEquals(0, eastZone.getPendingTaskCount());
+        assertEquals(List.of(nuts), zc.getQueuedTasks(0));
+    }
+
+    @Test
+    @DisplayName("Cooperative planning reserves in one table for all zones, so routes across a border avoid each other")
+    void cooperativePlanning_sharedAcrossZones() {
+        ZoneCoordinator zc = newCoordinator();
+        EquipmentManager westZone = zc.getZoneManagers().get(0);
+        EquipmentManager eastZone = zc.getZoneManagers().get(1);
+        zc.setCooperativePlanning(true);
+        assertTrue(westZone.isCooperativePlanning() && eastZone.isCooperativePlanning());
+
+        // W2 crosses into the east half and parks on (11,5) before E1 gets there
+        List<Point> west = westZone.requestPath(west2, new Point(11, 5));
+        assertInstanceOf(TimedPath.class, west);
+        List<Point> eastward = eastZone.requestPath(east, new Point(9, 5));
+        assertInstanceOf(TimedPath.class, eastward);
+        assertFalse(eastward.contains(new Point(11, 5)), "E1 must drive around the robot parked by the other zone");
+
+        zc.setCooperativePlanning(false);
+        assertFalse(westZone.isCooperativePlanning() || eastZone.isCooperativePlanning());
+    }
+}
@@ -0,0 +1,109 @@
+package wms.wmsjfx.equipmentManager;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.taskManager.OrderTask;
+import wms.wmsjfx.taskManager.Task;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * Manual benchmark (not run by surefire): how fast one manager for the whole
+ * floor and 2 or 4 zone managers choose robots for the same number of orders.
+ * The floor is cut into vertical strips; each zone evaluates only its own
+ * robots, on its own thread. Robot choice is read-only (selectRobot), so no
+ * robot moves and the idle fleet stays the same throughout. All three are run
+ * once to warm up the JIT before the measured pass.
+ * Run with: java -cp target/classes:target/test-classes wms.wmsjfx.equipmentManager.ZoneDispatchBenchmark [robots] [orders]
+ */
+public class ZoneDispatchBenchmark {
+
+    private static final int WIDTH = 28;
+    private static final int HEIGHT = 12;
+    private static final int STRIP = 7; // stations every STRIP columns, so 1, 2 or 4 zones all have their own
+
+    public static void main(String[] args) throws Exception {
+        int robots = args.length > 0 ? Integer.parseInt(args[0]) : 48;
+        int orders = args.length > 1 ? Integer.parseInt(args[1]) : 4_000;
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (int zoneCount : new int[]{1, 2, 4}) {
+                double seconds = run(zoneCount, robots, orders);
+                if (pass == 1) {
+                    System.out.printf("%d zone(s), %d robots: %d orders in %.2f s (%.0f orders/s)%n",
+                            zoneCount, robots, orders, seconds, orders / seconds);
+                }
+            }
+        }
+    }
+
+    /** Chooses robots for 'orders' orders with the floor cut into 'zoneCount' zones; returns the seconds it took. */
+    private static double run(int zoneCount, int robots, int orders) throws Exception {
+        WarehouseManager wm = floor(robots);
+        List<Rectangle> zones = new ArrayList<>();
+        for (int i = 0; i < zoneCount; i++) {
+            zones.add(new Rectangle(i * WIDTH / zoneCount, 0, WIDTH / zoneCount, HEIGHT));
+        }
+        ZoneCoordinator zc = new ZoneCoordinator(wm, zones, new LinkedBlockingQueue<>(), new PathFinding(wm),
+                RobotExecution.PLATFORM_THREADS, SimulationClock.realTime());
+
+        // The same orders in every run, each one handled by the zone of its shelf
+        List<List<Task>> perZone = new ArrayList<>();
+        for (int i = 0; i < zoneCount; i++) perZone.add(new ArrayList<>());
+        Random random = new Random(7);
+        for (int o = 0; o < orders; o++) {
+            int x = 3 + 4 * random.nextInt((WIDTH - 4) / 4);
+            int y = 3 + 3 * random.nextInt((HEIGHT - 6) / 3);
+            Task task = new OrderTask("O" + o, "P" + x + "-" + y, 1, wm);
+            perZone.get(zc.zoneOf(new Point(x, y))).add(task);
+        }
+
+        long start = System.nanoTime();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < zoneCount; i++) {
+            EquipmentManager em = zc.getZoneManagers().get(i);
+            List<Task> tasks = perZone.get(i);
+            Thread t = new Thread(() -> {
+                for (Task task : tasks) {
+                    em.selectRobot(task);
+                }
+            }, "Zone-" + i);
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) t.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        zc.stop(1000);
+        return seconds;
+    }
+
+    private static WarehouseManager floor(int robots) {
+        WarehouseManager wm = new WarehouseManager(WIDTH, HEIGHT);
+        for (int x = 3; x < WIDTH - 1; x += 4) {
+            for (int y = 3; y < HEIGHT - 3; y += 3) {
+                String shelf = "S" + x + "-" + y;
+                wm.addObjectToFloor(new StorageShelf(shelf, x, y, WahouseObjectType.StorageShelf));
+                String product = "P" + x + "-" + y;
+                wm.addProductToInventory(new Product(product, product), 1_000_000, shelf);
+            }
+        }
+        for (int x = 0; x < WIDTH; x += STRIP) {
+            wm.addObjectToFloor(new PackingStation("PACK" + x, x, HEIGHT - 1, WahouseObjectType.PackingStation));
+            wm.addObjectToFloor(new ChargingStation("CHARGE" + x, x, 0, WahouseObjectType.ChargingStation));
+        }
+        for (int r = 0; r < robots; r++) {
+            wm.addObjectToFloor(new Robot("R" + r, new Point((r * 5 + 1) % WIDTH, 1 + (r * 5 / WIDTH) % 2), null, WahouseObjectType.Robot));
+        }
+        return wm;
+    }
+}
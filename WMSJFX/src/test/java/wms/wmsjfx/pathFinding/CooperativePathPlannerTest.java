@@ -0,0 +1,185 @@
+package wms.wmsjfx.pathFinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseObject;
+
+class CooperativePathPlannerTest {
+
+    private static final long TICK = 1000; // test plans use explicit ticks
+
+    /** Position at 'tick' of a robot that left 'start' at 'startTick' (it parks at the end). */
+    private static Point positionAt(Point start, TimedPath path, long tick) {
+        int index = (int) (tick - path.getStartTick()) - 1;
+        if (index < 0) return start;
+        return path.get(Math.min(index, path.size() - 1));
+    }
+
+    /** Asserts no two robots share a walkable cell in the same tick or pass through each other. */
+    private static void assertNoConflicts(WarehouseMap map, List<Point> starts, List<TimedPath> paths) {
+        long from = Long.MAX_VALUE;
+        long to = 0;
+        for (TimedPath p : paths) {
+            from = Math.min(from, p.getStartTick());
+            to = Math.max(to, p.getStartTick() + p.size() + 1);
+        }
+        for (long tick = from; tick <= to; tick++) {
+            for (int a = 0; a < paths.size(); a++) {
+                for (int b = a + 1; b < paths.size(); b++) {
+                    Point pa = positionAt(starts.get(a), paths.get(a), tick);
+                    Point pb = positionAt(starts.get(b), paths.get(b), tick);
+                    if (map.isWalkable(pa.x, pa.y)) {
+                        assertNotEquals(pa, pb, "Robots " + a + " and " + b + " collide at tick " + tick);
+                    }
+                    Point na = positionAt(starts.get(a), paths.get(a), tick + 1);
+                    Point nb = positionAt(starts.get(b), paths.get(b), tick + 1);
+                    assertFalse(pa.equals(nb) && pb.equals(na) && !pa.equals(pb),
+                            "Robots " + a + " and " + b + " swap cells at tick " + tick);
+                }
+            }
+        }
+    }
+
+    private static void assertValidSteps(WarehouseMap map, Point start, Point target, TimedPath path) {
+        Point prev = start;
+        for (Point step : path) {
+            assertTrue(Math.abs(step.x - prev.x) <= 1 && Math.abs(step.y - prev.y) <= 1, prev + " -> " + step);
+            assertTrue(step.equals(target) || step.equals(prev) || map.isWalkable(step.x, step.y), "Blocked " + step);
+            prev = step;
+        }
+        assertEquals(target, prev);
+    }
+
+    @Test
+    @DisplayName("Crossing robots get conflict-free paths, one of them waits or detours")
+    void crossingRobots() {
+        WarehouseMap map = new WarehouseMap(5, 5, new ArrayList<>());
+        CooperativePathPlanner planner = new CooperativePathPlanner(map, new ReservationTable(TICK));
+
+        List<Point> starts = List.of(new Point(0, 2), new Point(2, 0));
+        TimedPath a = planner.plan("A", starts.get(0), new Point(4, 2), 0);
+        TimedPath b = planner.plan("B", starts.get(1), new Point(2, 4), 0);
+
+        assertNotNull(a);
+        assertNotNull(b);
+        assertEquals(4, a.size(), "First robot takes the straight line");
+        assertValidSteps(map, starts.get(1), new Point(2, 4), b);
+        assertNoConflicts(map, starts, List.of(a, b));
+    }
+
+    @Test
+    @DisplayName("A robot waits in its bay until the robot in the one-lane aisle has passed")
+    void corridorInsertsWaits() {
+        // Row y=1 is the only lane, (3,0) is a bay off it
+        List<WarehouseObject> walls = new ArrayList<>();
+        for (int x = 0; x < 7; x++) {
+            if (x != 3) walls.add(new StorageShelf("N" + x, x, 0, WahouseObjectType.StorageShelf));
+            walls.add(new StorageShelf("S" + x, x, 2, WahouseObjectType.StorageShelf));
+        }
+        WarehouseMap map = new WarehouseMap(7, 3, walls);
+        CooperativePathPlanner planner = new CooperativePathPlanner(map, new ReservationTable(TICK));
+
+        // A drives east along the lane, B wants to leave the bay westwards against it
+        List<Point> starts = List.of(new Point(0, 1), new Point(3, 0));
+        TimedPath a = planner.plan("A", starts.get(0), new Point(6, 1), 0);
+        TimedPath b = planner.plan("B", starts.get(1), new Point(0, 1), 0);
+        assertNotNull(a);
+        assertNotNull(b);
+        assertEquals(6, a.size());
+        assertValidSteps(map, starts.get(1), new Point(0, 1), b);
+        assertNoConflicts(map, starts, List.of(a, b));
+
+        long waitsInBay = b.stream().filter(p -> p.equals(new Point(3, 0))).count();
+        assertTrue(waitsInBay >= 1, "B has to wait in the bay: " + b);
+        assertEquals(3 + waitsInBay, b.size(), "Shortest route plus the waits: " + b);
+    }
+
+    @Test
+    @DisplayName("Many robots planning concurrently never get conflicting reservations")
+    void concurrentPlanning_noConflicts() throws Exception {
+        Random random = new Random(3);
+        List<WarehouseObject> objects = new ArrayList<>();
+        for (int x = 2; x < 18; x += 4) {
+            for (int y = 2; y < 18; y++) {
+                if (y % 6 != 0) objects.add(new StorageShelf("S" + x + "-" + y, x, y, WahouseObjectType.StorageShelf));
+            }
+        }
+        WarehouseMap map = new WarehouseMap(20, 20, objects);
+        CooperativePathPlanner planner = new CooperativePathPlanner(map, new ReservationTable(TICK));
+
+        int robots = 12;
+        List<Point> starts = new ArrayList<>();
+        List<Point> targets = new ArrayList<>();
+        while (starts.size() < robots) {
+            Point s = new Point(random.nextInt(20), random.nextInt(20));
+            Point t = new Point(random.nextInt(20), random.nextInt(20));
+            if (map.isWalkable(s.x, s.y) && map.isWalkable(t.x, t.y) && !starts.contains(s) && !targets.contains(t)
+                    && !starts.contains(t) && !targets.contains(s)) {
+                starts.add(s);
+                targets.add(t);
+            }
+        }
+        // Every robot stands on its start before anybody plans
+        for (int i = 0; i < robots; i++) {
+            planner.getReservationTable().park("R" + i, starts.get(i).y * 20 + starts.get(i).x, 0);
+        }
+
+        ConcurrentHashMap<Integer, TimedPath> paths = new ConcurrentHashMap<>();
+        ExecutorService pool = Executors.newFixedThreadPool(robots);
+        CountDownLatch go = new CountDownLatch(1);
+        for (int i = 0; i < robots; i++) {
+            int robot = i;
+            pool.submit(() -> {
+                go.await();
+                TimedPath path = planner.plan("R" + robot, starts.get(robot), targets.get(robot), 0);
+                if (path != null) paths.put(robot, path);
+                return null;
+            });
+        }
+        go.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        List<Point> plannedStarts = new ArrayList<>();
+        List<TimedPath> planned = new ArrayList<>();
+        for (int i = 0; i < robots; i++) {
+            TimedPath path = paths.get(i);
+            if (path == null) continue; // gave up; it stays parked and others planned around it
+            assertValidSteps(map, starts.get(i), targets.get(i), path);
+            plannedStarts.add(starts.get(i));
+            planned.add(path);
+        }
+        assertTrue(planned.size() >= robots - 1, "Only " + planned.size() + " robots got a route");
+        assertNoConflicts(map, plannedStarts, planned);
+    }
+
+    @Test
+    @DisplayName("Replanning releases the robot's earlier reservations")
+    void replanningReleasesReservations() {
+        WarehouseMap map = new WarehouseMap(10, 10, new ArrayList<>());
+        ReservationTable table = new ReservationTable(TICK);
+        CooperativePathPlanner planner = new CooperativePathPlanner(map, table);
+
+        planner.plan("A", new Point(0, 0), new Point(9, 0), 0);
+        int afterFirst = table.size();
+        planner.plan("A", new Point(9, 0), new Point(9, 9), 20);
+        assertEquals(afterFirst, table.size(), "Same route length, old entries dropped");
+        assertNull(table.ownerOf(0, 0), "Start of the old route is free again");
+        assertEquals("A", table.ownerOf(9 * 10 + 9, 40), "Parked at the new goal");
+    }
+}
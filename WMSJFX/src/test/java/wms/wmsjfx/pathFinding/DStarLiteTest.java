@@ -0,0 +1,99 @@
+package wms.wmsjfx.pathFinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static wms.wmsjfx.pathFinding.PathTestSupport.randomMap;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class DStarLiteTest {
+
+    @Test
+    @DisplayName("D* Lite keeps A*-optimal costs while cells are blocked and freed and the robot moves on")
+    void sameCostAsAStar_afterChanges() {
+        for (long seed = 1; seed <= 6; seed++) {
+            WarehouseMap map = randomMap(24, 0.2, seed);
+            AStarPathFinder aStar = new AStarPathFinder(map);
+            Random random = new Random(seed * 17);
+            Point start = new Point(random.nextInt(24), random.nextInt(24));
+            Point goal = new Point(random.nextInt(24), random.nextInt(24));
+            map.setWalkable(start, true);
+
+            DStarLite dStar = new DStarLite(map, start, goal);
+            map.addChangeListener(dStar);
+
+            for (int round = 0; round < 30; round++) {
+                List<Point> expected = aStar.findPath(start, goal);
+                List<Point> actual = dStar.findPath();
+                assertEquals(expected.isEmpty(), actual.isEmpty(), "Seed " + seed + " round " + round + ": reachability");
+                if (!expected.isEmpty()) {
+                    assertEquals(PathFinder.pathCost(start, expected), PathFinder.pathCost(start, actual),
+                            "Seed " + seed + " round " + round + ": cost " + start + " -> " + goal);
+                    assertEquals(goal, actual.get(actual.size() - 1));
+                    // Drive one step, as a robot would between two map changes
+                    if (actual.size() > 1) {
+                        start = actual.get(0);
+                        dStar.updateStart(start);
+                    }
+                }
+
+                for (int c = 0; c < 3; c++) {
+                    Point cell = new Point(random.nextInt(24), random.nextInt(24));
+                    if (!cell.equals(start) && !cell.equals(goal)) {
+                        map.setWalkable(cell, !map.isWalkable(cell.x, cell.y));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Blocking a cell on the route is repaired with far fewer expansions than a new A* search")
+    void repairExpandsFewerNodes() {
+        // A long wall with a gap at the far end, so a search from scratch floods most of the floor
+        WarehouseMap map = new WarehouseMap(60, 60, new ArrayList<>());
+        for (int y = 0; y < 59; y++) {
+            map.setWalkable(new Point(30, y), false);
+        }
+        Point goal = new Point(59, 30);
+        DStarLite dStar = new DStarLite(map, new Point(0, 30), goal);
+        map.addChangeListener(dStar);
+        List<Point> first = dStar.findPath();
+
+        // The robot drove one step, then something broke down a few cells ahead
+        Point current = first.get(0);
+        Point blocked = first.get(10);
+        dStar.updateStart(current);
+        map.setWalkable(blocked, false);
+        List<Point> repaired = dStar.findPath();
+
+        AStarPathFinder aStar = new AStarPathFinder(map);
+        List<Point> expected = aStar.findPath(current, goal);
+        assertFalse(repaired.contains(blocked));
+        assertEquals(PathFinder.pathCost(current, expected), PathFinder.pathCost(current, repaired));
+        assertTrue(dStar.getLastExpandedNodes() * 4 < aStar.getLastExpandedNodes(),
+                "repair: " + dStar.getLastExpandedNodes() + ", A*: " + aStar.getLastExpandedNodes());
+    }
+
+    @Test
+    @DisplayName("An unreachable goal yields an empty path, and a path again once the wall opens")
+    void unreachableGoal_thenReopened() {
+        WarehouseMap map = new WarehouseMap(5, 5, new ArrayList<>());
+        for (int y = 0; y < 5; y++) {
+            map.setWalkable(new Point(2, y), false);
+        }
+        DStarLite dStar = new DStarLite(map, new Point(0, 2), new Point(4, 2));
+        map.addChangeListener(dStar);
+        assertTrue(dStar.findPath().isEmpty());
+
+        map.setWalkable(new Point(2, 4), true);
+        List<Point> path = dStar.findPath();
+        assertTrue(path.contains(new Point(2, 4)));
+        assertEquals(new Point(4, 2), path.get(path.size() - 1));
+    }
+}
@@ -0,0 +1,123 @@
+package wms.wmsjfx.pathFinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static wms.wmsjfx.pathFinding.PathTestSupport.checkedCost;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseObject;
+
+class HierarchicalPathFinderTest {
+
+    /** Shelf rows every third line with cross aisles, plus some random clutter. */
+    private static WarehouseMap aisleMap(int size, long seed) {
+        Random random = new Random(seed);
+        List<WarehouseObject> objects = new ArrayList<>();
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                boolean shelf = y % 3 == 2 && x % 12 != 0 && x > 0 && x < size - 1;
+                if (shelf || random.nextDouble() < 0.05) {
+                    objects.add(new StorageShelf("S" + x + "-" + y, x, y, WahouseObjectType.StorageShelf));
+                }
+            }
+        }
+        return new WarehouseMap(size, size, objects);
+    }
+
+    @Test
+    @DisplayName("HPA* finds valid routes wherever A* does, at near-optimal cost")
+    void nearOptimal_comparedToAStar() {
+        for (long seed = 1; seed <= 4; seed++) {
+            WarehouseMap map = aisleMap(40, seed);
+            AStarPathFinder aStar = new AStarPathFinder(map);
+            HierarchicalPathFinder hpa = new HierarchicalPathFinder(map, 8);
+            Random random = new Random(seed * 17);
+
+            long optimalTotal = 0;
+            long hpaTotal = 0;
+            for (int q = 0; q < 60; q++) {
+                Point start = new Point(random.nextInt(40), random.nextInt(40));
+                Point target = new Point(random.nextInt(40), random.nextInt(40));
+                List<Point> expected = aStar.findPath(start, target);
+                List<Point> actual = hpa.findPath(start, target);
+
+                assertEquals(expected.isEmpty(), actual.isEmpty(), "Reachability " + start + " -> " + target);
+                if (expected.isEmpty()) continue;
+                assertEquals(target, actual.get(actual.size() - 1));
+                int optimal = checkedCost(map, start, target, expected);
+                int cost = checkedCost(map, start, target, actual);
+                assertTrue(cost >= optimal);
+                assertTrue(cost <= optimal * 3 / 2 + 40, "Seed " + seed + ": " + cost + " vs optimal " + optimal);
+                optimalTotal += optimal;
+                hpaTotal += cost;
+            }
+            assertTrue(hpaTotal <= optimalTotal * 115 / 100,
+                    "Seed " + seed + ": total " + hpaTotal + " vs optimal " + optimalTotal);
+        }
+    }
+
+    @Test
+    @DisplayName("Local cluster rebuilds after map changes equal a graph built from scratch")
+    void incrementalRebuild_equalsFreshGraph() {
+        WarehouseMap map = aisleMap(30, 5);
+        HierarchicalPathFinder incremental = new HierarchicalPathFinder(map, 6);
+        map.addChangeListener(incremental);
+        incremental.getAbstractNodeCount(); // build before the changes
+
+        Random random = new Random(23);
+        List<Point> blocked = new ArrayList<>();
+        for (int step = 0; step < 40; step++) {
+            if (!blocked.isEmpty() && random.nextInt(3) == 0) {
+                map.setWalkable(blocked.remove(random.nextInt(blocked.size())), true);
+            } else {
+                Point p = new Point(random.nextInt(30), random.nextInt(30));
+                if (map.getWarehouseObject(p).nodeType != NodeType.None || !map.isWalkable(p.x, p.y)) continue;
+                map.setWalkable(p, false);
+                blocked.add(p);
+            }
+
+            HierarchicalPathFinder fresh = new HierarchicalPathFinder(map, 6);
+            assertEquals(fresh.getAbstractNodeCount(), incremental.getAbstractNodeCount(), "Step " + step);
+            for (int q = 0; q < 10; q++) {
+                Point start = new Point(random.nextInt(30), random.nextInt(30));
+                Point target = new Point(random.nextInt(30), random.nextInt(30));
+                List<Point> expected = fresh.findPath(start, target);
+                List<Point> actual = incremental.findPath(start, target);
+                assertEquals(PathFinder.pathCost(start, expected), checkedCost(map, start, target, actual),
+                        "Step " + step + ": " + start + " -> " + target);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Routes start on and end at blocked cells on cluster borders")
+    void blockedEndpointsOnBorders() {
+        List<WarehouseObject> objects = new ArrayList<>();
+        for (int y = 0; y < 9; y++) {
+            objects.add(new StorageShelf("W" + y, 5, y, WahouseObjectType.StorageShelf));
+        }
+        WarehouseMap map = new WarehouseMap(10, 10, objects);
+        HierarchicalPathFinder hpa = new HierarchicalPathFinder(map, 5);
+
+        // (4,0) is the last column of cluster 0 and only reachable from the west
+        map.setWalkable(new Point(4, 0), false);
+        List<Point> path = hpa.findPath(new Point(0, 0), new Point(4, 0));
+        assertEquals(40, checkedCost(map, new Point(0, 0), new Point(4, 0), path));
+
+        // Leaving a blocked cell, round the wall through the gap at y=9; crossing at
+        // an entrance may add a detour of a step or two over the optimum
+        List<Point> around = hpa.findPath(new Point(4, 0), new Point(9, 0));
+        int optimal = PathFinder.pathCost(new Point(4, 0), new AStarPathFinder(map).findPath(new Point(4, 0), new Point(9, 0)));
+        int cost = checkedCost(map, new Point(4, 0), new Point(9, 0), around);
+        assertEquals(new Point(9, 0), around.get(around.size() - 1));
+        assertTrue(cost >= optimal && cost <= optimal + 2 * PathFinder.DIAGONAL_COST, cost + " vs optimal " + optimal);
+    }
+}
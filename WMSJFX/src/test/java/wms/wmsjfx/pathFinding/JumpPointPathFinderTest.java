@@ -0,0 +1,83 @@
+package wms.wmsjfx.pathFinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static wms.wmsjfx.pathFinding.PathTestSupport.checkedCost;
+import static wms.wmsjfx.pathFinding.PathTestSupport.randomMap;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+class JumpPointPathFinderTest {
+
+    @Test
+    @DisplayName("JPS returns step-by-step paths with the same optimal cost as A* on random floors")
+    void sameCostAsAStar_randomFloors() {
+        for (long seed = 1; seed <= 8; seed++) {
+            WarehouseMap map = randomMap(24, 0.25, seed);
+            AStarPathFinder aStar = new AStarPathFinder(map);
+            JumpPointPathFinder jps = new JumpPointPathFinder(map);
+            Random random = new Random(seed * 31);
+
+            for (int q = 0; q < 40; q++) {
+                Point start = new Point(random.nextInt(24), random.nextInt(24));
+                Point target = new Point(random.nextInt(24), random.nextInt(24));
+                List<Point> expected = aStar.findPath(start, target);
+                List<Point> actual = jps.findPath(start, target);
+
+                assertEquals(expected.isEmpty(), actual.isEmpty(), "Reachability " + start + " -> " + target);
+                if (!expected.isEmpty()) {
+                    assertEquals(target, actual.get(actual.size() - 1));
+                    assertEquals(checkedCost(map, start, target, expected), checkedCost(map, start, target, actual),
+                            "Seed " + seed + ": cost " + start + " -> " + target);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("JPS expands far fewer nodes than A* across an open aisle")
+    void fewerExpansions_openFloor() {
+        WarehouseMap map = new WarehouseMap(60, 60, new ArrayList<>());
+        AStarPathFinder aStar = new AStarPathFinder(map);
+        JumpPointPathFinder jps = new JumpPointPathFinder(map);
+
+        // Blocked target (a shelf) at the far corner
+        map.setWalkable(new Point(59, 40), false);
+        List<Point> a = aStar.findPath(new Point(0, 0), new Point(59, 40));
+        int aStarExpanded = aStar.getLastExpandedNodes();
+        List<Point> j = jps.findPath(new Point(0, 0), new Point(59, 40));
+        int jpsExpanded = jps.getLastExpandedNodes();
+
+        assertEquals(checkedCost(map, new Point(0, 0), new Point(59, 40), a),
+                checkedCost(map, new Point(0, 0), new Point(59, 40), j));
+        assertTrue(jpsExpanded * 5 < aStarExpanded,
+                "JPS expanded " + jpsExpanded + " nodes, A* " + aStarExpanded);
+    }
+
+    @Test
+    @DisplayName("PathFinding can be switched to JPS and still serves routes")
+    void pathFinding_switchAlgorithm() {
+        WarehouseManager wm = new WarehouseManager(10, 10);
+        for (int y = 0; y < 9; y++) {
+            wm.addObjectToFloor(new StorageShelf("S" + y, 5, y, WahouseObjectType.StorageShelf));
+        }
+        PathFinding pf = new PathFinding(wm);
+        List<Point> viaAStar = pf.findPath(new Point(0, 0), new Point(9, 0));
+
+        pf.setAlgorithm(PathAlgorithm.JUMP_POINT_SEARCH);
+        assertEquals(PathAlgorithm.JUMP_POINT_SEARCH, pf.getAlgorithm());
+        List<Point> viaJps = pf.findPath(new Point(0, 0), new Point(9, 0));
+        WarehouseMap map = pf.getWarehouseMap();
+        assertEquals(checkedCost(map, new Point(0, 0), new Point(9, 0), viaAStar),
+                checkedCost(map, new Point(0, 0), new Point(9, 0), viaJps));
+    }
+}
@@ -0,0 +1,69 @@
+package wms.wmsjfx.pathFinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+class PathCacheTest {
+
+    @Test
+    @DisplayName("Repeated queries hit the cache and return the same shared path")
+    void repeatedQuery_hitsCache() {
+        PathFinding pf = new PathFinding(new WarehouseManager(10, 10));
+        PathCache cache = pf.getPathCache();
+
+        List<Point> first = pf.findPath(new Point(0, 0), new Point(7, 3));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        List<Point> second = pf.findPath(new Point(0, 0), new Point(7, 3));
+        assertSame(first, second);
+        assertEquals(1, cache.getHitCount());
+        assertThrows(UnsupportedOperationException.class, () -> second.add(new Point(1, 1)));
+    }
+
+    @Test
+    @DisplayName("Blocking a cell on the map invalidates cached paths")
+    void walkabilityChange_invalidates() {
+        PathFinding pf = new PathFinding(new WarehouseManager(10, 10));
+        Point start = new Point(0, 0);
+        Point target = new Point(4, 0);
+
+        List<Point> before = pf.findPath(start, target);
+        assertTrue(before.contains(new Point(2, 0)));
+
+        pf.getWarehouseMap().setWalkable(new Point(2, 0), false);
+        List<Point> after = pf.findPath(start, target);
+        assertFalse(after.contains(new Point(2, 0)), "Path must avoid the newly blocked cell");
+        assertEquals(2, pf.getPathCache().getMissCount());
+
+        pf.getWarehouseMap().setWalkable(new Point(2, 0), true);
+        assertEquals(before, pf.findPath(start, target));
+    }
+
+    @Test
+    @DisplayName("Cache is bounded and evicts least recently used entries")
+    void boundedLru() {
+        WarehouseMap map = new WarehouseMap(64, 64, new ArrayList<>());
+        PathCache cache = new PathCache(map, 16); // one entry per segment
+
+        for (int x = 0; x < 64; x++) {
+            cache.put(new Point(x, 0), new Point(x, 1), List.of(new Point(x, 1)), map.getVersion());
+        }
+        assertTrue(cache.size() <= 16, "Cache must not exceed its capacity");
+
+        // Results computed against an outdated map version are not stored
+        long oldVersion = map.getVersion();
+        map.setWalkable(new Point(5, 5), false);
+        cache.put(new Point(1, 1), new Point(2, 2), List.of(new Point(2, 2)), oldVersion);
+        assertNull(cache.get(new Point(1, 1), new Point(2, 2)));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,80 @@
+package wms.wmsjfx.pathFinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseObject;
+
+/**
+ * Manual benchmark (not run by surefire): A*, Jump Point Search and HPA* on a
+ * large aisle floor. Reports nodes expanded, wall time and route cost per query.
+ * Run with: java -cp target/classes:target/test-classes wms.wmsjfx.pathFinding.PathFinderBenchmark [size]
+ */
+public class PathFinderBenchmark {
+
+    private static final int QUERIES = 2000;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        WarehouseMap map = new WarehouseMap(size, size, aisleFloor(size));
+        Random random = new Random(7);
+        Point[][] queries = new Point[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = new Point[] { randomFreeCell(map, random, size), randomFreeCell(map, random, size) };
+        }
+
+        run("A*", new AStarPathFinder(map), queries);
+        run("JPS", new JumpPointPathFinder(map), queries);
+
+        for (int clusterSize : new int[] { 10, 20 }) {
+            HierarchicalPathFinder hierarchical = new HierarchicalPathFinder(map, clusterSize);
+            long buildStart = System.nanoTime();
+            int abstractNodes = hierarchical.getAbstractNodeCount();
+            System.out.printf("HPA* clusters of %d: %d nodes, built in %.1f ms%n",
+                    clusterSize, abstractNodes, (System.nanoTime() - buildStart) / 1e6);
+            run("HPA*", hierarchical, queries);
+        }
+    }
+
+    private static void run(String name, PathFinder finder, Point[][] queries) {
+        // Warm-up pass, then a measured pass
+        for (Point[] q : queries) finder.findPath(q[0], q[1]);
+
+        long expanded = 0;
+        long cost = 0;
+        long start = System.nanoTime();
+        for (Point[] q : queries) {
+            List<Point> path = finder.findPath(q[0], q[1]);
+            expanded += finder.getLastExpandedNodes();
+            cost += PathFinder.pathCost(q[0], path);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-4s %8.1f nodes/query %8.1f us/query %8.1f cost/query%n",
+                name, (double) expanded / queries.length, elapsed / 1000.0 / queries.length,
+                (double) cost / queries.length);
+    }
+
+    /** Rows of shelves two cells apart with a cross aisle every 20 cells. */
+    private static List<WarehouseObject> aisleFloor(int size) {
+        List<WarehouseObject> objects = new ArrayList<>();
+        for (int y = 2; y < size - 2; y += 3) {
+            for (int x = 2; x < size - 2; x++) {
+                if (x % 20 == 0) continue;
+                objects.add(new StorageShelf("S" + x + "-" + y, x, y, WahouseObjectType.StorageShelf));
+            }
+        }
+        return objects;
+    }
+
+    private static Point randomFreeCell(WarehouseMap map, Random random, int size) {
+        while (true) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+            if (map.isWalkable(x, y)) return new Point(x, y);
+        }
+    }
+}
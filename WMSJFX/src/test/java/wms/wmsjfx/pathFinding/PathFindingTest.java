@@ -0,0 +1,121 @@
+package wms.wmsjfx.pathFinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static wms.wmsjfx.pathFinding.PathTestSupport.pathCost;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+class PathFindingTest {
+
+    /** 10x10 floor with a shelf wall at x=5 from y=0..8 (gap at y=9). */
+    private WarehouseManager wallFloor() {
+        WarehouseManager wm = new WarehouseManager(10, 10);
+        for (int y = 0; y < 9; y++) {
+            wm.addObjectToFloor(new StorageShelf("S" + y, 5, y, WahouseObjectType.StorageShelf));
+        }
+        wm.addObjectToFloor(new PackingStation("P1", 9, 0, WahouseObjectType.PackingStation));
+        return wm;
+    }
+
+    @Test
+    @DisplayName("Open floor: straight and diagonal paths have optimal cost and exclude the start")
+    void openFloor_optimalCost() {
+        PathFinding pf = new PathFinding(new WarehouseManager(8, 8));
+
+        List<Point> straight = pf.findPath(new Point(0, 0), new Point(5, 0));
+        assertEquals(5, straight.size());
+        assertEquals(new Point(5, 0), straight.get(straight.size() - 1));
+        assertEquals(50, pathCost(new Point(0, 0), straight));
+
+        List<Point> mixed = pf.findPath(new Point(0, 0), new Point(6, 3));
+        assertEquals(3 * 14 + 3 * 10, pathCost(new Point(0, 0), mixed));
+    }
+
+    @Test
+    @DisplayName("Path detours around a shelf wall and may end on a non-walkable target")
+    void wall_detourAndBlockedTarget() {
+        PathFinding pf = new PathFinding(wallFloor());
+
+        Point start = new Point(0, 0);
+        List<Point> path = pf.findPath(start, new Point(9, 0));
+        assertFalse(path.isEmpty());
+        assertEquals(new Point(9, 0), path.get(path.size() - 1));
+        for (Point p : path) {
+            assertFalse(p.x == 5 && p.y < 9, "Path must not cross the shelf wall at " + p);
+        }
+        // Optimal detour through the gap at (5,9): 110 down to it + 106 back up
+        assertEquals(216, pathCost(start, path));
+
+        // A shelf itself is a valid target
+        List<Point> toShelf = pf.findPath(start, new Point(5, 4));
+        assertEquals(new Point(5, 4), toShelf.get(toShelf.size() - 1));
+    }
+
+    @Test
+    @DisplayName("A strategy built on first use is kept and follows later map changes")
+    void lazyStrategy_followsMapChanges() {
+        // 30x10 floor, three clusters wide, with a shelf wall on the first cluster border (x=10, y=0..8)
+        WarehouseManager wm = new WarehouseManager(30, 10);
+        for (int y = 0; y < 9; y++) {
+            wm.addObjectToFloor(new StorageShelf("S" + y, 10, y, WahouseObjectType.StorageShelf));
+        }
+        PathFinding pf = new PathFinding(wm);
+        pf.setAlgorithm(PathAlgorithm.HIERARCHICAL);
+        Point start = new Point(2, 4);
+        Point target = new Point(28, 4); // no station there, so the search answers
+
+        assertTrue(pf.findPath(start, target).contains(new Point(10, 9)), "must detour through the gap");
+        assertSame(pf.getPathFinder(PathAlgorithm.HIERARCHICAL), pf.getPathFinder(PathAlgorithm.HIERARCHICAL));
+
+        pf.getWarehouseMap().setWalkable(new Point(10, 4), true); // a door in the wall: a new cluster entrance
+        assertTrue(pf.findPath(start, target).contains(new Point(10, 4)), "must take the door");
+    }
+
+    @Test
+    @DisplayName("Same start and target, enclosed target and off-map points return an empty path")
+    void degenerateQueries_returnEmpty() {
+        WarehouseManager wm = new WarehouseManager(5, 5);
+        // Enclose (0,0) by blocking its three neighbours with shelves
+        wm.addObjectToFloor(new StorageShelf("S1", 1, 0, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new StorageShelf("S2", 0, 1, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new StorageShelf("S3", 1, 1, WahouseObjectType.StorageShelf));
+        PathFinding pf = new PathFinding(wm);
+
+        assertTrue(pf.findPath(new Point(2, 2), new Point(2, 2)).isEmpty());
+        assertTrue(pf.findPath(new Point(4, 4), new Point(0, 0)).isEmpty());
+        assertTrue(pf.findPath(new Point(0, 0), new Point(7, 7)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Reused per-thread search context gives identical results across calls and threads")
+    void reusedContext_consistentAcrossCallsAndThreads() throws Exception {
+        PathFinding pf = new PathFinding(wallFloor());
+        Point start = new Point(0, 0);
+        Point target = new Point(9, 0);
+        List<Point> reference = pf.findPath(start, target);
+
+        // Interleave unrelated searches on the same thread; stale data must not leak
+        for (int i = 0; i < 50; i++) {
+            pf.getPathCache().clear(); // force real searches
+            pf.findPath(new Point(i % 5, 9), new Point(9, i % 10));
+            assertEquals(reference, pf.findPath(start, target));
+        }
+        pf.getPathCache().clear();
+
+        AtomicReference<List<Point>> fromOtherThread = new AtomicReference<>();
+        Thread t = new Thread(() -> fromOtherThread.set(pf.findPath(start, target)));
+        t.start();
+        t.join(2000);
+        assertEquals(reference, fromOtherThread.get());
+    }
+}
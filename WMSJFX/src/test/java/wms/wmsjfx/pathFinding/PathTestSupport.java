@@ -0,0 +1,55 @@
+package wms.wmsjfx.pathFinding;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseObject;
+
+/**
+ * Floors and path checks shared by the path-finding tests.
+ */
+final class PathTestSupport {
+
+    private PathTestSupport() {
+    }
+
+    /** Sums the 10/14 step costs of a path that starts right after 'from'; fails if a step is not to an adjacent cell. */
+    static int pathCost(Point from, List<Point> path) {
+        Point prev = from;
+        for (Point step : path) {
+            int dx = Math.abs(step.x - prev.x);
+            int dy = Math.abs(step.y - prev.y);
+            assertTrue(dx <= 1 && dy <= 1 && dx + dy > 0, "Steps must be adjacent: " + prev + " -> " + step);
+            prev = step;
+        }
+        return PathFinder.pathCost(from, path);
+    }
+
+    /** Like pathCost, but also fails if a step other than the target is on a blocked cell. */
+    static int checkedCost(WarehouseMap map, Point from, Point target, List<Point> path) {
+        for (Point step : path) {
+            assertTrue(step.equals(target) || map.isWalkable(step.x, step.y), "Step on blocked cell " + step);
+        }
+        return pathCost(from, path);
+    }
+
+    /** Square floor with a shelf on each cell with probability 'density'. */
+    static WarehouseMap randomMap(int size, double density, long seed) {
+        Random random = new Random(seed);
+        List<WarehouseObject> objects = new ArrayList<>();
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (random.nextDouble() < density) {
+                    objects.add(new StorageShelf("S" + x + "-" + y, x, y, WahouseObjectType.StorageShelf));
+                }
+            }
+        }
+        return new WarehouseMap(size, size, objects);
+    }
+}
@@ -0,0 +1,103 @@
+package wms.wmsjfx.pathFinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+class PickTourPlannerTest {
+
+    private static double[][] euclidean(Point[] points) {
+        double[][] d = new double[points.length][points.length];
+        for (int i = 0; i < points.length; i++) {
+            for (int j = 0; j < points.length; j++) {
+                d[i][j] = points[i].distance(points[j]);
+            }
+        }
+        return d;
+    }
+
+    private static double length(int[] tour, double[][] d, double[] toEnd) {
+        double total = toEnd[tour[tour.length - 1]];
+        for (int i = 1; i < tour.length; i++) {
+            total += d[tour[i - 1]][tour[i]];
+        }
+        return total;
+    }
+
+    @Test
+    @DisplayName("Stops on a line are visited in order, finishing next to the drop point")
+    void stopsOnALine_visitedInOrderTowardsTheEnd() {
+        Point[] stops = {new Point(5, 0), new Point(1, 0), new Point(9, 0), new Point(3, 0), new Point(7, 0)};
+        Point end = new Point(0, 0);
+        double[] toEnd = new double[stops.length];
+        for (int i = 0; i < stops.length; i++) toEnd[i] = stops[i].distance(end);
+
+        int[] tour = PickTourPlanner.order(euclidean(stops), toEnd);
+
+        assertArrayEquals(new int[]{2, 4, 0, 3, 1}, tour); // x = 9, 7, 5, 3, 1
+    }
+
+    @Test
+    @DisplayName("The result visits every stop once and no 2-opt reversal can shorten it")
+    void randomInstances_twoOptLocallyOptimal() {
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            int n = 2 + random.nextInt(12);
+            Point[] stops = new Point[n];
+            for (int i = 0; i < n; i++) stops[i] = new Point(random.nextInt(50), random.nextInt(50));
+            double[][] d = euclidean(stops);
+            double[] toEnd = new double[n];
+            Point end = new Point(random.nextInt(50), random.nextInt(50));
+            for (int i = 0; i < n; i++) toEnd[i] = stops[i].distance(end);
+
+            int[] tour = PickTourPlanner.order(d, toEnd);
+
+            assertEquals(n, Arrays.stream(tour).distinct().count());
+            double best = length(tour, d, toEnd);
+            for (int i = 0; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    int[] reversed = tour.clone();
+                    for (int a = i, b = j; a < b; a++, b--) {
+                        int tmp = reversed[a];
+                        reversed[a] = reversed[b];
+                        reversed[b] = tmp;
+                    }
+                    assertTrue(length(reversed, d, toEnd) >= best - 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("plan() orders shelves by their path distances and ends at the shelf nearest the packing station")
+    void plan_usesShelfDistances() {
+        WarehouseManager wm = new WarehouseManager(20, 10);
+        wm.addObjectToFloor(new StorageShelf("A", 2, 2, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new StorageShelf("B", 10, 2, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new StorageShelf("C", 17, 2, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new StorageShelf("D", 10, 7, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new PackingStation("P", 0, 9, WahouseObjectType.PackingStation));
+        PickTourPlanner planner = new PickTourPlanner(new PathFinding(wm));
+        List<Point> stops = List.of(new Point(10, 2), new Point(2, 2), new Point(10, 7), new Point(17, 2));
+        Point pack = new Point(0, 9);
+
+        List<Point> tour = planner.plan(stops, pack);
+
+        assertEquals(new HashSet<>(stops), new HashSet<>(tour));
+        assertEquals(new Point(2, 2), tour.get(tour.size() - 1));
+        assertTrue(planner.length(tour, pack) <= planner.length(stops, pack));
+        assertEquals(List.of(new Point(4, 4)), planner.plan(List.of(new Point(4, 4), new Point(4, 4)), pack));
+    }
+}
@@ -0,0 +1,64 @@
+package wms.wmsjfx.pathFinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+class ScratchPoolTest {
+
+    @Test
+    @DisplayName("Many threads share at most 'capacity' objects; a borrower waits for one to come back")
+    void boundedByCapacity() throws Exception {
+        AtomicInteger made = new AtomicInteger();
+        ScratchPool<int[]> pool = new ScratchPool<>(2, () -> new int[made.incrementAndGet()]);
+        int[] first = pool.borrow();
+        int[] second = pool.borrow();
+
+        CountDownLatch borrowed = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            pool.release(pool.borrow());
+            borrowed.countDown();
+        });
+        waiter.start();
+        assertFalse(borrowed.await(100, TimeUnit.MILLISECONDS), "both objects are out");
+        pool.release(first);
+        assertTrue(borrowed.await(5, TimeUnit.SECONDS));
+        pool.release(second);
+        assertEquals(2, made.get());
+        assertThrows(IllegalArgumentException.class, () -> new ScratchPool<>(0, Object::new));
+    }
+
+    @Test
+    @DisplayName("A* searches on many virtual threads give the single-thread routes from a bounded set of contexts")
+    void virtualThreadSearches_shareBoundedContexts() throws Exception {
+        WarehouseMap map = new WarehouseMap(30, 30, new WarehouseManager(30, 30).getAllWarehouseObjects());
+        AStarPathFinder aStar = new AStarPathFinder(map);
+        List<Point> expected = aStar.findPath(new Point(0, 0), new Point(29, 17));
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<List<Point>>> routes = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                routes.add(pool.submit(() -> aStar.findPath(new Point(0, 0), new Point(29, 17))));
+            }
+            for (Future<List<Point>> route : routes) {
+                assertEquals(expected, route.get());
+            }
+        }
+        ScratchPool<SearchContext> contexts = aStar.getSearchContexts();
+        assertTrue(contexts.getCreatedCount() <= contexts.getCapacity(),
+                contexts.getCreatedCount() + " contexts for a capacity of " + contexts.getCapacity());
+    }
+}
@@ -0,0 +1,199 @@
+package wms.wmsjfx.pathFinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static wms.wmsjfx.pathFinding.PathTestSupport.pathCost;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.equipmentManager.ChargingStation;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+import wms.wmsjfx.warehouse.WarehouseObject;
+
+class StationDistanceFieldsTest {
+
+    /** 12x12 floor with two shelf rows, a packing and a charging station. */
+    private WarehouseManager aisleFloor() {
+        WarehouseManager wm = new WarehouseManager(12, 12);
+        for (int x = 2; x < 10; x++) {
+            wm.addObjectToFloor(new StorageShelf("A" + x, x, 4, WahouseObjectType.StorageShelf));
+            wm.addObjectToFloor(new StorageShelf("B" + x, x, 7, WahouseObjectType.StorageShelf));
+        }
+        wm.addObjectToFloor(new PackingStation("P1", 5, 11, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("C1", 11, 0, WahouseObjectType.ChargingStation));
+        return wm;
+    }
+
+    @Test
+    @DisplayName("Field distances match A* path costs from every cell, and gradient paths are optimal")
+    void fieldMatchesAStar() {
+        WarehouseManager wm = aisleFloor();
+        PathFinding pf = new PathFinding(wm);
+        StationDistanceFields fields = pf.getStationDistanceFields();
+        assertEquals(18, fields.getFieldCount()); // 16 shelves + 2 stations
+
+        Point packing = new Point(5, 11);
+        // Straight down the free x=0 column, then diagonally past the shelf rows: 6*10 + 5*14
+        assertEquals(130, fields.getDistance(packing, new Point(0, 0)));
+        assertEquals(130, pathCost(new Point(0, 0), pf.findPath(new Point(0, 0), packing)));
+
+        PathFinder aStar = pf.getPathFinder(PathAlgorithm.A_STAR);
+        for (int x = 0; x < 12; x++) {
+            for (int y = 0; y < 12; y++) {
+                Point from = new Point(x, y);
+                List<Point> gradient = fields.pathTo(packing, from);
+                int expected = pathCost(from, aStar.findPath(from, packing));
+                assertEquals(expected, fields.getDistance(packing, from), "Distance from " + from);
+                assertEquals(expected, pathCost(from, gradient), "Gradient path from " + from);
+                if (!from.equals(packing)) {
+                    assertEquals(packing, gradient.get(gradient.size() - 1));
+                }
+            }
+        }
+        // Against a shelf target, which A* itself treats as enterable only at the end
+        Point shelf = new Point(6, 7);
+        List<Point> viaField = fields.pathTo(shelf, new Point(0, 0));
+        assertEquals(fields.getDistance(shelf, new Point(0, 0)), pathCost(new Point(0, 0), viaField));
+        assertEquals(-1, fields.getDistance(new Point(0, 0), new Point(1, 1)), "No field for an empty cell");
+    }
+
+    @Test
+    @DisplayName("Incremental repairs after blocking/unblocking cells equal a full rebuild, under every corner rule")
+    void incrementalRepair_equalsRebuild() {
+        for (CornerCutting rule : CornerCutting.values()) {
+            incrementalRepair_equalsRebuild(rule);
+        }
+    }
+
+    private void incrementalRepair_equalsRebuild(CornerCutting rule) {
+        List<WarehouseObject> objects = new ArrayList<>(aisleFloor().getAllWarehouseObjects());
+        WarehouseMap map = new WarehouseMap(12, 12, objects, rule);
+        StationDistanceFields incremental = StationDistanceFields.create(map, objects);
+
+        Random random = new Random(19);
+        List<Point> blocked = new ArrayList<>();
+        for (int step = 0; step < 60; step++) {
+            Point p = new Point(random.nextInt(12), random.nextInt(12));
+            if (map.getWarehouseObject(p).nodeType != NodeType.None) continue;
+            if (!blocked.isEmpty() && random.nextInt(3) == 0) {
+                Point reopen = blocked.remove(random.nextInt(blocked.size()));
+                map.setWalkable(reopen, true);
+            } else if (map.isWalkable(p.x, p.y)) {
+                map.setWalkable(p, false);
+                blocked.add(p);
+            }
+
+            // A field built from scratch on the current map is the reference
+            StationDistanceFields rebuilt = StationDistanceFields.create(map, objects);
+            map.removeChangeListener(rebuilt);
+            for (WarehouseObject station : objects) {
+                for (int x = 0; x < 12; x++) {
+                    for (int y = 0; y < 12; y++) {
+                        Point from = new Point(x, y);
+                        assertEquals(rebuilt.getDistance(station.getLocation(), from),
+                                incremental.getDistance(station.getLocation(), from),
+                                rule + " step " + step + ": distance to " + station.getId() + " from " + from);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("With corner cutting forbidden, A* and the fields agree and no route touches a shelf corner")
+    void cornerCuttingForbidden_fieldsMatchAStar() {
+        List<WarehouseObject> objects = new ArrayList<>(aisleFloor().getAllWarehouseObjects());
+        WarehouseMap map = new WarehouseMap(12, 12, objects, CornerCutting.FORBIDDEN);
+        StationDistanceFields fields = StationDistanceFields.create(map, objects);
+        AStarPathFinder aStar = new AStarPathFinder(map);
+        map.setWalkable(new Point(1, 5), false); // also closes the diagonal moves around it
+
+        for (WarehouseObject station : objects) {
+            Point target = station.getLocation();
+            for (int x = 0; x < 12; x++) {
+                for (int y = 0; y < 12; y++) {
+                    Point from = new Point(x, y);
+                    List<Point> expected = aStar.findPath(from, target);
+                    List<Point> path = fields.pathTo(target, from);
+                    if (expected.isEmpty()) continue;
+                    assertEquals(pathCost(from, expected), pathCost(from, path), "Cost " + from + " -> " + target);
+
+                    Point prev = from;
+                    for (Point step : path) {
+                        if (step.x != prev.x && step.y != prev.y) {
+                            assertTrue(map.isWalkable(step.x, prev.y) && map.isWalkable(prev.x, step.y),
+                                    "Corner cut " + prev + " -> " + step);
+                        }
+                        prev = step;
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A field whose costs do not fit its 2-byte cells answers as if there were none")
+    void costsTooLarge_noField() {
+        // A 7000-cell long floor: its far end is 69,990 from P1
+        WarehouseManager wm = new WarehouseManager(7000, 2);
+        wm.addObjectToFloor(new PackingStation("P1", 0, 0, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("C1", 3500, 1, WahouseObjectType.ChargingStation));
+        PathFinding pf = new PathFinding(wm);
+        StationDistanceFields fields = pf.getStationDistanceFields();
+
+        assertFalse(fields.hasField(new Point(0, 0)));
+        assertEquals(-1, fields.getDistance(new Point(0, 0), new Point(6999, 0)));
+        assertNull(fields.pathTo(new Point(0, 0), new Point(6999, 0)));
+        assertEquals(6999, pf.findPath(new Point(6999, 0), new Point(0, 0)).size(), "found by searching instead");
+        assertEquals(34_994, fields.getDistance(new Point(3500, 1), new Point(1, 0)), "every cost to C1 fits");
+    }
+
+    @Test
+    @DisplayName("Concurrent pathTo calls to the same station return the same routes as one thread does")
+    void concurrentPathTo_sameStation_matchesSingleThread() throws Exception {
+        WarehouseManager wm = aisleFloor();
+        StationDistanceFields fields = new PathFinding(wm).getStationDistanceFields();
+        Point packing = new Point(5, 11);
+        List<List<Point>> expected = new ArrayList<>();
+        for (int cell = 0; cell < 144; cell++) {
+            expected.add(fields.pathTo(packing, new Point(cell % 12, cell / 12)));
+        }
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> mismatches = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                mismatches.add(pool.submit(() -> {
+                    go.await();
+                    int wrong = 0;
+                    for (int round = 0; round < 200; round++) {
+                        for (int cell = 0; cell < 144; cell++) {
+                            if (!expected.get(cell).equals(fields.pathTo(packing, new Point(cell % 12, cell / 12)))) wrong++;
+                        }
+                    }
+                    return wrong;
+                }));
+            }
+            go.countDown();
+            for (Future<Integer> wrong : mismatches) {
+                assertEquals(0, wrong.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
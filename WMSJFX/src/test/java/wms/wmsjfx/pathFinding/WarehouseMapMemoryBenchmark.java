@@ -0,0 +1,65 @@
+package wms.wmsjfx.pathFinding;
+
+import java.awt.Point;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseObject;
+
+/**
+ * Manual benchmark (not run by surefire): heap taken by a WarehouseMap compared
+ * with the former layout of one Node (and one Point) per cell in a Node[][].
+ * Run with: java -cp target/classes:target/test-classes wms.wmsjfx.pathFinding.WarehouseMapMemoryBenchmark [size]
+ */
+public class WarehouseMapMemoryBenchmark {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        List<WarehouseObject> shelves = new ArrayList<>();
+        for (int x = 2; x < size; x += 4) {
+            for (int y = 2; y < size - 2; y++) {
+                shelves.add(new StorageShelf("S" + x + "-" + y, x, y, WahouseObjectType.StorageShelf));
+            }
+        }
+
+        long before = usedHeap();
+        Node[][] legacy = legacyLayout(size, shelves);
+        long legacyBytes = usedHeap() - before;
+
+        before = usedHeap();
+        WarehouseMap map = new WarehouseMap(size, size, shelves);
+        long mapBytes = usedHeap() - before;
+
+        System.out.printf("%dx%d floor, %d shelves%n", size, size, shelves.size());
+        System.out.printf("Node[][] layout   %8.1f MB%n", legacyBytes / 1e6);
+        System.out.printf("bitset + byte[]   %8.1f MB%n", mapBytes / 1e6);
+        // Keep the legacy layout alive while the map is measured
+        Reference.reachabilityFence(legacy);
+    }
+
+    /** One Node per cell, as WarehouseMap used to store the floor. */
+    private static Node[][] legacyLayout(int size, List<WarehouseObject> shelves) {
+        Node[][] nodes = new Node[size][size];
+        for (WarehouseObject shelf : shelves) {
+            Point p = shelf.getLocation();
+            nodes[p.x][p.y] = new Node(NodeType.Shelf, false, p);
+        }
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (nodes[x][y] == null) nodes[x][y] = new Node(NodeType.None, true, new Point(x, y));
+            }
+        }
+        return nodes;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
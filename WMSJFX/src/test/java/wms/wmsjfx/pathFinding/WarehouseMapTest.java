@@ -64,4 +64,112 @@ class WarehouseMapTest {
         Node corner = map.getWarehouseObject(new Point(0, 0));
         assertEquals(3, map.getNeighbors(corner).size());
     }
+
+    @Test
+    @DisplayName("changedCellsSince lists walkability changes after a version, and null once they were dropped")
+    void changedCellsSince_reportsChangesAndOverflow() {
+        WarehouseMap map = new WarehouseMap(5, 5, sampleObjects());
+        long before = map.getVersion();
+
+        map.setWalkable(new Point(0, 0), false);
+        long afterFirst = map.getVersion();
+        map.setWalkable(new Point(4, 4), false);
+        map.setWalkable(new Point(4, 4), false); // no walkability change, nothing to log
+
+        assertEquals(List.of(new Point(0, 0), new Point(4, 4)), map.changedCellsSince(before));
+        assertEquals(List.of(new Point(4, 4)), map.changedCellsSince(afterFirst));
+        assertTrue(map.changedCellsSince(map.getVersion()).isEmpty());
+
+        for (int i = 0; i < 2000; i++) {
+            map.setWalkable(new Point(0, 1), i % 2 == 0);
+        }
+        assertNull(map.changedCellsSince(before), "Changes that fell out of the log must not be reported as none");
+        assertNotNull(map.changedCellsSince(map.getVersion() - 10));
+    }
+
+    @Test
+    @DisplayName("Placing an object bumps the version only if the cell's walkability flips")
+    void addWarehouseObject_bumpsVersionOnlyOnWalkabilityChange() {
+        WarehouseMap map = new WarehouseMap(5, 5, sampleObjects());
+        long before = map.getVersion();
+
+        map.addWarehouseObject(NodeType.Robot, true, new Point(0, 0));     // still walkable
+        map.addWarehouseObject(NodeType.Shelf, false, new Point(1, 1));    // already blocked
+        assertEquals(before, map.getVersion());
+        assertEquals(NodeType.Robot, map.getNodeType(0, 0));
+
+        map.addWarehouseObject(NodeType.Shelf, false, new Point(0, 0));
+        assertEquals(before + 1, map.getVersion());
+        assertEquals(List.of(new Point(0, 0)), map.changedCellsSince(before));
+    }
+
+    @Test
+    @DisplayName("Walkability of cells sharing a bitset word is stored independently; Node views are snapshots")
+    void bitsetCells_independentAndViewsAreSnapshots() {
+        WarehouseMap map = new WarehouseMap(13, 11, sampleObjects()); // 143 cells: words are not aligned to rows
+        Point a = new Point(11, 4); // cell 63
+        Point b = new Point(12, 4); // cell 64, first bit of the next word
+
+        map.setWalkable(a, false);
+        assertFalse(map.isWalkable(a.x, a.y));
+        assertTrue(map.isWalkable(b.x, b.y));
+        assertTrue(map.isWalkable(10, 4));
+        assertFalse(map.isWalkable(4 * 13 + 11));
+
+        Node view = map.getWarehouseObject(b);
+        view.walkable = false;
+        assertTrue(map.isWalkable(b.x, b.y), "Changing a view must not change the map");
+        map.setWalkable(b, false);
+        assertTrue(view.position.equals(b) && map.getNodeType(b.x, b.y) == NodeType.None);
+        assertFalse(map.getWarehouseObject(b).getWalkable());
+
+        // The last, partly used word
+        map.setWalkable(new Point(12, 10), false);
+        assertFalse(map.isWalkable(12, 10));
+        assertTrue(map.isWalkable(11, 10));
+    }
+
+    @Test
+    @DisplayName("Index-based neighbours: on-map, walkable or target, diagonal moves per CornerCutting rule")
+    void indexNeighbors_boundsTargetAndCornerRules() {
+        int[] neighbors = new int[8];
+        int[] costs = new int[8];
+        WarehouseMap open = new WarehouseMap(5, 5, new ArrayList<>());
+        assertEquals(8, open.getNeighbors(2 * 5 + 2, -1, neighbors, costs));
+        assertEquals(5, open.getNeighbors(2, -1, neighbors, costs));
+        assertEquals(3, open.getNeighbors(0, -1, neighbors, costs));
+        assertEquals(10, costs[0]); // (0,0) -> (0,1)
+        assertEquals(14, costs[2]); // (0,0) -> (1,1)
+
+        // Shelves on both corners of the diagonal (1,1) -> (2,2), and on (3,3)
+        List<WarehouseObject> shelves = List.of(
+                new StorageShelf("S1", 2, 1, WahouseObjectType.StorageShelf),
+                new StorageShelf("S2", 1, 2, WahouseObjectType.StorageShelf),
+                new StorageShelf("S3", 3, 3, WahouseObjectType.StorageShelf));
+        int from = 1 * 5 + 1;
+        int squeezed = 2 * 5 + 2;
+        for (CornerCutting rule : CornerCutting.values()) {
+            WarehouseMap map = new WarehouseMap(5, 5, shelves, rule);
+            int count = map.getNeighbors(from, -1, neighbors, costs);
+            boolean diagonal = contains(neighbors, count, squeezed);
+            assertEquals(rule == CornerCutting.ALLOWED, diagonal, rule + ": squeeze between two shelves");
+            assertFalse(contains(neighbors, count, 1 * 5 + 2), "a shelf is not driven onto");
+            assertTrue(contains(neighbors, map.getNeighbors(from, 1 * 5 + 2, neighbors, costs), 1 * 5 + 2),
+                    "the target shelf may be entered");
+            // Adjacent cells ignore their own walkability: only (1,1)'s diagonals past shelves drop out
+            int adjacent = map.getAdjacentCells(from, neighbors, costs);
+            assertEquals(rule == CornerCutting.ALLOWED ? 8 : rule == CornerCutting.ONE_CORNER_FREE ? 7 : 5, adjacent);
+
+            // One free corner: (2,2) -> (3,1) passes (3,2) free and (2,1) shelf
+            count = map.getNeighbors(squeezed, -1, neighbors, costs);
+            assertEquals(rule != CornerCutting.FORBIDDEN, contains(neighbors, count, 1 * 5 + 3), rule + ": one free corner");
+        }
+    }
+
+    private static boolean contains(int[] cells, int count, int cell) {
+        for (int i = 0; i < count; i++) {
+            if (cells[i] == cell) return true;
+        }
+        return false;
+    }
 }
@@ -0,0 +1,124 @@
+package wms.wmsjfx.simulation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SimulationClockTest {
+
+    private static final long HOUR_MS = TimeUnit.HOURS.toMillis(1);
+
+    @FunctionalInterface
+    private interface Work {
+        void run() throws InterruptedException;
+    }
+
+    /**
+     * A registered participant thread, not yet started. Register every participant
+     * before starting any: a lone participant that waits lets time jump at once.
+     */
+    private static Thread participant(SimulationClock clock, String name, Work work) {
+        Thread thread = new Thread(() -> {
+            try {
+                work.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                clock.deregister(Thread.currentThread());
+            }
+        }, name);
+        clock.register(thread);
+        return thread;
+    }
+
+    @Test
+    @DisplayName("Scaled time x100 sleeps a simulated second in about 10 ms")
+    void scaledClock_runsFaster() throws Exception {
+        SimulationClock clock = SimulationClock.scaled(100);
+        long simulatedStart = clock.millis();
+        long realStart = System.nanoTime();
+
+        clock.sleep(1000);
+
+        assertTrue(clock.millis() - simulatedStart >= 1000);
+        assertTrue(System.nanoTime() - realStart < TimeUnit.MILLISECONDS.toNanos(500));
+        assertThrows(IllegalArgumentException.class, () -> SimulationClock.scaled(0));
+    }
+
+    @Test
+    @DisplayName("Discrete-event time jumps from wake-up to wake-up in order, without waiting for the wall clock")
+    void discreteEvent_wakesInTimeOrder() throws Exception {
+        SimulationClock clock = SimulationClock.discreteEvent();
+        List<String> woken = new CopyOnWriteArrayList<>();
+        long realStart = System.nanoTime();
+
+        Thread late = participant(clock, "late", () -> {
+            clock.sleep(3 * HOUR_MS);
+            woken.add("late@" + clock.millis());
+        });
+        Thread early = participant(clock, "early", () -> {
+            clock.sleep(HOUR_MS);
+            woken.add("early@" + clock.millis());
+            clock.sleep(HOUR_MS);
+            woken.add("early@" + clock.millis());
+        });
+        late.start();
+        early.start();
+        late.join(5000);
+        early.join(5000);
+
+        assertEquals(List.of("early@" + HOUR_MS, "early@" + 2 * HOUR_MS, "late@" + 3 * HOUR_MS), woken);
+        assertEquals(3 * HOUR_MS, clock.millis());
+        assertTrue(System.nanoTime() - realStart < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    @DisplayName("A discrete-event poll returns the element when it is put, or null once its timeout has passed")
+    void discreteEvent_pollTimesOutInSimulatedTime() throws Exception {
+        SimulationClock clock = SimulationClock.discreteEvent();
+        BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+        List<String> polled = new CopyOnWriteArrayList<>();
+
+        Thread consumer = participant(clock, "consumer", () -> {
+            polled.add(clock.poll(queue, 30, TimeUnit.SECONDS) + "@" + clock.millis());
+            polled.add(clock.poll(queue, 30, TimeUnit.SECONDS) + "@" + clock.millis());
+        });
+        Thread producer = participant(clock, "producer", () -> {
+            clock.sleep(5000);
+            queue.put("task");
+        });
+        consumer.start();
+        producer.start();
+        producer.join(5000);
+        consumer.join(5000);
+
+        assertEquals(List.of("task@5000", "null@35000"), polled);
+    }
+
+    @Test
+    @DisplayName("Time does not move on while a registered thread is still working")
+    void discreteEvent_waitsForRunningParticipants() throws Exception {
+        SimulationClock clock = SimulationClock.discreteEvent();
+        List<Long> seen = new CopyOnWriteArrayList<>();
+        Thread worker = participant(clock, "worker", () -> {
+            Thread.sleep(200); // real work: not a wait on the clock
+            seen.add(clock.millis());
+        });
+        worker.start();
+        long realStart = System.nanoTime();
+
+        clock.sleep(1000);
+
+        assertEquals(List.of(0L), seen);
+        assertTrue(System.nanoTime() - realStart >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(1000, clock.millis());
+        worker.join(1000);
+    }
+}
@@ -0,0 +1,96 @@
+package wms.wmsjfx.taskManager;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.pathFinding.PickTourPlanner;
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+/**
+ * Manual benchmark (not run by surefire): trips to the packing station and travel
+ * for multi-line orders picked one line per trip, against batches of orders
+ * picked on one tour. Every 'ordersPerWindow' orders are one batching window.
+ * Travel is in path units (10 per straight step) from the packing station
+ * through the shelves and back; "unordered" visits the batch's shelves in line order.
+ * Run with: java -cp target/classes:target/test-classes wms.wmsjfx.taskManager.BatchPickingBenchmark [orders] [ordersPerWindow] [maxLines]
+ */
+public class BatchPickingBenchmark {
+
+    private static final int SIZE = 40;
+
+    public static void main(String[] args) throws Exception {
+        int orderCount = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int ordersPerWindow = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int maxLines = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        WarehouseManager wm = new WarehouseManager(SIZE, SIZE);
+        List<String> products = new ArrayList<>();
+        for (int x = 3; x < SIZE - 2; x += 4) {
+            for (int y = 2; y < SIZE - 2; y += 3) {
+                String shelf = "S" + x + "-" + y;
+                wm.addObjectToFloor(new StorageShelf(shelf, x, y, WahouseObjectType.StorageShelf));
+                String product = "P" + x + "-" + y;
+                wm.addProductToInventory(new Product(product, product), 1_000_000, shelf);
+                products.add(product);
+            }
+        }
+        Point pack = new Point(0, SIZE / 2);
+        wm.addObjectToFloor(new PackingStation("PACK", pack.x, pack.y, WahouseObjectType.PackingStation));
+
+        PickTourPlanner planner = new PickTourPlanner(new PathFinding(wm));
+        BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+        OrderBatcher batcher = new OrderBatcher(queue, wm, planner, 60_000, maxLines, SimulationClock.realTime());
+        Random random = new Random(42);
+
+        long singleTrips = 0;
+        double singleTravel = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < orderCount; i++) {
+            List<OrderLine> lines = new ArrayList<>();
+            int lineCount = 1 + random.nextInt(5);
+            for (int l = 0; l < lineCount; l++) {
+                String product = products.get(random.nextInt(products.size()));
+                lines.add(new OrderLine(product, 1));
+                Point shelf = wm.getProductLocationByProductID(product);
+                singleTravel += planner.length(List.of(pack, shelf), pack);
+                singleTrips++;
+            }
+            batcher.submit(new MultiLineOrder("O" + i, lines, wm));
+            if ((i + 1) % ordersPerWindow == 0) batcher.flush();
+        }
+        batcher.flush();
+        long batchingNs = System.nanoTime() - start;
+
+        double batchTravel = 0, unorderedTravel = 0;
+        for (Task task : queue) {
+            PickBatchTask batch = (PickBatchTask) task;
+            List<Point> tour = new ArrayList<>(batch.getTour());
+            tour.add(0, pack);
+            batchTravel += planner.length(tour, pack);
+            List<Point> unordered = new ArrayList<>();
+            unordered.add(pack);
+            for (OrderLine line : batch.getLines()) {
+                Point shelf = wm.getProductLocationByProductID(line.getProductID());
+                if (!unordered.contains(shelf)) unordered.add(shelf);
+            }
+            unorderedTravel += planner.length(unordered, pack);
+        }
+
+        System.out.printf("%d orders (%d lines), %d orders per window, at most %d lines per batch%n",
+                orderCount, singleTrips, ordersPerWindow, maxLines);
+        System.out.printf("one line per trip  trips %5d  travel %10.0f%n", singleTrips, singleTravel);
+        System.out.printf("batched, unordered trips %5d  travel %10.0f%n", queue.size(), unorderedTravel);
+        System.out.printf("batched, 2-opt     trips %5d  travel %10.0f  (batching + tours %.1f ms)%n",
+                queue.size(), batchTravel, batchingNs / 1e6);
+    }
+}
@@ -0,0 +1,164 @@
+package wms.wmsjfx.taskManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.pathFinding.PickTourPlanner;
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+class OrderBatcherTest {
+
+    private final WarehouseManager wm = new WarehouseManager(20, 10);
+    private final PickTourPlanner planner;
+    private final BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+
+    OrderBatcherTest() {
+        wm.addObjectToFloor(new StorageShelf("S1", 2, 2, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new StorageShelf("S2", 10, 2, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new StorageShelf("S3", 17, 2, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new PackingStation("P1", 0, 9, WahouseObjectType.PackingStation));
+        wm.addProductToInventory(new Product("Bolt", "B"), 5, "S1");
+        wm.addProductToInventory(new Product("Nut", "N"), 5, "S2");
+        wm.addProductToInventory(new Product("Washer", "W"), 5, "S3");
+        planner = new PickTourPlanner(new PathFinding(wm));
+    }
+
+    private MultiLineOrder order(String id, TaskPriority priority, OrderLine... lines) throws Exception {
+        return new MultiLineOrder(id, List.of(lines), wm, priority, Task.NO_SLA);
+    }
+
+    @Test
+    @DisplayName("Orders within one window share a batch: lines of a product are merged and each shelf is one stop")
+    void ordersInWindow_shareOneBatch() throws Exception {
+        OrderBatcher batcher = new OrderBatcher(queue, wm, planner, 60_000);
+        batcher.submit(order("O1", TaskPriority.STANDARD, new OrderLine("B", 1), new OrderLine("W", 2)));
+        batcher.submit(order("O2", TaskPriority.STANDARD, new OrderLine("N", 1), new OrderLine("B", 2)));
+        assertTrue(queue.isEmpty(), "the window is still open");
+
+        batcher.flush();
+
+        PickBatchTask batch = (PickBatchTask) queue.poll();
+        assertNotNull(batch);
+        assertTrue(queue.isEmpty());
+        assertEquals(TaskType.PICK_BATCH, batch.getType());
+        assertEquals(List.of("O1", "O2"), batch.getOrderIds());
+        assertEquals(3, batch.getLines().size());
+        assertEquals(3, batch.getLines().stream().filter(l -> l.getProductID().equals("B")).findFirst().orElseThrow().getQuantity());
+        assertEquals(new HashSet<>(List.of(new Point(2, 2), new Point(10, 2), new Point(17, 2))), new HashSet<>(batch.getTour()));
+        assertEquals(new Point(2, 2), batch.getTour().get(2), "the tour ends at the shelf next to the packing station");
+        assertEquals(1, batcher.getBatchCount());
+        assertEquals(2, batcher.getOrderCount());
+        assertEquals(4, batcher.getLineCount());
+    }
+
+    @Test
+    @DisplayName("Priorities are batched apart, and an order that exceeds the line limit or the stock starts a new batch")
+    void incompatibleOrders_goToSeparateBatches() throws Exception {
+        OrderBatcher batcher = new OrderBatcher(queue, wm, planner, 60_000, 3, SimulationClock.realTime());
+        batcher.submit(order("express", TaskPriority.EXPRESS, new OrderLine("B", 1)));
+        batcher.submit(order("s1", TaskPriority.STANDARD, new OrderLine("B", 3), new OrderLine("N", 1)));
+        batcher.submit(order("s2", TaskPriority.STANDARD, new OrderLine("B", 3)));         // 6 bolts > 5 in stock
+        batcher.submit(order("s3", TaskPriority.STANDARD, new OrderLine("N", 1), new OrderLine("W", 1))); // fills that batch to 3 lines
+        batcher.submit(order("s4", TaskPriority.STANDARD, new OrderLine("W", 1)));
+
+        batcher.flush();
+
+        List<List<String>> batches = queue.stream().map(t -> ((PickBatchTask) t).getOrderIds()).toList();
+        assertEquals(List.of(List.of("s1"), List.of("s2", "s3"), List.of("express"), List.of("s4")), batches);
+        assertEquals(TaskPriority.EXPRESS, queue.stream().filter(t -> ((PickBatchTask) t).getOrderIds().contains("express"))
+                .findFirst().orElseThrow().getPriority());
+    }
+
+    @Test
+    @DisplayName("The batcher thread submits a batch once its window has passed; without a window orders go out at once")
+    void windowExpiry_andNoWindow() throws Exception {
+        OrderBatcher batcher = new OrderBatcher(queue, wm, planner, 100);
+        Thread thread = new Thread(batcher, "OrderBatcher-Test");
+        thread.start();
+        try {
+            batcher.submit(order("O1", TaskPriority.STANDARD, new OrderLine("B", 1)));
+            batcher.submit(order("O2", TaskPriority.STANDARD, new OrderLine("N", 1)));
+            PickBatchTask batch = (PickBatchTask) queue.poll(5, TimeUnit.SECONDS);
+            assertNotNull(batch);
+            assertEquals(List.of("O1", "O2"), batch.getOrderIds());
+        } finally {
+            thread.interrupt();
+            thread.join(1000);
+        }
+
+        OrderBatcher immediate = new OrderBatcher(queue, wm, planner, 0);
+        immediate.submit(order("O3", TaskPriority.STANDARD, new OrderLine("W", 1), new OrderLine("B", 1)));
+        PickBatchTask alone = (PickBatchTask) queue.poll();
+        assertNotNull(alone);
+        assertEquals(List.of("O3"), alone.getOrderIds());
+        assertEquals(2, alone.getTour().size());
+    }
+
+    @Test
+    @DisplayName("A batch short of stock is split, orders that still cannot be picked are rejected, and so is everything without a packing station")
+    void failedBatches_splitOrRejected() throws Exception {
+        OrderBatcher batcher = new OrderBatcher(queue, wm, planner, 60_000);
+        List<MultiLineOrder> refused = new ArrayList<>();
+        batcher.addRejectedOrderListener(refused::add);
+        batcher.submit(order("O1", TaskPriority.STANDARD, new OrderLine("B", 2), new OrderLine("N", 1)));
+        MultiLineOrder second = order("O2", TaskPriority.STANDARD, new OrderLine("B", 2), new OrderLine("W", 1));
+        batcher.submit(second);
+        wm.decreaseProductQuantity("W", 5); // gone before the window closes
+
+        batcher.flush();
+
+        PickBatchTask batch = (PickBatchTask) queue.poll();
+        assertNotNull(batch);
+        assertEquals(List.of("O1"), batch.getOrderIds());
+        assertTrue(queue.isEmpty());
+        assertEquals(List.of(second), refused);
+        assertEquals(1, batcher.getRejectedOrderCount());
+
+        WarehouseManager noStation = new WarehouseManager(10, 10);
+        noStation.addObjectToFloor(new StorageShelf("S1", 2, 2, WahouseObjectType.StorageShelf));
+        noStation.addProductToInventory(new Product("Bolt", "B"), 5, "S1");
+        OrderBatcher stranded = new OrderBatcher(queue, noStation, new PickTourPlanner(new PathFinding(noStation)), 0);
+        stranded.addRejectedOrderListener(refused::add);
+        MultiLineOrder third = new MultiLineOrder("O3", List.of(new OrderLine("B", 1)), noStation, TaskPriority.STANDARD, Task.NO_SLA);
+        stranded.submit(third);
+
+        assertTrue(queue.isEmpty());
+        assertEquals(List.of(second, third), refused);
+        assertEquals(0, stranded.getBatchCount());
+    }
+
+    @Test
+    @DisplayName("Multi-line orders through the TaskManager: validated, and refused without a batcher")
+    void taskManager_multiLineOrders() throws Exception {
+        TaskManager tm = new TaskManager(queue, wm);
+        assertThrows(TaskCreationException.class, () -> tm.createNewOrder(List.of(new OrderLine("B", 1))));
+
+        tm.setOrderBatcher(new OrderBatcher(queue, wm, planner, 0));
+        assertThrows(TaskCreationException.class, () -> tm.createNewOrder(List.of(new OrderLine("B", 3), new OrderLine("B", 3))));
+        assertThrows(TaskCreationException.class, () -> tm.createNewOrder(List.of(new OrderLine("missing", 1))));
+        assertThrows(TaskCreationException.class, () -> tm.createNewOrder(List.of()));
+        assertTrue(queue.isEmpty());
+
+        tm.createNewOrder(List.of(new OrderLine("B", 2), new OrderLine("N", 1)), TaskPriority.EXPRESS, 60_000);
+        PickBatchTask batch = (PickBatchTask) queue.poll();
+        assertNotNull(batch);
+        assertEquals(TaskPriority.EXPRESS, batch.getPriority());
+        assertTrue(batch.getSlaMillis() <= 60_000);
+    }
+}
@@ -0,0 +1,60 @@
+package wms.wmsjfx.taskManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.equipmentManager.ChargingStation;
+import wms.wmsjfx.equipmentManager.DispatchEvent;
+import wms.wmsjfx.equipmentManager.EquipmentManager;
+import wms.wmsjfx.equipmentManager.Robot;
+import wms.wmsjfx.equipmentManager.RobotExecution;
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+class PickBatchTaskTest {
+
+    @Test
+    @DisplayName("A pick batch is dispatched like an order, visits every shelf of its tour and makes one packing drop")
+    void batchIsDispatchedAndPickedInOneTrip() throws Exception {
+        WarehouseManager wm = new WarehouseManager(20, 10);
+        wm.addObjectToFloor(new StorageShelf("S1", 2, 2, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new StorageShelf("S2", 10, 2, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new PackingStation("P1", 0, 9, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("C1", 19, 9, WahouseObjectType.ChargingStation));
+        wm.addProductToInventory(new Product("Bolt", "B"), 5, "S1");
+        wm.addProductToInventory(new Product("Nut", "N"), 5, "S2");
+        EquipmentManager em = new EquipmentManager(wm, new ArrayBlockingQueue<>(16), new PathFinding(wm),
+                RobotExecution.PLATFORM_THREADS, SimulationClock.discreteEvent());
+
+        PickBatchTask batch = new PickBatchTask("Batch-1", List.of("O1", "O2"),
+                List.of(new OrderLine("N", 2), new OrderLine("B", 1)),
+                List.of(new Point(10, 2), new Point(2, 2)), wm, TaskPriority.STANDARD, Task.NO_SLA);
+        assertThrows(OrderTaskException.class, () -> new PickBatchTask("Batch-2", List.of("O3"),
+                List.of(new OrderLine("B", 1)), List.of(new Point(10, 2)), wm, TaskPriority.STANDARD, Task.NO_SLA));
+
+        Robot robot = new Robot("R1", new Point(12, 4), em, WahouseObjectType.Robot);
+        em.getRobot().add(robot);
+        em.replay(List.of(DispatchEvent.taskSubmitted(batch)));
+        assertEquals(List.of(batch), robot.getQueuedTasks());
+        assertFalse(em.getRobot().contains(robot));
+
+        batch.execute(robot, em);
+
+        assertEquals(new Point(0, 9), robot.getCurrentPosition());
+        assertEquals(4, wm.getProductQuantity("B"));
+        assertEquals(3, wm.getProductQuantity("N"));
+        assertEquals(1, wm.getAllPackingStations().size());
+        assertNotNull(em.requestAvailablePackingStation(robot), "the packing station was released after the drop");
+    }
+}
@@ -0,0 +1,65 @@
+package wms.wmsjfx.taskManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.equipmentManager.ChargingStation;
+import wms.wmsjfx.equipmentManager.DispatchEvent;
+import wms.wmsjfx.equipmentManager.EquipmentManager;
+import wms.wmsjfx.equipmentManager.Robot;
+import wms.wmsjfx.equipmentManager.RobotExecution;
+import wms.wmsjfx.equipmentManager.StationUsage;
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.warehouse.LoadingStation;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+class StockTaskTest {
+
+    @Test
+    @DisplayName("Two stock tasks on one loading station take turns in discrete-event time instead of deadlocking")
+    void sharedLoadingStation_discreteEvent_bothComplete() throws Exception {
+        WarehouseManager wm = new WarehouseManager(10, 10);
+        LoadingStation dock = new LoadingStation("L1", 0, 4, WahouseObjectType.LoadingStation);
+        wm.addObjectToFloor(dock);
+        wm.addObjectToFloor(new StorageShelf("S1", 6, 4, WahouseObjectType.StorageShelf));
+        wm.addObjectToFloor(new PackingStation("P1", 9, 9, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("C1", 9, 0, WahouseObjectType.ChargingStation));
+        wm.addProductToInventory(new Product("Bolt", "B"), 10, "S1");
+        // Both robots one straight step from the dock: they arrive together and one has to wait
+        wm.addObjectToFloor(new Robot("R1", new Point(1, 4), null, WahouseObjectType.Robot));
+        wm.addObjectToFloor(new Robot("R2", new Point(0, 5), null, WahouseObjectType.Robot));
+        SimulationClock clock = SimulationClock.discreteEvent();
+        EquipmentManager em = new EquipmentManager(wm, new ArrayBlockingQueue<>(16), new PathFinding(wm),
+                RobotExecution.PLATFORM_THREADS, clock);
+        try {
+            // Hold time still until both robots have their task
+            clock.register(Thread.currentThread());
+            em.replay(List.of(
+                    DispatchEvent.taskSubmitted(new StockTask("Stock-1", "B", dock, 3, wm)),
+                    DispatchEvent.taskSubmitted(new StockTask("Stock-2", "B", dock, 4, wm))));
+            clock.deregister(Thread.currentThread());
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (wm.getProductQuantity("B") < 17 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(17, wm.getProductQuantity("B"), "both robots loaded at the dock and stocked the shelf");
+            StationUsage usage = em.getLoadingStationUsage(dock);
+            assertEquals(2, usage.getAcquisitions());
+            assertTrue(usage.getWaitMillis() > 0, "one robot waited for the other: " + usage);
+        } finally {
+            em.stop(2000);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package wms.wmsjfx.taskManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import wms.wmsjfx.equipmentManager.ChargingStation;
+import wms.wmsjfx.equipmentManager.EquipmentManager;
+import wms.wmsjfx.equipmentManager.Robot;
+import wms.wmsjfx.equipmentManager.RobotExecution;
+import wms.wmsjfx.pathFinding.PathFinding;
+import wms.wmsjfx.simulation.SimulationClock;
+import wms.wmsjfx.warehouse.PackingStation;
+import wms.wmsjfx.warehouse.Product;
+import wms.wmsjfx.warehouse.StorageShelf;
+import wms.wmsjfx.warehouse.WahouseObjectType;
+import wms.wmsjfx.warehouse.WarehouseManager;
+
+class WavePlannerTest {
+
+    private final WarehouseManager wm = new WarehouseManager(20, 10);
+
+    WavePlannerTest() {
+        wm.addObjectToFloor(new StorageShelf("S1", 5, 2, WahouseObjectType.StorageShelf));
+        wm.addProductToInventory(new Product("Bolt", "B"), 100, "S1");
+    }
+
+    private Task order(String id, TaskPriority priority) throws Exception {
+        return new OrderTask(id, "B", 1, wm, priority, Task.NO_SLA);
+    }
+
+    @Test
+    @DisplayName("Waves fill the free capacity most urgent first, and the next wave waits until the stations' queue runs low")
+    void wavesSizedToCapacity_releasedAtLowWater() throws Exception {
+        BlockingQueue<Task> backlog = new LinkedBlockingQueue<>();
+        BlockingQueue<Task> release = new LinkedBlockingQueue<>();
+        // 10 robots, 2 stations x 2 tasks: at most 4 in flight, next wave at 2 in flight
+        WavePlanner planner = new WavePlanner(backlog, release, 10, 2, 2, 60_000, () -> 0, SimulationClock.realTime());
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) tasks.add(order("bulk-" + i, TaskPriority.BULK));
+        tasks.add(order("express", TaskPriority.EXPRESS));
+        backlog.addAll(tasks);
+
+        assertEquals(4, planner.releaseDueWave());
+        assertEquals(List.of(tasks.get(6), tasks.get(0), tasks.get(1), tasks.get(2)), new ArrayList<>(release));
+        assertEquals(4, planner.getInFlightCount());
+        assertEquals(3, planner.getHeldCount());
+
+        planner.taskFinished(tasks.get(6));
+        assertEquals(0, planner.releaseDueWave(), "3 in flight: the stations are still over-supplied");
+
+        planner.taskFinished(tasks.get(0));
+        assertEquals(2, planner.releaseDueWave());
+        assertEquals(4, planner.getInFlightCount());
+        assertEquals(1, planner.getHeldCount());
+    }
+
+    @Test
+    @DisplayName("A small backlog is held until the wave is full or the hold time has passed")
+    void smallBacklog_heldUntilHoldExpires() throws Exception {
+        BlockingQueue<Task> backlog = new LinkedBlockingQueue<>();
+        BlockingQueue<Task> release = new LinkedBlockingQueue<>();
+        WavePlanner planner = new WavePlanner(backlog, release, 4, 2, 2, 50, () -> 0, SimulationClock.realTime());
+        backlog.add(order("o1", TaskPriority.STANDARD));
+
+        assertEquals(0, planner.releaseDueWave());
+        Thread.sleep(80);
+        assertEquals(1, planner.releaseDueWave());
+        assertEquals(1, release.size());
+    }
+
+    @Test
+    @DisplayName("A wave is reported when its last task finishes, with orders per hour and packing utilisation")
+    void waveReport_throughputAndUtilisation() throws Exception {
+        SimulationClock clock = SimulationClock.discreteEvent();
+        AtomicLong packingBusy = new AtomicLong();
+        BlockingQueue<Task> backlog = new LinkedBlockingQueue<>();
+        WavePlanner planner = new WavePlanner(backlog, new LinkedBlockingQueue<>(), 2, 1, 2, 0, packingBusy::get, clock);
+        Task first = order("o1", TaskPriority.STANDARD);
+        Task second = order("o2", TaskPriority.STANDARD);
+        backlog.add(first);
+        backlog.add(second);
+        assertEquals(2, planner.releaseDueWave());
+
+        clock.sleep(60_000);
+        packingBusy.set(45_000);
+        planner.taskFinished(first);
+        assertTrue(planner.getWaveReports().isEmpty());
+        planner.taskFinished(second);
+
+        WaveReport report = planner.getWaveReports().get(0);
+        assertEquals(1, report.getWaveNumber());
+        assertEquals(2, report.getOrderCount());
+        assertEquals(60_000, report.getDurationMillis());
+        assertEquals(120.0, report.getOrdersPerHour(), 1e-9);
+        assertEquals(0.75, report.getPackingUtilisation(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("A task the dispatcher rejects frees its slot and its wave still closes")
+    void undispatchableTask_freesItsSlot() throws Exception {
+        wm.addObjectToFloor(new PackingStation("P1", 0, 9, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("C1", 19, 9, WahouseObjectType.ChargingStation));
+        wm.addObjectToFloor(new Robot("R1", new Point(10, 5), null, WahouseObjectType.Robot));
+        wm.addObjectToFloor(new Robot("R2", new Point(12, 5), null, WahouseObjectType.Robot));
+        BlockingQueue<Task> backlog = new LinkedBlockingQueue<>();
+        BlockingQueue<Task> release = new LinkedBlockingQueue<>();
+        EquipmentManager em = new EquipmentManager(wm, release, new PathFinding(wm),
+                RobotExecution.PLATFORM_THREADS, SimulationClock.discreteEvent());
+        WavePlanner planner = new WavePlanner(backlog, release, em);
+        backlog.add(new GoToStartTask(new Point(1, 1)));
+        backlog.add(order("o1", TaskPriority.STANDARD));
+        assertEquals(2, planner.releaseDueWave());
+
+        Thread dispatcher = new Thread(em, "EM-Dispatcher-Test-Reject");
+        em.registerDispatcherThread(dispatcher);
+        dispatcher.start();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+            while (planner.getWaveReports().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+        } finally {
+            em.stop(3000);
+        }
+
+        assertEquals(0, planner.getInFlightCount());
+        assertEquals(99, wm.getProductQuantity("B"));
+        List<WaveReport> reports = planner.getWaveReports();
+        assertEquals(1, reports.size());
+        assertEquals(2, reports.get(0).getTaskCount());
+        assertEquals(1, reports.get(0).getOrderCount());
+    }
+
+    @Test
+    @DisplayName("Between a TaskManager and a running EquipmentManager every order is released, picked and reported")
+    void endToEnd_onDiscreteEventClock() throws Exception {
+        wm.addObjectToFloor(new PackingStation("P1", 0, 9, WahouseObjectType.PackingStation));
+        wm.addObjectToFloor(new ChargingStation("C1", 19, 9, WahouseObjectType.ChargingStation));
+        wm.addObjectToFloor(new Robot("R1", new Point(10, 5), null, WahouseObjectType.Robot));
+        wm.addObjectToFloor(new Robot("R2", new Point(12, 5), null, WahouseObjectType.Robot));
+        BlockingQueue<Task> backlog = new LinkedBlockingQueue<>();
+        BlockingQueue<Task> release = new LinkedBlockingQueue<>();
+        EquipmentManager em = new EquipmentManager(wm, release, new PathFinding(wm),
+                RobotExecution.PLATFORM_THREADS, SimulationClock.discreteEvent());
+        WavePlanner planner = new WavePlanner(backlog, release, em);
+        TaskManager tm = new TaskManager(backlog, wm);
+        for (int i = 0; i < 5; i++) tm.createNewOrder("B", 1);
+
+        Thread dispatcher = new Thread(em, "EM-Dispatcher-Test-Waves");
+        em.registerDispatcherThread(dispatcher);
+        Thread waves = new Thread(planner, "WavePlanner-Test");
+        em.getSimulationClock().register(waves);
+        dispatcher.start();
+        waves.start();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+            while (wm.getProductQuantity("B") > 95 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            while (planner.getWaveReports().stream().mapToInt(WaveReport::getOrderCount).sum() < 5 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+        } finally {
+            waves.interrupt();
+            em.stop(3000);
+            waves.join(1000);
+        }
+
+        assertEquals(95, wm.getProductQuantity("B"));
+        assertEquals(2, planner.getCapacity());
+        List<WaveReport> reports = planner.getWaveReports();
+        assertEquals(5, reports.stream().mapToInt(WaveReport::getOrderCount).sum());
+        for (WaveReport report : reports) {
+            assertTrue(report.getTaskCount() <= 2);
+            assertTrue(report.getPackingUtilisation() > 0 && report.getPackingUtilisation() <= 1);
+        }
+    }
+}